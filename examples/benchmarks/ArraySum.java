@@ -0,0 +1,24 @@
+public class ArraySum {
+
+	static int rounds = 1000000;
+
+	static int checksum(int[] data) {
+		int total = 0;
+		for (int round = 0; round < rounds; round++) {
+			for (int i = 0; i < data.length; i++) {
+				total = total + data[i] * round;
+			}
+		}
+		return total;
+	}
+
+	public static void main(String[] args) {
+		int[] data = {
+			11, 48, 85, 22, 59, 96, 33, 70, 7, 44, 81, 18, 55, 92, 29, 66,
+			3, 40, 77, 14, 51, 88, 25, 62, 99, 36, 73, 10, 47, 84, 21, 58,
+			95, 32, 69, 6, 43, 80, 17, 54, 91, 28, 65, 2, 39, 76, 13, 50,
+			87, 24, 61, 98, 35, 72, 9, 46, 83, 20, 57, 94, 31, 68, 5, 42
+		};
+		System.out.println(checksum(data));
+	}
+}
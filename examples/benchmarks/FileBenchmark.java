@@ -0,0 +1,292 @@
+import com.juno.runtime.File;
+import com.juno.runtime.FileFuture;
+import com.juno.runtime.FileLines;
+import com.juno.runtime.MappedFile;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Benchmarks of the File runtime module, which Juno code cannot call yet, so they are written
+ * in Java. Each benchmark runs the new implementation against the way it was done before.
+ *
+ * Usage, from the repository root after mvn compile:
+ *   javac -cp target/classes -d /tmp examples/benchmarks/FileBenchmark.java
+ *   java -Xmx4g -cp target/classes:/tmp FileBenchmark <benchmark> <file> [size in MiB or lines] [lookups]
+ * The file to read is generated with log-like lines if it does not exist.
+ *
+ * Benchmarks:
+ *   lines    count and decode the lines of the file: BufferedReader.readLine and Handle.readLine
+ *            against File.lines (as for-in loops read files) and File.mapRead
+ *   readAll  read the whole file into a string: line by line, Files.readString and File.readAll
+ *   write    write lines (100M by default) to the file: a PrintWriter flushed after every line,
+ *            as File handles did, against buffered File handles
+ *   copy     copy the file: reading it all and writing it all, with Files.readAllBytes and
+ *            File.readBytes, against File.copy
+ *   lookup   read longs at random indexes of a binary file (generated if missing, 10 GiB by
+ *            default) with a positional FileChannel.read each, against File.mapLongs views
+ *   async    read every file of a directory (10,000 files of 4 KiB generated if missing) one
+ *            after the other with File.readBytes, against all at once with File.readBytesAsync;
+ *            for cold reads, drop the page cache and pass "sequential" or "concurrent" to run one
+ */
+public class FileBenchmark {
+
+	static void generate(Path path, long bytes) throws Exception {
+		String[] words = { "GET", "POST", "/index.html", "/api/users", "200", "404", "alpha", "beta", "gamma" };
+		try (BufferedWriter out = Files.newBufferedWriter(path)) {
+			long written = 0;
+			for (long i = 0; written < bytes; i++) {
+				StringBuilder line = new StringBuilder().append(i);
+				for (int w = 0; w < 4 + i % 12; w++) {
+					line.append(' ').append(words[(int) ((i * 31 + w * 7) % words.length)]);
+				}
+				out.write(line.append('\n').toString());
+				written += line.length();
+			}
+		}
+	}
+
+	static void time(String name, Task task) throws Exception {
+		for (int run = 0; run < 3; run++) {
+			long start = System.nanoTime();
+			long result = task.run();
+			System.out.printf("%-28s %8d ms  (%d)%n", name, (System.nanoTime() - start) / 1_000_000, result);
+		}
+	}
+
+	interface Task {
+		long run() throws Exception;
+	}
+
+	static void write(String path, long lines) throws Exception {
+		time("PrintWriter, flush per line", () -> {
+			try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Paths.get(path)))) {
+				for (long i = 0; i < lines; i++) {
+					writer.write("request " + i + " served" + "\n");
+					writer.flush();
+				}
+			}
+			return Files.size(Paths.get(path));
+		});
+		time("Handle, explicit flush", () -> writeLines(path, lines, File.FlushPolicy.explicit()));
+		time("Handle, every 64 KiB", () -> writeLines(path, lines, File.FlushPolicy.everyBytes(1 << 16)));
+		time("Handle, every 100 ms", () -> writeLines(path, lines, File.FlushPolicy.everyMillis(100)));
+		Files.delete(Paths.get(path));
+	}
+
+	static long writeLines(String path, long lines, File.FlushPolicy policy) throws Exception {
+		File.Handle handle = File.openWrite(path, 1 << 20, policy);
+		for (long i = 0; i < lines; i++) {
+			handle.writeLine("request " + i + " served");
+		}
+		handle.close();
+		return Files.size(Paths.get(path));
+	}
+
+	static void lookup(String path, long bytes, int lookups) throws Exception {
+		if (!Files.exists(Paths.get(path))) {
+			// The long at every index is the index itself
+			try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)) {
+				ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+				for (long index = 0; index < bytes / Long.BYTES; ) {
+					buffer.clear();
+					while (buffer.hasRemaining()) {
+						buffer.putLong(index++);
+					}
+					buffer.flip();
+					while (buffer.hasRemaining()) {
+						channel.write(buffer);
+					}
+				}
+			}
+		}
+		long count = Files.size(Paths.get(path)) / Long.BYTES;
+		time("FileChannel.read(position)", () -> {
+			long total = 0;
+			SplittableRandom random = new SplittableRandom(42);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			try (FileChannel channel = FileChannel.open(Paths.get(path))) {
+				for (int i = 0; i < lookups; i++) {
+					buffer.clear();
+					channel.read(buffer, random.nextLong(count) * Long.BYTES);
+					total += buffer.getLong(0);
+				}
+			}
+			return total;
+		});
+		// One view per 1 GiB region, indexed as a Juno view[i] compiles to
+		int regionLongs = 1 << 27;
+		MappedByteBuffer[] views = new MappedByteBuffer[(int) ((count + regionLongs - 1) / regionLongs)];
+		for (int r = 0; r < views.length; r++) {
+			long first = (long) r * regionLongs;
+			views[r] = File.mapLongs(path, first * Long.BYTES, (int) Math.min(regionLongs, count - first), false);
+		}
+		time("File.mapLongs view[i]", () -> {
+			long total = 0;
+			SplittableRandom random = new SplittableRandom(42);
+			for (int i = 0; i < lookups; i++) {
+				long index = random.nextLong(count);
+				total += views[(int) (index >>> 27)].getLong((int) (index & (regionLongs - 1)) << 3);
+			}
+			return total;
+		});
+	}
+
+	static void async(String directory, int files, String only) throws Exception {
+		Path dir = Paths.get(directory);
+		if (!Files.exists(dir)) {
+			Files.createDirectories(dir);
+			byte[] content = new byte[4096];
+			for (int i = 0; i < files; i++) {
+				Arrays.fill(content, (byte) i);
+				Files.write(dir.resolve("file" + i), content);
+			}
+		}
+		String[] paths;
+		try (java.util.stream.Stream<Path> list = Files.list(dir)) {
+			paths = list.map(Path::toString).sorted().toArray(String[]::new);
+		}
+		if (!only.equals("concurrent")) {
+			time("File.readBytes, sequential", () -> {
+				long total = 0;
+				for (String path : paths) {
+					total += File.readBytes(path).length;
+				}
+				return total;
+			});
+		}
+		if (!only.equals("sequential")) {
+			time("File.readBytesAsync, all", () -> {
+				List<FileFuture<byte[]>> futures = new ArrayList<>(paths.length);
+				for (String path : paths) {
+					futures.add(File.readBytesAsync(path));
+				}
+				long total = 0;
+				for (FileFuture<byte[]> future : futures) {
+					total += File.await(future).length;
+				}
+				return total;
+			});
+		}
+	}
+
+	public static void main(String[] args) throws Exception {
+		String benchmark = args[0];
+		String path = args[1];
+		if (benchmark.equals("write")) {
+			write(path, args.length > 2 ? Long.parseLong(args[2]) : 100_000_000);
+			return;
+		}
+		if (benchmark.equals("async")) {
+			async(path, args.length > 2 ? Integer.parseInt(args[2]) : 10_000, args.length > 3 ? args[3] : "both");
+			return;
+		}
+		if (benchmark.equals("lookup")) {
+			lookup(path, (args.length > 2 ? Long.parseLong(args[2]) : 10240) << 20, args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000);
+			return;
+		}
+		if (!Files.exists(Paths.get(path))) {
+			generate(Paths.get(path), (args.length > 2 ? Long.parseLong(args[2]) : 2048) << 20);
+		}
+
+		switch (benchmark) {
+			case "lines" -> {
+				time("BufferedReader.readLine", () -> {
+					long total = 0;
+					try (BufferedReader reader = Files.newBufferedReader(Paths.get(path))) {
+						for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+							total += line.length();
+						}
+					}
+					return total;
+				});
+				time("Handle.readLine", () -> {
+					long total = 0;
+					File.Handle handle = File.openRead(path);
+					for (String line = handle.readLine(); line != null; line = handle.readLine()) {
+						total += line.length();
+					}
+					handle.close();
+					return total;
+				});
+				// What a Juno for-in loop over File.lines compiles to
+				time("FileLines.line", () -> {
+					long total = 0;
+					FileLines lines = File.lines(path);
+					while (lines.next()) {
+						total += lines.line().length();
+					}
+					return total;
+				});
+				time("FileLines.view", () -> {
+					long total = 0;
+					FileLines lines = File.lines(path);
+					while (lines.next()) {
+						total += lines.view().length();
+					}
+					return total;
+				});
+				time("MappedFile.readLine", () -> {
+					long total = 0;
+					MappedFile file = File.mapRead(path);
+					for (String line = file.readLine(); line != null; line = file.readLine()) {
+						total += line.length();
+					}
+					return total;
+				});
+				time("BufferedReader line count", () -> {
+					long lines = 0;
+					try (BufferedReader reader = Files.newBufferedReader(Paths.get(path))) {
+						while (reader.readLine() != null) {
+							lines++;
+						}
+					}
+					return lines;
+				});
+				time("MappedFile.countLines", () -> File.mapRead(path).countLines());
+			}
+			case "readAll" -> {
+				time("line by line", () -> {
+					StringBuilder content = new StringBuilder();
+					try (BufferedReader reader = Files.newBufferedReader(Paths.get(path))) {
+						for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+							content.append(line).append('\n');
+						}
+					}
+					return content.toString().length();
+				});
+				time("Files.readString", () -> Files.readString(Paths.get(path)).length());
+				time("File.readAll", () -> File.readAll(path).length());
+			}
+			case "copy" -> {
+				String target = path + ".copy";
+				time("Files.readAllBytes + write", () -> {
+					byte[] bytes = Files.readAllBytes(Paths.get(path));
+					Files.write(Paths.get(target), bytes);
+					return bytes.length;
+				});
+				time("File.readBytes + writeBytes", () -> {
+					byte[] bytes = File.readBytes(path);
+					File.writeBytes(target, bytes);
+					return bytes.length;
+				});
+				time("File.copy", () -> File.copy(path, target));
+				Files.delete(Paths.get(target));
+			}
+			default -> throw new IllegalArgumentException("Unknown benchmark: " + benchmark);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+public class StructSum {
+
+	static final class Point {
+		int x;
+		int y;
+
+		Point(int x, int y) {
+			this.x = x;
+			this.y = y;
+		}
+	}
+
+	static int limit = 50000000;
+
+	static int structSum() {
+		int total = 0;
+		for (int i = 0; i < limit; i++) {
+			Point p = new Point(i, i % 7);
+			Point q = new Point(p.y, p.x);
+			q.x = q.x + 1;
+			total = total + q.x - q.y + p.x;
+		}
+		return total;
+	}
+
+	public static void main(String[] args) {
+		System.out.println(structSum() % 256);
+	}
+}
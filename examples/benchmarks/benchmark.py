@@ -0,0 +1,247 @@
+#!/usr/bin/env python3
+
+# Numeric loop kernels. The IR kernels are compiled with the SSA IR backend with and without
+# optimizations (the optimized build runs loop-invariant code motion and strength reduction);
+# kernels with a hand-written Java version are compared against it. range_sum and while_sum are
+# the same loops written with ranges and with while loops. struct_sum allocates two structs per
+# iteration that never escape it. particles_aos and particles_soa update 10M particles stored as
+# an array of structs and as a struct of arrays. pointer_swap passes the addresses of locals to
+# swap and divmod functions. pointer_walk and index_walk sum an array through a moving pointer and
+# through an index. mem_sum and heap_sum sum 10M ints stored off-heap in the Mem arena and in an
+# array on the heap. unsigned_div and signed_div run the same division-heavy loop on uint and
+# on int values. branch_mix classifies values with chains of &&, || and ! in if conditions.
+# leibniz_pi runs double and float arithmetic. print_lines prints 10M lines with Io.println, and
+# print_numbers 10M ints and 10M doubles with Io's typed overloads, with their output discarded.
+# scan_ints reads 10M ints from stdin with Io.scanInt.
+#
+# Usage: python3 benchmark.py [--interpreted] [--compile]
+#   --interpreted  run with java -Xint, so the JIT does not redo the loop optimizations
+#   --compile      only time the compiler on a generated program of long arithmetic expressions
+
+import os
+import random
+import shutil
+import subprocess
+import sys
+import time
+import statistics
+
+SCRIPT_DIR = os.path.dirname(os.path.abspath(__file__))
+JPM = os.path.join(SCRIPT_DIR, "..", "..", "jpm")
+BUILD_DIR = os.path.join(SCRIPT_DIR, "build")
+
+IR_VARIANTS = [
+    ("IR, unoptimized", "ir-O0", ["--ir", "-O0"]),
+    ("IR, optimized", "ir", ["--ir"]),
+]
+
+AST_VARIANTS = [
+    ("Juno", "juno", []),
+]
+
+KERNELS = [
+    ("scaled_sum", IR_VARIANTS),
+    ("row_major", IR_VARIANTS),
+    ("weighted_sum", IR_VARIANTS),
+    ("array_sum", AST_VARIANTS),
+    ("range_sum", AST_VARIANTS + IR_VARIANTS),
+    ("while_sum", AST_VARIANTS + IR_VARIANTS),
+    ("struct_sum", AST_VARIANTS),
+    ("particles_aos", AST_VARIANTS),
+    ("particles_soa", AST_VARIANTS),
+    ("pointer_swap", AST_VARIANTS),
+    ("pointer_walk", AST_VARIANTS),
+    ("index_walk", AST_VARIANTS),
+    ("mem_sum", AST_VARIANTS),
+    ("heap_sum", AST_VARIANTS),
+    ("unsigned_div", AST_VARIANTS),
+    ("signed_div", AST_VARIANTS),
+    ("branch_mix", AST_VARIANTS + IR_VARIANTS),
+    ("leibniz_pi", AST_VARIANTS + IR_VARIANTS),
+    ("math_kernel", AST_VARIANTS + IR_VARIANTS),
+    ("print_lines", AST_VARIANTS),
+    ("print_numbers", AST_VARIANTS),
+    ("scan_ints", AST_VARIANTS),
+]
+
+# Kernels whose output is too large to capture
+DISCARD_OUTPUT = {"print_lines", "print_numbers"}
+
+def write_ints(path, count=10000000):
+    """A count followed by that many random ints, one per line."""
+    rng = random.Random(1)
+    with open(path, "w") as out:
+        out.write(f"{count}\n")
+        for _ in range(count):
+            out.write(f"{rng.randint(-1000000000, 1000000000)}\n")
+
+# Kernels that read stdin, with the function writing their input
+STDIN_INPUTS = {"scan_ints": write_ints}
+
+# Hand-written Java versions of kernels
+JAVA_BASELINES = {
+    "array_sum": "ArraySum",
+    "struct_sum": "StructSum",
+}
+
+def time_command(command, runs=5):
+    """Run a command multiple times and return timing statistics."""
+    times = []
+    output = None
+
+    for i in range(runs):
+        start = time.time()
+        result = subprocess.run(
+            command,
+            shell=True,
+            capture_output=True,
+            text=True
+        )
+        end = time.time()
+
+        elapsed_ms = (end - start) * 1000
+        times.append(elapsed_ms)
+
+        # Check if command succeeded
+        if result.returncode != 0:
+            print(f"Warning: Command failed on run {i+1}")
+            print(f"Error: {result.stderr}")
+        output = result.stdout.strip()
+
+    return {
+        'mean': statistics.mean(times),
+        'median': statistics.median(times),
+        'min': min(times),
+        'max': max(times),
+        'stdev': statistics.stdev(times) if len(times) > 1 else 0,
+        'times': times,
+        'output': output
+    }
+
+def format_stats(name, stats):
+    """Pretty print timing statistics."""
+    print(f"\n{name}:")
+    print(f"  Output: {stats['output']}")
+    print(f"  Mean:   {stats['mean']:.2f} ms")
+    print(f"  Median: {stats['median']:.2f} ms")
+    print(f"  Min:    {stats['min']:.2f} ms")
+    print(f"  Max:    {stats['max']:.2f} ms")
+    print(f"  StdDev: {stats['stdev']:.2f} ms")
+    print(f"  All runs: {[f'{t:.2f}' for t in stats['times']]}")
+
+def build(kernel, directory, flags):
+    """Compile a kernel into a directory of its own, so the variants do not overwrite each other."""
+    target = os.path.join(BUILD_DIR, directory)
+    os.makedirs(target, exist_ok=True)
+    shutil.copy(os.path.join(SCRIPT_DIR, kernel + ".juno"), target)
+    subprocess.run(
+        f"{JPM} build {kernel}.juno {' '.join(flags)}",
+        shell=True,
+        cwd=target,
+        check=True
+    )
+    return target
+
+def build_java(class_name):
+    """Compile the Java version of a kernel."""
+    target = os.path.join(BUILD_DIR, "java")
+    os.makedirs(target, exist_ok=True)
+    subprocess.run(
+        f"javac -d {target} {os.path.join(SCRIPT_DIR, class_name + '.java')}",
+        shell=True,
+        check=True
+    )
+    return target
+
+def deep_expressions(functions=40, terms=400):
+    """A program of functions that each return one sum of many products."""
+    source = []
+    for f in range(functions):
+        expression = " + ".join(f"x * {(i + f) % 97 + 1}" for i in range(terms))
+        source.append(f"int deep{f}(int x) {{\n\treturn {expression};\n}}\n")
+    source.append("int main() {\n\treturn deep0(3) % 256;\n}\n")
+    return "\n".join(source)
+
+def compile_benchmark(runs):
+    """Time the compiler, not the program, on deep expressions."""
+    os.makedirs(BUILD_DIR, exist_ok=True)
+    with open(os.path.join(BUILD_DIR, "deep_expressions.juno"), "w") as source:
+        source.write(deep_expressions())
+    for name, directory, flags in AST_VARIANTS + IR_VARIANTS:
+        stats = time_command(f"cd {BUILD_DIR} && {JPM} build deep_expressions.juno {' '.join(flags)}", runs=runs)
+        format_stats(f"deep_expressions compile ({name})", stats)
+    shutil.rmtree(BUILD_DIR, ignore_errors=True)
+
+def main():
+    print("=== Numeric Loop Kernel Benchmark ===\n")
+
+    # Number of runs for each test
+    RUNS = 5
+
+    if "--compile" in sys.argv[1:]:
+        compile_benchmark(RUNS)
+        return
+
+    interpreted = "--interpreted" in sys.argv[1:]
+    java_flags = "-Xint" if interpreted else ""
+    if interpreted:
+        print("Running in interpreted mode (-Xint)\n")
+
+    results = {}
+
+    for kernel, variants in KERNELS:
+        tests = []
+        redirect = " > /dev/null" if kernel in DISCARD_OUTPUT else ""
+        if kernel in STDIN_INPUTS:
+            input_path = os.path.join(BUILD_DIR, kernel + ".in")
+            os.makedirs(BUILD_DIR, exist_ok=True)
+            STDIN_INPUTS[kernel](input_path)
+            redirect += f" < {input_path}"
+        for name, directory, flags in variants:
+            tests.append((name, lambda directory=directory, flags=flags: build(kernel, directory, flags),
+                          f"JAVA_TOOL_OPTIONS='{java_flags}' {JPM} exec {kernel}{redirect}"))
+        if kernel in JAVA_BASELINES:
+            class_name = JAVA_BASELINES[kernel]
+            tests.append(("Java", lambda class_name=class_name: build_java(class_name), f"java {java_flags} {class_name}"))
+
+        for name, build_step, run in tests:
+            label = f"{kernel} ({name})"
+            print(f"Testing: {label} ({RUNS} runs)...", end=" ", flush=True)
+            try:
+                target = build_step()
+                stats = time_command(f"cd {target} && {run}", runs=RUNS)
+                results.setdefault(kernel, {})[name] = stats
+                print(f"✓ (avg: {stats['mean']:.2f} ms)")
+            except subprocess.CalledProcessError:
+                print("✗ (compilation failed)")
+            except Exception as e:
+                print(f"✗ (error: {e})")
+
+    # Print detailed results
+    print("\n" + "="*50)
+    print("DETAILED RESULTS")
+    print("="*50)
+
+    for kernel in results:
+        for name in results[kernel]:
+            format_stats(f"{kernel} ({name})", results[kernel][name])
+
+    # Print comparison
+    print("\n" + "="*50)
+    print("COMPARISON (fastest to slowest)")
+    print("="*50)
+
+    for kernel in results:
+        print(f"\n{kernel}:")
+        sorted_results = sorted(results[kernel].items(), key=lambda x: x[1]['mean'])
+
+        fastest = sorted_results[0][1]['mean']
+
+        for i, (name, stats) in enumerate(sorted_results, 1):
+            ratio = stats['mean'] / fastest
+            print(f"{i}. {name:30s} {stats['mean']:9.2f} ms  ({ratio:.2f}x)")
+
+    shutil.rmtree(BUILD_DIR, ignore_errors=True)
+
+if __name__ == "__main__":
+    main()
@@ -9,6 +9,7 @@ import com.juno.ast.Program;
 import com.juno.ast.ASTDebugPrinter;
 import com.juno.ast.TypeChecker;
 import com.juno.ast.CodeGenerator;
+import com.juno.ast.Optimizer;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -30,6 +31,8 @@ public class Main {
 
 		boolean debugAST = false;
 		boolean verbose = false;
+		boolean optimize = true;
+		boolean useIR = false;
 		for (String arg : args) {
 			if ("--ast-dump".equals(arg)) {
 				debugAST = true;
@@ -37,6 +40,12 @@ public class Main {
 			if ("--verbose".equals(arg) || "-V".equals(arg)) {
 				verbose = true;
 			}
+			if ("-O0".equals(arg)) {
+				optimize = false;
+			}
+			if ("--ir".equals(arg)) {
+				useIR = true;
+			}
 		}
 
 		// Check for Jasmin generation flag from environment
@@ -46,7 +55,7 @@ public class Main {
 			long startTime = System.nanoTime();
 
 			ErrorCollector errorCollector = new ErrorCollector();
-			compile(sourceFile, errorCollector, debugAST, generateJasmin, verbose);
+			compile(sourceFile, errorCollector, debugAST, generateJasmin, verbose, optimize, useIR);
 
 			long endTime = System.nanoTime();
 			double durationMs = (endTime - startTime) / 1_000_000.0;
@@ -72,7 +81,7 @@ public class Main {
 		}
 	}
 
-	private static void compile(String sourceFile, ErrorCollector errorCollector, boolean debugAST, boolean generateJasmin, boolean verbose) throws IOException {
+	private static void compile(String sourceFile, ErrorCollector errorCollector, boolean debugAST, boolean generateJasmin, boolean verbose, boolean optimize, boolean useIR) throws IOException {
 		Path sourcePath = Paths.get(sourceFile);
 		if (!Files.exists(sourcePath)) {
 			throw new IllegalArgumentException("Source file not found: " + sourceFile);
@@ -114,6 +123,13 @@ public class Main {
 		TypeChecker typeChecker = new TypeChecker(errorCollector);
 		typeChecker.check(program);
 
+		// Optimization
+		if (optimize && !errorCollector.hasErrors()) {
+			Optimizer optimizer = new Optimizer();
+			program = optimizer.optimize(program);
+			if (verbose) System.out.println("-- " + optimizer.summary());
+		}
+
 		// Code Generation
 		if (errorCollector.hasErrors()) {
 			if (verbose) System.out.println("Skipping code generation due to previous errors");
@@ -123,8 +139,19 @@ public class Main {
 		try {
 			CodeGenerator codeGen = new CodeGenerator();
 			String outputClass = sourceFile.replace(".juno", "").replace(".jl", "");
+			codeGen.setOptimize(optimize);
+			codeGen.setUseIR(useIR);
 			codeGen.generate(program, outputClass, generateJasmin);
 			if (verbose) {
+				if (useIR) {
+					if (optimize) {
+						System.out.println("-- " + codeGen.getIROptimizer().summary());
+					}
+					System.out.println("-- IR fallbacks to AST code generation: " + codeGen.getIRFallbacks());
+				}
+				if (optimize) {
+					System.out.println("-- " + codeGen.getPeepholeOptimizer().summary());
+				}
 				if (generateJasmin) {
 					System.out.println("Outputting to Jasmin file: " + outputClass.concat(".j"));
 				}
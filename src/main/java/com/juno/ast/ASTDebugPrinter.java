@@ -62,6 +62,36 @@ public class ASTDebugPrinter implements ASTVisitor<String> {
 		return sb.toString();
 	}
 
+	@Override
+	public String visitFieldAccessExpression(FieldAccessExpression expr) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("FieldAccess(.").append(expr.getFieldName()).append(") {\n");
+
+		indentLevel++;
+		sb.append(indent()).append("object: ").append(expr.getObject().accept(this));
+		indentLevel--;
+
+		sb.append("\n").append(indent()).append("}");
+		return sb.toString();
+	}
+
+	@Override
+	public String visitRangeExpression(RangeExpression expr) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Range(").append(expr.isInclusive() ? "..=" : "..").append(") {\n");
+
+		indentLevel++;
+		sb.append(indent()).append("start: ").append(expr.getStart().accept(this)).append("\n");
+		sb.append(indent()).append("end: ").append(expr.getEnd().accept(this));
+		if (expr.getStep() != null) {
+			sb.append("\n").append(indent()).append("step: ").append(expr.getStep().accept(this));
+		}
+		indentLevel--;
+
+		sb.append("\n").append(indent()).append("}");
+		return sb.toString();
+	}
+
 	@Override
 	public String visitLiteralExpression(LiteralExpression expr) {
 		return "Literal(" + getTypeName(expr.getValue()) + ", " + formatValue(expr.getValue()) + ")";
@@ -343,6 +373,7 @@ public class ASTDebugPrinter implements ASTVisitor<String> {
 		StringBuilder sb = new StringBuilder();
 		sb.append("StructDecl");
 		if (stmt.isPublic()) sb.append("(public)");
+		if (stmt.isStructOfArrays()) sb.append("(soa)");
 		sb.append(" {\n");
 
 		indentLevel++;
@@ -0,0 +1,204 @@
+package com.juno.ast;
+
+/**
+ * Base class for read-only AST analyses.
+ * Every visit method walks all children of its node; subclasses override the nodes they
+ * care about and call the super method to keep descending.
+ */
+public abstract class ASTScanner implements ASTVisitor<Void> {
+
+	protected void scan(ASTNode node) {
+		if (node != null) {
+			node.accept(this);
+		}
+	}
+
+	protected void scanAll(Iterable<? extends ASTNode> nodes) {
+		for (ASTNode node : nodes) {
+			scan(node);
+		}
+	}
+
+	// ===== PROGRAM AND TOP-LEVEL =====
+
+	@Override
+	public Void visitProgram(Program program) {
+		scanAll(program.getStatements());
+		return null;
+	}
+
+	@Override
+	public Void visitModuleDeclaration(ModuleDeclaration module) {
+		scanAll(module.getStatements());
+		return null;
+	}
+
+	@Override
+	public Void visitImportStatement(ImportStatement importStmt) {
+		return null;
+	}
+
+	@Override
+	public Void visitTypeAlias(TypeAlias alias) {
+		return null;
+	}
+
+	@Override
+	public Void visitStructDeclaration(StructDeclaration structDecl) {
+		return null;
+	}
+
+	// ===== DECLARATIONS AND STATEMENTS =====
+
+	@Override
+	public Void visitFunctionDeclaration(FunctionDeclaration funcDecl) {
+		scan(funcDecl.body());
+		return null;
+	}
+
+	@Override
+	public Void visitVariableDeclaration(VariableDeclaration varDecl) {
+		scan(varDecl.initializer());
+		return null;
+	}
+
+	@Override
+	public Void visitBlockStatement(BlockStatement block) {
+		scanAll(block.statements());
+		return null;
+	}
+
+	@Override
+	public Void visitExpressionStatement(ExpressionStatement exprStmt) {
+		scan(exprStmt.expression());
+		return null;
+	}
+
+	@Override
+	public Void visitIfStatement(IfStatement ifStmt) {
+		scan(ifStmt.condition());
+		scan(ifStmt.thenStmt());
+		scan(ifStmt.elseStmt());
+		return null;
+	}
+
+	@Override
+	public Void visitWhileStatement(WhileStatement whileStmt) {
+		scan(whileStmt.condition());
+		scan(whileStmt.body());
+		return null;
+	}
+
+	@Override
+	public Void visitForInStatement(ForInStatement forStmt) {
+		scan(forStmt.initializer());
+		scan(forStmt.iterable());
+		scan(forStmt.body());
+		return null;
+	}
+
+	@Override
+	public Void visitReturnStatement(ReturnStatement returnStmt) {
+		scan(returnStmt.value());
+		return null;
+	}
+
+	@Override
+	public Void visitBreakStatement(BreakStatement stmt) {
+		return null;
+	}
+
+	@Override
+	public Void visitContinueStatement(ContinueStatement stmt) {
+		return null;
+	}
+
+	// ===== EXPRESSIONS =====
+
+	@Override
+	public Void visitBinaryExpression(BinaryExpression expr) {
+		scan(expr.getLeft());
+		scan(expr.getRight());
+		return null;
+	}
+
+	@Override
+	public Void visitUnaryExpression(UnaryExpression expr) {
+		scan(expr.getOperand());
+		return null;
+	}
+
+	@Override
+	public Void visitLiteralExpression(LiteralExpression expr) {
+		return null;
+	}
+
+	@Override
+	public Void visitIdentifierExpression(IdentifierExpression expr) {
+		return null;
+	}
+
+	@Override
+	public Void visitAssignmentExpression(AssignmentExpression expr) {
+		scan(expr.getTarget());
+		scan(expr.getValue());
+		return null;
+	}
+
+	@Override
+	public Void visitCallExpression(CallExpression expr) {
+		scan(expr.getFunction());
+		scanAll(expr.getArguments());
+		return null;
+	}
+
+	@Override
+	public Void visitQualifiedIdentifier(QualifiedIdentifier expr) {
+		return null;
+	}
+
+	@Override
+	public Void visitCastExpression(CastExpression expr) {
+		scan(expr.getExpression());
+		return null;
+	}
+
+	@Override
+	public Void visitArrayLiteralExpression(ArrayLiteralExpression expr) {
+		scanAll(expr.getElements());
+		return null;
+	}
+
+	@Override
+	public Void visitArrayIndexExpression(ArrayIndexExpression expr) {
+		scan(expr.getArray());
+		scan(expr.getIndex());
+		return null;
+	}
+
+	@Override
+	public Void visitAddressOfExpression(AddressOfExpression expr) {
+		scan(expr.getOperand());
+		return null;
+	}
+
+	@Override
+	public Void visitDereferenceExpression(DereferenceExpression expr) {
+		scan(expr.getOperand());
+		return null;
+	}
+
+	@Override
+	public Void visitRangeExpression(RangeExpression expr) {
+		scan(expr.getStart());
+		scan(expr.getEnd());
+		scan(expr.getStep());
+		return null;
+	}
+
+	@Override
+	public Void visitFieldAccessExpression(FieldAccessExpression expr) {
+		scan(expr.getObject());
+		return null;
+	}
+}
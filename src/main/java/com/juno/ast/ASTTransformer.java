@@ -0,0 +1,304 @@
+package com.juno.ast;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for AST-to-AST rewriting passes.
+ * Every visit method rebuilds its node from the transformed children and returns the original
+ * node unchanged when none of the children changed. Rebuilt expressions keep the type that the
+ * type checker assigned to the original node, so passes can run after type checking.
+ */
+public abstract class ASTTransformer implements ASTVisitor<ASTNode> {
+
+	public Program transform(Program program) {
+		return (Program) program.accept(this);
+	}
+
+	protected Expression transform(Expression expr) {
+		return expr == null ? null : (Expression) expr.accept(this);
+	}
+
+	protected Statement transform(Statement stmt) {
+		return stmt == null ? null : (Statement) stmt.accept(this);
+	}
+
+	protected List<Statement> transformStatements(List<Statement> statements) {
+		List<Statement> result = new ArrayList<>(statements.size());
+		boolean changed = false;
+		for (Statement stmt : statements) {
+			Statement transformed = transform(stmt);
+			changed |= transformed != stmt;
+			result.add(transformed);
+		}
+		return changed ? result : statements;
+	}
+
+	protected List<Expression> transformExpressions(List<Expression> expressions) {
+		List<Expression> result = new ArrayList<>(expressions.size());
+		boolean changed = false;
+		for (Expression expr : expressions) {
+			Expression transformed = transform(expr);
+			changed |= transformed != expr;
+			result.add(transformed);
+		}
+		return changed ? result : expressions;
+	}
+
+	/**
+	 * Copy the checked type of the original expression onto its replacement.
+	 */
+	protected static <E extends Expression> E withType(E replacement, Expression original) {
+		replacement.setType(original.getType());
+		return replacement;
+	}
+
+	// ===== PROGRAM AND TOP-LEVEL =====
+
+	@Override
+	public ASTNode visitProgram(Program program) {
+		List<Statement> statements = transformStatements(program.getStatements());
+		if (statements == program.getStatements()) {
+			return program;
+		}
+		return new Program(statements, program.line(), program.column());
+	}
+
+	@Override
+	public ASTNode visitModuleDeclaration(ModuleDeclaration module) {
+		List<Statement> statements = transformStatements(module.getStatements());
+		if (statements == module.getStatements()) {
+			return module;
+		}
+		return new ModuleDeclaration(module.getModuleName(), statements, module.line(), module.column());
+	}
+
+	@Override
+	public ASTNode visitImportStatement(ImportStatement importStmt) {
+		return importStmt;
+	}
+
+	@Override
+	public ASTNode visitTypeAlias(TypeAlias alias) {
+		return alias;
+	}
+
+	@Override
+	public ASTNode visitStructDeclaration(StructDeclaration structDecl) {
+		return structDecl;
+	}
+
+	// ===== DECLARATIONS AND STATEMENTS =====
+
+	@Override
+	public ASTNode visitFunctionDeclaration(FunctionDeclaration funcDecl) {
+		Statement body = transform(funcDecl.body());
+		if (body == funcDecl.body()) {
+			return funcDecl;
+		}
+		return new FunctionDeclaration(funcDecl.returnType(), funcDecl.name(), funcDecl.parameters(),
+																	 (BlockStatement) body, funcDecl.isPublic(), funcDecl.line(), funcDecl.column());
+	}
+
+	@Override
+	public ASTNode visitVariableDeclaration(VariableDeclaration varDecl) {
+		Expression initializer = transform(varDecl.initializer());
+		if (initializer == varDecl.initializer()) {
+			return varDecl;
+		}
+		return new VariableDeclaration(varDecl.type(), varDecl.name(), initializer, varDecl.isPublic(),
+																	 varDecl.line(), varDecl.column());
+	}
+
+	@Override
+	public ASTNode visitBlockStatement(BlockStatement block) {
+		List<Statement> statements = transformStatements(block.statements());
+		if (statements == block.statements()) {
+			return block;
+		}
+		return new BlockStatement(statements, block.line(), block.column());
+	}
+
+	@Override
+	public ASTNode visitExpressionStatement(ExpressionStatement exprStmt) {
+		Expression expression = transform(exprStmt.expression());
+		if (expression == exprStmt.expression()) {
+			return exprStmt;
+		}
+		return new ExpressionStatement(expression, exprStmt.line(), exprStmt.column());
+	}
+
+	@Override
+	public ASTNode visitIfStatement(IfStatement ifStmt) {
+		Expression condition = transform(ifStmt.condition());
+		Statement thenStmt = transform(ifStmt.thenStmt());
+		Statement elseStmt = transform(ifStmt.elseStmt());
+		if (condition == ifStmt.condition() && thenStmt == ifStmt.thenStmt() && elseStmt == ifStmt.elseStmt()) {
+			return ifStmt;
+		}
+		return new IfStatement(condition, thenStmt, elseStmt, ifStmt.line(), ifStmt.column());
+	}
+
+	@Override
+	public ASTNode visitWhileStatement(WhileStatement whileStmt) {
+		Expression condition = transform(whileStmt.condition());
+		Statement body = transform(whileStmt.body());
+		if (condition == whileStmt.condition() && body == whileStmt.body()) {
+			return whileStmt;
+		}
+		return new WhileStatement(condition, body, whileStmt.line(), whileStmt.column());
+	}
+
+	@Override
+	public ASTNode visitForInStatement(ForInStatement forStmt) {
+		Expression initializer = transform(forStmt.initializer());
+		Expression iterable = transform(forStmt.iterable());
+		Statement body = transform(forStmt.body());
+		if (initializer == forStmt.initializer() && iterable == forStmt.iterable() && body == forStmt.body()) {
+			return forStmt;
+		}
+		return new ForInStatement(forStmt.variableType(), forStmt.variableName(), initializer, iterable, body,
+															forStmt.line(), forStmt.column());
+	}
+
+	@Override
+	public ASTNode visitReturnStatement(ReturnStatement returnStmt) {
+		Expression value = transform(returnStmt.value());
+		if (value == returnStmt.value()) {
+			return returnStmt;
+		}
+		return new ReturnStatement(value, returnStmt.line(), returnStmt.column());
+	}
+
+	@Override
+	public ASTNode visitBreakStatement(BreakStatement stmt) {
+		return stmt;
+	}
+
+	@Override
+	public ASTNode visitContinueStatement(ContinueStatement stmt) {
+		return stmt;
+	}
+
+	// ===== EXPRESSIONS =====
+
+	@Override
+	public ASTNode visitBinaryExpression(BinaryExpression expr) {
+		Expression left = transform(expr.getLeft());
+		Expression right = transform(expr.getRight());
+		if (left == expr.getLeft() && right == expr.getRight()) {
+			return expr;
+		}
+		return withType(new BinaryExpression(left, expr.getOperator(), right, expr.line(), expr.column()), expr);
+	}
+
+	@Override
+	public ASTNode visitUnaryExpression(UnaryExpression expr) {
+		Expression operand = transform(expr.getOperand());
+		if (operand == expr.getOperand()) {
+			return expr;
+		}
+		return withType(new UnaryExpression(expr.getOperator(), operand, expr.line(), expr.column()), expr);
+	}
+
+	@Override
+	public ASTNode visitLiteralExpression(LiteralExpression expr) {
+		return expr;
+	}
+
+	@Override
+	public ASTNode visitIdentifierExpression(IdentifierExpression expr) {
+		return expr;
+	}
+
+	@Override
+	public ASTNode visitAssignmentExpression(AssignmentExpression expr) {
+		Expression target = transform(expr.getTarget());
+		Expression value = transform(expr.getValue());
+		if (target == expr.getTarget() && value == expr.getValue()) {
+			return expr;
+		}
+		return withType(new AssignmentExpression(target, value, expr.line(), expr.column()), expr);
+	}
+
+	@Override
+	public ASTNode visitCallExpression(CallExpression expr) {
+		Expression function = transform(expr.getFunction());
+		List<Expression> arguments = transformExpressions(expr.getArguments());
+		if (function == expr.getFunction() && arguments == expr.getArguments()) {
+			return expr;
+		}
+		return withType(new CallExpression(function, arguments, expr.line(), expr.column()), expr);
+	}
+
+	@Override
+	public ASTNode visitQualifiedIdentifier(QualifiedIdentifier expr) {
+		return expr;
+	}
+
+	@Override
+	public ASTNode visitCastExpression(CastExpression expr) {
+		Expression operand = transform(expr.getExpression());
+		if (operand == expr.getExpression()) {
+			return expr;
+		}
+		return withType(new CastExpression(expr.getTargetType(), operand, expr.line(), expr.column()), expr);
+	}
+
+	@Override
+	public ASTNode visitArrayLiteralExpression(ArrayLiteralExpression expr) {
+		List<Expression> elements = transformExpressions(expr.getElements());
+		if (elements == expr.getElements()) {
+			return expr;
+		}
+		return withType(new ArrayLiteralExpression(elements, expr.line(), expr.column()), expr);
+	}
+
+	@Override
+	public ASTNode visitArrayIndexExpression(ArrayIndexExpression expr) {
+		Expression array = transform(expr.getArray());
+		Expression index = transform(expr.getIndex());
+		if (array == expr.getArray() && index == expr.getIndex()) {
+			return expr;
+		}
+		return withType(new ArrayIndexExpression(array, index, expr.line(), expr.column()), expr);
+	}
+
+	@Override
+	public ASTNode visitAddressOfExpression(AddressOfExpression expr) {
+		Expression operand = transform(expr.getOperand());
+		if (operand == expr.getOperand()) {
+			return expr;
+		}
+		return withType(new AddressOfExpression(operand, expr.line(), expr.column()), expr);
+	}
+
+	@Override
+	public ASTNode visitDereferenceExpression(DereferenceExpression expr) {
+		Expression operand = transform(expr.getOperand());
+		if (operand == expr.getOperand()) {
+			return expr;
+		}
+		return withType(new DereferenceExpression(operand, expr.line(), expr.column()), expr);
+	}
+
+	@Override
+	public ASTNode visitRangeExpression(RangeExpression expr) {
+		Expression start = transform(expr.getStart());
+		Expression end = transform(expr.getEnd());
+		Expression step = transform(expr.getStep());
+		if (start == expr.getStart() && end == expr.getEnd() && step == expr.getStep()) {
+			return expr;
+		}
+		return withType(new RangeExpression(start, end, step, expr.isInclusive(), expr.line(), expr.column()), expr);
+	}
+
+	@Override
+	public ASTNode visitFieldAccessExpression(FieldAccessExpression expr) {
+		Expression object = transform(expr.getObject());
+		if (object == expr.getObject()) {
+			return expr;
+		}
+		return withType(new FieldAccessExpression(object, expr.getFieldName(), expr.line(), expr.column()), expr);
+	}
+}
@@ -32,6 +32,10 @@ public interface ASTVisitor<T> {
 
 	T visitDereferenceExpression(DereferenceExpression expr);
 
+	T visitRangeExpression(RangeExpression expr);
+
+	T visitFieldAccessExpression(FieldAccessExpression expr);
+
 	// Control flow statements
 	T visitBreakStatement(BreakStatement stmt);
 
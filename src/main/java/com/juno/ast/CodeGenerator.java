@@ -5,17 +5,30 @@ package com.juno.ast;
 
 import com.juno.types.PrimitiveType;
 import com.juno.types.ArrayType;
+import com.juno.types.PointerType;
+import com.juno.types.LinesType;
+import com.juno.types.MappedViewType;
+import com.juno.types.StructType;
 import com.juno.types.UnionType;
+import com.juno.codegen.PeepholeOptimizer;
+import com.juno.ir.BytecodeEmitter;
+import com.juno.ir.Function;
+import com.juno.ir.IRLoweringException;
+import com.juno.ir.IROptimizer;
 import org.objectweb.asm.*;
 import org.objectweb.asm.commons.GeneratorAdapter;
 import org.objectweb.asm.commons.Method;
+import org.objectweb.asm.tree.MethodNode;
 
+import java.io.File;
 import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import static org.objectweb.asm.Opcodes.*;
 
@@ -34,10 +47,12 @@ public class CodeGenerator implements ASTVisitor<Void> {
 	private com.juno.types.Type currentFunctionReturnType;  // Track current function's return type
 	private int nextLocalSlot;
 	private int labelCounter = 0;  // Counter for unique labels
+	private final Map<Label, String> jasminLabelNames = new HashMap<>();
 
 	// Break/continue label stack for loops
 	private final java.util.Stack<Label> breakLabels = new java.util.Stack<>();
 	private final java.util.Stack<Label> continueLabels = new java.util.Stack<>();
+	private final java.util.Stack<Integer> openLinesSlots = new java.util.Stack<>(); // FileLines of the enclosing loops
 
 	// Jasmin assembly generation
 	// private PrintWriter jasminWriter;
@@ -45,6 +60,57 @@ public class CodeGenerator implements ASTVisitor<Void> {
 	private boolean hasJunoMainMethod = false;
 	private com.juno.types.Type junoMainReturnType = null;
 
+	// Bytecode optimization (disabled with -O0)
+	private boolean optimize = true;
+	private final PeepholeOptimizer peepholeOptimizer = new PeepholeOptimizer();
+
+	// SSA IR backend (enabled with --ir)
+	private boolean useIR = false;
+	private final Map<String, FunctionDeclaration> functionDeclarations = new HashMap<>();
+	private final IROptimizer irOptimizer = new IROptimizer();
+	private int irFallbacks = 0;
+
+	// Variables whose address is taken: slots holding a heap cell, and pointer slots that alias another slot
+	private PointerEscapeAnalysis pointers = PointerEscapeAnalysis.NONE;
+	private final Set<Integer> cellSlots = new HashSet<>();
+	private final Map<Integer, Integer> aliasSlots = new HashMap<>();
+	private final Set<Integer> arrayPointerSlots = new HashSet<>(); // the array, and the index in the next slot
+	private final Set<Integer> memoryPointerSlots = new HashSet<>(); // an address in the Mem arena
+
+	// Structs are compiled to classes of their own next to the program class
+	private final Map<String, StructDeclaration> structDeclarations = new HashMap<>();
+	private File outputDirectory;
+
+	/**
+	 * Enable or disable bytecode-level optimizations such as the peephole pass.
+	 */
+	public void setOptimize(boolean optimize) {
+		this.optimize = optimize;
+	}
+
+	public PeepholeOptimizer getPeepholeOptimizer() {
+		return peepholeOptimizer;
+	}
+
+	/**
+	 * Compile functions through the SSA IR. Functions the IR cannot express are still
+	 * compiled directly from the AST.
+	 */
+	public void setUseIR(boolean useIR) {
+		this.useIR = useIR;
+	}
+
+	public IROptimizer getIROptimizer() {
+		return irOptimizer;
+	}
+
+	/**
+	 * Number of functions that were compiled from the AST because the IR could not express them.
+	 */
+	public int getIRFallbacks() {
+		return irFallbacks;
+	}
+
 	public void generate(Program program, String outputPath) throws IOException {
 		generate(program, outputPath, true); // Default: generate Jasmin
 	}
@@ -72,6 +138,13 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		// Generate default constructor
 		generateDefaultConstructor();
 
+		// Calls compiled through the IR need the callee signatures up front, and structs their fields
+		functionDeclarations.clear();
+		structDeclarations.clear();
+		collectFunctions(program.getStatements());
+		String outputFile = outputPath.endsWith(".class") ? outputPath : outputPath + ".class";
+		outputDirectory = new File(outputFile).getAbsoluteFile().getParentFile();
+
 		// Visit the program AST
 		program.accept(this);
 
@@ -86,7 +159,6 @@ public class CodeGenerator implements ASTVisitor<Void> {
 
 		// Write bytecode to file
 		byte[] bytecode = classWriter.toByteArray();
-		String outputFile = outputPath.endsWith(".class") ? outputPath : outputPath + ".class";
 
 		try (FileOutputStream fos = new FileOutputStream(outputFile)) {
 			fos.write(bytecode);
@@ -102,6 +174,20 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		}
 	}
 
+	private void collectFunctions(java.util.List<Statement> statements) {
+		for (Statement stmt : statements) {
+			if (stmt instanceof FunctionDeclaration funcDecl) {
+				functionDeclarations.put(funcDecl.name(), funcDecl);
+			}
+			else if (stmt instanceof StructDeclaration structDecl) {
+				structDeclarations.put(structDecl.getName(), structDecl);
+			}
+			else if (stmt instanceof ModuleDeclaration module) {
+				collectFunctions(module.getStatements());
+			}
+		}
+	}
+
 	private String extractClassName(String path) {
 		// Extract class name from path like "examples/hello" -> "hello"
 		String name = path;
@@ -124,6 +210,28 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		constructor.visitEnd();
 	}
 
+	/**
+	 * Start generating a method. Instructions are buffered in a {@link MethodNode} so that the
+	 * peephole pass can rewrite them before they are written to the class.
+	 */
+	private MethodNode beginMethod(int access, String name, String descriptor) {
+		MethodNode methodNode = new MethodNode(ASM9, access, name, descriptor, null, null);
+		methodGenerator = new GeneratorAdapter(access, new Method(name, descriptor), methodNode);
+		return methodNode;
+	}
+
+	/**
+	 * Finish the current method, optimize it and write it to the class.
+	 */
+	private void endMethod(MethodNode methodNode) {
+		methodGenerator.visitMaxs(0, 0);
+		methodGenerator.visitEnd();
+		if (optimize) {
+			peepholeOptimizer.optimize(methodNode);
+		}
+		methodNode.accept(classWriter);
+	}
+
 	// ===== PROGRAM AND TOP-LEVEL =====
 
 	@Override
@@ -155,14 +263,289 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		return null;
 	}
 
+	/**
+	 * A struct becomes a final class with one public field per struct field, a constructor taking
+	 * every field, a no-argument constructor for zeroed structs (whose struct fields hold zeroed
+	 * structs in turn), and value-based equals/hashCode.
+	 * The constructors only store their arguments, so the JIT can scalar-replace structs that do
+	 * not escape.
+	 */
 	@Override
 	public Void visitStructDeclaration(StructDeclaration structDecl) {
-		jasminComment("Struct declaration: " + structDecl.getName());
-		// TODO: Generate JVM class for struct
-		// For now, structs are not fully implemented in code generation
+		String structClass = structClassName(structDecl.getName());
+		jasminComment("Struct declaration: " + structDecl.getName() + " (class " + structClass + ")");
+
+		ClassWriter structWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+		structWriter.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, structClass, null, "java/lang/Object", null);
+
+		StringBuilder constructorDescriptor = new StringBuilder("(");
+		for (StructDeclaration.Field field : structDecl.getFields()) {
+			String descriptor = getJVMTypeDescriptor(field.type);
+			structWriter.visitField(ACC_PUBLIC, field.name, descriptor, null, null).visitEnd();
+			constructorDescriptor.append(descriptor);
+			jasminComment("  field " + field.name + " " + descriptor);
+		}
+		constructorDescriptor.append(")V");
+
+		// Zeroed struct, holding zeroed structs in its struct fields
+		MethodVisitor method = structWriter.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		method.visitCode();
+		method.visitVarInsn(ALOAD, 0);
+		method.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		for (StructDeclaration.Field field : structDecl.getFields()) {
+			if (field.type instanceof StructType fieldType && structDeclarations.containsKey(fieldType.structName())
+					&& !reachesStruct(fieldType, structDecl.getName(), new HashSet<>())) {
+				String fieldClass = structClassName(fieldType.structName());
+				method.visitVarInsn(ALOAD, 0);
+				method.visitTypeInsn(NEW, fieldClass);
+				method.visitInsn(DUP);
+				method.visitMethodInsn(INVOKESPECIAL, fieldClass, "<init>", "()V", false);
+				method.visitFieldInsn(PUTFIELD, structClass, field.name, getJVMTypeDescriptor(fieldType));
+			}
+		}
+		method.visitInsn(RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+
+		// One argument per field
+		if (!structDecl.getFields().isEmpty()) {
+			method = structWriter.visitMethod(ACC_PUBLIC, "<init>", constructorDescriptor.toString(), null, null);
+			method.visitCode();
+			method.visitVarInsn(ALOAD, 0);
+			method.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+			int slot = 1;
+			for (StructDeclaration.Field field : structDecl.getFields()) {
+				org.objectweb.asm.Type fieldType = org.objectweb.asm.Type.getType(getJVMTypeDescriptor(field.type));
+				method.visitVarInsn(ALOAD, 0);
+				method.visitVarInsn(fieldType.getOpcode(ILOAD), slot);
+				method.visitFieldInsn(PUTFIELD, structClass, field.name, fieldType.getDescriptor());
+				slot += fieldType.getSize();
+			}
+			method.visitInsn(RETURN);
+			method.visitMaxs(0, 0);
+			method.visitEnd();
+		}
+
+		generateStructEquals(structWriter, structClass, structDecl);
+		generateStructHashCode(structWriter, structClass, structDecl);
+		generateStructNewArray(structWriter, structClass);
+		structWriter.visitEnd();
+		writeStructClass(structClass, structWriter);
+
+		if (structDecl.isStructOfArrays()) {
+			generateStructOfArrays(structDecl);
+		}
 		return null;
 	}
 
+	/**
+	 * True if a struct holds a struct of the given name, directly or through its struct fields.
+	 * A zeroed struct leaves such a field null, since zeroing it would never end.
+	 */
+	private boolean reachesStruct(StructType structType, String structName, Set<String> visited) {
+		if (structType.structName().equals(structName)) {
+			return true;
+		}
+		StructDeclaration structDecl = structDeclarations.get(structType.structName());
+		if (structDecl == null || !visited.add(structType.structName())) {
+			return false;
+		}
+		for (StructDeclaration.Field field : structDecl.getFields()) {
+			if (field.type instanceof StructType fieldType && reachesStruct(fieldType, structName, visited)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void writeStructClass(String className, ClassWriter writer) {
+		File classFile = new File(outputDirectory, className + ".class");
+		try (FileOutputStream fos = new FileOutputStream(classFile)) {
+			fos.write(writer.toByteArray());
+		} catch (IOException e) {
+			throw new RuntimeException("Cannot write struct class " + classFile, e);
+		}
+	}
+
+	/**
+	 * A static newArray(int) that fills an array with zeroed structs, for fixed-size struct arrays.
+	 */
+	private void generateStructNewArray(ClassWriter structWriter, String structClass) {
+		MethodVisitor method = structWriter.visitMethod(ACC_PUBLIC | ACC_STATIC, "newArray",
+																										"(I)[L" + structClass + ";", null, null);
+		method.visitCode();
+		Label loop = new Label();
+		Label done = new Label();
+		method.visitVarInsn(ILOAD, 0);
+		method.visitTypeInsn(ANEWARRAY, structClass);
+		method.visitVarInsn(ASTORE, 1);
+		method.visitInsn(ICONST_0);
+		method.visitVarInsn(ISTORE, 2);
+		method.visitLabel(loop);
+		method.visitVarInsn(ILOAD, 2);
+		method.visitVarInsn(ILOAD, 0);
+		method.visitJumpInsn(IF_ICMPGE, done);
+		method.visitVarInsn(ALOAD, 1);
+		method.visitVarInsn(ILOAD, 2);
+		method.visitTypeInsn(NEW, structClass);
+		method.visitInsn(DUP);
+		method.visitMethodInsn(INVOKESPECIAL, structClass, "<init>", "()V", false);
+		method.visitInsn(AASTORE);
+		method.visitIincInsn(2, 1);
+		method.visitJumpInsn(GOTO, loop);
+		method.visitLabel(done);
+		method.visitVarInsn(ALOAD, 1);
+		method.visitInsn(ARETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+	}
+
+	/**
+	 * Arrays of a soa struct are a final class with the length and one final primitive array per
+	 * field. points[i].x reads the x array at i, so a loop over one field streams through a single
+	 * dense array instead of loading a struct reference per element.
+	 */
+	private void generateStructOfArrays(StructDeclaration structDecl) {
+		String arrayClass = soaClassName(structDecl.getName());
+		jasminComment("Struct of arrays for " + structDecl.getName() + " (class " + arrayClass + ")");
+
+		ClassWriter arrayWriter = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+		arrayWriter.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, arrayClass, null, "java/lang/Object", null);
+		arrayWriter.visitField(ACC_PUBLIC | ACC_FINAL, "length", "I", null, null).visitEnd();
+		for (StructDeclaration.Field field : structDecl.getFields()) {
+			arrayWriter.visitField(ACC_PUBLIC | ACC_FINAL, field.name, "[" + getJVMTypeDescriptor(field.type), null, null)
+					.visitEnd();
+		}
+
+		MethodVisitor method = arrayWriter.visitMethod(ACC_PUBLIC, "<init>", "(I)V", null, null);
+		method.visitCode();
+		method.visitVarInsn(ALOAD, 0);
+		method.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		method.visitVarInsn(ALOAD, 0);
+		method.visitVarInsn(ILOAD, 1);
+		method.visitFieldInsn(PUTFIELD, arrayClass, "length", "I");
+		for (StructDeclaration.Field field : structDecl.getFields()) {
+			method.visitVarInsn(ALOAD, 0);
+			method.visitVarInsn(ILOAD, 1);
+			PrimitiveType primType = (PrimitiveType) field.type;
+			if ("string".equals(primType.name())) {
+				method.visitTypeInsn(ANEWARRAY, "java/lang/String");
+			}
+			else {
+				method.visitIntInsn(NEWARRAY, getJVMArrayTypeCode(primType));
+			}
+			method.visitFieldInsn(PUTFIELD, arrayClass, field.name, "[" + getJVMTypeDescriptor(field.type));
+		}
+		method.visitInsn(RETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+
+		arrayWriter.visitEnd();
+		writeStructClass(arrayClass, arrayWriter);
+	}
+
+	/**
+	 * Fields are compared the way records compare them: primitives by value (floating point with
+	 * Float.compare/Double.compare, so NaN equals itself), strings and structs with Objects.equals.
+	 */
+	private void generateStructEquals(ClassWriter structWriter, String structClass, StructDeclaration structDecl) {
+		MethodVisitor method = structWriter.visitMethod(ACC_PUBLIC, "equals", "(Ljava/lang/Object;)Z", null, null);
+		method.visitCode();
+		Label notEqual = new Label();
+		Label sameType = new Label();
+
+		method.visitVarInsn(ALOAD, 1);
+		method.visitTypeInsn(INSTANCEOF, structClass);
+		method.visitJumpInsn(IFNE, sameType);
+		method.visitInsn(ICONST_0);
+		method.visitInsn(IRETURN);
+
+		method.visitLabel(sameType);
+		method.visitVarInsn(ALOAD, 1);
+		method.visitTypeInsn(CHECKCAST, structClass);
+		method.visitVarInsn(ASTORE, 2);
+		for (StructDeclaration.Field field : structDecl.getFields()) {
+			String descriptor = getJVMTypeDescriptor(field.type);
+			method.visitVarInsn(ALOAD, 0);
+			method.visitFieldInsn(GETFIELD, structClass, field.name, descriptor);
+			method.visitVarInsn(ALOAD, 2);
+			method.visitFieldInsn(GETFIELD, structClass, field.name, descriptor);
+			switch (descriptor) {
+				case "J" -> {
+					method.visitInsn(LCMP);
+					method.visitJumpInsn(IFNE, notEqual);
+				}
+				case "F" -> {
+					method.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "compare", "(FF)I", false);
+					method.visitJumpInsn(IFNE, notEqual);
+				}
+				case "D" -> {
+					method.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "compare", "(DD)I", false);
+					method.visitJumpInsn(IFNE, notEqual);
+				}
+				case "I", "Z", "C" -> method.visitJumpInsn(IF_ICMPNE, notEqual);
+				default -> {
+					method.visitMethodInsn(INVOKESTATIC, "java/util/Objects", "equals",
+																 "(Ljava/lang/Object;Ljava/lang/Object;)Z", false);
+					method.visitJumpInsn(IFEQ, notEqual);
+				}
+			}
+		}
+		method.visitInsn(ICONST_1);
+		method.visitInsn(IRETURN);
+
+		method.visitLabel(notEqual);
+		method.visitInsn(ICONST_0);
+		method.visitInsn(IRETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+	}
+
+	/**
+	 * Combine the field hashes as 31 * h + hash(field), in declaration order.
+	 */
+	private void generateStructHashCode(ClassWriter structWriter, String structClass, StructDeclaration structDecl) {
+		MethodVisitor method = structWriter.visitMethod(ACC_PUBLIC, "hashCode", "()I", null, null);
+		method.visitCode();
+		method.visitInsn(ICONST_0);
+		for (StructDeclaration.Field field : structDecl.getFields()) {
+			String descriptor = getJVMTypeDescriptor(field.type);
+			method.visitIntInsn(BIPUSH, 31);
+			method.visitInsn(IMUL);
+			method.visitVarInsn(ALOAD, 0);
+			method.visitFieldInsn(GETFIELD, structClass, field.name, descriptor);
+			switch (descriptor) {
+				case "I" -> method.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "hashCode", "(I)I", false);
+				case "J" -> method.visitMethodInsn(INVOKESTATIC, "java/lang/Long", "hashCode", "(J)I", false);
+				case "F" -> method.visitMethodInsn(INVOKESTATIC, "java/lang/Float", "hashCode", "(F)I", false);
+				case "D" -> method.visitMethodInsn(INVOKESTATIC, "java/lang/Double", "hashCode", "(D)I", false);
+				case "Z" -> method.visitMethodInsn(INVOKESTATIC, "java/lang/Boolean", "hashCode", "(Z)I", false);
+				case "C" -> method.visitMethodInsn(INVOKESTATIC, "java/lang/Character", "hashCode", "(C)I", false);
+				default -> method.visitMethodInsn(INVOKESTATIC, "java/util/Objects", "hashCode", "(Ljava/lang/Object;)I", false);
+			}
+			method.visitInsn(IADD);
+		}
+		method.visitInsn(IRETURN);
+		method.visitMaxs(0, 0);
+		method.visitEnd();
+	}
+
+	private String structClassName(String structName) {
+		return currentClassName + "$" + structName;
+	}
+
+	/**
+	 * The class holding the field arrays of an array of soa structs.
+	 */
+	private String soaClassName(String structName) {
+		return structClassName(structName) + "$Array";
+	}
+
+	private boolean isStructOfArrays(StructType structType) {
+		StructDeclaration structDecl = structDeclarations.get(structType.structName());
+		return structDecl != null && structDecl.isStructOfArrays();
+	}
+
 	// ===== FUNCTION AND VARIABLE DECLARATIONS =====
 
 	@Override
@@ -177,6 +560,10 @@ public class CodeGenerator implements ASTVisitor<Void> {
 			junoMainReturnType = funcDecl.returnType();
 		}
 
+		if (useIR && generateFromIR(funcDecl, methodDescriptor)) {
+			return null;
+		}
+
 		// Track current function's return type
 		currentFunctionReturnType = funcDecl.returnType();
 
@@ -187,17 +574,7 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		jasminDirective("    .limit locals 20"); // Conservative estimate
 
 		// Create method (public static for now)
-		MethodVisitor methodVisitor = classWriter.visitMethod(
-				ACC_PUBLIC | ACC_STATIC,
-				methodName,
-				methodDescriptor,
-				null,
-				null
-		);
-
-		// Initialize method generation context
-		Method method = new Method(methodName, methodDescriptor);
-		methodGenerator = new GeneratorAdapter(ACC_PUBLIC | ACC_STATIC, method, methodVisitor);
+		MethodNode methodNode = beginMethod(ACC_PUBLIC | ACC_STATIC, methodName, methodDescriptor);
 
 		// Reset local variables for this method
 		localVariables.clear();
@@ -208,9 +585,26 @@ public class CodeGenerator implements ASTVisitor<Void> {
 			localVariables.put(param.name(), nextLocalSlot);
 			nextLocalSlot += getTypeSize(param.type());
 		}
+		pointers = PointerEscapeAnalysis.analyze(funcDecl);
+		cellSlots.clear();
+		aliasSlots.clear();
+		arrayPointerSlots.clear();
+		jasminLabelNames.clear();
+		memoryPointerSlots.clear();
 
 		methodGenerator.visitCode();
 
+		// Parameters whose address escapes move into a cell on entry
+		for (FunctionDeclaration.Parameter param : funcDecl.parameters()) {
+			if (pointers.isCell(param)) {
+				jasminComment("Parameter " + param.name() + " is stored in a cell");
+				generateCellStart(param.type());
+				loadVariable(param.type(), localVariables.get(param.name()));
+				generateCellEnd(param.type());
+				declareCell(param.name());
+			}
+		}
+
 		// Generate function body
 		if (funcDecl.body() != null) {
 			funcDecl.body().accept(this);
@@ -224,8 +618,8 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		}
 		// Non-void methods should have explicit return statements (verified by type checker)
 
-		methodGenerator.visitMaxs(0, 0);
-		methodGenerator.visitEnd();
+		endMethod(methodNode);
+		pointers = PointerEscapeAnalysis.NONE;
 
 		// End Jasmin method
 		jasminEndMethod();
@@ -233,6 +627,38 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		return null;
 	}
 
+	/**
+	 * Compile a function through the SSA IR: lower, optimize and emit it.
+	 *
+	 * @return false if the function cannot be lowered and must be compiled from the AST
+	 */
+	private boolean generateFromIR(FunctionDeclaration funcDecl, String methodDescriptor) {
+		Function function;
+		try {
+			function = new IRLowering(currentClassName, functionDeclarations, globalVariables).lower(funcDecl);
+		} catch (IRLoweringException e) {
+			irFallbacks++;
+			return false;
+		}
+		if (!function.getDescriptor().equals(methodDescriptor)) {
+			irFallbacks++;
+			return false;
+		}
+		if (optimize) {
+			irOptimizer.optimize(function);
+		}
+
+		jasminComment("Function: " + funcDecl.name() + methodDescriptor + " (from IR)");
+		jasminMethod(funcDecl.name() + methodDescriptor, "public static");
+		MethodNode methodNode = beginMethod(ACC_PUBLIC | ACC_STATIC, funcDecl.name(), methodDescriptor);
+		methodGenerator.visitCode();
+		// The emitter allocates its own slots, so it bypasses the generator's local remapping
+		new BytecodeEmitter().emit(function, methodNode);
+		endMethod(methodNode);
+		jasminEndMethod();
+		return true;
+	}
+
 	@Override
 	public Void visitVariableDeclaration(VariableDeclaration varDecl) {
 		String varName = varDecl.name();
@@ -247,6 +673,10 @@ public class CodeGenerator implements ASTVisitor<Void> {
 			if (varDecl.initializer() != null) {
 				globalInitializers.put(varName, varDecl.initializer());
 			}
+			else if (varType instanceof StructType || (varType instanceof ArrayType arrayType && arrayType.isFixedArray())) {
+				// Allocated in the static initializer, like a local declared without an initializer
+				globalInitializers.put(varName, null);
+			}
 
 			// Create the static field
 			FieldVisitor fieldVisitor = classWriter.visitField(
@@ -262,6 +692,70 @@ public class CodeGenerator implements ASTVisitor<Void> {
 			jasminField(varName, fieldDescriptor, "public static");
 
 		}
+		else if (pointers.isMixedPointer(varDecl)) {
+			throw new UnsupportedOperationException("Pointer " + varName
+					+ " is assigned pointers of different kinds (into arrays, into memory, to variables)");
+		}
+		else if (pointers.isMemoryPointer(varDecl)) {
+			jasminComment("Pointer " + varName + " is an address in Mem");
+			int varSlot = nextLocalSlot++;
+			localVariables.put(varName, varSlot);
+			forgetPointerSlot(varSlot);
+			memoryPointerSlots.add(varSlot);
+			if (varDecl.initializer() != null) {
+				generateMemoryAddress(varDecl.initializer());
+			}
+			else {
+				methodGenerator.visitInsn(ICONST_0);
+				jasminInstruction("iconst_0");
+			}
+			methodGenerator.visitVarInsn(ISTORE, varSlot);
+			jasminInstruction("istore " + varSlot);
+		}
+		else if (pointers.isArrayPointer(varDecl)) {
+			jasminComment("Pointer " + varName + " is an array and an index");
+			int varSlot = nextLocalSlot;
+			nextLocalSlot += 2;
+			localVariables.put(varName, varSlot);
+			forgetPointerSlot(varSlot);
+			arrayPointerSlots.add(varSlot);
+			if (varDecl.initializer() != null) {
+				generateArrayPointer(varDecl.initializer());
+			}
+			else {
+				methodGenerator.visitInsn(ACONST_NULL);
+				methodGenerator.visitInsn(ICONST_0);
+				jasminInstruction("aconst_null");
+				jasminInstruction("iconst_0");
+			}
+			storeArrayPointer(varSlot);
+		}
+		else if (pointers.isAlias(varDecl)) {
+			// The pointer is never stored: dereferencing it accesses its target directly
+			String targetName = ((IdentifierExpression) ((AddressOfExpression) varDecl.initializer()).getOperand()).getName();
+			jasminComment("Pointer " + varName + " aliases " + targetName);
+			int targetSlot = localVariables.get(targetName);
+			int varSlot = nextLocalSlot++;
+			localVariables.put(varName, varSlot);
+			forgetPointerSlot(varSlot);
+			aliasSlots.put(varSlot, targetSlot);
+		}
+		else if (pointers.isCell(varDecl)) {
+			jasminComment("Local variable: " + varType.name() + " " + varName + " (stored in a cell)");
+			generateCellStart(varType);
+			if (varDecl.initializer() != null) {
+				varDecl.initializer().accept(this);
+				com.juno.types.Type initializerType = varDecl.initializer().getType();
+				if (initializerType != null && !initializerType.equals(varType)) {
+					generateTypeConversion(initializerType, varType);
+				}
+			}
+			else {
+				generateDefaultValue(varType);
+			}
+			generateCellEnd(varType);
+			declareCell(varName);
+		}
 		else {
 			// Local variable - handle as before
 			jasminComment("Local variable: " + varType.name() + " " + varName);
@@ -270,6 +764,7 @@ public class CodeGenerator implements ASTVisitor<Void> {
 			localVariables.put(varName, nextLocalSlot);
 			int varSlot = nextLocalSlot;
 			nextLocalSlot += getTypeSize(varType);
+			forgetPointerSlot(varSlot);
 
 			// Generate initialization code
 			if (varDecl.initializer() != null) {
@@ -323,23 +818,42 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		return null;
 	}
 
+	private void generateIoFlush() {
+		methodGenerator.visitMethodInsn(INVOKESTATIC, "com/juno/runtime/Io", "flush", "()V", false);
+		jasminInstruction("invokestatic com/juno/runtime/Io/flush()V");
+	}
+
 	// ===== ARRAY HELPER METHODS =====
 
 	@Override
 	public Void visitBlockStatement(BlockStatement block) {
+		// Variables declared in the block go out of scope at its end, so sibling blocks reuse their slots
+		Map<String, Integer> outerVariables = new HashMap<>(localVariables);
+		int outerNextSlot = nextLocalSlot;
+
 		for (Statement stmt : block.statements()) {
 			stmt.accept(this);
 		}
+
+		localVariables.clear();
+		localVariables.putAll(outerVariables);
+		nextLocalSlot = outerNextSlot;
 		return null;
 	}
 
 	@Override
 	public Void visitExpressionStatement(ExpressionStatement exprStmt) {
-		exprStmt.expression().accept(this);
-		// Pop the result only if the expression returns a value
 		Expression expr = exprStmt.expression();
+		// Assigning a pointer into an array stores both of its halves and leaves no value behind
+		if (expr instanceof AssignmentExpression assignment && isArrayPointer(assignment.getTarget())) {
+			generateArrayPointer(assignment.getValue());
+			storeArrayPointer(localVariables.get(((IdentifierExpression) assignment.getTarget()).getName()));
+			return null;
+		}
+		expr.accept(this);
+		// Pop the result only if the expression returns a value
 		if (expr.getType() != null && !"void".equals(expr.getType().name())) {
-			methodGenerator.visitInsn(POP);
+			methodGenerator.visitInsn(getTypeSize(expr.getType()) == 2 ? POP2 : POP);
 		}
 		return null;
 	}
@@ -347,30 +861,20 @@ public class CodeGenerator implements ASTVisitor<Void> {
 	@Override
 	public Void visitReturnStatement(ReturnStatement returnStmt) {
 		if (returnStmt.value() != null) {
+			if (isMemoryPointer(returnStmt.value())) {
+				throw new UnsupportedOperationException(MEMORY_POINTER_ESCAPES);
+			}
 			jasminComment("Return with value");
 			returnStmt.value().accept(this);  // Generate return value
-
-			// CRITICAL: Handle type conversion for long returns
-			// Always convert to long when function returns long, since most expressions
-			// produce int values on the JVM stack regardless of AST-level type inference
-			if (isLongType(currentFunctionReturnType)) {
-				// Check if the return expression produces a long value or needs conversion
-				if (producesLongValue(returnStmt.value()) ||
-						isLongArithmeticExpression(returnStmt.value())) {
-					jasminComment("Return value already long - no conversion needed");
-				}
-				else {
-					jasminComment("Converting int to long for ulong return");
-					methodGenerator.visitInsn(I2L);
-					jasminInstruction("i2l");
-				}
-			}
+			generateTypeConversion(returnStmt.value().getType(), currentFunctionReturnType);
+			generateCloseOpenLines();
 
 			// Use the function's declared return type
 			generateReturn(currentFunctionReturnType);
 		}
 		else {
 			jasminComment("Return void");
+			generateCloseOpenLines();
 			methodGenerator.visitInsn(RETURN);
 			jasminInstruction("return");
 		}
@@ -384,15 +888,16 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		int elseLabelId = ++labelCounter;
 		int endLabelId = ++labelCounter;
 
-		// Generate condition
-		ifStmt.condition().accept(this);
-		methodGenerator.visitJumpInsn(IFEQ, elseLabel);  // Jump to else if false
-		jasminInstruction("ifeq else_" + elseLabelId);
+		// Jump to else as soon as the condition is known to be false
+		jasminLabelNames.put(elseLabel, "else_" + elseLabelId);
+		generateCondition(ifStmt.condition(), elseLabel, false);
 
 		// Generate then branch
 		ifStmt.getThenStatement().accept(this);
-		methodGenerator.visitJumpInsn(GOTO, endLabel);
-		jasminInstruction("goto end_" + endLabelId);
+		if (ifStmt.getElseStatement() != null) {
+			methodGenerator.visitJumpInsn(GOTO, endLabel);
+			jasminInstruction("goto end_" + endLabelId);
+		}
 
 		// Generate else branch
 		methodGenerator.visitLabel(elseLabel);
@@ -409,31 +914,32 @@ public class CodeGenerator implements ASTVisitor<Void> {
 	@Override
 	public Void visitWhileStatement(WhileStatement whileStmt) {
 		Label startLabel = methodGenerator.newLabel();
+		Label conditionLabel = methodGenerator.newLabel();
 		Label endLabel = methodGenerator.newLabel();
 		int startLabelId = ++labelCounter;
+		int conditionLabelId = ++labelCounter;
 		int endLabelId = ++labelCounter;
 
 		jasminComment("While loop start");
 
 		// Push loop labels for break/continue
 		breakLabels.push(endLabel);
-		continueLabels.push(startLabel);
+		continueLabels.push(conditionLabel);
 
-		// Start of loop
-		methodGenerator.visitLabel(startLabel);
-		jasminLabel("while_start_" + startLabelId);
-
-		// Generate condition
-		whileStmt.condition().accept(this);
-		methodGenerator.visitJumpInsn(IFEQ, endLabel);  // Exit if false
-		jasminInstruction("ifeq while_end_" + endLabelId);
+		// The condition is tested at the bottom, so each iteration takes a single branch
+		methodGenerator.visitJumpInsn(GOTO, conditionLabel);
+		jasminInstruction("goto while_condition_" + conditionLabelId);
 
 		// Generate body
+		methodGenerator.visitLabel(startLabel);
+		jasminLabel("while_start_" + startLabelId);
 		whileStmt.body().accept(this);
 
-		// Jump back to condition
-		methodGenerator.visitJumpInsn(GOTO, startLabel);
-		jasminInstruction("goto while_start_" + startLabelId);
+		// Loop back while the condition holds
+		methodGenerator.visitLabel(conditionLabel);
+		jasminLabel("while_condition_" + conditionLabelId);
+		jasminLabelNames.put(startLabel, "while_start_" + startLabelId);
+		generateCondition(whileStmt.condition(), startLabel, true);
 
 		// End of loop
 		methodGenerator.visitLabel(endLabel);
@@ -446,156 +952,631 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		return null;
 	}
 
+	/**
+	 * For-in over an array is compiled as a counted loop over hidden array, length and index locals:
+	 * the array is evaluated and its length read once, and every element is loaded with the array
+	 * instruction for its type, so no iterator is allocated and nothing is boxed.
+	 */
 	@Override
 	public Void visitForInStatement(ForInStatement forStmt) {
-		// TODO: Implement for-in loops (requires iterator support)
-		throw new UnsupportedOperationException("For-in loops not yet supported in code generation");
-	}
+		if (forStmt.iterable() instanceof RangeExpression range) {
+			generateRangeLoop(forStmt, range);
+			return null;
+		}
+		if (forStmt.iterable().getType() instanceof LinesType) {
+			generateLinesLoop(forStmt);
+			return null;
+		}
+		if (!(forStmt.iterable().getType() instanceof ArrayType arrayType)) {
+			throw new UnsupportedOperationException("For-in loops are only supported over arrays");
+		}
+		com.juno.types.Type elementType = arrayType.elementType();
+		com.juno.types.Type varType = forStmt.variableType();
 
-	// ===== EXPRESSIONS =====
+		// The loop variable and the hidden locals go out of scope with the loop
+		Map<String, Integer> outerVariables = new HashMap<>(localVariables);
+		int outerNextSlot = nextLocalSlot;
 
-	@Override
-	public Void visitBinaryExpression(BinaryExpression expr) {
-		String operator = expr.getOperator();
+		Label startLabel = methodGenerator.newLabel();
+		Label continueLabel = methodGenerator.newLabel();
+		Label endLabel = methodGenerator.newLabel();
+		int startLabelId = ++labelCounter;
+		int continueLabelId = ++labelCounter;
+		int endLabelId = ++labelCounter;
 
-		// Generate left operand
-		expr.getLeft().accept(this);
-		boolean leftProducesLong = producesLongValue(expr.getLeft());
+		jasminComment("For-in loop over " + arrayType.name());
 
-		// Generate right operand
-		expr.getRight().accept(this);
-		boolean rightProducesLong = producesLongValue(expr.getRight());
-
-		// Convert operands to long if needed for mixed arithmetic
-		boolean isLongArithmetic = leftProducesLong || rightProducesLong;
-		if (isLongArithmetic) {
-			if (rightProducesLong && !leftProducesLong) {
-				// Right is long, left is int - need to promote left
-				// Stack: [int, long_low, long_high] -> [long_low, long_high, long_low, long_high]
-				methodGenerator.visitInsn(DUP2_X1);  // Duplicate long below int
-				methodGenerator.visitInsn(POP2);     // Remove duplicated long
-				methodGenerator.visitInsn(I2L);      // Convert int to long
-				methodGenerator.visitInsn(DUP2_X2);  // Move converted long below original long
-				methodGenerator.visitInsn(POP2);     // Remove duplicated converted long
-				jasminInstruction("dup2_x1");
-				jasminInstruction("pop2");
-				jasminInstruction("i2l");
-				jasminInstruction("dup2_x2");
-				jasminInstruction("pop2");
-			}
-			else if (leftProducesLong && !rightProducesLong) {
-				// Left is long, right is int - need to promote right
-				// Stack: [long_low, long_high, int] -> [long_low, long_high, long_low, long_high]
-				methodGenerator.visitInsn(I2L);      // Convert int to long
-				jasminInstruction("i2l");
+		int arraySlot = nextLocalSlot++;
+		int lengthSlot = nextLocalSlot++;
+		int indexSlot = nextLocalSlot++;
+		int varSlot = nextLocalSlot;
+		nextLocalSlot += getTypeSize(varType);
+		declareLoopVariable(forStmt, varSlot);
+
+		forStmt.iterable().accept(this);
+		methodGenerator.visitInsn(DUP);
+		methodGenerator.visitVarInsn(ASTORE, arraySlot);
+		methodGenerator.visitInsn(ARRAYLENGTH);
+		methodGenerator.visitVarInsn(ISTORE, lengthSlot);
+		methodGenerator.visitInsn(ICONST_0);
+		methodGenerator.visitVarInsn(ISTORE, indexSlot);
+		jasminInstruction("dup");
+		jasminInstruction("astore " + arraySlot);
+		jasminInstruction("arraylength");
+		jasminInstruction("istore " + lengthSlot);
+		jasminInstruction("iconst_0");
+		jasminInstruction("istore " + indexSlot);
+
+		// The initializer only gives the variable a value before the first element is assigned
+		if (forStmt.initializer() != null) {
+			forStmt.initializer().accept(this);
+			com.juno.types.Type initializerType = forStmt.initializer().getType();
+			if (initializerType != null && !initializerType.equals(varType)) {
+				generateTypeConversion(initializerType, varType);
 			}
+			storeVariable(varType, varSlot);
 		}
 
-		switch (operator) {
-			case "+":
-				if (isLongArithmetic) {
-					methodGenerator.visitInsn(LADD);
-					jasminInstruction("ladd");
-				}
-				else {
-					methodGenerator.visitInsn(IADD);
-					jasminInstruction("iadd");
-				}
-				break;
-			case "-":
-				if (isLongArithmetic) {
-					methodGenerator.visitInsn(LSUB);
-					jasminInstruction("lsub");
-				}
-				else {
-					methodGenerator.visitInsn(ISUB);
-					jasminInstruction("isub");
-				}
-				break;
-			case "*":
-				if (isLongArithmetic) {
-					methodGenerator.visitInsn(LMUL);
-					jasminInstruction("lmul");
-				}
-				else {
-					methodGenerator.visitInsn(IMUL);
-					jasminInstruction("imul");
-				}
-				break;
-			case "/":
-				if (isLongArithmetic) {
-					methodGenerator.visitInsn(LDIV);
-					jasminInstruction("ldiv");
-				}
-				else {
-					methodGenerator.visitInsn(IDIV);
-					jasminInstruction("idiv");
-				}
-				break;
-			case "%":
-				if (isLongArithmetic) {
-					methodGenerator.visitInsn(LREM);
-					jasminInstruction("lrem");
-				}
-				else {
-					methodGenerator.visitInsn(IREM);
-					jasminInstruction("irem");
-				}
-				break;
-			case "<":
-				generateComparison(IF_ICMPLT);
-				break;
-			case "<=":
-				generateComparison(IF_ICMPLE);
-				jasminComment("Comparison: <=");
-				break;
-			case ">":
-				generateComparison(IF_ICMPGT);
-				jasminComment("Comparison: >");
-				break;
-			case ">=":
-				generateComparison(IF_ICMPGE);
-				jasminComment("Comparison: >=");
-				break;
-			case "==":
-				generateComparison(IF_ICMPEQ);
-				break;
-			case "!=":
-				generateComparison(IF_ICMPNE);
-				break;
-			case "&&":
-				generateLogicalAnd();
-				break;
-			case "||":
-				generateLogicalOr();
-				break;
-			case "^^":
-				generateStringConcatenation();
-				break;
-			default:
-				throw new UnsupportedOperationException("Unsupported binary operator: " + operator);
+		breakLabels.push(endLabel);
+		continueLabels.push(continueLabel);
+
+		methodGenerator.visitLabel(startLabel);
+		jasminLabel("for_start_" + startLabelId);
+		methodGenerator.visitVarInsn(ILOAD, indexSlot);
+		methodGenerator.visitVarInsn(ILOAD, lengthSlot);
+		methodGenerator.visitJumpInsn(IF_ICMPGE, endLabel);
+		jasminInstruction("iload " + indexSlot);
+		jasminInstruction("iload " + lengthSlot);
+		jasminInstruction("if_icmpge for_end_" + endLabelId);
+
+		// Load the current element into the loop variable
+		methodGenerator.visitVarInsn(ALOAD, arraySlot);
+		methodGenerator.visitVarInsn(ILOAD, indexSlot);
+		jasminInstruction("aload " + arraySlot);
+		jasminInstruction("iload " + indexSlot);
+		generateArrayLoad(elementType);
+		if (!elementType.equals(varType)) {
+			generateTypeConversion(elementType, varType);
 		}
+		storeVariable(varType, varSlot);
+
+		forStmt.body().accept(this);
+
+		methodGenerator.visitLabel(continueLabel);
+		jasminLabel("for_continue_" + continueLabelId);
+		methodGenerator.visitIincInsn(indexSlot, 1);
+		methodGenerator.visitJumpInsn(GOTO, startLabel);
+		jasminInstruction("iinc " + indexSlot + " 1");
+		jasminInstruction("goto for_start_" + startLabelId);
+
+		methodGenerator.visitLabel(endLabel);
+		jasminLabel("for_end_" + endLabelId);
+
+		breakLabels.pop();
+		continueLabels.pop();
 
+		localVariables.clear();
+		localVariables.putAll(outerVariables);
+		nextLocalSlot = outerNextSlot;
 		return null;
 	}
 
-	@Override
-	public Void visitUnaryExpression(UnaryExpression expr) {
-		String operator = expr.getOperator();
+	/**
+	 * Close the files of the File.lines loops a return leaves, innermost first.
+	 */
+	private void generateCloseOpenLines() {
+		for (int i = openLinesSlots.size() - 1; i >= 0; i--) {
+			methodGenerator.visitVarInsn(ALOAD, openLinesSlots.get(i));
+			methodGenerator.visitMethodInsn(INVOKEVIRTUAL, "com/juno/runtime/FileLines", "close", "()V", false);
+			jasminInstruction("aload " + openLinesSlots.get(i));
+			jasminInstruction("invokevirtual com/juno/runtime/FileLines/close()V");
+		}
+	}
 
-		// Generate operand
-		expr.getOperand().accept(this);
+	/**
+	 * For-in over the lines of a file is compiled to a loop over a hidden FileLines local, which
+	 * reads the file in chunks: next() moves to the next line, line() decodes it into the loop
+	 * variable. next() closes the file after the last line, and the loop closes it again on the
+	 * way out so a break does not leave it open. The loop is wrapped in a handler that closes the
+	 * file and rethrows, and a return in the body closes it before it returns.
+	 */
+	private void generateLinesLoop(ForInStatement forStmt) {
+		String linesClass = "com/juno/runtime/FileLines";
+		com.juno.types.Type varType = forStmt.variableType();
+
+		Map<String, Integer> outerVariables = new HashMap<>(localVariables);
+		int outerNextSlot = nextLocalSlot;
+
+		Label startLabel = methodGenerator.newLabel();
+		Label endLabel = methodGenerator.newLabel();
+		int startLabelId = ++labelCounter;
+		int endLabelId = ++labelCounter;
+
+		jasminComment("For-in loop over the lines of a file");
+
+		int linesSlot = nextLocalSlot++;
+		int varSlot = nextLocalSlot++;
+
+		Label tryStart = methodGenerator.newLabel();
+		Label handlerLabel = methodGenerator.newLabel();
+		Label afterLabel = methodGenerator.newLabel();
+		int handlerLabelId = ++labelCounter;
+		int afterLabelId = ++labelCounter;
+		methodGenerator.visitTryCatchBlock(tryStart, endLabel, handlerLabel, null);
+		jasminDirective(".catch all from for_try_" + handlerLabelId + " to for_end_" + endLabelId
+				+ " using for_close_" + handlerLabelId);
+
+		forStmt.iterable().accept(this);
+		methodGenerator.visitVarInsn(ASTORE, linesSlot);
+		jasminInstruction("astore " + linesSlot);
+		methodGenerator.visitLabel(tryStart);
+		jasminLabel("for_try_" + handlerLabelId);
+		openLinesSlots.push(linesSlot);
+
+		if (forStmt.initializer() != null) {
+			forStmt.initializer().accept(this);
+			generateTypeConversion(forStmt.initializer().getType(), varType);
+			storeVariable(varType, varSlot);
+		}
+		declareLoopVariable(forStmt, varSlot);
+
+		// next() is the loop condition, so continue jumps straight back to it
+		breakLabels.push(endLabel);
+		continueLabels.push(startLabel);
+
+		methodGenerator.visitLabel(startLabel);
+		jasminLabel("for_start_" + startLabelId);
+		methodGenerator.visitVarInsn(ALOAD, linesSlot);
+		methodGenerator.visitMethodInsn(INVOKEVIRTUAL, linesClass, "next", "()Z", false);
+		methodGenerator.visitJumpInsn(IFEQ, endLabel);
+		methodGenerator.visitVarInsn(ALOAD, linesSlot);
+		methodGenerator.visitMethodInsn(INVOKEVIRTUAL, linesClass, "line", "()Ljava/lang/String;", false);
+		methodGenerator.visitVarInsn(ASTORE, varSlot);
+		jasminInstruction("aload " + linesSlot);
+		jasminInstruction("invokevirtual " + linesClass + "/next()Z");
+		jasminInstruction("ifeq for_end_" + endLabelId);
+		jasminInstruction("aload " + linesSlot);
+		jasminInstruction("invokevirtual " + linesClass + "/line()Ljava/lang/String;");
+		jasminInstruction("astore " + varSlot);
+
+		forStmt.body().accept(this);
+
+		methodGenerator.visitJumpInsn(GOTO, startLabel);
+		jasminInstruction("goto for_start_" + startLabelId);
+
+		methodGenerator.visitLabel(endLabel);
+		jasminLabel("for_end_" + endLabelId);
+		methodGenerator.visitVarInsn(ALOAD, linesSlot);
+		methodGenerator.visitMethodInsn(INVOKEVIRTUAL, linesClass, "close", "()V", false);
+		methodGenerator.visitJumpInsn(GOTO, afterLabel);
+		jasminInstruction("aload " + linesSlot);
+		jasminInstruction("invokevirtual " + linesClass + "/close()V");
+		jasminInstruction("goto for_after_" + afterLabelId);
+
+		// Anything thrown in the loop closes the file on its way out
+		methodGenerator.visitLabel(handlerLabel);
+		jasminLabel("for_close_" + handlerLabelId);
+		methodGenerator.visitVarInsn(ALOAD, linesSlot);
+		methodGenerator.visitMethodInsn(INVOKEVIRTUAL, linesClass, "close", "()V", false);
+		methodGenerator.visitInsn(ATHROW);
+		jasminInstruction("aload " + linesSlot);
+		jasminInstruction("invokevirtual " + linesClass + "/close()V");
+		jasminInstruction("athrow");
+
+		methodGenerator.visitLabel(afterLabel);
+		jasminLabel("for_after_" + afterLabelId);
+
+		openLinesSlots.pop();
+		breakLabels.pop();
+		continueLabels.pop();
+
+		localVariables.clear();
+		localVariables.putAll(outerVariables);
+		nextLocalSlot = outerNextSlot;
+	}
+
+	/**
+	 * For-in over a range is compiled to a counted loop whose counter is the loop variable itself:
+	 * the end and a non-constant step are evaluated once into hidden locals, and constant steps on
+	 * an int counter become a single IINC. No range object is ever created. A non-constant step
+	 * counts down when it is negative.
+	 */
+	private void generateRangeLoop(ForInStatement forStmt, RangeExpression range) {
+		com.juno.types.Type varType = forStmt.variableType();
+		boolean isLong = getTypeSize(varType) == 2;
+		boolean descending = range.isDescending();
+		Long constantStep = range.getConstantStep();
+		Long constantEnd = range.getEnd() instanceof LiteralExpression literal && literal.getValue() instanceof Number number
+				? (Long) number.longValue() : null;
+
+		Map<String, Integer> outerVariables = new HashMap<>(localVariables);
+		int outerNextSlot = nextLocalSlot;
+
+		Label startLabel = methodGenerator.newLabel();
+		Label continueLabel = methodGenerator.newLabel();
+		Label endLabel = methodGenerator.newLabel();
+		int startLabelId = ++labelCounter;
+		int continueLabelId = ++labelCounter;
+		int endLabelId = ++labelCounter;
+
+		jasminComment("For-in loop over range (" + (range.isInclusive() ? "..=" : "..") + ")");
+
+		if (forStmt.initializer() != null) {
+			// The counter is assigned the start of the range, so the initializer is only evaluated
+			forStmt.initializer().accept(this);
+			methodGenerator.visitInsn(getTypeSize(forStmt.initializer().getType()) == 2 ? POP2 : POP);
+			jasminInstruction("pop ; initializer replaced by range start");
+		}
+
+		int varSlot = nextLocalSlot;
+		nextLocalSlot += getTypeSize(varType);
+		generateRangeValue(range.getStart(), varType);
+		storeVariable(varType, varSlot);
+
+		int endSlot = -1;
+		if (constantEnd == null) {
+			endSlot = nextLocalSlot;
+			nextLocalSlot += getTypeSize(varType);
+			generateRangeValue(range.getEnd(), varType);
+			storeVariable(varType, endSlot);
+		}
+		int stepSlot = -1;
+		if (constantStep == null) {
+			stepSlot = nextLocalSlot;
+			nextLocalSlot += getTypeSize(varType);
+			generateRangeValue(range.getStep(), varType);
+			storeVariable(varType, stepSlot);
+
+			// A step of zero would never reach the end
+			Label stepLabel = methodGenerator.newLabel();
+			int stepLabelId = ++labelCounter;
+			loadVariable(varType, stepSlot);
+			generateRangeSignJump(isLong, IFNE, "ne", stepLabel, "for_step_" + stepLabelId);
+			methodGenerator.throwException(Type.getType(IllegalArgumentException.class), "Range step cannot be zero");
+			jasminInstruction("new java/lang/IllegalArgumentException");
+			jasminInstruction("dup");
+			jasminInstruction("ldc \"Range step cannot be zero\"");
+			jasminInstruction("invokespecial java/lang/IllegalArgumentException/<init>(Ljava/lang/String;)V");
+			jasminInstruction("athrow");
+			methodGenerator.visitLabel(stepLabel);
+			jasminLabel("for_step_" + stepLabelId);
+		}
+
+		// The variable becomes visible to the body only, not to the bounds
+		declareLoopVariable(forStmt, varSlot);
+
+		breakLabels.push(endLabel);
+		continueLabels.push(continueLabel);
+
+		methodGenerator.visitLabel(startLabel);
+		jasminLabel("for_start_" + startLabelId);
+		Label bodyLabel = methodGenerator.newLabel();
+		int bodyLabelId = ++labelCounter;
+		if (constantStep == null) {
+			// The direction is the sign of the step
+			Label descendingLabel = methodGenerator.newLabel();
+			int descendingLabelId = ++labelCounter;
+			loadVariable(varType, stepSlot);
+			generateRangeSignJump(isLong, IFLT, "lt", descendingLabel, "for_down_" + descendingLabelId);
+			generateRangeEntryCheck(range, false, varType, varSlot, constantEnd, endSlot, endLabel, endLabelId);
+			methodGenerator.visitJumpInsn(GOTO, bodyLabel);
+			jasminInstruction("goto for_body_" + bodyLabelId);
+			methodGenerator.visitLabel(descendingLabel);
+			jasminLabel("for_down_" + descendingLabelId);
+			generateRangeEntryCheck(range, true, varType, varSlot, constantEnd, endSlot, endLabel, endLabelId);
+		}
+		else {
+			generateRangeEntryCheck(range, descending, varType, varSlot, constantEnd, endSlot, endLabel, endLabelId);
+		}
+		methodGenerator.visitLabel(bodyLabel);
+		jasminLabel("for_body_" + bodyLabelId);
+
+		forStmt.body().accept(this);
+
+		methodGenerator.visitLabel(continueLabel);
+		jasminLabel("for_continue_" + continueLabelId);
+		// Stepping past the end of an exclusive range by one cannot overflow, since the counter is
+		// still short of the end. Any other step leaves first if the next value would be past the
+		// end, so the counter never wraps around at the limits of its type.
+		boolean guarded = constantStep == null || range.isInclusive() || Math.abs(constantStep) != 1;
+		if (guarded) {
+			generateRangeStepGuard(range, varType, varSlot, constantEnd, endSlot, constantStep, stepSlot, endLabel, endLabelId);
+		}
+		if (!isLong && constantStep != null && constantStep >= Short.MIN_VALUE && constantStep <= Short.MAX_VALUE) {
+			methodGenerator.visitIincInsn(varSlot, constantStep.intValue());
+			jasminInstruction("iinc " + varSlot + " " + constantStep);
+		}
+		else {
+			loadVariable(varType, varSlot);
+			if (constantStep != null) {
+				pushRangeConstant(constantStep, isLong);
+			}
+			else {
+				loadVariable(varType, stepSlot);
+			}
+			methodGenerator.visitInsn(isLong ? LADD : IADD);
+			jasminInstruction(isLong ? "ladd" : "iadd");
+			storeVariable(varType, varSlot);
+		}
+		// A guarded step is known to stay within the range
+		if (guarded) {
+			methodGenerator.visitJumpInsn(GOTO, bodyLabel);
+			jasminInstruction("goto for_body_" + bodyLabelId);
+		}
+		else {
+			methodGenerator.visitJumpInsn(GOTO, startLabel);
+			jasminInstruction("goto for_start_" + startLabelId);
+		}
+
+		methodGenerator.visitLabel(endLabel);
+		jasminLabel("for_end_" + endLabelId);
+
+		breakLabels.pop();
+		continueLabels.pop();
+
+		localVariables.clear();
+		localVariables.putAll(outerVariables);
+		nextLocalSlot = outerNextSlot;
+	}
+
+	/**
+	 * Leave the loop if the counter is already past the end of the range.
+	 */
+	private void generateRangeEntryCheck(RangeExpression range, boolean descending, com.juno.types.Type varType,
+																			 int varSlot, Long constantEnd, int endSlot, Label endLabel, int endLabelId) {
+		boolean isLong = getTypeSize(varType) == 2;
+		loadVariable(varType, varSlot);
+		loadRangeEnd(varType, constantEnd, endSlot);
+		String exitCondition;
+		if (descending) {
+			exitCondition = range.isInclusive() ? "lt" : "le";
+		}
+		else {
+			exitCondition = range.isInclusive() ? "gt" : "ge";
+		}
+		if (isLong) {
+			methodGenerator.visitInsn(LCMP);
+			jasminInstruction("lcmp");
+			generateRangeSignJump(false, switch (exitCondition) {
+				case "lt" -> IFLT;
+				case "le" -> IFLE;
+				case "gt" -> IFGT;
+				default -> IFGE;
+			}, exitCondition, endLabel, "for_end_" + endLabelId);
+		}
+		else {
+			methodGenerator.visitJumpInsn(switch (exitCondition) {
+				case "lt" -> IF_ICMPLT;
+				case "le" -> IF_ICMPLE;
+				case "gt" -> IF_ICMPGT;
+				default -> IF_ICMPGE;
+			}, endLabel);
+			jasminInstruction("if_icmp" + exitCondition + " for_end_" + endLabelId);
+		}
+	}
+
+	/**
+	 * Leave the loop if adding the step to the counter would go past the end of the range. The
+	 * distance left to the end is compared unsigned, so it holds any distance between two values
+	 * of the counter's type; an inclusive range with a step of one simply stops at its end.
+	 */
+	private void generateRangeStepGuard(RangeExpression range, com.juno.types.Type varType, int varSlot,
+																			Long constantEnd, int endSlot, Long constantStep, int stepSlot,
+																			Label endLabel, int endLabelId) {
+		boolean isLong = getTypeSize(varType) == 2;
+		if (constantStep != null && range.isInclusive() && Math.abs(constantStep) == 1) {
+			loadVariable(varType, varSlot);
+			loadRangeEnd(varType, constantEnd, endSlot);
+			if (isLong) {
+				methodGenerator.visitInsn(LCMP);
+				jasminInstruction("lcmp");
+				generateRangeSignJump(false, IFEQ, "eq", endLabel, "for_end_" + endLabelId);
+			}
+			else {
+				methodGenerator.visitJumpInsn(IF_ICMPEQ, endLabel);
+				jasminInstruction("if_icmpeq for_end_" + endLabelId);
+			}
+			return;
+		}
+
+		// distance = end - counter going up, counter - end going down
+		boolean descending = constantStep != null && constantStep < 0;
+		if (descending) {
+			loadVariable(varType, varSlot);
+			loadRangeEnd(varType, constantEnd, endSlot);
+		}
+		else {
+			loadRangeEnd(varType, constantEnd, endSlot);
+			loadVariable(varType, varSlot);
+		}
+		methodGenerator.visitInsn(isLong ? LSUB : ISUB);
+		jasminInstruction(isLong ? "lsub" : "isub");
+		if (constantStep == null) {
+			Label upLabel = methodGenerator.newLabel();
+			int upLabelId = ++labelCounter;
+			loadVariable(varType, stepSlot);
+			generateRangeSignJump(isLong, IFGE, "ge", upLabel, "for_up_" + upLabelId);
+			methodGenerator.visitInsn(isLong ? LNEG : INEG);
+			jasminInstruction(isLong ? "lneg" : "ineg");
+			methodGenerator.visitLabel(upLabel);
+			jasminLabel("for_up_" + upLabelId);
+		}
+		// Flipping the sign bit of both sides turns the unsigned comparison into a signed one
+		pushRangeConstant(isLong ? Long.MIN_VALUE : Integer.MIN_VALUE, isLong);
+		methodGenerator.visitInsn(isLong ? LXOR : IXOR);
+		jasminInstruction(isLong ? "lxor" : "ixor");
+		if (constantStep != null) {
+			long magnitude = Math.abs(constantStep);
+			pushRangeConstant(isLong ? magnitude ^ Long.MIN_VALUE : (int) magnitude ^ Integer.MIN_VALUE, isLong);
+		}
+		else {
+			Label positiveLabel = methodGenerator.newLabel();
+			int positiveLabelId = ++labelCounter;
+			loadVariable(varType, stepSlot);
+			methodGenerator.visitInsn(isLong ? DUP2 : DUP);
+			jasminInstruction(isLong ? "dup2" : "dup");
+			generateRangeSignJump(isLong, IFGE, "ge", positiveLabel, "for_pos_" + positiveLabelId);
+			methodGenerator.visitInsn(isLong ? LNEG : INEG);
+			jasminInstruction(isLong ? "lneg" : "ineg");
+			methodGenerator.visitLabel(positiveLabel);
+			jasminLabel("for_pos_" + positiveLabelId);
+			pushRangeConstant(isLong ? Long.MIN_VALUE : Integer.MIN_VALUE, isLong);
+			methodGenerator.visitInsn(isLong ? LXOR : IXOR);
+			jasminInstruction(isLong ? "lxor" : "ixor");
+		}
+		// An exclusive range also stops when the next value would be its end
+		String exitCondition = range.isInclusive() ? "lt" : "le";
+		if (isLong) {
+			methodGenerator.visitInsn(LCMP);
+			jasminInstruction("lcmp");
+			generateRangeSignJump(false, range.isInclusive() ? IFLT : IFLE, exitCondition, endLabel, "for_end_" + endLabelId);
+		}
+		else {
+			methodGenerator.visitJumpInsn(range.isInclusive() ? IF_ICMPLT : IF_ICMPLE, endLabel);
+			jasminInstruction("if_icmp" + exitCondition + " for_end_" + endLabelId);
+		}
+	}
+
+	/**
+	 * Jump on the sign of the value on the stack, comparing a long with zero first.
+	 */
+	private void generateRangeSignJump(boolean isLong, int opcode, String condition, Label target, String targetName) {
+		if (isLong) {
+			methodGenerator.visitInsn(LCONST_0);
+			methodGenerator.visitInsn(LCMP);
+			jasminInstruction("lconst_0");
+			jasminInstruction("lcmp");
+		}
+		methodGenerator.visitJumpInsn(opcode, target);
+		jasminInstruction("if" + condition + " " + targetName);
+	}
+
+	private void loadRangeEnd(com.juno.types.Type varType, Long constantEnd, int endSlot) {
+		if (constantEnd != null) {
+			pushRangeConstant(constantEnd, getTypeSize(varType) == 2);
+		}
+		else {
+			loadVariable(varType, endSlot);
+		}
+	}
+
+	/**
+	 * Evaluate a range bound or step and convert it to the type of the loop counter.
+	 */
+	private void generateRangeValue(Expression value, com.juno.types.Type counterType) {
+		value.accept(this);
+		com.juno.types.Type valueType = value.getType();
+		if (valueType != null && !valueType.equals(counterType)) {
+			generateTypeConversion(valueType, counterType);
+		}
+	}
+
+	private void pushRangeConstant(long value, boolean isLong) {
+		if (isLong) {
+			methodGenerator.push(value);
+		}
+		else {
+			methodGenerator.push((int) value);
+		}
+		jasminInstruction("ldc " + value);
+	}
+
+	// ===== EXPRESSIONS =====
+
+	@Override
+	public Void visitBinaryExpression(BinaryExpression expr) {
+		String operator = expr.getOperator();
+
+		// Concatenation converts each operand to a string as soon as it is on the stack
+		if ("^^".equals(operator)) {
+			generateStringConcatenation(expr);
+			return null;
+		}
+
+		// Structs are compared by value, with their generated equals
+		if (("==".equals(operator) || "!=".equals(operator)) && expr.getLeft().getType() instanceof StructType) {
+			expr.getLeft().accept(this);
+			expr.getRight().accept(this);
+			methodGenerator.visitMethodInsn(INVOKESTATIC, "java/util/Objects", "equals",
+																			"(Ljava/lang/Object;Ljava/lang/Object;)Z", false);
+			jasminInstruction("invokestatic java/util/Objects/equals(Ljava/lang/Object;Ljava/lang/Object;)Z");
+			if ("!=".equals(operator)) {
+				methodGenerator.visitInsn(ICONST_1);
+				methodGenerator.visitInsn(IXOR);
+				jasminInstruction("iconst_1");
+				jasminInstruction("ixor");
+			}
+			return null;
+		}
+
+		if (expr.getLeft().getType() instanceof PointerType || expr.getRight().getType() instanceof PointerType) {
+			generatePointerOperation(expr);
+			return null;
+		}
+
+		if ("&&".equals(operator) || "||".equals(operator) || comparisonType(expr) != null) {
+			generateBooleanValue(expr);
+			return null;
+		}
+
+		PrimitiveType unsignedType = UnsignedArithmetic.operationType(expr.getLeft().getType(), expr.getRight().getType(), operator);
+		if (unsignedType != null) {
+			generateUnsignedOperation(expr, unsignedType);
+			return null;
+		}
+
+		// References other than structs and pointers compare by identity
+		if ("==".equals(operator) || "!=".equals(operator)) {
+			expr.getLeft().accept(this);
+			expr.getRight().accept(this);
+			generateComparison("==".equals(operator) ? IF_ACMPEQ : IF_ACMPNE);
+			return null;
+		}
+
+		// The checked type decides the instruction: both operands have it (the type checker
+		// requires it), and literals are pushed in it
+		PrimitiveType type = (PrimitiveType) expr.getType();
+		generateOperand(expr.getLeft(), type);
+		generateOperand(expr.getRight(), type);
+		int opcode = expr.getJvmKind().opcode(switch (operator) {
+			case "+" -> IADD;
+			case "-" -> ISUB;
+			case "*" -> IMUL;
+			case "/" -> IDIV;
+			case "%" -> IREM;
+			default -> throw new UnsupportedOperationException("Unsupported binary operator: " + operator);
+		});
+		methodGenerator.visitInsn(opcode);
+		jasminInstruction(org.objectweb.asm.util.Printer.OPCODES[opcode].toLowerCase());
+		generateIntNarrowing(type);
+		return null;
+	}
+	@Override
+	public Void visitUnaryExpression(UnaryExpression expr) {
+		String operator = expr.getOperator();
+		if ("!".equals(operator)) {
+			generateBooleanValue(expr);
+			return null;
+		}
+
+		// Generate operand
+		expr.getOperand().accept(this);
 
 		switch (operator) {
 			case "-":
-				methodGenerator.visitInsn(INEG);
+				int opcode = expr.getJvmKind().opcode(INEG);
+				methodGenerator.visitInsn(opcode);
+				jasminInstruction(org.objectweb.asm.util.Printer.OPCODES[opcode].toLowerCase());
+				if (UnsignedArithmetic.isNarrowUnsigned(expr.getType())) {
+					generateUnsignedMask(expr.getType());
+				}
+				else {
+					generateIntNarrowing(expr.getType());
+				}
 				break;
 			case "+":
 				// Unary plus is a no-op for integers
 				break;
-			case "!":
-				generateLogicalNot();
-				break;
 			default:
 				throw new UnsupportedOperationException("Unsupported unary operator: " + operator);
 		}
@@ -672,8 +1653,8 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		}
 		else if (value instanceof Character) {
 			char charValue = (Character) value;
-			methodGenerator.visitIntInsn(BIPUSH, charValue);
-			jasminInstruction("bipush " + (int) charValue + " ; '" + charValue + "'");
+			methodGenerator.push((int) charValue);
+			jasminInstruction("ldc " + (int) charValue + " ; '" + charValue + "'");
 		}
 		else {
 			throw new UnsupportedOperationException("Unsupported literal type: " + value.getClass());
@@ -688,15 +1669,25 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		Integer slot = localVariables.get(varName);
 
 		if (slot != null) {
+			if (arrayPointerSlots.contains(slot)) {
+				generateElementCell(expr);
+				return null;
+			}
+			if (memoryPointerSlots.contains(slot)) {
+				throw new UnsupportedOperationException(MEMORY_POINTER_ESCAPES);
+			}
 			// Local variable - load from local slot
 			com.juno.types.Type varType = expr.getType();
-			loadVariable(varType, slot);
+			loadLocal(varType, slot);
 		}
 		else if (globalVariables.containsKey(varName)) {
 			// Global variable - load from static field
 			com.juno.types.Type varType = globalVariables.get(varName);
 			String fieldDescriptor = getJVMTypeDescriptor(varType);
 			methodGenerator.visitFieldInsn(GETSTATIC, currentClassName, varName, fieldDescriptor);
+			if (UnsignedArithmetic.isNarrowUnsigned(varType)) {
+				generateUnsignedMask(varType);
+			}
 		}
 		else {
 			throw new RuntimeException("Undefined variable: " + varName);
@@ -707,6 +1698,40 @@ public class CodeGenerator implements ASTVisitor<Void> {
 
 	@Override
 	public Void visitAssignmentExpression(AssignmentExpression expr) {
+		if (expr.getTarget() instanceof QualifiedIdentifier qualified && qualified.isFieldAccess()) {
+			generateFieldQualifier(qualified);
+			generateFieldAssignmentValue(expr, qualified.getType());
+			generatePutField((StructType) qualified.getQualifierType(), qualified.getIdentifier(), qualified.getType());
+			return null;
+		}
+		if (expr.getTarget() instanceof FieldAccessExpression fieldAccess && isStructOfArraysElement(fieldAccess.getObject())) {
+			generateFieldArrayIndex((ArrayIndexExpression) fieldAccess.getObject(), fieldAccess.getFieldName(), fieldAccess.getType());
+			generateFieldAssignmentValue(expr, fieldAccess.getType());
+			methodGenerator.visitInsn(getTypeSize(fieldAccess.getType()) == 2 ? DUP2_X2 : DUP_X2);
+			jasminInstruction(getTypeSize(fieldAccess.getType()) == 2 ? "dup2_x2" : "dup_x2");
+			generateArrayStore(fieldAccess.getType());
+			return null;
+		}
+		if (expr.getTarget() instanceof FieldAccessExpression fieldAccess) {
+			fieldAccess.getObject().accept(this);
+			generateFieldAssignmentValue(expr, fieldAccess.getType());
+			generatePutField((StructType) fieldAccess.getObject().getType(), fieldAccess.getFieldName(), fieldAccess.getType());
+			return null;
+		}
+		if (expr.getTarget() instanceof DereferenceExpression dereference) {
+			generateDereferenceAssignment(dereference, expr);
+			return null;
+		}
+		if (expr.getTarget() instanceof ArrayIndexExpression element && element.getArray().getType() instanceof MappedViewType view) {
+			generateViewOffset(element, view);
+			generateFieldAssignmentValue(expr, view.elementType());
+			methodGenerator.visitInsn(getTypeSize(view.elementType()) == 2 ? DUP2_X2 : DUP_X2);
+			jasminInstruction(getTypeSize(view.elementType()) == 2 ? "dup2_x2" : "dup_x2");
+			generateViewAccess("put", view);
+			methodGenerator.visitInsn(POP); // put returns the buffer
+			jasminInstruction("pop");
+			return null;
+		}
 		if (!(expr.getTarget() instanceof IdentifierExpression target)) {
 			throw new UnsupportedOperationException("Only simple variable assignment supported");
 		}
@@ -717,6 +1742,24 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		if (slot == null) {
 			throw new RuntimeException("Undefined variable: " + varName);
 		}
+		if (cellSlots.contains(slot)) {
+			methodGenerator.visitVarInsn(ALOAD, slot);
+			jasminInstruction("aload " + slot);
+			generateFieldAssignmentValue(expr, target.getType());
+			generateCellWrite(target.getType());
+			return null;
+		}
+		if (arrayPointerSlots.contains(slot)) {
+			throw new UnsupportedOperationException("A pointer into an array can only be assigned in a statement of its own");
+		}
+		if (memoryPointerSlots.contains(slot)) {
+			generateMemoryAddress(expr.getValue());
+			methodGenerator.visitInsn(DUP);
+			methodGenerator.visitVarInsn(ISTORE, slot);
+			jasminInstruction("dup");
+			jasminInstruction("istore " + slot);
+			return null;
+		}
 
 		// Generate value
 		expr.getValue().accept(this);
@@ -732,7 +1775,7 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		}
 
 		// Duplicate value on stack (assignment returns the assigned value)
-		methodGenerator.visitInsn(DUP);
+		methodGenerator.visitInsn(getTypeSize(targetVarType) == 2 ? DUP2 : DUP);
 
 		// Store in variable using target variable's type
 		storeVariable(targetVarType, slot);
@@ -740,6 +1783,14 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		return null;
 	}
 
+	private void generateFieldAssignmentValue(AssignmentExpression expr, com.juno.types.Type fieldType) {
+		expr.getValue().accept(this);
+		com.juno.types.Type valueType = expr.getValue().getType();
+		if (valueType != null && fieldType != null && !valueType.equals(fieldType)) {
+			generateTypeConversion(valueType, fieldType);
+		}
+	}
+
 	@Override
 	public Void visitCallExpression(CallExpression expr) {
 		Expression function = expr.getFunction();
@@ -748,36 +1799,159 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		// Extract function name - support both simple and qualified calls
 		if (function instanceof IdentifierExpression) {
 			functionName = ((IdentifierExpression) function).getName();
+			if (structDeclarations.containsKey(functionName)) {
+				generateStructConstruction(structDeclarations.get(functionName), expr.getArguments());
+				return null;
+			}
 		}
 		else if (function instanceof QualifiedIdentifier qualId) {
 			if ("Io".equals(qualId.getModuleName())) {
 				generateIoCall(qualId.getIdentifier(), expr.getArguments());
 				return null;
 			}
+			if ("Mem".equals(qualId.getModuleName())) {
+				generateMemCall(qualId.getIdentifier(), expr.getArguments());
+				return null;
+			}
+			if ("File".equals(qualId.getModuleName())) {
+				generateFileCall(qualId.getIdentifier(), expr.getArguments(), expr.getType());
+				return null;
+			}
+			if ("Math".equals(qualId.getModuleName())) {
+				generateMathCall(qualId.getIdentifier(), expr.getArguments());
+				return null;
+			}
 			throw new UnsupportedOperationException("Unsupported qualified call: " + qualId.getFullName());
 		}
 		else {
 			throw new UnsupportedOperationException("Only simple function calls supported: " + function.getClass());
 		}
 
-		// Generate arguments
-		for (Expression arg : expr.getArguments()) {
+		// Generate arguments, converted to the parameter types of the callee's descriptor
+		FunctionDeclaration funcDecl = functionDeclarations.get(functionName);
+		for (int i = 0; i < expr.getArguments().size(); i++) {
+			Expression arg = expr.getArguments().get(i);
+			if (isMemoryPointer(arg)) {
+				throw new UnsupportedOperationException(MEMORY_POINTER_ESCAPES);
+			}
 			arg.accept(this);
+			generateTypeConversion(arg.getType(), funcDecl.parameters().get(i).type());
 		}
 
-		// For now, assume all functions are static methods in the same class
-		// TODO: Handle function signatures properly
-		String methodDescriptor = buildFunctionCallDescriptor(expr);
+		String methodDescriptor = buildMethodDescriptor(funcDecl);
 		methodGenerator.visitMethodInsn(INVOKESTATIC, currentClassName, functionName, methodDescriptor, false);
 		jasminInstruction("invokestatic " + currentClassName + "/" + functionName + methodDescriptor);
+		if (UnsignedArithmetic.isNarrowUnsigned(expr.getType())) {
+			// The JVM narrows byte and short results with sign extension
+			generateUnsignedMask(expr.getType());
+		}
+
+		return null;
+	}
+
+	private void generateStructConstruction(StructDeclaration structDecl, java.util.List<Expression> arguments) {
+		String structClass = structClassName(structDecl.getName());
+		methodGenerator.visitTypeInsn(NEW, structClass);
+		methodGenerator.visitInsn(DUP);
+		jasminInstruction("new " + structClass);
+		jasminInstruction("dup");
+
+		StringBuilder descriptor = new StringBuilder("(");
+		for (int i = 0; i < arguments.size(); i++) {
+			com.juno.types.Type fieldType = structDecl.getFields().get(i).type;
+			Expression argument = arguments.get(i);
+			argument.accept(this);
+			if (argument.getType() != null && !argument.getType().equals(fieldType)) {
+				generateTypeConversion(argument.getType(), fieldType);
+			}
+			descriptor.append(getJVMTypeDescriptor(fieldType));
+		}
+		descriptor.append(")V");
+
+		methodGenerator.visitMethodInsn(INVOKESPECIAL, structClass, "<init>", descriptor.toString(), false);
+		jasminInstruction("invokespecial " + structClass + "/<init>" + descriptor);
+	}
 
+	@Override
+	public Void visitFieldAccessExpression(FieldAccessExpression expr) {
+		if (isStructOfArraysElement(expr.getObject())) {
+			generateFieldArrayIndex((ArrayIndexExpression) expr.getObject(), expr.getFieldName(), expr.getType());
+			generateArrayLoad(expr.getType());
+			return null;
+		}
+		expr.getObject().accept(this);
+		generateGetField((StructType) expr.getObject().getType(), expr.getFieldName(), expr.getType());
 		return null;
 	}
 
+	private boolean isStructOfArraysElement(Expression object) {
+		return object instanceof ArrayIndexExpression && object.getType() instanceof StructType structType
+				&& isStructOfArrays(structType);
+	}
+
+	/**
+	 * Push the field array and the index that points[i].x reads or writes in a soa struct array.
+	 */
+	private void generateFieldArrayIndex(ArrayIndexExpression element, String fieldName, com.juno.types.Type fieldType) {
+		String arrayClass = soaClassName(((StructType) element.getType()).structName());
+		String descriptor = "[" + getJVMTypeDescriptor(fieldType);
+		element.getArray().accept(this);
+		methodGenerator.visitFieldInsn(GETFIELD, arrayClass, fieldName, descriptor);
+		jasminInstruction("getfield " + arrayClass + "/" + fieldName + " " + descriptor);
+		element.getIndex().accept(this);
+	}
+
+	/**
+	 * Push the struct a qualified identifier such as p.x reads a field of.
+	 */
+	private void generateFieldQualifier(QualifiedIdentifier expr) {
+		IdentifierExpression qualifier = new IdentifierExpression(expr.getModuleName(), expr.line(), expr.column());
+		qualifier.setType(expr.getQualifierType());
+		qualifier.accept(this);
+	}
+
+	private void generateGetField(StructType structType, String fieldName, com.juno.types.Type fieldType) {
+		String owner = structClassName(structType.structName());
+		String descriptor = getJVMTypeDescriptor(fieldType);
+		methodGenerator.visitFieldInsn(GETFIELD, owner, fieldName, descriptor);
+		jasminInstruction("getfield " + owner + "/" + fieldName + " " + descriptor);
+		if (UnsignedArithmetic.isNarrowUnsigned(fieldType)) {
+			generateUnsignedMask(fieldType);
+		}
+	}
+
+	/**
+	 * Store into a struct field; the struct is on the stack below the value, and the value is
+	 * left on the stack as the result of the assignment.
+	 */
+	private void generatePutField(StructType structType, String fieldName, com.juno.types.Type fieldType) {
+		String owner = structClassName(structType.structName());
+		String descriptor = getJVMTypeDescriptor(fieldType);
+		methodGenerator.visitInsn(getTypeSize(fieldType) == 2 ? DUP2_X1 : DUP_X1);
+		methodGenerator.visitFieldInsn(PUTFIELD, owner, fieldName, descriptor);
+		jasminInstruction(getTypeSize(fieldType) == 2 ? "dup2_x1" : "dup_x1");
+		jasminInstruction("putfield " + owner + "/" + fieldName + " " + descriptor);
+	}
+
 	@Override
 	public Void visitQualifiedIdentifier(QualifiedIdentifier expr) {
+		if (expr.isFieldAccess()) {
+			generateFieldQualifier(expr);
+			generateGetField((StructType) expr.getQualifierType(), expr.getIdentifier(), expr.getType());
+			return null;
+		}
+
+		// Math.PI and Math.E are compile-time constants
+		if ("Math".equals(expr.getModuleName()) && MathFunctions.constant(expr.getIdentifier()) != null) {
+			double value = MathFunctions.constant(expr.getIdentifier());
+			methodGenerator.visitLdcInsn(value);
+			jasminInstruction("ldc2_w " + value + "d");
+			return null;
+		}
+
 		// Handle runtime module calls
-		if ("Io".equals(expr.getModuleName())) {
+		if ("Io".equals(expr.getModuleName()) || "Mem".equals(expr.getModuleName()) || "File".equals(expr.getModuleName())
+				|| "Math".equals(expr.getModuleName())) {
 			// This is handled in visitCallExpression for Io.function() calls
 			return null;
 		}
@@ -812,6 +1986,31 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		jasminInstruction("bipush " + arraySize);
 
 		// Create array of appropriate type
+		generateNewArray(elementType);
+
+		// Fill array with elements
+		for (int i = 0; i < arraySize; i++) {
+			methodGenerator.visitInsn(DUP); // Duplicate array reference
+			methodGenerator.visitIntInsn(BIPUSH, i); // Push index
+			jasminInstruction("dup");
+			jasminInstruction("bipush " + i);
+
+			// Generate element value
+			Expression element = expr.getElements().get(i);
+			element.accept(this);
+			generateTypeConversion(element.getType(), elementType);
+
+			// Store in array
+			generateArrayStore(elementType);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Create an array with the length on top of the stack, with null or zero elements.
+	 */
+	private void generateNewArray(com.juno.types.Type elementType) {
 		String elementJvmType = getJVMTypeDescriptor(elementType);
 		if (elementType instanceof PrimitiveType primType && !"string".equals(elementType.name())) {
 			int arrayTypeCode = getJVMArrayTypeCode(primType);
@@ -819,99 +2018,958 @@ public class CodeGenerator implements ASTVisitor<Void> {
 			jasminInstruction("newarray " + getJVMArrayTypeName(primType));
 		}
 		else {
-			// Object array (including string arrays)
-			String className = elementJvmType.startsWith("L") ?
-					elementJvmType.substring(1, elementJvmType.length() - 1) : elementJvmType;
-			methodGenerator.visitTypeInsn(ANEWARRAY, className);
-			jasminInstruction("anewarray " + className);
+			// Object array (including string arrays)
+			String className = elementJvmType.startsWith("L") ?
+					elementJvmType.substring(1, elementJvmType.length() - 1) : elementJvmType;
+			methodGenerator.visitTypeInsn(ANEWARRAY, className);
+			jasminInstruction("anewarray " + className);
+		}
+	}
+
+	/**
+	 * Allocate a fixed-size array declared without an initializer. Struct arrays are filled with
+	 * zeroed structs, and soa struct arrays allocate one zeroed array per field.
+	 */
+	private void generateFixedArray(ArrayType arrayType) {
+		com.juno.types.Type elementType = arrayType.elementType();
+		methodGenerator.push(arrayType.getArraySize());
+		jasminInstruction("ldc " + arrayType.getArraySize());
+		if (elementType instanceof StructType structType && isStructOfArrays(structType)) {
+			String arrayClass = soaClassName(structType.structName());
+			methodGenerator.visitTypeInsn(NEW, arrayClass);
+			methodGenerator.visitInsn(DUP_X1);
+			methodGenerator.visitInsn(SWAP);
+			methodGenerator.visitMethodInsn(INVOKESPECIAL, arrayClass, "<init>", "(I)V", false);
+			jasminInstruction("new " + arrayClass);
+			jasminInstruction("dup_x1");
+			jasminInstruction("swap");
+			jasminInstruction("invokespecial " + arrayClass + "/<init>(I)V");
+		}
+		else if (elementType instanceof StructType structType) {
+			String structClass = structClassName(structType.structName());
+			String descriptor = "(I)[L" + structClass + ";";
+			methodGenerator.visitMethodInsn(INVOKESTATIC, structClass, "newArray", descriptor, false);
+			jasminInstruction("invokestatic " + structClass + "/newArray" + descriptor);
+		}
+		else {
+			generateNewArray(elementType);
+		}
+	}
+
+	@Override
+	public Void visitArrayIndexExpression(ArrayIndexExpression expr) {
+		jasminComment("Array index access");
+
+		if (expr.getArray().getType() instanceof MappedViewType view) {
+			generateViewOffset(expr, view);
+			generateViewAccess("get", view);
+			return null;
+		}
+
+		// Generate array reference
+		expr.getArray().accept(this);
+
+		// Generate index
+		expr.getIndex().accept(this);
+
+		// Load from array
+		com.juno.types.Type elementType = expr.getType();
+		generateArrayLoad(elementType);
+
+		return null;
+	}
+
+	/**
+	 * Only addresses that escape are evaluated: the variable then lives in a cell, and the
+	 * pointer is the cell. Pointers that do not escape are resolved by the dereference.
+	 */
+	@Override
+	public Void visitAddressOfExpression(AddressOfExpression expr) {
+		jasminComment("Address-of operator (&)");
+
+		if (expr.getOperand() instanceof ArrayIndexExpression) {
+			generateElementCell(expr);
+			return null;
+		}
+		if (!(expr.getOperand() instanceof IdentifierExpression identExpr)) {
+			throw new UnsupportedOperationException("Address-of only supported for simple identifiers currently");
+		}
+		Integer slot = localVariables.get(identExpr.getName());
+		if (slot == null) {
+			throw new UnsupportedOperationException("Address-of for global variables not yet supported");
+		}
+		if (!cellSlots.contains(slot)) {
+			throw new IllegalStateException("Address of " + identExpr.getName() + " escapes but it is not stored in a cell");
+		}
+		methodGenerator.visitVarInsn(ALOAD, slot);
+		jasminInstruction("aload " + slot);
+		return null;
+	}
+
+	@Override
+	public Void visitDereferenceExpression(DereferenceExpression expr) {
+		jasminComment("Dereference operator (*)");
+
+		if (isArrayPointer(expr.getOperand())) {
+			generateArrayPointer(expr.getOperand());
+			generateArrayLoad(expr.getType());
+			return null;
+		}
+		if (isMemoryPointer(expr.getOperand())) {
+			generateMemoryAddress(expr.getOperand());
+			generateMemAccess("get", expr.getType());
+			return null;
+		}
+		Integer targetSlot = dereferencedSlot(expr);
+		if (targetSlot != null) {
+			loadLocal(expr.getType(), targetSlot);
+			return null;
+		}
+		expr.getOperand().accept(this);
+		generatePointerRead(expr.getType());
+		return null;
+	}
+
+	/**
+	 * The local slot a dereference accesses directly, for *&x and for pointers that alias a
+	 * variable, or null if it goes through a cell.
+	 */
+	private Integer dereferencedSlot(DereferenceExpression expr) {
+		if (expr.getOperand() instanceof AddressOfExpression address && address.getOperand() instanceof IdentifierExpression identExpr) {
+			return localVariables.get(identExpr.getName());
+		}
+		if (expr.getOperand() instanceof IdentifierExpression identExpr && localVariables.containsKey(identExpr.getName())) {
+			return aliasSlots.get(localVariables.get(identExpr.getName()));
+		}
+		return null;
+	}
+
+	private void generateDereferenceAssignment(DereferenceExpression target, AssignmentExpression expr) {
+		com.juno.types.Type type = target.getType();
+		if (isArrayPointer(target.getOperand())) {
+			generateArrayPointer(target.getOperand());
+			generateFieldAssignmentValue(expr, type);
+			methodGenerator.visitInsn(getTypeSize(type) == 2 ? DUP2_X2 : DUP_X2);
+			jasminInstruction(getTypeSize(type) == 2 ? "dup2_x2" : "dup_x2");
+			generateArrayStore(type);
+			return;
+		}
+		if (isMemoryPointer(target.getOperand())) {
+			generateMemoryAddress(target.getOperand());
+			generateFieldAssignmentValue(expr, type);
+			methodGenerator.visitInsn(getTypeSize(type) == 2 ? DUP2_X1 : DUP_X1);
+			jasminInstruction(getTypeSize(type) == 2 ? "dup2_x1" : "dup_x1");
+			generateMemAccess("put", type);
+			return;
+		}
+		Integer targetSlot = dereferencedSlot(target);
+		if (targetSlot == null) {
+			target.getOperand().accept(this);
+		}
+		else if (cellSlots.contains(targetSlot)) {
+			methodGenerator.visitVarInsn(ALOAD, targetSlot);
+			jasminInstruction("aload " + targetSlot);
+		}
+		generateFieldAssignmentValue(expr, type);
+		if (targetSlot == null) {
+			generatePointerWrite(type);
+		}
+		else if (cellSlots.contains(targetSlot)) {
+			generateCellWrite(type);
+		}
+		else {
+			methodGenerator.visitInsn(getTypeSize(type) == 2 ? DUP2 : DUP);
+			storeVariable(type, targetSlot);
+		}
+	}
+
+	// ===== CONDITIONS =====
+
+	/**
+	 * Jump to {@code target} if a boolean expression evaluates to {@code jumpIf}, and fall through
+	 * otherwise. {@code &&} and {@code ||} skip their right operand once the left one decides the
+	 * result, {@code !} swaps the targets, and comparisons jump on the compare instruction itself,
+	 * so no 0 or 1 is pushed and tested again.
+	 */
+	private void generateCondition(Expression condition, Label target, boolean jumpIf) {
+		if (condition instanceof BinaryExpression binary && ("&&".equals(binary.getOperator()) || "||".equals(binary.getOperator()))) {
+			// A false operand decides &&, a true one decides ||
+			boolean decidingValue = "||".equals(binary.getOperator());
+			if (jumpIf == decidingValue) {
+				generateCondition(binary.getLeft(), target, jumpIf);
+				generateCondition(binary.getRight(), target, jumpIf);
+			}
+			else {
+				Label skip = methodGenerator.newLabel();
+				generateCondition(binary.getLeft(), skip, !jumpIf);
+				generateCondition(binary.getRight(), target, jumpIf);
+				methodGenerator.visitLabel(skip);
+				jasminLabel(jasminLabelName(skip));
+			}
+		}
+		else if (condition instanceof BinaryExpression binary && comparisonType(binary) != null) {
+			PrimitiveType type = comparisonType(binary);
+			generateOperand(binary.getLeft(), type);
+			generateOperand(binary.getRight(), type);
+			generateComparisonJump(binary.getOperator(), type, target, jumpIf);
+		}
+		else if (condition instanceof UnaryExpression unary && "!".equals(unary.getOperator())) {
+			generateCondition(unary.getOperand(), target, !jumpIf);
+		}
+		else if (condition instanceof LiteralExpression literal && literal.getValue() instanceof Boolean value) {
+			if (value == jumpIf) {
+				generateJump(GOTO, target);
+			}
+		}
+		else {
+			condition.accept(this);
+			generateJump(jumpIf ? IFNE : IFEQ, target);
+		}
+	}
+
+	/**
+	 * Push 1 or 0 for a condition used as a value.
+	 */
+	private void generateBooleanValue(Expression condition) {
+		Label falseLabel = methodGenerator.newLabel();
+		Label endLabel = methodGenerator.newLabel();
+		generateCondition(condition, falseLabel, false);
+		methodGenerator.visitInsn(ICONST_1);
+		jasminInstruction("iconst_1");
+		generateJump(GOTO, endLabel);
+		methodGenerator.visitLabel(falseLabel);
+		jasminLabel(jasminLabelName(falseLabel));
+		methodGenerator.visitInsn(ICONST_0);
+		jasminInstruction("iconst_0");
+		methodGenerator.visitLabel(endLabel);
+		jasminLabel(jasminLabelName(endLabel));
+	}
+
+	/**
+	 * The type a comparison of primitive values is carried out in, or null if it is not one.
+	 * Operands are promoted to the widest of double, float and long, and compare as ints otherwise.
+	 */
+	private PrimitiveType comparisonType(BinaryExpression expr) {
+		String operator = expr.getOperator();
+		if (!Set.of("<", "<=", ">", ">=", "==", "!=").contains(operator)) {
+			return null;
+		}
+		com.juno.types.Type leftType = expr.getLeft().getType();
+		com.juno.types.Type rightType = expr.getRight().getType();
+		PrimitiveType unsignedType = UnsignedArithmetic.operationType(leftType, rightType, operator);
+		if (unsignedType != null) {
+			return unsignedType;
+		}
+		if (!(leftType instanceof PrimitiveType left) || !(rightType instanceof PrimitiveType right)) {
+			return null;
+		}
+		for (PrimitiveType type : java.util.List.of(PrimitiveType.DOUBLE, PrimitiveType.FLOAT, PrimitiveType.LONG)) {
+			if (left.equals(type) || right.equals(type)) {
+				return type;
+			}
+		}
+		return isIntStackType(left) && isIntStackType(right) ? PrimitiveType.INT : null;
+	}
+
+	private static boolean isIntStackType(PrimitiveType type) {
+		return "ZCBSI".contains(type.getJVMDescriptor());
+	}
+
+	/**
+	 * Generate an operand and convert it to the type its operation is carried out in.
+	 */
+	private void generateOperand(Expression operand, PrimitiveType type) {
+		operand.accept(this);
+		// bool, char and the narrow integers are already ints on the stack
+		if (!(PrimitiveType.INT.equals(type) && operand.getType() instanceof PrimitiveType primitive && isIntStackType(primitive))) {
+			generateTypeConversion(operand.getType(), type);
+		}
+	}
+
+	/**
+	 * Keep the int result of byte, short or char arithmetic in the range of its type.
+	 */
+	private void generateIntNarrowing(com.juno.types.Type type) {
+		int opcode;
+		if (PrimitiveType.BYTE.equals(type)) {
+			opcode = I2B;
+		}
+		else if (PrimitiveType.SHORT.equals(type)) {
+			opcode = I2S;
+		}
+		else if (PrimitiveType.CHAR.equals(type)) {
+			opcode = I2C;
+		}
+		else {
+			return;
+		}
+		methodGenerator.visitInsn(opcode);
+		jasminInstruction(org.objectweb.asm.util.Printer.OPCODES[opcode].toLowerCase());
+	}
+
+	/**
+	 * Compare the two values on the stack and jump if the comparison's result is {@code jumpIf}.
+	 * Longs compare with LCMP, uint and ulong with compareUnsigned, and floating point values with
+	 * the FCMP/DCMP variant that makes a NaN operand fail the comparison, whichever way it jumps.
+	 */
+	private void generateComparisonJump(String operator, PrimitiveType type, Label target, boolean jumpIf) {
+		String test = jumpIf ? operator : switch (operator) {
+			case "<" -> ">=";
+			case "<=" -> ">";
+			case ">" -> "<=";
+			case ">=" -> "<";
+			case "==" -> "!=";
+			default -> "==";
+		};
+		boolean equality = "==".equals(operator) || "!=".equals(operator);
+		if (PrimitiveType.INT.equals(type) || (PrimitiveType.UINT.equals(type) && equality)) {
+			generateJump(switch (test) {
+				case "<" -> IF_ICMPLT;
+				case "<=" -> IF_ICMPLE;
+				case ">" -> IF_ICMPGT;
+				case ">=" -> IF_ICMPGE;
+				case "==" -> IF_ICMPEQ;
+				default -> IF_ICMPNE;
+			}, target);
+			return;
+		}
+		if (PrimitiveType.UINT.equals(type)) {
+			generateUnsignedCall("compareUnsigned", type, "(II)I");
+		}
+		else if (PrimitiveType.ULONG.equals(type) && !equality) {
+			generateUnsignedCall("compareUnsigned", type, "(JJ)I");
+		}
+		else if (PrimitiveType.ULONG.equals(type) || PrimitiveType.LONG.equals(type)) {
+			methodGenerator.visitInsn(LCMP);
+			jasminInstruction("lcmp");
+		}
+		else {
+			// A NaN operand makes the compare push 1 for < and <=, and -1 for the others
+			boolean less = "<".equals(operator) || "<=".equals(operator);
+			int opcode = PrimitiveType.DOUBLE.equals(type) ? (less ? DCMPG : DCMPL) : (less ? FCMPG : FCMPL);
+			methodGenerator.visitInsn(opcode);
+			jasminInstruction(org.objectweb.asm.util.Printer.OPCODES[opcode].toLowerCase());
+		}
+		generateJump(switch (test) {
+			case "<" -> IFLT;
+			case "<=" -> IFLE;
+			case ">" -> IFGT;
+			case ">=" -> IFGE;
+			case "==" -> IFEQ;
+			default -> IFNE;
+		}, target);
+	}
+
+	private void generateJump(int opcode, Label target) {
+		methodGenerator.visitJumpInsn(opcode, target);
+		jasminInstruction(org.objectweb.asm.util.Printer.OPCODES[opcode].toLowerCase() + " " + jasminLabelName(target));
+	}
+
+	private String jasminLabelName(Label label) {
+		return jasminLabelNames.computeIfAbsent(label, key -> "cond_" + ++labelCounter);
+	}
+
+	// ===== UNSIGNED ARITHMETIC =====
+
+	/**
+	 * Generate arithmetic with unsigned operands, carried out in the type chosen by
+	 * {@link UnsignedArithmetic#operationType}. Comparisons are compiled by {@link #generateCondition}.
+	 */
+	private void generateUnsignedOperation(BinaryExpression expr, PrimitiveType type) {
+		String operator = expr.getOperator();
+		expr.getLeft().accept(this);
+		generateTypeConversion(expr.getLeft().getType(), type);
+		expr.getRight().accept(this);
+		generateTypeConversion(expr.getRight().getType(), type);
+
+		org.objectweb.asm.Type jvmType = org.objectweb.asm.Type.getType(type.getJVMDescriptor());
+		boolean wide = jvmType.getSize() == 2 && !type.isFloatingPoint();
+		switch (operator) {
+			case "+", "-", "*" -> {
+				int opcode = jvmType.getOpcode(switch (operator) {
+					case "+" -> IADD;
+					case "-" -> ISUB;
+					default -> IMUL;
+				});
+				methodGenerator.visitInsn(opcode);
+				jasminInstruction(org.objectweb.asm.util.Printer.OPCODES[opcode].toLowerCase());
+				if (UnsignedArithmetic.isNarrowUnsigned(type)) {
+					generateUnsignedMask(type);
+				}
+			}
+			case "/", "%" -> {
+				if (PrimitiveType.UINT.equals(type) || PrimitiveType.ULONG.equals(type)) {
+					generateUnsignedCall("/".equals(operator) ? "divideUnsigned" : "remainderUnsigned", type,
+							wide ? "(JJ)J" : "(II)I");
+				}
+				else {
+					// Zero-extended ubyte and ushort values divide like ints
+					int opcode = jvmType.getOpcode("/".equals(operator) ? IDIV : IREM);
+					methodGenerator.visitInsn(opcode);
+					jasminInstruction(org.objectweb.asm.util.Printer.OPCODES[opcode].toLowerCase());
+				}
+			}
+			default -> throw new UnsupportedOperationException("Unsupported unsigned operator: " + operator);
+		}
+	}
+
+	private void generateUnsignedCall(String function, PrimitiveType type, String descriptor) {
+		String owner = PrimitiveType.ULONG.equals(type) ? "java/lang/Long" : "java/lang/Integer";
+		methodGenerator.visitMethodInsn(INVOKESTATIC, owner, function, descriptor, false);
+		jasminInstruction("invokestatic " + owner + "/" + function + descriptor);
+	}
+
+	/**
+	 * Keep a ubyte or ushort value in range after arithmetic or a sign-extending load.
+	 */
+	private void generateUnsignedMask(com.juno.types.Type type) {
+		int mask = UnsignedArithmetic.mask(type);
+		methodGenerator.push(mask);
+		methodGenerator.visitInsn(IAND);
+		jasminInstruction("ldc " + mask);
+		jasminInstruction("iand");
+	}
+
+	// ===== ARRAY POINTERS =====
+
+	/**
+	 * Whether a pointer expression points into an array. Such a pointer is an array reference and
+	 * an index, kept in two locals or pushed as a pair, and only boxed when it escapes.
+	 */
+	private boolean isArrayPointer(Expression expr) {
+		if (expr instanceof AddressOfExpression address) {
+			return address.getOperand() instanceof ArrayIndexExpression;
+		}
+		if (expr instanceof IdentifierExpression identExpr) {
+			Integer slot = localVariables.get(identExpr.getName());
+			return slot != null && arrayPointerSlots.contains(slot);
+		}
+		if (expr instanceof BinaryExpression binary && binary.getType() instanceof PointerType) {
+			return isArrayPointer(binary.getLeft()) || isArrayPointer(binary.getRight());
+		}
+		return false;
+	}
+
+	/**
+	 * Push the array and the index a pointer into an array designates; p + n and p - n move the index.
+	 */
+	private void generateArrayPointer(Expression expr) {
+		if (expr instanceof AddressOfExpression address) {
+			ArrayIndexExpression element = (ArrayIndexExpression) address.getOperand();
+			element.getArray().accept(this);
+			generatePointerOffset(element.getIndex());
+		}
+		else if (expr instanceof IdentifierExpression identExpr) {
+			int slot = localVariables.get(identExpr.getName());
+			methodGenerator.visitVarInsn(ALOAD, slot);
+			methodGenerator.visitVarInsn(ILOAD, slot + 1);
+			jasminInstruction("aload " + slot);
+			jasminInstruction("iload " + (slot + 1));
+		}
+		else if (expr instanceof BinaryExpression binary && isArrayPointer(binary)) {
+			boolean pointerOnLeft = binary.getLeft().getType() instanceof PointerType;
+			generateArrayPointer(pointerOnLeft ? binary.getLeft() : binary.getRight());
+			generatePointerOffset(pointerOnLeft ? binary.getRight() : binary.getLeft());
+			methodGenerator.visitInsn("-".equals(binary.getOperator()) ? ISUB : IADD);
+			jasminInstruction("-".equals(binary.getOperator()) ? "isub" : "iadd");
+		}
+		else {
+			throw new UnsupportedOperationException("Pointer " + expr + " does not point into an array");
+		}
+	}
+
+	/**
+	 * Box a pointer into an array that escapes, into a call, a return or a pointer stored
+	 * anywhere else, into an element cell; code that receives it cannot tell it from a cell.
+	 */
+	private void generateElementCell(Expression expr) {
+		com.juno.types.Type elementType = ((PointerType) expr.getType()).pointedType();
+		String cellClass = PointerType.elementCellClass(elementType);
+		String descriptor = "(" + PointerType.elementArrayDescriptor(elementType) + "I)V";
+		methodGenerator.visitTypeInsn(NEW, cellClass);
+		methodGenerator.visitInsn(DUP);
+		jasminInstruction("new " + cellClass);
+		jasminInstruction("dup");
+		generateArrayPointer(expr);
+		methodGenerator.visitMethodInsn(INVOKESPECIAL, cellClass, "<init>", descriptor, false);
+		jasminInstruction("invokespecial " + cellClass + "/<init>" + descriptor);
+	}
+
+	private void generatePointerOffset(Expression offset) {
+		offset.accept(this);
+		if (getTypeSize(offset.getType()) == 2) {
+			generateTypeConversion(offset.getType(), PrimitiveType.INT);
+		}
+	}
+
+	/**
+	 * Push only the index of a pointer into an array.
+	 */
+	private void generatePointerIndex(Expression expr) {
+		if (expr instanceof IdentifierExpression identExpr) {
+			int slot = localVariables.get(identExpr.getName());
+			methodGenerator.visitVarInsn(ILOAD, slot + 1);
+			jasminInstruction("iload " + (slot + 1));
+		}
+		else {
+			generateArrayPointer(expr);
+			methodGenerator.visitInsn(SWAP);
+			methodGenerator.visitInsn(POP);
+			jasminInstruction("swap");
+			jasminInstruction("pop");
+		}
+	}
+
+	private void storeArrayPointer(int slot) {
+		methodGenerator.visitVarInsn(ISTORE, slot + 1);
+		methodGenerator.visitVarInsn(ASTORE, slot);
+		jasminInstruction("istore " + (slot + 1));
+		jasminInstruction("astore " + slot);
+	}
+
+	/**
+	 * Compare or subtract two pointers. Pointers into the same array are ordered by their indices;
+	 * pointers to variables are cells, equal only when they are the same cell.
+	 */
+	private void generatePointerOperation(BinaryExpression expr) {
+		String operator = expr.getOperator();
+		Expression left = expr.getLeft();
+		Expression right = expr.getRight();
+		if (expr.getType() instanceof PointerType) {
+			// p + n is otherwise only evaluated by the dereference or the pointer assignment using it
+			if (isArrayPointer(expr)) {
+				generateElementCell(expr);
+				return;
+			}
+			throw new UnsupportedOperationException(isMemoryPointer(expr) ? MEMORY_POINTER_ESCAPES
+					: "Pointer arithmetic is only supported on pointers into arrays and memory");
+		}
+
+		if (isMemoryPointer(left) && isMemoryPointer(right)) {
+			generateMemoryAddress(left);
+			generateMemoryAddress(right);
+			switch (operator) {
+				case "-" -> {
+					methodGenerator.visitInsn(ISUB);
+					jasminInstruction("isub");
+					int shift = elementShift(left.getType());
+					if (shift > 0) {
+						methodGenerator.push(shift);
+						methodGenerator.visitInsn(ISHR);
+						jasminInstruction("iconst_" + shift);
+						jasminInstruction("ishr");
+					}
+				}
+				case "<" -> generateComparison(IF_ICMPLT);
+				case "<=" -> generateComparison(IF_ICMPLE);
+				case ">" -> generateComparison(IF_ICMPGT);
+				case ">=" -> generateComparison(IF_ICMPGE);
+				case "==" -> generateComparison(IF_ICMPEQ);
+				case "!=" -> generateComparison(IF_ICMPNE);
+				default -> throw new UnsupportedOperationException("Unsupported pointer operator: " + operator);
+			}
+			return;
+		}
+		if (isMemoryPointer(left) || isMemoryPointer(right)) {
+			throw new UnsupportedOperationException("Cannot compare a pointer into memory with another kind of pointer");
+		}
+
+		if (isArrayPointer(left) && isArrayPointer(right)) {
+			if ("==".equals(operator) || "!=".equals(operator)) {
+				generateArrayPointerEquality(left, right);
+				generateComparison("==".equals(operator) ? IFEQ : IFNE);
+				return;
+			}
+			generatePointerIndex(left);
+			generatePointerIndex(right);
+			switch (operator) {
+				case "-" -> {
+					methodGenerator.visitInsn(ISUB);
+					jasminInstruction("isub");
+				}
+				case "<" -> generateComparison(IF_ICMPLT);
+				case "<=" -> generateComparison(IF_ICMPLE);
+				case ">" -> generateComparison(IF_ICMPGT);
+				case ">=" -> generateComparison(IF_ICMPGE);
+				default -> throw new UnsupportedOperationException("Unsupported pointer operator: " + operator);
+			}
+			return;
+		}
+		if (isArrayPointer(left) || isArrayPointer(right)) {
+			throw new UnsupportedOperationException("Cannot compare a pointer into an array with a pointer to a variable");
+		}
+
+		left.accept(this);
+		right.accept(this);
+		switch (operator) {
+			case "==" -> generateComparison(IF_ACMPEQ);
+			case "!=" -> generateComparison(IF_ACMPNE);
+			default -> throw new UnsupportedOperationException("Pointers to variables can only be compared with == and !=");
+		}
+	}
+
+	/**
+	 * Push an int that is zero exactly when two pointers into arrays designate the same element:
+	 * the difference of the indices, or 1 when the arrays differ.
+	 */
+	private void generateArrayPointerEquality(Expression left, Expression right) {
+		generateArrayPointer(left);
+		generateArrayPointer(right);
+		// [a1, i1, a2, i2] -> [a1, a2, i1 - i2] -> [i1 - i2, a1, a2]
+		methodGenerator.visitInsn(DUP_X1);
+		methodGenerator.visitInsn(POP);
+		methodGenerator.visitInsn(DUP_X2);
+		methodGenerator.visitInsn(POP);
+		methodGenerator.visitInsn(ISUB);
+		methodGenerator.visitInsn(DUP_X2);
+		methodGenerator.visitInsn(POP);
+		Label sameArray = methodGenerator.newLabel();
+		int sameArrayId = ++labelCounter;
+		methodGenerator.visitJumpInsn(IF_ACMPEQ, sameArray);
+		methodGenerator.visitInsn(POP);
+		methodGenerator.visitInsn(ICONST_1);
+		methodGenerator.visitLabel(sameArray);
+		jasminInstruction("dup_x1");
+		jasminInstruction("pop");
+		jasminInstruction("dup_x2");
+		jasminInstruction("pop");
+		jasminInstruction("isub");
+		jasminInstruction("dup_x2");
+		jasminInstruction("pop");
+		jasminInstruction("if_acmpeq same_array_" + sameArrayId);
+		jasminInstruction("pop");
+		jasminInstruction("iconst_1");
+		jasminLabel("same_array_" + sameArrayId);
+	}
+
+	// ===== MEMORY POINTERS =====
+
+	private static final String MEMORY_POINTER_ESCAPES = "Pointers into memory cannot leave their function; pass Mem.address(p)";
+
+	/**
+	 * Whether a pointer expression points into the Mem arena. Such a pointer is an int address.
+	 */
+	private boolean isMemoryPointer(Expression expr) {
+		if (expr instanceof CallExpression call) {
+			return call.getFunction() instanceof QualifiedIdentifier function && "Mem".equals(function.getModuleName())
+					&& MemFunctions.isTypedAllocation(function.getIdentifier());
+		}
+		if (expr instanceof IdentifierExpression identExpr) {
+			Integer slot = localVariables.get(identExpr.getName());
+			return slot != null && memoryPointerSlots.contains(slot);
+		}
+		if (expr instanceof BinaryExpression binary && binary.getType() instanceof PointerType) {
+			return isMemoryPointer(binary.getLeft()) || isMemoryPointer(binary.getRight());
+		}
+		return false;
+	}
+
+	/**
+	 * Push the address a pointer into memory holds; p + n and p - n move it by n elements.
+	 */
+	private void generateMemoryAddress(Expression expr) {
+		if (expr instanceof CallExpression) {
+			expr.accept(this);
+		}
+		else if (expr instanceof IdentifierExpression identExpr) {
+			int slot = localVariables.get(identExpr.getName());
+			methodGenerator.visitVarInsn(ILOAD, slot);
+			jasminInstruction("iload " + slot);
+		}
+		else if (expr instanceof BinaryExpression binary && isMemoryPointer(binary)) {
+			boolean pointerOnLeft = binary.getLeft().getType() instanceof PointerType;
+			generateMemoryAddress(pointerOnLeft ? binary.getLeft() : binary.getRight());
+			generatePointerOffset(pointerOnLeft ? binary.getRight() : binary.getLeft());
+			int shift = elementShift(binary.getType());
+			if (shift > 0) {
+				methodGenerator.push(shift);
+				methodGenerator.visitInsn(ISHL);
+				jasminInstruction("iconst_" + shift);
+				jasminInstruction("ishl");
+			}
+			methodGenerator.visitInsn("-".equals(binary.getOperator()) ? ISUB : IADD);
+			jasminInstruction("-".equals(binary.getOperator()) ? "isub" : "iadd");
+		}
+		else {
+			throw new UnsupportedOperationException("Pointer " + expr + " does not point into memory");
 		}
+	}
 
-		// Fill array with elements
-		for (int i = 0; i < arraySize; i++) {
-			methodGenerator.visitInsn(DUP); // Duplicate array reference
-			methodGenerator.visitIntInsn(BIPUSH, i); // Push index
-			jasminInstruction("dup");
-			jasminInstruction("bipush " + i);
+	/**
+	 * log2 of the size of the values a pointer into memory points to.
+	 */
+	private int elementShift(com.juno.types.Type pointerType) {
+		return Integer.numberOfTrailingZeros(((PointerType) pointerType).pointedType().size());
+	}
 
-			// Generate element value
-			expr.getElements().get(i).accept(this);
+	/**
+	 * Call Mem.getX or Mem.putX for a value type; the address (and value) are on the stack.
+	 */
+	private void generateMemAccess(String access, com.juno.types.Type valueType) {
+		String function = access + Character.toUpperCase(valueType.name().charAt(0)) + valueType.name().substring(1);
+		if (MemFunctions.valueType(function) == null) {
+			throw new UnsupportedOperationException("Mem cannot store " + valueType);
+		}
+		String descriptor = MemFunctions.descriptor(function);
+		methodGenerator.visitMethodInsn(INVOKESTATIC, MemFunctions.CLASS_NAME, function, descriptor, false);
+		jasminInstruction("invokestatic " + MemFunctions.CLASS_NAME + "/" + function + descriptor);
+	}
 
-			// Store in array
-			generateArrayStore(elementType);
+	private void generateMemCall(String function, java.util.List<Expression> arguments) {
+		if ("address".equals(function)) {
+			if (!isMemoryPointer(arguments.get(0))) {
+				throw new UnsupportedOperationException("Mem.address takes a pointer into memory");
+			}
+			generateMemoryAddress(arguments.get(0));
+			return;
 		}
+		java.util.List<PrimitiveType> parameters = MemFunctions.parameterTypes(function);
+		for (int i = 0; i < arguments.size(); i++) {
+			Expression argument = arguments.get(i);
+			argument.accept(this);
+			if (argument.getType() != null && !argument.getType().equals(parameters.get(i))) {
+				generateTypeConversion(argument.getType(), parameters.get(i));
+			}
+		}
+		String descriptor = MemFunctions.descriptor(function);
+		methodGenerator.visitMethodInsn(INVOKESTATIC, MemFunctions.CLASS_NAME, function, descriptor, false);
+		jasminInstruction("invokestatic " + MemFunctions.CLASS_NAME + "/" + function + descriptor);
+	}
 
-		return null;
+	private void generateFileCall(String function, java.util.List<Expression> arguments, com.juno.types.Type resultType) {
+		java.util.List<com.juno.types.Type> parameters = FileFunctions.parameterTypes(function);
+		for (int i = 0; i < arguments.size(); i++) {
+			Expression argument = arguments.get(i);
+			argument.accept(this);
+			generateTypeConversion(argument.getType(), parameters.get(i));
+		}
+		String descriptor = FileFunctions.descriptor(function);
+		methodGenerator.visitMethodInsn(INVOKESTATIC, FileFunctions.CLASS_NAME, function, descriptor, false);
+		jasminInstruction("invokestatic " + FileFunctions.CLASS_NAME + "/" + function + descriptor);
+		if ("await".equals(function)) {
+			generateAwaitedValue(resultType);
+		}
 	}
 
-	@Override
-	public Void visitArrayIndexExpression(ArrayIndexExpression expr) {
-		jasminComment("Array index access");
+	/**
+	 * File.await returns the value of a future as an Object: cast it back to the value type,
+	 * unboxing primitives.
+	 */
+	private void generateAwaitedValue(com.juno.types.Type valueType) {
+		String descriptor = getJVMTypeDescriptor(valueType);
+		String[] boxing = switch (descriptor) {
+			case "I" -> new String[] { "java/lang/Integer", "intValue" };
+			case "J" -> new String[] { "java/lang/Long", "longValue" };
+			case "D" -> new String[] { "java/lang/Double", "doubleValue" };
+			case "Z" -> new String[] { "java/lang/Boolean", "booleanValue" };
+			default -> null;
+		};
+		if (boxing == null) {
+			String className = descriptor.startsWith("L") ? descriptor.substring(1, descriptor.length() - 1) : descriptor;
+			methodGenerator.visitTypeInsn(CHECKCAST, className);
+			jasminInstruction("checkcast " + className);
+			return;
+		}
+		String box = boxing[0];
+		String unbox = boxing[1];
+		methodGenerator.visitTypeInsn(CHECKCAST, box);
+		methodGenerator.visitMethodInsn(INVOKEVIRTUAL, box, unbox, "()" + descriptor, false);
+		jasminInstruction("checkcast " + box);
+		jasminInstruction("invokevirtual " + box + "/" + unbox + "()" + descriptor);
+	}
 
-		// Generate array reference
-		expr.getArray().accept(this);
+	/**
+	 * Call the java.lang.Math overload the arguments resolve to, converting each argument to
+	 * its kind of number.
+	 */
+	private void generateMathCall(String function, java.util.List<Expression> arguments) {
+		PrimitiveType overload = MathFunctions.overload(function, arguments.stream().map(Expression::getType).toList());
+		if (overload == null) {
+			throw new UnsupportedOperationException("No overload of Math." + function + " for these arguments");
+		}
+		boolean inline = MathFunctions.isInline(function, overload);
+		boolean isLong = overload == PrimitiveType.LONG;
+		for (int i = 0; i < arguments.size(); i++) {
+			arguments.get(i).accept(this);
+			generateTypeConversion(arguments.get(i).getType(), overload);
+			// fma of integers is a * b + c, exact in their own type
+			if (inline && i > 0) {
+				int opcode = i == 1 ? (isLong ? LMUL : IMUL) : (isLong ? LADD : IADD);
+				methodGenerator.visitInsn(opcode);
+				jasminInstruction(i == 1 ? (isLong ? "lmul" : "imul") : (isLong ? "ladd" : "iadd"));
+			}
+		}
+		// round of an integer is the integer itself
+		if (inline) {
+			return;
+		}
+		String descriptor = MathFunctions.descriptor(function, overload);
+		methodGenerator.visitMethodInsn(INVOKESTATIC, MathFunctions.CLASS_NAME, function, descriptor, false);
+		jasminInstruction("invokestatic " + MathFunctions.CLASS_NAME + "/" + function + descriptor);
+	}
 
-		// Generate index
-		expr.getIndex().accept(this);
+	// ===== MAPPED VIEWS =====
 
-		// Load from array
-		com.juno.types.Type elementType = expr.getType();
-		generateArrayLoad(elementType);
+	/**
+	 * Push the buffer of a mapped view and the byte offset of an element: the index scaled by
+	 * the element size. Regions are at most 2 GiB, so the offset is an int.
+	 */
+	private void generateViewOffset(ArrayIndexExpression element, MappedViewType view) {
+		element.getArray().accept(this);
+		element.getIndex().accept(this);
+		generateTypeConversion(element.getIndex().getType(), PrimitiveType.INT);
+		int shift = Integer.numberOfTrailingZeros(view.elementSize());
+		if (shift > 0) {
+			methodGenerator.visitInsn(ICONST_0 + shift);
+			methodGenerator.visitInsn(ISHL);
+			jasminInstruction("iconst_" + shift);
+			jasminInstruction("ishl");
+		}
+	}
 
-		return null;
+	/**
+	 * Read (get) or write (put) the element at the offset on the stack, with the absolute
+	 * get and put of ByteBuffer, which HotSpot compiles to plain loads and stores.
+	 */
+	private void generateViewAccess(String access, MappedViewType view) {
+		String name = switch (view.elementType().name()) {
+			case "byte" -> access;
+			case "int" -> access + "Int";
+			case "long" -> access + "Long";
+			case "double" -> access + "Double";
+			default -> throw new UnsupportedOperationException("Unsupported view type: " + view);
+		};
+		String value = view.elementType().getJVMDescriptor();
+		String descriptor = "get".equals(access) ? "(I)" + value : "(I" + value + ")Ljava/nio/ByteBuffer;";
+		methodGenerator.visitMethodInsn(INVOKEVIRTUAL, "java/nio/ByteBuffer", name, descriptor, false);
+		jasminInstruction("invokevirtual java/nio/ByteBuffer/" + name + descriptor);
 	}
 
-	@Override
-	public Void visitAddressOfExpression(AddressOfExpression expr) {
-		jasminComment("Address-of operator (&)");
+	// ===== CELLS =====
 
-		// In JVM, we implement pointers as objects that hold references
-		// For now, we'll use a simple approach where &var creates a reference holder
+	/**
+	 * Load a local variable, reading it through its cell if its address escapes.
+	 */
+	private void loadLocal(com.juno.types.Type type, int slot) {
+		if (cellSlots.contains(slot)) {
+			methodGenerator.visitVarInsn(ALOAD, slot);
+			jasminInstruction("aload " + slot);
+			generateCellRead(type);
+		}
+		else {
+			loadVariable(type, slot);
+		}
+	}
 
-		Expression operand = expr.getOperand();
-		if (operand instanceof IdentifierExpression identExpr) {
-			String varName = identExpr.getName();
+	private void declareCell(String varName) {
+		int slot = nextLocalSlot++;
+		methodGenerator.visitVarInsn(ASTORE, slot);
+		jasminInstruction("astore " + slot);
+		localVariables.put(varName, slot);
+		forgetPointerSlot(slot);
+		cellSlots.add(slot);
+	}
 
-			// Create a simple pointer object that holds the variable reference
-			// This is a simplified implementation - in practice, we'd need a proper Pointer class
-			Integer slot = localVariables.get(varName);
-			if (slot != null) {
-				// For local variables, store the slot number in the pointer object
-				methodGenerator.visitIntInsn(BIPUSH, slot);
-				jasminInstruction("bipush " + slot);
+	/**
+	 * Forget what a slot held for a variable that has gone out of scope.
+	 */
+	private void forgetPointerSlot(int slot) {
+		cellSlots.remove(slot);
+		aliasSlots.remove(slot);
+		arrayPointerSlots.remove(slot);
+		memoryPointerSlots.remove(slot);
+	}
 
-				// Create Integer wrapper for the slot reference
-				methodGenerator.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "valueOf", "(I)Ljava/lang/Integer;", false);
-				jasminInstruction("invokestatic java/lang/Integer/valueOf(I)Ljava/lang/Integer;");
-			}
-			else {
-				throw new UnsupportedOperationException("Address-of for global variables not yet supported");
-			}
-		}
-		else {
-			throw new UnsupportedOperationException("Address-of only supported for simple identifiers currently");
+	private void declareLoopVariable(ForInStatement forStmt, int slot) {
+		if (pointers.isCell(forStmt)) {
+			throw new UnsupportedOperationException("Cannot let the address of loop variable " + forStmt.variableName() + " escape");
 		}
+		localVariables.put(forStmt.variableName(), slot);
+		forgetPointerSlot(slot);
+	}
 
-		return null;
+	/**
+	 * Start creating the cell for a variable; the initial value goes on the stack next.
+	 */
+	private void generateCellStart(com.juno.types.Type type) {
+		String cellClass = PointerType.cellClass(type);
+		methodGenerator.visitTypeInsn(NEW, cellClass);
+		methodGenerator.visitInsn(DUP);
+		jasminInstruction("new " + cellClass);
+		jasminInstruction("dup");
 	}
 
-	@Override
-	public Void visitDereferenceExpression(DereferenceExpression expr) {
-		jasminComment("Dereference operator (*)");
+	private void generateCellEnd(com.juno.types.Type type) {
+		String cellClass = PointerType.cellClass(type);
+		String descriptor = "(" + PointerType.cellValueDescriptor(type) + ")V";
+		methodGenerator.visitMethodInsn(INVOKESPECIAL, cellClass, "<init>", descriptor, false);
+		jasminInstruction("invokespecial " + cellClass + "/<init>" + descriptor);
+	}
 
-		// Generate the pointer expression
-		expr.getOperand().accept(this);
+	/**
+	 * Replace the cell on the stack with the value it holds.
+	 */
+	private void generateCellRead(com.juno.types.Type type) {
+		String cellClass = PointerType.cellClass(type);
+		String valueDescriptor = PointerType.cellValueDescriptor(type);
+		methodGenerator.visitFieldInsn(GETFIELD, cellClass, "value", valueDescriptor);
+		jasminInstruction("getfield " + cellClass + "/value " + valueDescriptor);
+		generateCellCast(type);
+	}
+
+	/**
+	 * Cast a value read from a RefCell back to the variable's type.
+	 */
+	private void generateCellCast(com.juno.types.Type type) {
+		if (PointerType.cellValueDescriptor(type).startsWith("L")) {
+			String descriptor = getJVMTypeDescriptor(type);
+			String castType = descriptor.startsWith("L") ? descriptor.substring(1, descriptor.length() - 1) : descriptor;
+			methodGenerator.visitTypeInsn(CHECKCAST, castType);
+			jasminInstruction("checkcast " + castType);
+		}
+	}
+
+	/**
+	 * Store the value on top of the stack into the cell below it, leaving the value as the
+	 * result of the assignment.
+	 */
+	private void generateCellWrite(com.juno.types.Type type) {
+		String cellClass = PointerType.cellClass(type);
+		String valueDescriptor = PointerType.cellValueDescriptor(type);
+		methodGenerator.visitInsn(getTypeSize(type) == 2 ? DUP2_X1 : DUP_X1);
+		methodGenerator.visitFieldInsn(PUTFIELD, cellClass, "value", valueDescriptor);
+		jasminInstruction(getTypeSize(type) == 2 ? "dup2_x1" : "dup_x1");
+		jasminInstruction("putfield " + cellClass + "/value " + valueDescriptor);
+	}
+
+	/**
+	 * Replace the pointer on the stack with the value it points to. The pointer may be an
+	 * element cell, so unlike {@link #generateCellRead} this calls the cell's accessor.
+	 */
+	private void generatePointerRead(com.juno.types.Type type) {
+		String cellClass = PointerType.cellClass(type);
+		String descriptor = "()" + PointerType.cellValueDescriptor(type);
+		methodGenerator.visitMethodInsn(INVOKEVIRTUAL, cellClass, "get", descriptor, false);
+		jasminInstruction("invokevirtual " + cellClass + "/get" + descriptor);
+		generateCellCast(type);
+	}
 
-		// For our simplified implementation, the pointer holds a slot number as Integer
-		// Cast to Integer and extract the slot
-		methodGenerator.visitTypeInsn(CHECKCAST, "java/lang/Integer");
-		methodGenerator.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I", false);
-		jasminInstruction("checkcast java/lang/Integer");
-		jasminInstruction("invokevirtual java/lang/Integer/intValue()I");
+	/**
+	 * Store the value on top of the stack through the pointer below it, leaving the value as
+	 * the result of the assignment.
+	 */
+	private void generatePointerWrite(com.juno.types.Type type) {
+		String cellClass = PointerType.cellClass(type);
+		String descriptor = "(" + PointerType.cellValueDescriptor(type) + ")V";
+		methodGenerator.visitInsn(getTypeSize(type) == 2 ? DUP2_X1 : DUP_X1);
+		methodGenerator.visitMethodInsn(INVOKEVIRTUAL, cellClass, "set", descriptor, false);
+		jasminInstruction(getTypeSize(type) == 2 ? "dup2_x1" : "dup_x1");
+		jasminInstruction("invokevirtual " + cellClass + "/set" + descriptor);
+	}
 
-		// Now we have the slot number on the stack
-		// For simplicity, we'll assume int type and generate iload with computed slot
-		// This is a hack - in practice we'd need proper slot tracking
-		throw new UnsupportedOperationException("Pointer dereference requires runtime slot loading - not yet implemented");
+	@Override
+	public Void visitRangeExpression(RangeExpression expr) {
+		throw new UnsupportedOperationException("Ranges can only be iterated by for-in loops");
 	}
 
 	// ===== UTILITY METHODS =====
@@ -932,36 +2990,6 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		return descriptor.toString();
 	}
 
-	private String buildFunctionCallDescriptor(CallExpression callExpr) {
-		StringBuilder descriptor = new StringBuilder("(");
-
-		// Parameter types (inferred from argument types)
-		// TODO: This is a hack - we should look up the actual method signature
-		for (Expression arg : callExpr.getArguments()) {
-			com.juno.types.Type argType = arg.getType();
-
-			// Most expressions produce int values on the JVM stack regardless of AST type
-			// Only long-returning function calls actually produce long values
-			if (isCallExpressionReturningLong(arg)) {
-				descriptor.append("J"); // Function call returning long
-			}
-			else if (isLongType(argType) && isLongLiteralExpression(arg)) {
-				descriptor.append("J"); // Large long literal that actually needs long
-			}
-			else {
-				descriptor.append("I"); // Everything else produces int on JVM stack
-			}
-		}
-
-		descriptor.append(")");
-
-		// Return type (from the call expression's type)
-		com.juno.types.Type returnType = callExpr.getType();
-		descriptor.append(getJVMTypeDescriptor(returnType));
-
-		return descriptor.toString();
-	}
-
 	private String getJVMTypeDescriptor(com.juno.types.Type type) {
 		if (type instanceof PrimitiveType) {
 			return switch (type.name()) {
@@ -976,7 +3004,21 @@ public class CodeGenerator implements ASTVisitor<Void> {
 				default -> throw new UnsupportedOperationException("Unsupported primitive type: " + type.name());
 			};
 		}
-		else if (type instanceof ArrayType) {
+		else if (type instanceof ArrayType arrayType) {
+			// Struct classes are qualified with the program class, which the type does not know
+			if (arrayType.elementType() instanceof StructType structType && isStructOfArrays(structType)) {
+				return "L" + soaClassName(structType.structName()) + ";";
+			}
+			if (arrayType.elementType() instanceof StructType || arrayType.elementType() instanceof ArrayType) {
+				return "[" + getJVMTypeDescriptor(arrayType.elementType());
+			}
+			return type.getJVMDescriptor();
+		}
+		else if (type instanceof StructType structType) {
+			return "L" + structClassName(structType.structName()) + ";";
+		}
+		else if (type instanceof PointerType) {
+			// A pointer that leaves its function is the cell holding the variable
 			return type.getJVMDescriptor();
 		}
 		else if (type instanceof UnionType) {
@@ -1132,6 +3174,16 @@ public class CodeGenerator implements ASTVisitor<Void> {
 			// Union types default to null
 			methodGenerator.visitInsn(ACONST_NULL);
 		}
+		else if (type instanceof StructType structType) {
+			// Structs default to a zeroed struct
+			String structClass = structClassName(structType.structName());
+			methodGenerator.visitTypeInsn(NEW, structClass);
+			methodGenerator.visitInsn(DUP);
+			methodGenerator.visitMethodInsn(INVOKESPECIAL, structClass, "<init>", "()V", false);
+		}
+		else if (type instanceof ArrayType arrayType && arrayType.isFixedArray()) {
+			generateFixedArray(arrayType);
+		}
 		else {
 			methodGenerator.visitInsn(ACONST_NULL);
 		}
@@ -1210,115 +3262,57 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		jasminLabel("end_" + endLabelId);
 	}
 
-	private void generateLogicalNot() {
-		Label trueLabel = methodGenerator.newLabel();
-		Label endLabel = methodGenerator.newLabel();
-
-		// If value is 0 (false), jump to true label
-		methodGenerator.visitJumpInsn(IFEQ, trueLabel);
-
-		// Value was non-zero (true), so result is false (0)
-		methodGenerator.visitInsn(ICONST_0);
-		methodGenerator.visitJumpInsn(GOTO, endLabel);
-
-		// Value was zero (false), so result is true (1)
-		methodGenerator.visitLabel(trueLabel);
-		methodGenerator.visitInsn(ICONST_1);
-
-		methodGenerator.visitLabel(endLabel);
-	}
-
-	private void generateLogicalAnd() {
-		Label falseLabel = methodGenerator.newLabel();
-		Label endLabel = methodGenerator.newLabel();
-
-		// Left operand is already on stack
-		// Duplicate it for the test
-		methodGenerator.visitInsn(DUP);
-		methodGenerator.visitJumpInsn(IFEQ, falseLabel);  // If left is false, short-circuit
-
-		// Left was true, pop it and use right operand result
-		methodGenerator.visitInsn(POP);
-		// Right operand is already on stack
-		methodGenerator.visitJumpInsn(GOTO, endLabel);
-
-		// Left was false, pop right operand and push false
-		methodGenerator.visitLabel(falseLabel);
-		methodGenerator.visitInsn(POP);  // Pop right operand
-		methodGenerator.visitInsn(ICONST_0);
-
-		methodGenerator.visitLabel(endLabel);
-	}
-
-	private void generateLogicalOr() {
-		Label trueLabel = methodGenerator.newLabel();
-		Label endLabel = methodGenerator.newLabel();
-
-		// Left operand is already on stack
-		// Duplicate it for the test
-		methodGenerator.visitInsn(DUP);
-		methodGenerator.visitJumpInsn(IFNE, trueLabel);  // If left is true, short-circuit
-
-		// Left was false, pop it and use right operand result
-		methodGenerator.visitInsn(POP);
-		// Right operand is already on stack
-		methodGenerator.visitJumpInsn(GOTO, endLabel);
-
-		// Left was true, pop right operand and push true
-		methodGenerator.visitLabel(trueLabel);
-		methodGenerator.visitInsn(POP);  // Pop right operand
-		methodGenerator.visitInsn(ICONST_1);
-
-		methodGenerator.visitLabel(endLabel);
-	}
-
-	private void generateStringConcatenation() {
-		// At this point, stack has: [left_operand, right_operand]
-		// We need to convert both to strings and concatenate left + right
-
-		// Store right operand temporarily
-		methodGenerator.visitInsn(SWAP);  // [right, left]
-		jasminInstruction("swap");
-
-		// Convert left operand to string
-		methodGenerator.visitMethodInsn(INVOKESTATIC, "java/lang/String", "valueOf", "(Ljava/lang/Object;)Ljava/lang/String;", false);
-		jasminInstruction("invokestatic java/lang/String/valueOf(Ljava/lang/Object;)Ljava/lang/String;");
-		// Stack: [right, left_string]
-
-		methodGenerator.visitInsn(SWAP);  // [left_string, right]
-		jasminInstruction("swap");
-
-		// Convert right operand to string
-		methodGenerator.visitMethodInsn(INVOKESTATIC, "java/lang/String", "valueOf", "(Ljava/lang/Object;)Ljava/lang/String;", false);
-		jasminInstruction("invokestatic java/lang/String/valueOf(Ljava/lang/Object;)Ljava/lang/String;");
-		// Stack: [left_string, right_string]
+	private void generateStringConcatenation(BinaryExpression expr) {
+		// Stack: [] -> [left_string] -> [left_string, right_string]
+		generateStringOperand(expr.getLeft());
+		generateStringOperand(expr.getRight());
 
 		// Concatenate strings: left.concat(right)
 		methodGenerator.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "concat", "(Ljava/lang/String;)Ljava/lang/String;", false);
 		jasminInstruction("invokevirtual java/lang/String/concat(Ljava/lang/String;)Ljava/lang/String;");
 	}
 
+	private void generateStringOperand(Expression operand) {
+		operand.accept(this);
+
+		com.juno.types.Type type = operand.getType();
+		if (type instanceof PrimitiveType && !"string".equals(type.name())) {
+			generatePrimitiveToStringConversion(type.name());
+		}
+		else {
+			methodGenerator.visitMethodInsn(INVOKESTATIC, "java/lang/String", "valueOf", "(Ljava/lang/Object;)Ljava/lang/String;", false);
+			jasminInstruction("invokestatic java/lang/String/valueOf(Ljava/lang/Object;)Ljava/lang/String;");
+		}
+	}
+
 	private void generateIoCall(String function, java.util.List<Expression> arguments) {
-		// Generate arguments
-		for (Expression arg : arguments) {
-			arg.accept(this);
+		if (IoFunctions.isPrint(function) && arguments.size() == 1) {
+			// Print the value with the overload for its type, which formats it without a string
+			Expression value = IoFunctions.printedValue(arguments.get(0));
+			PrimitiveType parameterType = IoFunctions.parameterType(value.getType());
+			value.accept(this);
+			generateTypeConversion(value.getType(), parameterType);
+			String descriptor = IoFunctions.printDescriptor(parameterType);
+			methodGenerator.visitMethodInsn(INVOKESTATIC, "com/juno/runtime/Io", function, descriptor, false);
+			jasminInstruction("invokestatic com/juno/runtime/Io/" + function + descriptor);
+			return;
 		}
 
-		// Map to runtime calls
-		String descriptor;
-		switch (function) {
-			case "print":
-			case "println":
-			case "report":
-				descriptor = "(Ljava/lang/String;)V";
-				break;
-			case "scan":
-				descriptor = "()Ljava/lang/String;";
-				break;
-			default:
-				throw new UnsupportedOperationException("Unknown Io function: " + function);
+		if (IoFunctions.returnType(function) == null) {
+			throw new UnsupportedOperationException("Unknown Io function: " + function);
+		}
+		java.util.List<PrimitiveType> parameterTypes = IoFunctions.parameterTypes(function);
+		if (arguments.size() != parameterTypes.size()) {
+			throw new UnsupportedOperationException("Io." + function + " takes " + parameterTypes.size() + " arguments");
+		}
+
+		// Generate arguments, converted to the parameter types
+		for (int i = 0; i < arguments.size(); i++) {
+			arguments.get(i).accept(this);
+			generateTypeConversion(arguments.get(i).getType(), parameterTypes.get(i));
 		}
 
+		String descriptor = IoFunctions.descriptor(function);
 		methodGenerator.visitMethodInsn(INVOKESTATIC, "com/juno/runtime/Io", function, descriptor, false);
 		jasminInstruction("invokestatic com/juno/runtime/Io/" + function + descriptor);
 	}
@@ -1337,6 +3331,22 @@ public class CodeGenerator implements ASTVisitor<Void> {
 				return "if_icmpgt";
 			case IF_ICMPGE:
 				return "if_icmpge";
+			case IF_ACMPEQ:
+				return "if_acmpeq";
+			case IF_ACMPNE:
+				return "if_acmpne";
+			case IFEQ:
+				return "ifeq";
+			case IFNE:
+				return "ifne";
+			case IFLT:
+				return "iflt";
+			case IFLE:
+				return "ifle";
+			case IFGT:
+				return "ifgt";
+			case IFGE:
+				return "ifge";
 			default:
 				return "if_icmp_unknown";
 		}
@@ -1450,8 +3460,32 @@ public class CodeGenerator implements ASTVisitor<Void> {
 	}
 
 	private void generateIntegerToIntegerConversion(String fromTypeName, String toTypeName) {
+		// uint widens with zero extension; ubyte and ushort are already zero-extended in their int
+		if ("uint".equals(fromTypeName) && ("long".equals(toTypeName) || "ulong".equals(toTypeName))) {
+			methodGenerator.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "toUnsignedLong", "(I)J", false);
+			jasminInstruction("invokestatic java/lang/Integer/toUnsignedLong(I)J ; uint to " + toTypeName);
+		}
+		// Narrowing to ubyte and ushort masks instead of sign-extending
+		else if ("ubyte".equals(toTypeName) || "ushort".equals(toTypeName)) {
+			if ("long".equals(fromTypeName) || "ulong".equals(fromTypeName)) {
+				methodGenerator.visitInsn(L2I);
+				jasminInstruction("l2i ; " + fromTypeName + " to " + toTypeName);
+			}
+			if (!"ubyte".equals(fromTypeName)) {
+				generateUnsignedMask(PrimitiveType.fromName(toTypeName));
+			}
+		}
+		else if ("ushort".equals(fromTypeName) && "short".equals(toTypeName)) {
+			methodGenerator.visitInsn(I2S);
+			jasminInstruction("i2s ; ushort to short");
+		}
+		else if (("ubyte".equals(fromTypeName) || "ushort".equals(fromTypeName)
+				|| "short".equals(fromTypeName)) && "byte".equals(toTypeName)) {
+			methodGenerator.visitInsn(I2B);
+			jasminInstruction("i2b ; " + fromTypeName + " to byte");
+		}
 		// From smaller integer types to long
-		if (("int".equals(fromTypeName) || "uint".equals(fromTypeName) ||
+		else if (("int".equals(fromTypeName) ||
 				"byte".equals(fromTypeName) || "ubyte".equals(fromTypeName) ||
 				"short".equals(fromTypeName) || "ushort".equals(fromTypeName)) &&
 				("long".equals(toTypeName) || "ulong".equals(toTypeName))) {
@@ -1492,7 +3526,19 @@ public class CodeGenerator implements ASTVisitor<Void> {
 	}
 
 	private void generateIntegerToFloatConversion(String fromTypeName, String toTypeName) {
-		if ("long".equals(fromTypeName) || "ulong".equals(fromTypeName)) {
+		if ("ulong".equals(fromTypeName)) {
+			String function = "float".equals(toTypeName) ? "toFloat" : "toDouble";
+			String descriptor = "float".equals(toTypeName) ? "(J)F" : "(J)D";
+			methodGenerator.visitMethodInsn(INVOKESTATIC, "com/juno/runtime/Unsigned", function, descriptor, false);
+			jasminInstruction("invokestatic com/juno/runtime/Unsigned/" + function + descriptor + " ; ulong to " + toTypeName);
+			return;
+		}
+		if ("uint".equals(fromTypeName)) {
+			methodGenerator.visitMethodInsn(INVOKESTATIC, "java/lang/Integer", "toUnsignedLong", "(I)J", false);
+			jasminInstruction("invokestatic java/lang/Integer/toUnsignedLong(I)J ; uint to " + toTypeName + " via long");
+			fromTypeName = "long";
+		}
+		if ("long".equals(fromTypeName)) {
 			if ("float".equals(toTypeName)) {
 				methodGenerator.visitInsn(L2F);
 				jasminInstruction("l2f ; " + fromTypeName + " to float");
@@ -1516,6 +3562,29 @@ public class CodeGenerator implements ASTVisitor<Void> {
 	}
 
 	private void generateFloatToIntegerConversion(String fromTypeName, String toTypeName) {
+		if ("ulong".equals(toTypeName)) {
+			if ("float".equals(fromTypeName)) {
+				methodGenerator.visitInsn(F2D);
+				jasminInstruction("f2d ; float to ulong via double");
+			}
+			methodGenerator.visitMethodInsn(INVOKESTATIC, "com/juno/runtime/Unsigned", "toULong", "(D)J", false);
+			jasminInstruction("invokestatic com/juno/runtime/Unsigned/toULong(D)J ; " + fromTypeName + " to ulong");
+			return;
+		}
+		if ("uint".equals(toTypeName)) {
+			// Through long, so values up to 2^32 - 1 survive
+			methodGenerator.visitInsn("float".equals(fromTypeName) ? F2L : D2L);
+			methodGenerator.visitInsn(L2I);
+			jasminInstruction(("float".equals(fromTypeName) ? "f2l" : "d2l") + " ; " + fromTypeName + " to uint via long");
+			jasminInstruction("l2i");
+			return;
+		}
+		if ("ubyte".equals(toTypeName) || "ushort".equals(toTypeName)) {
+			methodGenerator.visitInsn("float".equals(fromTypeName) ? F2I : D2I);
+			jasminInstruction(("float".equals(fromTypeName) ? "f2i" : "d2i") + " ; " + fromTypeName + " to " + toTypeName);
+			generateUnsignedMask(PrimitiveType.fromName(toTypeName));
+			return;
+		}
 		// First convert to int or long
 		if ("float".equals(fromTypeName)) {
 			if ("long".equals(toTypeName) || "ulong".equals(toTypeName)) {
@@ -1638,6 +3707,13 @@ public class CodeGenerator implements ASTVisitor<Void> {
 	 * Assumes the primitive value is already on the stack.
 	 */
 	private void generatePrimitiveToStringConversion(String fromTypeName) {
+		if ("uint".equals(fromTypeName) || "ulong".equals(fromTypeName)) {
+			String owner = "uint".equals(fromTypeName) ? "java/lang/Integer" : "java/lang/Long";
+			String unsignedDescriptor = "uint".equals(fromTypeName) ? "(I)Ljava/lang/String;" : "(J)Ljava/lang/String;";
+			methodGenerator.visitMethodInsn(INVOKESTATIC, owner, "toUnsignedString", unsignedDescriptor, false);
+			jasminInstruction("invokestatic " + owner + "/toUnsignedString" + unsignedDescriptor + " ; " + fromTypeName + " to string");
+			return;
+		}
 		// Use appropriate String.valueOf method based on the primitive type
 		String descriptor;
 
@@ -1695,51 +3771,6 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		return typeName.equals("long") || typeName.equals("ulong");
 	}
 
-	private boolean isCallExpressionReturningLong(Expression expr) {
-		// Check if this expression is a function call that returns a long type
-		if (expr instanceof CallExpression callExpr) {
-			com.juno.types.Type returnType = callExpr.getType();
-			return isLongType(returnType);
-		}
-		return false;
-	}
-
-	private boolean isLongLiteralExpression(Expression expr) {
-		// Check if this is a literal that actually needs to be represented as long
-		if (expr instanceof LiteralExpression litExpr) {
-			Object value = litExpr.getValue();
-			if (value instanceof Long) {
-				long longValue = (Long) value;
-				// Only use long descriptor for values that don't fit in int
-				return longValue < Integer.MIN_VALUE || longValue > Integer.MAX_VALUE;
-			}
-		}
-		return false;
-	}
-
-	private boolean isLongArithmetic(Expression left, Expression right) {
-		// Use long arithmetic if either operand produces a long value on the stack
-		return producesLongValue(left) || producesLongValue(right);
-	}
-
-	private boolean producesLongValue(Expression expr) {
-		// Check if this expression produces a long value on the JVM stack
-		return isCallExpressionReturningLong(expr) || isLongLiteralExpression(expr);
-	}
-
-	private boolean isLongArithmeticExpression(Expression expr) {
-		// Check if this is a binary expression that uses long arithmetic
-		if (expr instanceof BinaryExpression binExpr) {
-			String operator = binExpr.getOperator();
-			// Check if it's an arithmetic operator that can produce long results
-			if ("+".equals(operator) || "-".equals(operator) ||
-					"*".equals(operator) || "/".equals(operator) || "%".equals(operator)) {
-				return isLongArithmetic(binExpr.getLeft(), binExpr.getRight());
-			}
-		}
-		return false;
-	}
-
 	// ===== JASMIN ASSEMBLY GENERATION =====
 
 	private void generateJasminHeader(String className) {
@@ -1791,8 +3822,7 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		}
 
 		// Create static initializer method <clinit>
-		MethodVisitor clinit = classWriter.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
-		methodGenerator = new GeneratorAdapter(ACC_STATIC, new Method("<clinit>", "()V"), clinit);
+		MethodNode clinit = beginMethod(ACC_STATIC, "<clinit>", "()V");
 
 		// Generate Jasmin static initializer
 		jasminComment("Static initializer for global variables");
@@ -1810,6 +3840,12 @@ public class CodeGenerator implements ASTVisitor<Void> {
 			jasminComment("Initialize " + varName);
 
 			// Generate initialization value
+			if (initializer == null) {
+				generateDefaultValue(varType);
+				String fieldDescriptor = getJVMTypeDescriptor(varType);
+				methodGenerator.visitFieldInsn(PUTSTATIC, currentClassName, varName, fieldDescriptor);
+				continue;
+			}
 			initializer.accept(this);
 
 			// Add type conversion if needed
@@ -1830,8 +3866,7 @@ public class CodeGenerator implements ASTVisitor<Void> {
 
 		// Return from static initializer
 		methodGenerator.visitInsn(RETURN);
-		methodGenerator.visitMaxs(0, 0);
-		methodGenerator.visitEnd();
+		endMethod(clinit);
 
 		// End Jasmin static initializer
 		jasminInstruction("return");
@@ -1847,22 +3882,13 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		}
 
 		// Create JVM-compatible main method: public static void main(String[] args)
-		MethodVisitor mainMethod = classWriter.visitMethod(
-				ACC_PUBLIC | ACC_STATIC,
-				"main",
-				"([Ljava/lang/String;)V",
-				null,
-				null
-		);
-
-		methodGenerator = new GeneratorAdapter(ACC_PUBLIC | ACC_STATIC,
-																					 new Method("main", "([Ljava/lang/String;)V"), mainMethod);
+		MethodNode mainMethod = beginMethod(ACC_PUBLIC | ACC_STATIC, "main", "([Ljava/lang/String;)V");
 
 		// Generate Jasmin JVM main method
 		jasminComment("JVM-compatible main method wrapper");
 		jasminMethod("main([Ljava/lang/String;)V", "public static");
 		jasminDirective("    .limit stack 10");
-		jasminDirective("    .limit locals 1");
+		jasminDirective("    .limit locals 3");
 
 		methodGenerator.visitCode();
 
@@ -1881,32 +3907,30 @@ public class CodeGenerator implements ASTVisitor<Void> {
 			callDescriptor = "()I";
 		}
 
+		// Buffered Io output is flushed when main returns or throws
+		Label callStart = methodGenerator.newLabel();
+		Label callEnd = methodGenerator.newLabel();
+		Label flushOnThrow = methodGenerator.newLabel();
+		methodGenerator.visitTryCatchBlock(callStart, callEnd, flushOnThrow, null);
+
 		// Call our Juno main() method
+		methodGenerator.visitLabel(callStart);
 		methodGenerator.visitMethodInsn(INVOKESTATIC, currentClassName, "main", callDescriptor, false);
 		jasminInstruction("invokestatic " + currentClassName + "/main" + callDescriptor);
-
-		// If main returns a value, print it to stdout (standard JVM behavior)
+		methodGenerator.visitLabel(callEnd);
 		if (!isVoidMain) {
-			String printDescriptor = isLongMain ? "(J)V" : "(I)V";
+			methodGenerator.visitVarInsn(isLongMain ? LSTORE : ISTORE, 1);
+			jasminInstruction((isLongMain ? "lstore" : "istore") + " 1");
+		}
+		generateIoFlush();
 
-			// Get System.out for printing
+		// If main returns a value, print it to stdout (standard JVM behavior).
+		if (!isVoidMain) {
 			methodGenerator.visitFieldInsn(GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
 			jasminInstruction("getstatic java/lang/System/out Ljava/io/PrintStream;");
-
-			if (isLongMain) {
-				// For long values: stack is [long_low, long_high, PrintStream]
-				// We need: [PrintStream, long_low, long_high]
-				// Use DUP_X2 then POP to reorder
-				methodGenerator.visitInsn(DUP_X2);  // [PrintStream, long_low, long_high, PrintStream]
-				methodGenerator.visitInsn(POP);     // [PrintStream, long_low, long_high]
-				jasminInstruction("dup_x2");
-				jasminInstruction("pop");
-			}
-			else {
-				methodGenerator.visitInsn(SWAP);  // Put int result before PrintStream
-				jasminInstruction("swap");
-			}
-
+			methodGenerator.visitVarInsn(isLongMain ? LLOAD : ILOAD, 1);
+			jasminInstruction((isLongMain ? "lload" : "iload") + " 1");
+			String printDescriptor = isLongMain ? "(J)V" : "(I)V";
 			methodGenerator.visitMethodInsn(INVOKEVIRTUAL, "java/io/PrintStream", "println", printDescriptor, false);
 			jasminInstruction("invokevirtual java/io/PrintStream/println" + printDescriptor);
 		}
@@ -1915,8 +3939,13 @@ public class CodeGenerator implements ASTVisitor<Void> {
 		methodGenerator.visitInsn(RETURN);
 		jasminInstruction("return");
 
-		methodGenerator.visitMaxs(0, 0);
-		methodGenerator.visitEnd();
+		methodGenerator.visitLabel(flushOnThrow);
+		jasminLabel("flush_on_throw");
+		generateIoFlush();
+		methodGenerator.visitInsn(ATHROW);
+		jasminInstruction("athrow");
+
+		endMethod(mainMethod);
 
 		// End Jasmin JVM main method
 		jasminEndMethod();
@@ -2099,5 +4128,8 @@ public class CodeGenerator implements ASTVisitor<Void> {
 			methodGenerator.visitInsn(AALOAD);
 			jasminInstruction("aaload");
 		}
+		if (UnsignedArithmetic.isNarrowUnsigned(elementType)) {
+			generateUnsignedMask(elementType);
+		}
 	}
 }
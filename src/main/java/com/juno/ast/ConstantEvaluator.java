@@ -0,0 +1,616 @@
+package com.juno.ast;
+
+import com.juno.runtime.Unsigned;
+import com.juno.types.PrimitiveType;
+import com.juno.types.SpecialTypes;
+import com.juno.types.Type;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Step-budgeted interpreter for pure Juno code, used to evaluate calls at compile time.
+ * Values are represented with boxed Java values: Integer for int-sized integers, Long, Float,
+ * Double, Boolean, Character and String. The arithmetic mirrors the JVM semantics used by the
+ * code generator, so a folded call produces exactly the value the compiled call would return.
+ * Anything the interpreter cannot handle (unknown variables, impure calls, division by zero,
+ * running out of steps) makes the evaluation fail instead of guessing.
+ */
+public class ConstantEvaluator implements ASTVisitor<Object> {
+
+	public static final int DEFAULT_STEP_BUDGET = 1_000_000;
+	private static final int MAX_CALL_DEPTH = 256;
+
+	private final Map<String, FunctionDeclaration> functions;
+	private final int stepBudget;
+	private int remainingSteps;
+	private int callDepth;
+	private Deque<Map<String, Variable>> scopes = new ArrayDeque<>();
+	private Object returnValue;
+	private Type returnValueType;
+
+	/**
+	 * Control flow outcome of executing a statement.
+	 */
+	private enum Flow {
+		NORMAL, BREAK, CONTINUE, RETURN
+	}
+
+	private static final class Variable {
+		final Type type;
+		Object value;
+
+		Variable(Type type, Object value) {
+			this.type = type;
+			this.value = value;
+		}
+	}
+
+	/**
+	 * Thrown when an expression cannot be evaluated at compile time.
+	 */
+	private static final class EvaluationException extends RuntimeException {
+		EvaluationException(String message) {
+			super(message, null, false, false);
+		}
+	}
+
+	/**
+	 * @param functions the functions that may be called, normally the pure functions of the program
+	 */
+	public ConstantEvaluator(Map<String, FunctionDeclaration> functions) {
+		this(functions, DEFAULT_STEP_BUDGET);
+	}
+
+	public ConstantEvaluator(Map<String, FunctionDeclaration> functions, int stepBudget) {
+		this.functions = functions;
+		this.stepBudget = stepBudget;
+	}
+
+	/**
+	 * Evaluate a closed expression (one that references no variables).
+	 *
+	 * @return the value converted to the expression's type, or null if it cannot be computed
+	 */
+	public Object tryEvaluate(Expression expr) {
+		remainingSteps = stepBudget;
+		callDepth = 0;
+		scopes = new ArrayDeque<>();
+		scopes.push(new HashMap<>());
+		try {
+			return convert(evaluate(expr), expr.getType());
+		} catch (EvaluationException | ArithmeticException e) {
+			return null;
+		}
+	}
+
+	private Object evaluate(Expression expr) {
+		step();
+		return expr.accept(this);
+	}
+
+	private Flow execute(Statement stmt) {
+		step();
+		return (Flow) stmt.accept(this);
+	}
+
+	private void step() {
+		if (--remainingSteps < 0) {
+			throw new EvaluationException("step budget exhausted");
+		}
+	}
+
+	private Variable lookup(String name) {
+		for (Map<String, Variable> scope : scopes) {
+			Variable variable = scope.get(name);
+			if (variable != null) {
+				return variable;
+			}
+		}
+		throw new EvaluationException("unknown variable " + name);
+	}
+
+	// ===== STATEMENTS =====
+
+	@Override
+	public Object visitBlockStatement(BlockStatement block) {
+		scopes.push(new HashMap<>());
+		try {
+			for (Statement stmt : block.statements()) {
+				Flow flow = execute(stmt);
+				if (flow != Flow.NORMAL) {
+					return flow;
+				}
+			}
+			return Flow.NORMAL;
+		} finally {
+			scopes.pop();
+		}
+	}
+
+	@Override
+	public Object visitExpressionStatement(ExpressionStatement exprStmt) {
+		evaluate(exprStmt.expression());
+		return Flow.NORMAL;
+	}
+
+	@Override
+	public Object visitVariableDeclaration(VariableDeclaration varDecl) {
+		Type type = resolve(varDecl.getDeclaredType());
+		Object value = varDecl.initializer() != null
+				? convert(evaluate(varDecl.initializer()), varDecl.initializer().getType(), type)
+				: defaultValue(type);
+		scopes.peek().put(varDecl.name(), new Variable(type, value));
+		return Flow.NORMAL;
+	}
+
+	@Override
+	public Object visitIfStatement(IfStatement ifStmt) {
+		if (asBoolean(evaluate(ifStmt.condition()))) {
+			return execute(ifStmt.thenStmt());
+		}
+		if (ifStmt.elseStmt() != null) {
+			return execute(ifStmt.elseStmt());
+		}
+		return Flow.NORMAL;
+	}
+
+	@Override
+	public Object visitWhileStatement(WhileStatement whileStmt) {
+		while (asBoolean(evaluate(whileStmt.condition()))) {
+			Flow flow = execute(whileStmt.body());
+			if (flow == Flow.BREAK) {
+				break;
+			}
+			if (flow == Flow.RETURN) {
+				return flow;
+			}
+		}
+		return Flow.NORMAL;
+	}
+
+	@Override
+	public Object visitReturnStatement(ReturnStatement returnStmt) {
+		returnValue = returnStmt.value() != null ? evaluate(returnStmt.value()) : null;
+		returnValueType = returnStmt.value() != null ? returnStmt.value().getType() : null;
+		return Flow.RETURN;
+	}
+
+	@Override
+	public Object visitBreakStatement(BreakStatement stmt) {
+		return Flow.BREAK;
+	}
+
+	@Override
+	public Object visitContinueStatement(ContinueStatement stmt) {
+		return Flow.CONTINUE;
+	}
+
+	// ===== EXPRESSIONS =====
+
+	@Override
+	public Object visitLiteralExpression(LiteralExpression expr) {
+		return expr.getValue();
+	}
+
+	@Override
+	public Object visitIdentifierExpression(IdentifierExpression expr) {
+		return lookup(expr.getName()).value;
+	}
+
+	@Override
+	public Object visitAssignmentExpression(AssignmentExpression expr) {
+		if (!(expr.getTarget() instanceof IdentifierExpression target)) {
+			throw new EvaluationException("unsupported assignment target");
+		}
+		Variable variable = lookup(target.getName());
+		variable.value = convert(evaluate(expr.getValue()), expr.getValue().getType(), variable.type);
+		return variable.value;
+	}
+
+	@Override
+	public Object visitCallExpression(CallExpression expr) {
+		if (!(expr.getFunction() instanceof IdentifierExpression function)) {
+			throw new EvaluationException("unsupported call");
+		}
+		FunctionDeclaration funcDecl = functions.get(function.getName());
+		if (funcDecl == null || funcDecl.parameters().size() != expr.getArguments().size()) {
+			throw new EvaluationException("call to non-evaluable function " + function.getName());
+		}
+		if (callDepth >= MAX_CALL_DEPTH) {
+			throw new EvaluationException("call depth exceeded");
+		}
+
+		// Bind arguments in the caller's environment, then switch to a fresh frame
+		Map<String, Variable> frame = new HashMap<>();
+		for (int i = 0; i < funcDecl.parameters().size(); i++) {
+			FunctionDeclaration.Parameter param = funcDecl.parameters().get(i);
+			Type paramType = resolve(param.type());
+			Expression argument = expr.getArguments().get(i);
+			frame.put(param.name(), new Variable(paramType, convert(evaluate(argument), argument.getType(), paramType)));
+		}
+
+		Deque<Map<String, Variable>> callerScopes = scopes;
+		scopes = new ArrayDeque<>();
+		scopes.push(frame);
+		callDepth++;
+		try {
+			Flow flow = execute(funcDecl.body());
+			if (flow != Flow.RETURN || returnValue == null) {
+				throw new EvaluationException("function " + funcDecl.name() + " did not return a value");
+			}
+			return convert(returnValue, returnValueType, resolve(funcDecl.returnType()));
+		} finally {
+			callDepth--;
+			scopes = callerScopes;
+		}
+	}
+
+	@Override
+	public Object visitCastExpression(CastExpression expr) {
+		return convert(evaluate(expr.getExpression()), expr.getExpression().getType(), expr.getTargetType());
+	}
+
+	@Override
+	public Object visitUnaryExpression(UnaryExpression expr) {
+		Object operand = evaluate(expr.getOperand());
+		return switch (expr.getOperator()) {
+			case "+" -> operand;
+			case "-" -> {
+				if (operand instanceof Integer i) yield UnsignedArithmetic.isNarrowUnsigned(expr.getType()) ? convert(-i, expr.getType()) : -i;
+				if (operand instanceof Long l) yield -l;
+				if (operand instanceof Float f) yield -f;
+				if (operand instanceof Double d) yield -d;
+				throw new EvaluationException("cannot negate " + operand);
+			}
+			case "!" -> !asBoolean(operand);
+			default -> throw new EvaluationException("unsupported unary operator " + expr.getOperator());
+		};
+	}
+
+	@Override
+	public Object visitBinaryExpression(BinaryExpression expr) {
+		String operator = expr.getOperator();
+
+		// Logical operators only evaluate the right side when needed
+		if ("&&".equals(operator)) {
+			return asBoolean(evaluate(expr.getLeft())) && asBoolean(evaluate(expr.getRight()));
+		}
+		if ("||".equals(operator)) {
+			return asBoolean(evaluate(expr.getLeft())) || asBoolean(evaluate(expr.getRight()));
+		}
+
+		Object left = evaluate(expr.getLeft());
+		Object right = evaluate(expr.getRight());
+
+		PrimitiveType unsignedType = UnsignedArithmetic.operationType(expr.getLeft().getType(), expr.getRight().getType(), operator);
+		if (unsignedType != null) {
+			return unsignedOperation(operator, unsignedType,
+					convert(left, expr.getLeft().getType(), unsignedType),
+					convert(right, expr.getRight().getType(), unsignedType));
+		}
+
+		return switch (operator) {
+			case "+", "-", "*", "/", "%" -> arithmetic(operator, left, right);
+			case "<", "<=", ">", ">=" -> compare(operator, left, right);
+			case "==" -> isEqual(left, right);
+			case "!=" -> !isEqual(left, right);
+			case "^^" -> toString(left, expr.getLeft().getType()).concat(toString(right, expr.getRight().getType()));
+			default -> throw new EvaluationException("unsupported binary operator " + operator);
+		};
+	}
+
+	private Object arithmetic(String operator, Object left, Object right) {
+		if (left instanceof Double || right instanceof Double) {
+			double a = asNumber(left).doubleValue();
+			double b = asNumber(right).doubleValue();
+			return switch (operator) {
+				case "+" -> a + b;
+				case "-" -> a - b;
+				case "*" -> a * b;
+				case "/" -> a / b;
+				default -> a % b;
+			};
+		}
+		if (left instanceof Float || right instanceof Float) {
+			float a = asNumber(left).floatValue();
+			float b = asNumber(right).floatValue();
+			return switch (operator) {
+				case "+" -> a + b;
+				case "-" -> a - b;
+				case "*" -> a * b;
+				case "/" -> a / b;
+				default -> a % b;
+			};
+		}
+		if (left instanceof Long || right instanceof Long) {
+			long a = asNumber(left).longValue();
+			long b = asNumber(right).longValue();
+			return switch (operator) {
+				case "+" -> a + b;
+				case "-" -> a - b;
+				case "*" -> a * b;
+				case "/" -> a / b;
+				default -> a % b;
+			};
+		}
+		int a = asNumber(left).intValue();
+		int b = asNumber(right).intValue();
+		return switch (operator) {
+			case "+" -> a + b;
+			case "-" -> a - b;
+			case "*" -> a * b;
+			case "/" -> a / b;
+			default -> a % b;
+		};
+	}
+
+	/**
+	 * An operation with an unsigned operand, on operands already converted to the operation type.
+	 */
+	private Object unsignedOperation(String operator, PrimitiveType type, Object left, Object right) {
+		if (PrimitiveType.UINT.equals(type) || PrimitiveType.ULONG.equals(type)) {
+			boolean wide = PrimitiveType.ULONG.equals(type);
+			long a = asNumber(left).longValue();
+			long b = asNumber(right).longValue();
+			return switch (operator) {
+				case "/" -> wide ? (Object) Long.divideUnsigned(a, b) : (Object) Integer.divideUnsigned((int) a, (int) b);
+				case "%" -> wide ? (Object) Long.remainderUnsigned(a, b) : (Object) Integer.remainderUnsigned((int) a, (int) b);
+				case "+", "-", "*" -> convert(arithmetic(operator, left, right), type);
+				default -> {
+					int order = wide ? Long.compareUnsigned(a, b) : Integer.compareUnsigned((int) a, (int) b);
+					yield switch (operator) {
+						case "<" -> order < 0;
+						case "<=" -> order <= 0;
+						case ">" -> order > 0;
+						case ">=" -> order >= 0;
+						case "==" -> order == 0;
+						default -> order != 0;
+					};
+				}
+			};
+		}
+		return switch (operator) {
+			case "+", "-", "*", "/", "%" -> convert(arithmetic(operator, left, right), type);
+			case "<", "<=", ">", ">=" -> compare(operator, left, right);
+			case "==" -> isEqual(left, right);
+			default -> !isEqual(left, right);
+		};
+	}
+
+	private boolean compare(String operator, Object left, Object right) {
+		if (left instanceof Double || right instanceof Double || left instanceof Float || right instanceof Float) {
+			double a = asNumber(left).doubleValue();
+			double b = asNumber(right).doubleValue();
+			return switch (operator) {
+				case "<" -> a < b;
+				case "<=" -> a <= b;
+				case ">" -> a > b;
+				default -> a >= b;
+			};
+		}
+		long a = asNumber(left).longValue();
+		long b = asNumber(right).longValue();
+		return switch (operator) {
+			case "<" -> a < b;
+			case "<=" -> a <= b;
+			case ">" -> a > b;
+			default -> a >= b;
+		};
+	}
+
+	private boolean isEqual(Object left, Object right) {
+		if ((left instanceof Number || left instanceof Character) && (right instanceof Number || right instanceof Character)) {
+			if (left instanceof Double || right instanceof Double || left instanceof Float || right instanceof Float) {
+				return asNumber(left).doubleValue() == asNumber(right).doubleValue();
+			}
+			return asNumber(left).longValue() == asNumber(right).longValue();
+		}
+		return left.equals(right);
+	}
+
+	// ===== VALUE CONVERSIONS =====
+
+	private static Type resolve(Type type) {
+		if (type instanceof SpecialTypes.AutoType autoType && autoType.isInferred()) {
+			return autoType.getInferredType();
+		}
+		return type;
+	}
+
+	private static Number asNumber(Object value) {
+		if (value instanceof Number number) {
+			return number;
+		}
+		if (value instanceof Character c) {
+			return (int) c;
+		}
+		if (value instanceof Boolean b) {
+			return b ? 1 : 0;
+		}
+		throw new EvaluationException("not a number: " + value);
+	}
+
+	private static boolean asBoolean(Object value) {
+		if (value instanceof Boolean b) {
+			return b;
+		}
+		throw new EvaluationException("not a boolean: " + value);
+	}
+
+	private static Object defaultValue(Type type) {
+		return convert(0, type);
+	}
+
+	/**
+	 * Convert a value of one Juno type to another. Unsigned values widen with zero extension
+	 * and convert to and from floating point by their unsigned value.
+	 */
+	static Object convert(Object value, Type fromType, Type type) {
+		fromType = resolve(fromType);
+		type = resolve(type);
+		boolean toFloatingPoint = type instanceof PrimitiveType primitive && primitive.isFloatingPoint();
+		if (PrimitiveType.STRING.equals(type)) {
+			return toString(value, fromType);
+		}
+		if (PrimitiveType.UINT.equals(fromType) && value instanceof Integer i
+				&& (toFloatingPoint || PrimitiveType.LONG.equals(type) || PrimitiveType.ULONG.equals(type))) {
+			return convert(Integer.toUnsignedLong(i), type);
+		}
+		if (PrimitiveType.ULONG.equals(fromType) && value instanceof Long l && toFloatingPoint) {
+			return PrimitiveType.FLOAT.equals(type) ? Unsigned.toFloat(l) : Unsigned.toDouble(l);
+		}
+		if ((value instanceof Float || value instanceof Double) && !toFloatingPoint) {
+			double d = asNumber(value).doubleValue();
+			if (PrimitiveType.ULONG.equals(type)) {
+				return Unsigned.toULong(d);
+			}
+			if (PrimitiveType.UINT.equals(type)) {
+				return (int) (long) d;
+			}
+			if (UnsignedArithmetic.isNarrowUnsigned(type)) {
+				return convert((int) d, type);
+			}
+		}
+		return convert(value, type);
+	}
+
+	/**
+	 * The text of a value of a Juno type, as string conversion and concatenation print it:
+	 * uint and ulong values by their unsigned value.
+	 */
+	private static String toString(Object value, Type type) {
+		type = resolve(type);
+		if (PrimitiveType.UINT.equals(type) && value instanceof Integer i) {
+			return Integer.toUnsignedString(i);
+		}
+		if (PrimitiveType.ULONG.equals(type) && value instanceof Long l) {
+			return Long.toUnsignedString(l);
+		}
+		return String.valueOf(value);
+	}
+
+	/**
+	 * Convert a value to the canonical representation of a Juno type,
+	 * applying the same narrowing and widening the code generator emits.
+	 */
+	static Object convert(Object value, Type type) {
+		type = resolve(type);
+		if (value == null || !(type instanceof PrimitiveType)) {
+			throw new EvaluationException("cannot represent value of type " + type);
+		}
+		switch (type.name()) {
+			case "string":
+				if (value instanceof String) {
+					return value;
+				}
+				return String.valueOf(value);
+			case "bool":
+				if (value instanceof Boolean) {
+					return value;
+				}
+				return asNumber(value).doubleValue() != 0;
+			case "char":
+				return (char) asNumber(value).intValue();
+			case "byte":
+				return (int) (byte) asNumber(value).intValue();
+			case "ubyte":
+				return asNumber(value).intValue() & 0xFF;
+			case "short":
+				return (int) (short) asNumber(value).intValue();
+			case "ushort":
+				return asNumber(value).intValue() & 0xFFFF;
+			case "int":
+			case "uint":
+				return asNumber(value).intValue();
+			case "long":
+			case "ulong":
+				return asNumber(value).longValue();
+			case "float":
+				return asNumber(value).floatValue();
+			case "double":
+				return asNumber(value).doubleValue();
+			default:
+				throw new EvaluationException("cannot represent value of type " + type);
+		}
+	}
+
+	// ===== UNSUPPORTED NODES =====
+
+	private Object unsupported(ASTNode node) {
+		throw new EvaluationException("cannot evaluate " + node.getClass().getSimpleName());
+	}
+
+	@Override
+	public Object visitProgram(Program program) {
+		return unsupported(program);
+	}
+
+	@Override
+	public Object visitQualifiedIdentifier(QualifiedIdentifier expr) {
+		Double constant = "Math".equals(expr.getModuleName()) ? MathFunctions.constant(expr.getIdentifier()) : null;
+		return constant != null ? constant : unsupported(expr);
+	}
+
+	@Override
+	public Object visitArrayLiteralExpression(ArrayLiteralExpression expr) {
+		return unsupported(expr);
+	}
+
+	@Override
+	public Object visitArrayIndexExpression(ArrayIndexExpression expr) {
+		return unsupported(expr);
+	}
+
+	@Override
+	public Object visitAddressOfExpression(AddressOfExpression expr) {
+		return unsupported(expr);
+	}
+
+	@Override
+	public Object visitDereferenceExpression(DereferenceExpression expr) {
+		return unsupported(expr);
+	}
+
+	@Override
+	public Object visitRangeExpression(RangeExpression expr) {
+		return unsupported(expr);
+	}
+
+	@Override
+	public Object visitFieldAccessExpression(FieldAccessExpression expr) {
+		return unsupported(expr);
+	}
+
+	@Override
+	public Object visitFunctionDeclaration(FunctionDeclaration stmt) {
+		return unsupported(stmt);
+	}
+
+	@Override
+	public Object visitForInStatement(ForInStatement stmt) {
+		return unsupported(stmt);
+	}
+
+	@Override
+	public Object visitImportStatement(ImportStatement stmt) {
+		return unsupported(stmt);
+	}
+
+	@Override
+	public Object visitModuleDeclaration(ModuleDeclaration stmt) {
+		return unsupported(stmt);
+	}
+
+	@Override
+	public Object visitTypeAlias(TypeAlias stmt) {
+		return unsupported(stmt);
+	}
+
+	@Override
+	public Object visitStructDeclaration(StructDeclaration stmt) {
+		return unsupported(stmt);
+	}
+}
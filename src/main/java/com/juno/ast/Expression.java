@@ -1,5 +1,6 @@
 package com.juno.ast;
 
+import com.juno.types.JvmKind;
 import com.juno.types.Type;
 
 /**
@@ -19,4 +20,13 @@ public interface Expression extends ASTNode {
 	 * @param type the type to set
 	 */
 	void setType(Type type);
+
+	/**
+	 * Get how the value of this expression is held on the JVM stack, derived from the checked type.
+	 *
+	 * @return the kind of the checked type
+	 */
+	default JvmKind getJvmKind() {
+		return JvmKind.of(getType());
+	}
 }
\ No newline at end of file
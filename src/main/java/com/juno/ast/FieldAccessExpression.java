@@ -0,0 +1,53 @@
+package com.juno.ast;
+
+/**
+ * Represents a struct field access on an arbitrary expression (points[i].x, make().x).
+ * Accesses on a plain variable (p.x) are parsed as a {@link QualifiedIdentifier}.
+ */
+public class FieldAccessExpression implements Expression {
+	private final Expression object;
+	private final String fieldName;
+	private final int line;
+	private final int column;
+	private com.juno.types.Type type;
+
+	public FieldAccessExpression(Expression object, String fieldName, int line, int column) {
+		this.object = object;
+		this.fieldName = fieldName;
+		this.line = line;
+		this.column = column;
+	}
+
+	public Expression getObject() {
+		return object;
+	}
+
+	public String getFieldName() {
+		return fieldName;
+	}
+
+	@Override
+	public <T> T accept(ASTVisitor<T> visitor) {
+		return visitor.visitFieldAccessExpression(this);
+	}
+
+	@Override
+	public int line() {
+		return line;
+	}
+
+	@Override
+	public int column() {
+		return column;
+	}
+
+	@Override
+	public com.juno.types.Type getType() {
+		return type;
+	}
+
+	@Override
+	public void setType(com.juno.types.Type type) {
+		this.type = type;
+	}
+}
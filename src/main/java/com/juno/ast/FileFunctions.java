@@ -0,0 +1,82 @@
+package com.juno.ast;
+
+import com.juno.types.ArrayType;
+import com.juno.types.FutureType;
+import com.juno.types.LinesType;
+import com.juno.types.MappedViewType;
+import com.juno.types.PrimitiveType;
+import com.juno.types.SpecialTypes;
+import com.juno.types.Type;
+
+import java.util.List;
+
+/**
+ * Signatures of the functions of the File runtime module, {@code com.juno.runtime.File},
+ * that Juno code can call.
+ * <p>
+ * {@code File.lines(path)} is iterated by for-in loops, which read the file a line at a time.
+ * Binary files are read and written as {@code ubyte[]}, which is a JVM byte array. The map
+ * functions return typed views of a file region, {@code File.mapInts(path, offset, count, writable)},
+ * which are indexed like arrays. {@code File.readAsync(path)} and its siblings start an operation in
+ * the background and return a future; {@code File.await(future)} waits for its value.
+ */
+final class FileFunctions {
+
+	static final String CLASS_NAME = "com/juno/runtime/File";
+
+	private static final ArrayType BYTES = new ArrayType(PrimitiveType.UBYTE);
+	private static final FutureType ANY_FUTURE = new FutureType(null);
+	private static final List<Type> REGION = List.of(PrimitiveType.STRING, PrimitiveType.LONG, PrimitiveType.INT, PrimitiveType.BOOL);
+
+	private FileFunctions() {
+	}
+
+	/**
+	 * The Juno result type of a function, or null if File has no such function callable from Juno.
+	 */
+	static Type returnType(String function) {
+		return switch (function) {
+			case "lines" -> new LinesType();
+			case "readBytes" -> BYTES;
+			case "readInto" -> PrimitiveType.INT;
+			case "writeBytes" -> PrimitiveType.VOID;
+			case "copy" -> PrimitiveType.LONG;
+			case "mapBytes" -> new MappedViewType(PrimitiveType.BYTE);
+			case "mapInts" -> new MappedViewType(PrimitiveType.INT);
+			case "mapLongs" -> new MappedViewType(PrimitiveType.LONG);
+			case "mapDoubles" -> new MappedViewType(PrimitiveType.DOUBLE);
+			case "force" -> PrimitiveType.VOID;
+			case "readAsync" -> new FutureType(PrimitiveType.STRING);
+			case "readBytesAsync" -> new FutureType(BYTES);
+			case "writeAsync", "copyAsync" -> new FutureType(PrimitiveType.LONG);
+			case "isDone" -> PrimitiveType.BOOL;
+			// The value type of the future, which the type checker resolves
+			case "await" -> SpecialTypes.AnyType.INSTANCE;
+			default -> null;
+		};
+	}
+
+	static List<Type> parameterTypes(String function) {
+		return switch (function) {
+			case "lines", "readBytes", "readAsync", "readBytesAsync" -> List.of(PrimitiveType.STRING);
+			case "readInto" -> List.of(PrimitiveType.STRING, BYTES, PrimitiveType.INT);
+			case "writeBytes" -> List.of(PrimitiveType.STRING, BYTES);
+			case "copy", "writeAsync", "copyAsync" -> List.of(PrimitiveType.STRING, PrimitiveType.STRING);
+			case "mapBytes", "mapInts", "mapLongs", "mapDoubles" -> REGION;
+			case "force" -> List.of(new MappedViewType(null));
+			case "await", "isDone" -> List.of(ANY_FUTURE);
+			default -> List.of();
+		};
+	}
+
+	/**
+	 * The JVM descriptor of a function.
+	 */
+	static String descriptor(String function) {
+		StringBuilder descriptor = new StringBuilder("(");
+		for (Type parameter : parameterTypes(function)) {
+			descriptor.append(parameter.getJVMDescriptor());
+		}
+		return descriptor.append(')').append(returnType(function).getJVMDescriptor()).toString();
+	}
+}
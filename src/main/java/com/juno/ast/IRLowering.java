@@ -0,0 +1,739 @@
+package com.juno.ast;
+
+import com.juno.ir.BinaryInstruction;
+import com.juno.ir.BasicBlock;
+import com.juno.ir.CallInstruction;
+import com.juno.ir.CompareInstruction;
+import com.juno.ir.ConcatInstruction;
+import com.juno.ir.Constant;
+import com.juno.ir.ConvertInstruction;
+import com.juno.ir.Function;
+import com.juno.ir.IRBuilder;
+import com.juno.ir.IRLoweringException;
+import com.juno.ir.IRType;
+import com.juno.ir.LoadGlobalInstruction;
+import com.juno.ir.StoreGlobalInstruction;
+import com.juno.ir.UnaryInstruction;
+import com.juno.ir.Value;
+import com.juno.types.PrimitiveType;
+import com.juno.types.SpecialTypes;
+import com.juno.types.Type;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lowers type-checked functions to the SSA intermediate representation.
+ * <p>
+ * Local variables become SSA values through {@link IRBuilder}; globals are read and written as
+ * static fields of the program class. Every implicit conversion the code generator performs
+ * (initializers, assignments, arguments, return values) is made explicit, and arithmetic on
+ * byte, short and char is carried out in int, as the JVM does. Conditions of {@code if} and
+ * {@code while} are lowered to branches, so {@code &&} and {@code ||} short-circuit without
+ * materializing booleans.
+ * <p>
+ * Functions using constructs the IR does not model (arrays, pointers, unions, for-in loops)
+ * raise {@link IRLoweringException}; the code generator then compiles them from the AST.
+ */
+public class IRLowering implements ASTVisitor<Value> {
+
+	private static final String IO_CLASS = "com/juno/runtime/Io";
+
+	private final String className;
+	private final Map<String, FunctionDeclaration> functions;
+	private final Map<String, Type> globals;
+
+	private IRBuilder builder;
+	private IRType returnType;
+	private final Deque<Map<String, Variable>> scopes = new ArrayDeque<>();
+	private final Deque<Loop> loops = new ArrayDeque<>();
+
+	/**
+	 * A source variable; compared by identity, so shadowed variables get separate SSA names.
+	 */
+	private static final class Variable {
+		final String name;
+		final IRType type;
+
+		Variable(String name, IRType type) {
+			this.name = name;
+			this.type = type;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	private record Loop(BasicBlock continueTarget, BasicBlock breakTarget) {
+	}
+
+	/**
+	 * @param className the internal name of the class functions and globals belong to
+	 * @param functions the functions of the program by name, used to resolve calls
+	 * @param globals   the global variables by name
+	 */
+	public IRLowering(String className, Map<String, FunctionDeclaration> functions, Map<String, Type> globals) {
+		this.className = className;
+		this.functions = functions;
+		this.globals = globals;
+	}
+
+	/**
+	 * Lower one function. The result has no unreachable blocks.
+	 *
+	 * @throws IRLoweringException if the function uses a construct the IR does not support
+	 */
+	public Function lower(FunctionDeclaration funcDecl) {
+		returnType = irType(funcDecl.returnType());
+		List<IRType> parameterTypes = new ArrayList<>();
+		for (FunctionDeclaration.Parameter param : funcDecl.parameters()) {
+			parameterTypes.add(irType(param.type()));
+		}
+
+		Function function = new Function(funcDecl.name(), returnType, parameterTypes);
+		builder = new IRBuilder(function);
+		scopes.clear();
+		loops.clear();
+		scopes.push(new HashMap<>());
+		for (int i = 0; i < parameterTypes.size(); i++) {
+			Variable variable = declare(funcDecl.parameters().get(i).name(), parameterTypes.get(i));
+			builder.writeVariable(variable, function.getParameters().get(i));
+		}
+
+		if (funcDecl.body() != null) {
+			funcDecl.body().accept(this);
+		}
+
+		if (returnType == IRType.VOID) {
+			if (!builder.isTerminated()) {
+				builder.ret(null);
+			}
+			function.removeUnreachableBlocks();
+		}
+		else {
+			// Falling off the end is only allowed where control cannot get to
+			BasicBlock end = null;
+			if (!builder.isTerminated()) {
+				end = builder.getCurrentBlock();
+				builder.ret(Constant.zero(returnType));
+			}
+			function.removeUnreachableBlocks();
+			if (end != null && function.getBlocks().contains(end)) {
+				throw new IRLoweringException("Function " + funcDecl.name() + " can end without returning a value");
+			}
+		}
+		return function;
+	}
+
+	// ===== VARIABLES AND TYPES =====
+
+	private Variable declare(String name, IRType type) {
+		Variable variable = new Variable(name, type);
+		builder.declareVariable(variable, type);
+		scopes.peek().put(name, variable);
+		return variable;
+	}
+
+	private Variable lookup(String name) {
+		for (Map<String, Variable> scope : scopes) {
+			Variable variable = scope.get(name);
+			if (variable != null) {
+				return variable;
+			}
+		}
+		return null;
+	}
+
+	static IRType irType(Type type) {
+		if (type instanceof SpecialTypes.AutoType autoType && autoType.isInferred()) {
+			type = autoType.getInferredType();
+		}
+		if (!(type instanceof PrimitiveType)) {
+			throw new IRLoweringException("No IR type for " + (type != null ? type.name() : "untyped value"));
+		}
+		return switch (type.name()) {
+			case "void" -> IRType.VOID;
+			case "bool" -> IRType.BOOL;
+			case "byte" -> IRType.BYTE;
+			case "short" -> IRType.SHORT;
+			case "char" -> IRType.CHAR;
+			case "int" -> IRType.INT;
+			case "long" -> IRType.LONG;
+			case "float" -> IRType.FLOAT;
+			case "double" -> IRType.DOUBLE;
+			case "string" -> IRType.STRING;
+			default -> throw new IRLoweringException("No IR type for " + type.name());
+		};
+	}
+
+	/**
+	 * Convert a value to another type the way assignments and casts do.
+	 */
+	private Value convert(Value value, IRType type) {
+		IRType from = value.getType();
+		if (from == type) {
+			return value;
+		}
+		if (from == IRType.VOID || type == IRType.VOID || from == IRType.STRING) {
+			throw new IRLoweringException("Cannot convert " + from + " to " + type);
+		}
+		if (type == IRType.BOOL) {
+			return builder.append(new CompareInstruction(CompareInstruction.Operator.NE, value, Constant.zero(from)));
+		}
+		if (value instanceof Constant constant && type != IRType.STRING) {
+			return Constant.of(type, constant.getValue());
+		}
+		return builder.append(new ConvertInstruction(value, type));
+	}
+
+	// ===== STATEMENTS =====
+
+	@Override
+	public Value visitBlockStatement(BlockStatement block) {
+		scopes.push(new HashMap<>());
+		try {
+			for (Statement stmt : block.statements()) {
+				stmt.accept(this);
+			}
+		} finally {
+			scopes.pop();
+		}
+		return null;
+	}
+
+	@Override
+	public Value visitExpressionStatement(ExpressionStatement exprStmt) {
+		exprStmt.expression().accept(this);
+		return null;
+	}
+
+	@Override
+	public Value visitVariableDeclaration(VariableDeclaration varDecl) {
+		IRType type = irType(varDecl.getDeclaredType());
+		Value value = varDecl.initializer() != null
+				? convert(varDecl.initializer().accept(this), type)
+				: Constant.zero(type);
+		builder.writeVariable(declare(varDecl.name(), type), value);
+		return null;
+	}
+
+	@Override
+	public Value visitIfStatement(IfStatement ifStmt) {
+		BasicBlock thenBlock = builder.newBlock();
+		BasicBlock endBlock = builder.newBlock();
+		BasicBlock elseBlock = ifStmt.elseStmt() != null ? builder.newBlock() : endBlock;
+
+		lowerCondition(ifStmt.condition(), thenBlock, elseBlock);
+
+		builder.sealBlock(thenBlock);
+		builder.setCurrentBlock(thenBlock);
+		ifStmt.thenStmt().accept(this);
+		if (!builder.isTerminated()) {
+			builder.jump(endBlock);
+		}
+
+		if (ifStmt.elseStmt() != null) {
+			builder.sealBlock(elseBlock);
+			builder.setCurrentBlock(elseBlock);
+			ifStmt.elseStmt().accept(this);
+			if (!builder.isTerminated()) {
+				builder.jump(endBlock);
+			}
+		}
+
+		builder.sealBlock(endBlock);
+		builder.setCurrentBlock(endBlock);
+		return null;
+	}
+
+	@Override
+	public Value visitWhileStatement(WhileStatement whileStmt) {
+		BasicBlock header = builder.newBlock();
+		BasicBlock body = builder.newBlock();
+		BasicBlock exit = builder.newBlock();
+
+		builder.jump(header);
+		builder.setCurrentBlock(header);
+		lowerCondition(whileStmt.condition(), body, exit);
+
+		builder.sealBlock(body);
+		builder.setCurrentBlock(body);
+		loops.push(new Loop(header, exit));
+		whileStmt.body().accept(this);
+		loops.pop();
+		if (!builder.isTerminated()) {
+			builder.jump(header);
+		}
+
+		// All back edges and breaks are known now
+		builder.sealBlock(header);
+		builder.sealBlock(exit);
+		builder.setCurrentBlock(exit);
+		return null;
+	}
+
+	@Override
+	public Value visitBreakStatement(BreakStatement stmt) {
+		if (loops.isEmpty()) {
+			throw new IRLoweringException("break outside of a loop");
+		}
+		builder.jump(loops.peek().breakTarget());
+		return null;
+	}
+
+	@Override
+	public Value visitContinueStatement(ContinueStatement stmt) {
+		if (loops.isEmpty()) {
+			throw new IRLoweringException("continue outside of a loop");
+		}
+		builder.jump(loops.peek().continueTarget());
+		return null;
+	}
+
+	@Override
+	public Value visitReturnStatement(ReturnStatement returnStmt) {
+		if (returnStmt.value() != null) {
+			builder.ret(convert(returnStmt.value().accept(this), returnType));
+		}
+		else {
+			builder.ret(null);
+		}
+		return null;
+	}
+
+	/**
+	 * Branch to {@code ifTrue} or {@code ifFalse} depending on a condition, evaluating
+	 * {@code &&}, {@code ||} and {@code !} through control flow.
+	 */
+	private void lowerCondition(Expression condition, BasicBlock ifTrue, BasicBlock ifFalse) {
+		if (condition instanceof BinaryExpression binary
+				&& ("&&".equals(binary.getOperator()) || "||".equals(binary.getOperator()))) {
+			BasicBlock right = builder.newBlock();
+			if ("&&".equals(binary.getOperator())) {
+				lowerCondition(binary.getLeft(), right, ifFalse);
+			}
+			else {
+				lowerCondition(binary.getLeft(), ifTrue, right);
+			}
+			builder.sealBlock(right);
+			builder.setCurrentBlock(right);
+			lowerCondition(binary.getRight(), ifTrue, ifFalse);
+		}
+		else if (condition instanceof UnaryExpression unary && "!".equals(unary.getOperator())) {
+			lowerCondition(unary.getOperand(), ifFalse, ifTrue);
+		}
+		else {
+			builder.branch(convert(condition.accept(this), IRType.BOOL), ifTrue, ifFalse);
+		}
+	}
+
+	// ===== EXPRESSIONS =====
+
+	@Override
+	public Value visitLiteralExpression(LiteralExpression expr) {
+		Object value = expr.getValue();
+		IRType type;
+		if (expr.getType() != null) {
+			type = irType(expr.getType());
+		}
+		else if (value instanceof String) {
+			type = IRType.STRING;
+		}
+		else {
+			throw new IRLoweringException("Untyped literal " + value);
+		}
+		return Constant.of(type, value);
+	}
+
+	@Override
+	public Value visitIdentifierExpression(IdentifierExpression expr) {
+		Variable variable = lookup(expr.getName());
+		if (variable != null) {
+			return builder.readVariable(variable);
+		}
+		Type globalType = globals.get(expr.getName());
+		if (globalType != null) {
+			return builder.append(new LoadGlobalInstruction(irType(globalType), className, expr.getName()));
+		}
+		throw new IRLoweringException("Undefined variable: " + expr.getName());
+	}
+
+	@Override
+	public Value visitAssignmentExpression(AssignmentExpression expr) {
+		if (!(expr.getTarget() instanceof IdentifierExpression target)) {
+			throw new IRLoweringException("Only simple variable assignment supported");
+		}
+		Value value = expr.getValue().accept(this);
+
+		Variable variable = lookup(target.getName());
+		if (variable != null) {
+			Value converted = convert(value, variable.type);
+			builder.writeVariable(variable, converted);
+			return converted;
+		}
+		Type globalType = globals.get(target.getName());
+		if (globalType != null) {
+			Value converted = convert(value, irType(globalType));
+			builder.append(new StoreGlobalInstruction(className, target.getName(), converted));
+			return converted;
+		}
+		throw new IRLoweringException("Undefined variable: " + target.getName());
+	}
+
+	@Override
+	public Value visitBinaryExpression(BinaryExpression expr) {
+		String operator = expr.getOperator();
+		if ("&&".equals(operator) || "||".equals(operator)) {
+			return materializeCondition(expr);
+		}
+
+		Value left = expr.getLeft().accept(this);
+		Value right = expr.getRight().accept(this);
+
+		if ("^^".equals(operator)) {
+			return builder.append(new ConcatInstruction(convert(left, IRType.STRING), convert(right, IRType.STRING)));
+		}
+
+		IRType type = left.getType() == IRType.STRING || right.getType() == IRType.STRING
+				? IRType.STRING
+				: IRType.promote(left.getType(), right.getType());
+		left = convert(left, type);
+		right = convert(right, type);
+
+		BinaryInstruction.Operator arithmetic = switch (operator) {
+			case "+" -> BinaryInstruction.Operator.ADD;
+			case "-" -> BinaryInstruction.Operator.SUB;
+			case "*" -> BinaryInstruction.Operator.MUL;
+			case "/" -> BinaryInstruction.Operator.DIV;
+			case "%" -> BinaryInstruction.Operator.REM;
+			default -> null;
+		};
+		if (arithmetic != null) {
+			if (!type.isNumeric()) {
+				throw new IRLoweringException("Arithmetic on " + type);
+			}
+			return narrow(builder.append(new BinaryInstruction(arithmetic, left, right)), expr.getType());
+		}
+
+		CompareInstruction.Operator comparison = switch (operator) {
+			case "==" -> CompareInstruction.Operator.EQ;
+			case "!=" -> CompareInstruction.Operator.NE;
+			case "<" -> CompareInstruction.Operator.LT;
+			case "<=" -> CompareInstruction.Operator.LE;
+			case ">" -> CompareInstruction.Operator.GT;
+			case ">=" -> CompareInstruction.Operator.GE;
+			default -> throw new IRLoweringException("Unsupported binary operator: " + operator);
+		};
+		if (type == IRType.STRING && comparison != CompareInstruction.Operator.EQ
+				&& comparison != CompareInstruction.Operator.NE) {
+			throw new IRLoweringException("Ordering comparison on strings");
+		}
+		return builder.append(new CompareInstruction(comparison, left, right));
+	}
+
+	/**
+	 * Arithmetic is carried out in int, so bring a byte, short or char result back into range
+	 * the way the AST generator does.
+	 */
+	private Value narrow(Value value, Type type) {
+		if (PrimitiveType.BYTE.equals(type) || PrimitiveType.SHORT.equals(type) || PrimitiveType.CHAR.equals(type)) {
+			return convert(value, irType(type));
+		}
+		return value;
+	}
+
+	/**
+	 * A short-circuit operator used as a value: branch on it and merge true and false.
+	 */
+	private Value materializeCondition(Expression condition) {
+		Variable result = new Variable("$condition", IRType.BOOL);
+		builder.declareVariable(result, IRType.BOOL);
+		BasicBlock ifTrue = builder.newBlock();
+		BasicBlock ifFalse = builder.newBlock();
+		BasicBlock end = builder.newBlock();
+
+		lowerCondition(condition, ifTrue, ifFalse);
+		builder.sealBlock(ifTrue);
+		builder.setCurrentBlock(ifTrue);
+		builder.writeVariable(result, Constant.ofBool(true));
+		builder.jump(end);
+		builder.sealBlock(ifFalse);
+		builder.setCurrentBlock(ifFalse);
+		builder.writeVariable(result, Constant.ofBool(false));
+		builder.jump(end);
+
+		builder.sealBlock(end);
+		builder.setCurrentBlock(end);
+		return builder.readVariable(result);
+	}
+
+	@Override
+	public Value visitUnaryExpression(UnaryExpression expr) {
+		Value operand = expr.getOperand().accept(this);
+		return switch (expr.getOperator()) {
+			case "+" -> operand;
+			case "-" -> {
+				if (!operand.getType().isNumeric()) {
+					throw new IRLoweringException("Cannot negate " + operand.getType());
+				}
+				Value negated = builder.append(new UnaryInstruction(UnaryInstruction.Operator.NEG,
+						convert(operand, operand.getType().computational())));
+				yield narrow(negated, expr.getType());
+			}
+			case "!" -> builder.append(new UnaryInstruction(UnaryInstruction.Operator.NOT, convert(operand, IRType.BOOL)));
+			default -> throw new IRLoweringException("Unsupported unary operator: " + expr.getOperator());
+		};
+	}
+
+	@Override
+	public Value visitCastExpression(CastExpression expr) {
+		return convert(expr.getExpression().accept(this), irType(expr.getTargetType()));
+	}
+
+	@Override
+	public Value visitCallExpression(CallExpression expr) {
+		if (expr.getFunction() instanceof QualifiedIdentifier qualId && "Io".equals(qualId.getModuleName())) {
+			return lowerIoCall(qualId.getIdentifier(), expr.getArguments());
+		}
+		if (expr.getFunction() instanceof QualifiedIdentifier qualId && "Math".equals(qualId.getModuleName())) {
+			return lowerMathCall(qualId.getIdentifier(), expr.getArguments());
+		}
+		if (!(expr.getFunction() instanceof IdentifierExpression function)) {
+			throw new IRLoweringException("Unsupported call target");
+		}
+		FunctionDeclaration callee = functions.get(function.getName());
+		if (callee == null || callee.parameters().size() != expr.getArguments().size()) {
+			throw new IRLoweringException("Unknown function " + function.getName());
+		}
+
+		Value[] arguments = new Value[expr.getArguments().size()];
+		StringBuilder descriptor = new StringBuilder("(");
+		for (int i = 0; i < arguments.length; i++) {
+			IRType parameterType = irType(callee.parameters().get(i).type());
+			arguments[i] = convert(expr.getArguments().get(i).accept(this), parameterType);
+			descriptor.append(parameterType.descriptor());
+		}
+		IRType resultType = irType(callee.returnType());
+		descriptor.append(')').append(resultType.descriptor());
+		return builder.append(new CallInstruction(resultType, className, callee.name(), descriptor.toString(), arguments));
+	}
+
+	private Value lowerIoCall(String name, List<Expression> arguments) {
+		if (IoFunctions.isPrint(name) && arguments.size() == 1) {
+			Expression printed = IoFunctions.printedValue(arguments.get(0));
+			PrimitiveType parameterType = IoFunctions.parameterType(printed.getType());
+			Value value = convert(printed.accept(this), irType(parameterType));
+			return builder.append(new CallInstruction(IRType.VOID, IO_CLASS, name, IoFunctions.printDescriptor(parameterType), value));
+		}
+		if (IoFunctions.returnType(name) == null) {
+			throw new IRLoweringException("Unknown Io function: " + name);
+		}
+		List<PrimitiveType> parameterTypes = IoFunctions.parameterTypes(name);
+		if (arguments.size() != parameterTypes.size()) {
+			throw new IRLoweringException("Io." + name + " takes " + parameterTypes.size() + " arguments");
+		}
+		Value[] values = new Value[arguments.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = convert(arguments.get(i).accept(this), irType(parameterTypes.get(i)));
+		}
+		return builder.append(new CallInstruction(irType(IoFunctions.returnType(name)), IO_CLASS, name, IoFunctions.descriptor(name), values));
+	}
+
+	private Value lowerMathCall(String name, List<Expression> arguments) {
+		PrimitiveType overload = MathFunctions.arity(name) == arguments.size()
+				? MathFunctions.overload(name, arguments.stream().map(Expression::getType).toList())
+				: null;
+		if (overload == null) {
+			throw new IRLoweringException("No overload of Math." + name);
+		}
+		Value[] values = new Value[arguments.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = convert(arguments.get(i).accept(this), irType(overload));
+		}
+		// round of an integer is the integer itself, fma of integers is a * b + c
+		if (MathFunctions.isInline(name, overload)) {
+			if ("round".equals(name)) {
+				return values[0];
+			}
+			Value product = builder.append(new BinaryInstruction(BinaryInstruction.Operator.MUL, values[0], values[1]));
+			return builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD, product, values[2]));
+		}
+		return builder.append(new CallInstruction(irType(MathFunctions.returnType(name, overload)), MathFunctions.CLASS_NAME,
+				name, MathFunctions.descriptor(name, overload), values));
+	}
+
+	// ===== UNSUPPORTED NODES =====
+
+	private Value unsupported(ASTNode node) {
+		throw new IRLoweringException("Cannot lower " + node.getClass().getSimpleName() + " to IR");
+	}
+
+	@Override
+	public Value visitProgram(Program program) {
+		return unsupported(program);
+	}
+
+	@Override
+	public Value visitQualifiedIdentifier(QualifiedIdentifier expr) {
+		Double constant = "Math".equals(expr.getModuleName()) ? MathFunctions.constant(expr.getIdentifier()) : null;
+		if (constant != null) {
+			return Constant.of(IRType.DOUBLE, constant);
+		}
+		return unsupported(expr);
+	}
+
+	@Override
+	public Value visitArrayLiteralExpression(ArrayLiteralExpression expr) {
+		return unsupported(expr);
+	}
+
+	@Override
+	public Value visitArrayIndexExpression(ArrayIndexExpression expr) {
+		return unsupported(expr);
+	}
+
+	@Override
+	public Value visitAddressOfExpression(AddressOfExpression expr) {
+		return unsupported(expr);
+	}
+
+	@Override
+	public Value visitDereferenceExpression(DereferenceExpression expr) {
+		return unsupported(expr);
+	}
+
+	@Override
+	public Value visitRangeExpression(RangeExpression expr) {
+		// Ranges only exist as the iterable of a for-in loop
+		return unsupported(expr);
+	}
+
+	@Override
+	public Value visitFieldAccessExpression(FieldAccessExpression expr) {
+		return unsupported(expr);
+	}
+
+	@Override
+	public Value visitFunctionDeclaration(FunctionDeclaration stmt) {
+		return unsupported(stmt);
+	}
+
+	/**
+	 * Only loops over ranges are lowered: the bounds and step are evaluated once before the loop and
+	 * the loop variable is the counter, advanced in a latch block that {@code continue} jumps to.
+	 */
+	@Override
+	public Value visitForInStatement(ForInStatement stmt) {
+		if (!(stmt.iterable() instanceof RangeExpression range) || range.getConstantStep() == null) {
+			// The direction of a non-constant step is left to the AST generator
+			return unsupported(stmt);
+		}
+		long constantStep = range.getConstantStep();
+		IRType type = irType(stmt.variableType());
+		scopes.push(new HashMap<>());
+		try {
+			if (stmt.initializer() != null) {
+				stmt.initializer().accept(this);
+			}
+			Value start = convert(range.getStart().accept(this), type);
+			Value end = convert(range.getEnd().accept(this), type);
+			Value step = range.getStep() != null ? convert(range.getStep().accept(this), type) : Constant.of(type, 1);
+			Variable counter = declare(stmt.variableName(), type);
+			builder.writeVariable(counter, start);
+
+			BasicBlock header = builder.newBlock();
+			BasicBlock body = builder.newBlock();
+			BasicBlock latch = builder.newBlock();
+			BasicBlock exit = builder.newBlock();
+
+			builder.jump(header);
+			builder.setCurrentBlock(header);
+			CompareInstruction.Operator operator;
+			if (range.isDescending()) {
+				operator = range.isInclusive() ? CompareInstruction.Operator.GE : CompareInstruction.Operator.GT;
+			}
+			else {
+				operator = range.isInclusive() ? CompareInstruction.Operator.LE : CompareInstruction.Operator.LT;
+			}
+			builder.branch(builder.append(new CompareInstruction(operator, builder.readVariable(counter), end)), body, exit);
+
+			builder.sealBlock(body);
+			builder.setCurrentBlock(body);
+			loops.push(new Loop(latch, exit));
+			stmt.body().accept(this);
+			loops.pop();
+			if (!builder.isTerminated()) {
+				builder.jump(latch);
+			}
+
+			builder.sealBlock(latch);
+			builder.setCurrentBlock(latch);
+			if (range.isInclusive() || Math.abs(constantStep) != 1) {
+				BasicBlock advance = builder.newBlock();
+				builder.branch(lowerRangeStepGuard(range, type, builder.readVariable(counter), end, constantStep), exit, advance);
+				builder.sealBlock(advance);
+				builder.setCurrentBlock(advance);
+			}
+			Value next = builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD, builder.readVariable(counter), step));
+			builder.writeVariable(counter, next);
+			builder.jump(header);
+
+			builder.sealBlock(header);
+			builder.sealBlock(exit);
+			builder.setCurrentBlock(exit);
+		} finally {
+			scopes.pop();
+		}
+		return null;
+	}
+
+	/**
+	 * True if the counter may not take another step without going past the end of the range.
+	 * Stepping past the end of an exclusive range by one cannot overflow; any other step compares
+	 * the distance left to the end, unsigned, with the step, so the counter never wraps around.
+	 */
+	private Value lowerRangeStepGuard(RangeExpression range, IRType type, Value counter, Value end, long step) {
+		if (range.isInclusive() && Math.abs(step) == 1) {
+			return builder.append(new CompareInstruction(CompareInstruction.Operator.EQ, counter, end));
+		}
+		// Smaller counters are compared as ints
+		IRType wide = type == IRType.LONG ? IRType.LONG : IRType.INT;
+		counter = convert(counter, wide);
+		end = convert(end, wide);
+		Value distance = step < 0
+				? builder.append(new BinaryInstruction(BinaryInstruction.Operator.SUB, counter, end))
+				: builder.append(new BinaryInstruction(BinaryInstruction.Operator.SUB, end, counter));
+		// Adding the sign bit to both sides turns the unsigned comparison into a signed one
+		long signBit = wide == IRType.LONG ? Long.MIN_VALUE : Integer.MIN_VALUE;
+		Value flipped = builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD, distance, Constant.of(wide, signBit)));
+		Value limit = Constant.of(wide, Math.abs(step) + signBit);
+		CompareInstruction.Operator operator = range.isInclusive() ? CompareInstruction.Operator.LT : CompareInstruction.Operator.LE;
+		return builder.append(new CompareInstruction(operator, flipped, limit));
+	}
+
+	@Override
+	public Value visitImportStatement(ImportStatement stmt) {
+		return unsupported(stmt);
+	}
+
+	@Override
+	public Value visitModuleDeclaration(ModuleDeclaration stmt) {
+		return unsupported(stmt);
+	}
+
+	@Override
+	public Value visitTypeAlias(TypeAlias stmt) {
+		return unsupported(stmt);
+	}
+
+	@Override
+	public Value visitStructDeclaration(StructDeclaration stmt) {
+		return unsupported(stmt);
+	}
+}
@@ -0,0 +1,103 @@
+package com.juno.ast;
+
+import com.juno.types.PrimitiveType;
+import com.juno.types.SpecialTypes;
+import com.juno.types.Type;
+
+import java.util.List;
+
+/**
+ * Signatures of the functions of the Io runtime module, {@code com.juno.runtime.Io}.
+ * <p>
+ * {@code Io.print} and {@code Io.println} have an overload per kind of primitive value, which
+ * formats the value straight into the output buffer, so printing a number allocates no string.
+ * The scan functions parse numbers straight from the input buffer.
+ */
+final class IoFunctions {
+
+	private IoFunctions() {
+	}
+
+	/**
+	 * The Juno result type of a function, or null if Io has no such function.
+	 */
+	static Type returnType(String function) {
+		return switch (function) {
+			case "print", "println", "report", "flush" -> PrimitiveType.VOID;
+			case "scan", "scanToken" -> PrimitiveType.STRING;
+			case "scanInt" -> PrimitiveType.INT;
+			case "scanLong" -> PrimitiveType.LONG;
+			case "scanDouble" -> PrimitiveType.DOUBLE;
+			default -> null;
+		};
+	}
+
+	/**
+	 * The parameter types of a function. For print and println, this is the string overload.
+	 */
+	static List<PrimitiveType> parameterTypes(String function) {
+		return switch (function) {
+			case "print", "println", "report" -> List.of(PrimitiveType.STRING);
+			default -> List.of();
+		};
+	}
+
+	/**
+	 * The JVM descriptor of a function. For print and println, this is the string overload.
+	 */
+	static String descriptor(String function) {
+		StringBuilder descriptor = new StringBuilder("(");
+		for (PrimitiveType parameter : parameterTypes(function)) {
+			descriptor.append(parameter.getJVMDescriptor());
+		}
+		return descriptor.append(')').append(returnType(function).getJVMDescriptor()).toString();
+	}
+
+	/**
+	 * Whether the function is print or println, which are overloaded on the printed type.
+	 */
+	static boolean isPrint(String function) {
+		return "print".equals(function) || "println".equals(function);
+	}
+
+	/**
+	 * The value that is printed for an argument of print or println. {@code string<x>} of a
+	 * primitive prints the same text as x itself, so x is passed to its typed overload instead.
+	 */
+	static Expression printedValue(Expression argument) {
+		if (argument instanceof CastExpression cast && PrimitiveType.STRING.equals(cast.getTargetType())
+				&& parameterType(cast.getExpression().getType()) != PrimitiveType.STRING) {
+			return cast.getExpression();
+		}
+		return argument;
+	}
+
+	/**
+	 * The parameter type of the print overload for a value of a checked type. Small integers
+	 * are printed as ints and uint as a long; ulong and everything else is printed as a string.
+	 */
+	static PrimitiveType parameterType(Type type) {
+		if (type instanceof SpecialTypes.AutoType autoType && autoType.isInferred()) {
+			type = autoType.getInferredType();
+		}
+		if (!(type instanceof PrimitiveType)) {
+			return PrimitiveType.STRING;
+		}
+		return switch (type.name()) {
+			case "byte", "short", "ubyte", "ushort", "int" -> PrimitiveType.INT;
+			case "uint", "long" -> PrimitiveType.LONG;
+			case "float" -> PrimitiveType.FLOAT;
+			case "double" -> PrimitiveType.DOUBLE;
+			case "bool" -> PrimitiveType.BOOL;
+			case "char" -> PrimitiveType.CHAR;
+			default -> PrimitiveType.STRING;
+		};
+	}
+
+	/**
+	 * The JVM descriptor of the print overload taking a parameter type.
+	 */
+	static String printDescriptor(PrimitiveType parameterType) {
+		return "(" + parameterType.getJVMDescriptor() + ")V";
+	}
+}
@@ -0,0 +1,135 @@
+package com.juno.ast;
+
+import com.juno.types.PrimitiveType;
+import com.juno.types.SpecialTypes;
+import com.juno.types.Type;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Signatures of the Math module, which is compiled to direct calls of {@code java.lang.Math},
+ * so HotSpot replaces the calls it has intrinsics for (sqrt, abs, min, max, fma, ...) with
+ * single instructions.
+ * <p>
+ * abs, min and max have an overload per kind of number, chosen from the widest argument the
+ * way Java chooses them, so {@code Math.max(i, j)} of ints neither converts to double nor
+ * returns one. fma and round have a float and a double overload in java.lang.Math, which int and
+ * long arguments would lose precision in, so they get int and long overloads that are compiled
+ * inline instead: round of an integer is the integer itself, and fma of integers is the exact
+ * {@code a * b + c} in their own type. floorMod and floorDiv have an int and a long overload;
+ * the other functions take doubles.
+ * {@code Math.PI} and {@code Math.E} are constants.
+ */
+final class MathFunctions {
+
+	static final String CLASS_NAME = "java/lang/Math";
+
+	private MathFunctions() {
+	}
+
+	/**
+	 * The value of a Math constant, or null if there is no such constant.
+	 */
+	static Double constant(String name) {
+		return switch (name) {
+			case "PI" -> Math.PI;
+			case "E" -> Math.E;
+			default -> null;
+		};
+	}
+
+	/**
+	 * Number of arguments of a function, or -1 if Math has no such function.
+	 */
+	static int arity(String function) {
+		return switch (function) {
+			case "sqrt", "cbrt", "sin", "cos", "tan", "asin", "acos", "atan", "exp", "log", "log10",
+					"floor", "ceil", "round", "abs" -> 1;
+			case "pow", "atan2", "hypot", "min", "max", "floorMod", "floorDiv" -> 2;
+			case "fma" -> 3;
+			default -> -1;
+		};
+	}
+
+	/**
+	 * The kind of number (int, long, float or double) of the overload a call with arguments of
+	 * the given types resolves to, or null if there is none. All parameters of an overload are
+	 * of its kind.
+	 */
+	static PrimitiveType overload(String function, List<Type> argumentTypes) {
+		PrimitiveType widest = PrimitiveType.INT;
+		for (Type argumentType : argumentTypes) {
+			PrimitiveType kind = kind(argumentType);
+			if (kind == null) {
+				return null;
+			}
+			if (rank(kind) > rank(widest)) {
+				widest = kind;
+			}
+		}
+		return switch (function) {
+			case "abs", "min", "max", "fma", "round" -> widest;
+			case "floorMod", "floorDiv" -> rank(widest) <= rank(PrimitiveType.LONG) ? widest : null;
+			default -> PrimitiveType.DOUBLE;
+		};
+	}
+
+	/**
+	 * The result type of an overload.
+	 */
+	static PrimitiveType returnType(String function, PrimitiveType overload) {
+		if ("round".equals(function) && !isInline(function, overload)) {
+			return overload == PrimitiveType.FLOAT ? PrimitiveType.INT : PrimitiveType.LONG;
+		}
+		return overload;
+	}
+
+	/**
+	 * Whether an overload is compiled inline rather than called: the int and long overloads of
+	 * round and fma, which java.lang.Math does not have.
+	 */
+	static boolean isInline(String function, PrimitiveType overload) {
+		return ("round".equals(function) || "fma".equals(function))
+				&& (overload == PrimitiveType.INT || overload == PrimitiveType.LONG);
+	}
+
+	static List<PrimitiveType> parameterTypes(String function, PrimitiveType overload) {
+		return Collections.nCopies(arity(function), overload);
+	}
+
+	/**
+	 * The JVM descriptor of an overload.
+	 */
+	static String descriptor(String function, PrimitiveType overload) {
+		StringBuilder descriptor = new StringBuilder("(");
+		for (PrimitiveType parameter : parameterTypes(function, overload)) {
+			descriptor.append(parameter.getJVMDescriptor());
+		}
+		return descriptor.append(')').append(returnType(function, overload).getJVMDescriptor()).toString();
+	}
+
+	/**
+	 * The kind of number a value of a checked type is passed as. Small integers are ints and
+	 * uint is a long; ulong has no signed kind that holds it, so it has no overload.
+	 */
+	private static PrimitiveType kind(Type type) {
+		if (type instanceof SpecialTypes.AutoType autoType && autoType.isInferred()) {
+			type = autoType.getInferredType();
+		}
+		if (!(type instanceof PrimitiveType)) {
+			return null;
+		}
+		return switch (type.name()) {
+			case "byte", "short", "char", "ubyte", "ushort", "int" -> PrimitiveType.INT;
+			case "uint", "long" -> PrimitiveType.LONG;
+			case "float" -> PrimitiveType.FLOAT;
+			case "double" -> PrimitiveType.DOUBLE;
+			default -> null;
+		};
+	}
+
+	private static int rank(PrimitiveType kind) {
+		return List.of(PrimitiveType.INT, PrimitiveType.LONG, PrimitiveType.FLOAT, PrimitiveType.DOUBLE).indexOf(kind);
+	}
+}
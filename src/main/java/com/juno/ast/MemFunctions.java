@@ -0,0 +1,100 @@
+package com.juno.ast;
+
+import com.juno.types.PointerType;
+import com.juno.types.PrimitiveType;
+import com.juno.types.Type;
+
+import java.util.List;
+
+/**
+ * Signatures of the functions of the Mem runtime module, {@code com.juno.runtime.Mem}.
+ * <p>
+ * Addresses are ints. The typed allocators ({@code Mem.allocInt(n)}, ...) are typed as
+ * pointers, so the memory they return is used with {@code *p} and pointer arithmetic;
+ * {@code Mem.address(p)} turns such a pointer back into an address.
+ */
+final class MemFunctions {
+
+	static final String CLASS_NAME = "com/juno/runtime/Mem";
+
+	private static final List<PrimitiveType> VALUE_TYPES = List.of(
+			PrimitiveType.BYTE, PrimitiveType.SHORT, PrimitiveType.CHAR, PrimitiveType.INT,
+			PrimitiveType.LONG, PrimitiveType.FLOAT, PrimitiveType.DOUBLE, PrimitiveType.BOOL);
+
+	private MemFunctions() {
+	}
+
+	/**
+	 * The value type of a typed function (getInt, putInt, allocInt, ...), or null.
+	 */
+	static PrimitiveType valueType(String function) {
+		for (String prefix : List.of("get", "put", "alloc")) {
+			if (function.startsWith(prefix)) {
+				String suffix = function.substring(prefix.length());
+				for (PrimitiveType type : VALUE_TYPES) {
+					if (suffix.equalsIgnoreCase(type.name()) && Character.isUpperCase(suffix.charAt(0))) {
+						return type;
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Whether the function allocates memory typed as a pointer.
+	 */
+	static boolean isTypedAllocation(String function) {
+		return function.startsWith("alloc") && valueType(function) != null;
+	}
+
+	/**
+	 * The Juno result type of a function, or null if Mem has no such function.
+	 */
+	static Type returnType(String function) {
+		if (isTypedAllocation(function)) {
+			return new PointerType(valueType(function));
+		}
+		if (function.startsWith("get") && valueType(function) != null) {
+			return valueType(function);
+		}
+		if (function.startsWith("put") && valueType(function) != null) {
+			return PrimitiveType.VOID;
+		}
+		return switch (function) {
+			case "alloc", "mark", "used", "address" -> PrimitiveType.INT;
+			case "release", "reset", "copy", "fill" -> PrimitiveType.VOID;
+			default -> null;
+		};
+	}
+
+	/**
+	 * The parameter types of a runtime function. Mem.address has none: it is compiled inline.
+	 */
+	static List<PrimitiveType> parameterTypes(String function) {
+		if (function.startsWith("put") && valueType(function) != null) {
+			return List.of(PrimitiveType.INT, valueType(function));
+		}
+		if (function.startsWith("get") || function.startsWith("alloc")) {
+			return List.of(PrimitiveType.INT);
+		}
+		return switch (function) {
+			case "release" -> List.of(PrimitiveType.INT);
+			case "copy", "fill" -> List.of(PrimitiveType.INT, PrimitiveType.INT, PrimitiveType.INT);
+			default -> List.of();
+		};
+	}
+
+	/**
+	 * The JVM descriptor of a runtime function. Pointers into the arena are int addresses.
+	 */
+	static String descriptor(String function) {
+		StringBuilder descriptor = new StringBuilder("(");
+		for (PrimitiveType parameter : parameterTypes(function)) {
+			descriptor.append(parameter.getJVMDescriptor());
+		}
+		Type result = returnType(function);
+		descriptor.append(')').append(result instanceof PointerType ? "I" : result.getJVMDescriptor());
+		return descriptor.toString();
+	}
+}
@@ -0,0 +1,29 @@
+package com.juno.ast;
+
+/**
+ * Runs the AST-level optimization passes on a type-checked program, before code generation.
+ * Every pass returns a new tree and leaves the nodes it does not touch shared with the input.
+ */
+public class Optimizer {
+
+	private int foldedCalls = 0;
+
+	public Program optimize(Program program) {
+		PureFunctionFolder folder = new PureFunctionFolder(program);
+		program = folder.transform(program);
+		foldedCalls = folder.getFoldedCalls();
+
+		return program;
+	}
+
+	public int getFoldedCalls() {
+		return foldedCalls;
+	}
+
+	/**
+	 * One-line summary of what the passes changed, for verbose compiler output.
+	 */
+	public String summary() {
+		return "Folded " + foldedCalls + " constant call" + (foldedCalls == 1 ? "" : "s");
+	}
+}
@@ -15,9 +15,12 @@ import com.juno.types.OptionalType;
 import com.juno.types.UnionType;
 import com.juno.types.SpecialTypes;
 import com.juno.types.PointerType;
+import com.juno.types.StructType;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Recursive descent parser for the C-like language with sophisticated error reporting.
@@ -27,6 +30,7 @@ public class Parser {
 	private final String sourceFile;
 	private final String[] sourceLines;
 	private final ErrorCollector errorCollector;
+	private final Set<String> structNames = new HashSet<>();
 	private int current = 0;
 
 	public Parser(List<Token> tokens, String sourceFile, String[] sourceLines, ErrorCollector errorCollector) {
@@ -34,6 +38,13 @@ public class Parser {
 		this.sourceFile = sourceFile;
 		this.sourceLines = sourceLines;
 		this.errorCollector = errorCollector;
+
+		// Struct names are type names everywhere in the file, including before their declaration
+		for (int i = 0; i + 1 < tokens.size(); i++) {
+			if (tokens.get(i).getType() == TokenType.STRUCT && tokens.get(i + 1).getType() == TokenType.IDENTIFIER) {
+				structNames.add(tokens.get(i + 1).getLexeme());
+			}
+		}
 	}
 
 	public Program parseProgram() {
@@ -83,11 +94,14 @@ public class Parser {
 
 		// Handle struct declarations
 		if (match(TokenType.STRUCT)) {
-			return parseStructDeclaration(false);
+			return parseStructDeclaration(false, false);
+		}
+		if (matchStructOfArrays()) {
+			return parseStructDeclaration(false, true);
 		}
 
-		// Handle type declarations (functions or variables) including optional, auto, any
-		if (isTypeOrSpecialToken(peek().getType())) {
+		// Handle type declarations (functions or variables) including optional, auto, any and structs
+		if (isTypeOrSpecialToken(peek().getType()) || isStructDeclarationStart()) {
 			if (checkFunctionDecl()) {
 				return parseFunctionDeclaration(false);
 			}
@@ -364,6 +378,10 @@ public class Parser {
 			else if (match(TokenType.LEFT_BRACKET)) {
 				expr = finishArrayIndex(expr);
 			}
+			else if (match(TokenType.DOT)) {
+				Token fieldToken = consume(TokenType.IDENTIFIER, "Expected field name after '.'.");
+				expr = new FieldAccessExpression(expr, fieldToken.getLexeme(), fieldToken.getLine(), fieldToken.getColumn());
+			}
 			else {
 				break;
 			}
@@ -544,10 +562,13 @@ public class Parser {
 
 	private Statement parsePublicDeclaration() throws CompilerError {
 		if (match(TokenType.STRUCT)) {
-			return parseStructDeclaration(true);
+			return parseStructDeclaration(true, false);
+		}
+		if (matchStructOfArrays()) {
+			return parseStructDeclaration(true, true);
 		}
 
-		if (isTypeToken(peek().getType())) {
+		if (isTypeToken(peek().getType()) || isStructName(peek())) {
 			if (checkFunctionDecl()) {
 				return parseFunctionDeclaration(true);
 			}
@@ -562,6 +583,9 @@ public class Parser {
 	private FunctionDeclaration parseFunctionDeclaration(boolean isPublic) throws CompilerError {
 		Token typeToken = consumeType("Expected return type.");
 		Type returnType = getTypeFromToken(typeToken);
+		while (match(TokenType.MULTIPLY)) {
+			returnType = new PointerType(returnType);
+		}
 
 		Token nameToken = consume(TokenType.IDENTIFIER, "Expected function name.");
 		String name = nameToken.getLexeme();
@@ -579,6 +603,9 @@ public class Parser {
 					consume(TokenType.RIGHT_BRACKET, "Expected ']' after '[' in array type.");
 					paramType = new ArrayType(paramType);
 				}
+				while (match(TokenType.MULTIPLY)) {
+					paramType = new PointerType(paramType);
+				}
 
 				Token paramNameToken = consume(TokenType.IDENTIFIER, "Expected parameter name.");
 				String paramName = paramNameToken.getLexeme();
@@ -620,7 +647,7 @@ public class Parser {
 	private Statement parseForStatement() throws CompilerError {
 		Token forToken = previous();
 
-		// Parse: for type name = initializer in iterable { body }
+		// Parse: for type name = initializer in iterable { body }, where iterable is an array or a range
 		Token typeToken = consumeType("Expected type in for-in loop.");
 		Type variableType = getTypeFromToken(typeToken);
 
@@ -635,6 +662,19 @@ public class Parser {
 		consume(TokenType.IN, "Expected 'in' in for-in loop.");
 		Expression iterable = parseExpression();
 
+		// Parse: start..end, start..=end, optionally followed by step expression
+		if (match(TokenType.RANGE, TokenType.RANGE_INCLUSIVE)) {
+			Token rangeToken = previous();
+			Expression end = parseExpression();
+			Expression step = null;
+			if (check(TokenType.IDENTIFIER) && peek().getLexeme().equals("step")) {
+				advance();
+				step = parseExpression();
+			}
+			iterable = new RangeExpression(iterable, end, step, rangeToken.getType() == TokenType.RANGE_INCLUSIVE,
+																		 rangeToken.getLine(), rangeToken.getColumn());
+		}
+
 		Statement body = parseStatement();
 
 		return new ForInStatement(variableType, variableName, initializer, iterable, body,
@@ -677,7 +717,20 @@ public class Parser {
 		return new TypeAlias(aliasName, aliasedType, typeToken.getLine(), typeToken.getColumn());
 	}
 
-	private StructDeclaration parseStructDeclaration(boolean isPublic) throws CompilerError {
+	/**
+	 * Match the contextual {@code soa} modifier together with the {@code struct} keyword after it.
+	 */
+	private boolean matchStructOfArrays() {
+		if (check(TokenType.IDENTIFIER) && peek().getLexeme().equals("soa")
+				&& current + 1 < tokens.size() && tokens.get(current + 1).getType() == TokenType.STRUCT) {
+			advance();
+			advance();
+			return true;
+		}
+		return false;
+	}
+
+	private StructDeclaration parseStructDeclaration(boolean isPublic, boolean structOfArrays) throws CompilerError {
 		Token structToken = previous();
 		Token nameToken = consume(TokenType.IDENTIFIER, "Expected struct name.");
 		String structName = nameToken.getLexeme();
@@ -696,7 +749,7 @@ public class Parser {
 		}
 
 		consume(TokenType.RIGHT_BRACE, "Expected '}' after struct fields.");
-		return new StructDeclaration(structName, fields, isPublic, structToken.getLine(), structToken.getColumn());
+		return new StructDeclaration(structName, fields, isPublic, structOfArrays, structToken.getLine(), structToken.getColumn());
 	}
 
 	private Type parseUnionType() throws CompilerError {
@@ -730,7 +783,7 @@ public class Parser {
 			return SpecialTypes.AnyType.INSTANCE;
 		}
 
-		if (isTypeToken(peek().getType())) {
+		if (isTypeToken(peek().getType()) || isStructName(peek())) {
 			Token typeToken = advance();
 			Type baseType = getTypeFromToken(typeToken);
 
@@ -843,8 +896,24 @@ public class Parser {
 		return isTypeToken(type) || type == TokenType.OPTIONAL || type == TokenType.AUTO || type == TokenType.ANY;
 	}
 
+	private boolean isStructName(Token token) {
+		return token.getType() == TokenType.IDENTIFIER && structNames.contains(token.getLexeme());
+	}
+
+	/**
+	 * Check for a declaration with a struct type (Point p, Point[] points, Point make()),
+	 * as opposed to an expression that starts with a struct name such as Point(1, 2).
+	 */
+	private boolean isStructDeclarationStart() {
+		if (!isStructName(peek()) || current + 1 >= tokens.size()) {
+			return false;
+		}
+		TokenType next = tokens.get(current + 1).getType();
+		return next == TokenType.IDENTIFIER || next == TokenType.LEFT_BRACKET;
+	}
+
 	private Token consumeType(String message) throws CompilerError {
-		if (isTypeToken(peek().getType())) {
+		if (isTypeToken(peek().getType()) || isStructName(peek())) {
 			return advance();
 		}
 		throw error(ErrorCode.BAD_SYNTAX, peek(), message);
@@ -880,6 +949,8 @@ public class Parser {
 				return PrimitiveType.UINT;
 			case ULONG:
 				return PrimitiveType.ULONG;
+			case IDENTIFIER:
+				return new StructType(token.getLexeme());
 			default:
 				throw new RuntimeException("Invalid type token: " + token.getType());
 		}
@@ -987,8 +1058,8 @@ public class Parser {
 				}
 				break;
 			}
-			else if (isTypeOrSpecialToken(tokenType) || tokenType == TokenType.BITWISE_OR) {
-				// Skip type tokens and union separators
+			else if (isTypeOrSpecialToken(tokenType) || tokenType == TokenType.BITWISE_OR || tokenType == TokenType.MULTIPLY) {
+				// Skip type tokens, union separators and pointer stars
 				ahead++;
 			}
 			else {
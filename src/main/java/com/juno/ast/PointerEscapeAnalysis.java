@@ -0,0 +1,294 @@
+package com.juno.ast;
+
+import com.juno.types.PointerType;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Decides, for one function, how the variables whose address is taken are stored.
+ * <p>
+ * A pointer local initialized with {@code &x}, never assigned again and only ever dereferenced
+ * is an alias: {@code *p} is compiled as a direct access to {@code x}'s slot, and {@code p} holds
+ * nothing at run time. {@code *&x} is compiled the same way. Every other {@code &x} lets the
+ * address escape (into a call, a return, another pointer variable, ...), so {@code x} is promoted
+ * to a heap cell for its whole lifetime, and the pointer is a reference to that cell.
+ * <p>
+ * Pointer locals that hold {@code &a[i]}, or arithmetic on such a pointer, are array pointers:
+ * they are kept as an array reference and an index in two local slots, and only boxed into an
+ * element cell where they escape.
+ * Pointer locals that hold memory from {@code Mem.allocInt(n)} and friends are memory pointers,
+ * kept as an int address into the Mem arena.
+ * <p>
+ * Variables are identified by their declaration (a {@link VariableDeclaration}, a
+ * {@link FunctionDeclaration.Parameter} or a {@link ForInStatement}), so shadowed names are told apart.
+ */
+class PointerEscapeAnalysis extends ASTScanner {
+
+	static final PointerEscapeAnalysis NONE = new PointerEscapeAnalysis();
+
+	private final Deque<Map<String, Object>> scopes = new ArrayDeque<>();
+	private final Set<Object> cells = identitySet();
+	private final Map<VariableDeclaration, Object> aliasCandidates = new IdentityHashMap<>();
+	private final Set<Object> reassigned = identitySet();
+	private final Set<Object> usedAsValue = identitySet();
+	private final Set<VariableDeclaration> aliases = identitySet();
+	private final Map<AddressOfExpression, Object> addressedPointers = new LinkedHashMap<>();
+
+	// What each pointer local is assigned: the kind of a pointer made here, or the declaration it is copied from
+	private final Map<Object, List<Object>> pointerSources = new IdentityHashMap<>();
+	private final Map<Object, Set<Kind>> pointerKinds = new IdentityHashMap<>();
+
+	private enum Kind { ARRAY, MEMORY, CELL }
+
+	private PointerEscapeAnalysis() {
+	}
+
+	static PointerEscapeAnalysis analyze(FunctionDeclaration funcDecl) {
+		PointerEscapeAnalysis analysis = new PointerEscapeAnalysis();
+		analysis.scopes.push(new HashMap<>());
+		for (FunctionDeclaration.Parameter param : funcDecl.parameters()) {
+			analysis.scopes.peek().put(param.name(), param);
+		}
+		analysis.scan(funcDecl.body());
+
+		// A pointer that is reassigned or passed around is a real pointer, so its target escapes
+		analysis.aliasCandidates.forEach((pointer, target) -> {
+			if (analysis.reassigned.contains(pointer) || analysis.usedAsValue.contains(pointer)) {
+				analysis.cells.add(target);
+			}
+			else {
+				analysis.aliases.add(pointer);
+			}
+		});
+		analysis.classifyPointers();
+		return analysis;
+	}
+
+	/**
+	 * Collect the kinds of pointer each pointer local is assigned. The sources can be other
+	 * pointer locals, so iterate until nothing changes.
+	 */
+	private void classifyPointers() {
+		pointerSources.keySet().forEach(pointer -> pointerKinds.put(pointer, EnumSet.noneOf(Kind.class)));
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (Map.Entry<Object, List<Object>> entry : pointerSources.entrySet()) {
+				Set<Kind> kinds = pointerKinds.get(entry.getKey());
+				for (Object source : entry.getValue()) {
+					changed |= source instanceof Kind kind ? kinds.add(kind)
+							: kinds.addAll(pointerKinds.getOrDefault(source, EnumSet.of(Kind.CELL)));
+				}
+			}
+		}
+		// A pointer into an array stored with cells is boxed into an element cell
+		pointerKinds.values().forEach(kinds -> {
+			if (kinds.contains(Kind.CELL)) {
+				kinds.remove(Kind.ARRAY);
+			}
+		});
+	}
+
+	private boolean hasKind(Object declaration, Kind kind) {
+		Set<Kind> kinds = pointerKinds.get(declaration);
+		return kinds != null && kinds.contains(kind);
+	}
+
+	/**
+	 * Whether the variable is stored in a heap cell instead of a local slot.
+	 */
+	boolean isCell(Object declaration) {
+		return cells.contains(declaration);
+	}
+
+	/**
+	 * Whether the pointer variable is compiled away in favor of direct accesses to its target.
+	 */
+	boolean isAlias(VariableDeclaration declaration) {
+		return aliases.contains(declaration);
+	}
+
+	/**
+	 * Whether the pointer local is kept as an array reference and an index.
+	 */
+	boolean isArrayPointer(Object declaration) {
+		return hasKind(declaration, Kind.ARRAY);
+	}
+
+	/**
+	 * Whether the pointer local is kept as an address into the Mem arena.
+	 */
+	boolean isMemoryPointer(Object declaration) {
+		return hasKind(declaration, Kind.MEMORY);
+	}
+
+	/**
+	 * Whether the pointer local is assigned pointers of different kinds (into arrays, into
+	 * memory, to variables), which have different representations.
+	 */
+	boolean isMixedPointer(Object declaration) {
+		Set<Kind> kinds = pointerKinds.get(declaration);
+		return kinds != null && kinds.size() > 1;
+	}
+
+	/**
+	 * The expressions of a function that take the address of a pointer local kept in two slots
+	 * or as an address into the Mem arena; only a pointer held in one reference has a cell.
+	 */
+	List<Expression> findAddressedSplitPointers() {
+		List<Expression> addressed = new ArrayList<>();
+		addressedPointers.forEach((expr, pointer) -> {
+			if (isArrayPointer(pointer) || isMemoryPointer(pointer)) {
+				addressed.add(expr);
+			}
+		});
+		return addressed;
+	}
+
+	private static <T> Set<T> identitySet() {
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+
+	private Object resolve(String name) {
+		for (Map<String, Object> scope : scopes) {
+			if (scope.containsKey(name)) {
+				return scope.get(name);
+			}
+		}
+		return null; // a global
+	}
+
+	private Object addressTarget(Expression expr) {
+		if (expr instanceof AddressOfExpression address && address.getOperand() instanceof IdentifierExpression identifier) {
+			return resolve(identifier.getName());
+		}
+		return null;
+	}
+
+	/**
+	 * Where a pointer value comes from: ARRAY for &a[i], MEMORY for Mem.allocInt(n) and friends,
+	 * the declaration for a pointer local, and CELL for anything else (&x, a parameter, a call).
+	 */
+	private Object pointerSource(Expression expr) {
+		if (expr instanceof AddressOfExpression address && address.getOperand() instanceof ArrayIndexExpression) {
+			return Kind.ARRAY;
+		}
+		if (expr instanceof CallExpression call && call.getFunction() instanceof QualifiedIdentifier function
+				&& "Mem".equals(function.getModuleName()) && MemFunctions.isTypedAllocation(function.getIdentifier())) {
+			return Kind.MEMORY;
+		}
+		if (expr instanceof IdentifierExpression identifier && resolve(identifier.getName()) instanceof VariableDeclaration declaration) {
+			return declaration;
+		}
+		if (expr instanceof BinaryExpression binary && expr.getType() instanceof PointerType) {
+			return pointerSource(binary.getLeft().getType() instanceof PointerType ? binary.getLeft() : binary.getRight());
+		}
+		return Kind.CELL;
+	}
+
+	private void addPointerSource(Object pointer, Expression value) {
+		if (value != null) {
+			pointerSources.computeIfAbsent(pointer, key -> new ArrayList<>()).add(pointerSource(value));
+		}
+	}
+
+	@Override
+	public Void visitBlockStatement(BlockStatement block) {
+		scopes.push(new HashMap<>());
+		super.visitBlockStatement(block);
+		scopes.pop();
+		return null;
+	}
+
+	@Override
+	public Void visitVariableDeclaration(VariableDeclaration varDecl) {
+		if (varDecl.getDeclaredType() instanceof PointerType) {
+			pointerSources.computeIfAbsent(varDecl, key -> new ArrayList<>());
+			addPointerSource(varDecl, varDecl.initializer());
+		}
+		Object target = addressTarget(varDecl.initializer());
+		// A pointer to a pointer local is never an alias: the local must hold its target
+		if (target != null && varDecl.getDeclaredType() instanceof PointerType && !pointerSources.containsKey(target)) {
+			aliasCandidates.put(varDecl, target);
+		}
+		else {
+			scan(varDecl.initializer());
+		}
+		scopes.peek().put(varDecl.name(), varDecl);
+		return null;
+	}
+
+	@Override
+	public Void visitForInStatement(ForInStatement forStmt) {
+		scan(forStmt.initializer());
+		scan(forStmt.iterable());
+		scopes.push(new HashMap<>());
+		scopes.peek().put(forStmt.variableName(), forStmt);
+		scan(forStmt.body());
+		scopes.pop();
+		return null;
+	}
+
+	@Override
+	public Void visitIdentifierExpression(IdentifierExpression expr) {
+		Object declaration = resolve(expr.getName());
+		if (declaration != null) {
+			usedAsValue.add(declaration);
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitAddressOfExpression(AddressOfExpression expr) {
+		Object target = addressTarget(expr);
+		if (target != null) {
+			// A pointer local whose address is taken must hold its target, so it is no alias either
+			cells.add(target);
+			usedAsValue.add(target);
+			if (pointerSources.containsKey(target)) {
+				addressedPointers.put(expr, target);
+			}
+		}
+		else {
+			scan(expr.getOperand());
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitDereferenceExpression(DereferenceExpression expr) {
+		// *&x and *p only read through the pointer
+		if (addressTarget(expr.getOperand()) == null && !(expr.getOperand() instanceof IdentifierExpression)) {
+			scan(expr.getOperand());
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitAssignmentExpression(AssignmentExpression expr) {
+		if (expr.getTarget() instanceof IdentifierExpression identifier) {
+			Object declaration = resolve(identifier.getName());
+			if (declaration != null) {
+				reassigned.add(declaration);
+				if (pointerSources.containsKey(declaration)) {
+					addPointerSource(declaration, expr.getValue());
+				}
+			}
+		}
+		else {
+			scan(expr.getTarget());
+		}
+		scan(expr.getValue());
+		return null;
+	}
+}
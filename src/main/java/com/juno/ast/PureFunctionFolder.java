@@ -0,0 +1,66 @@
+package com.juno.ast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces calls to pure functions whose arguments are compile-time constants with the literal
+ * result of the call, e.g. {@code fib(20)} becomes {@code 6765}.
+ * Arguments are folded bottom-up, so nested calls such as {@code fib(square(4))} fold as well.
+ * Evaluation is bounded by the step budget of {@link ConstantEvaluator}; calls that run out of
+ * budget, divide by zero or otherwise cannot be evaluated are left for the runtime.
+ */
+public class PureFunctionFolder extends ASTTransformer {
+
+	private static final Object NOT_CONSTANT = new Object();
+
+	private final PurityAnalyzer purity;
+	private final ConstantEvaluator evaluator;
+	private final Map<List<Object>, Object> results = new HashMap<>();
+	private int foldedCalls = 0;
+
+	public PureFunctionFolder(Program program) {
+		this(program, ConstantEvaluator.DEFAULT_STEP_BUDGET);
+	}
+
+	public PureFunctionFolder(Program program, int stepBudget) {
+		this.purity = new PurityAnalyzer(program);
+		this.evaluator = new ConstantEvaluator(purity.getPureFunctions(), stepBudget);
+	}
+
+	public int getFoldedCalls() {
+		return foldedCalls;
+	}
+
+	@Override
+	public ASTNode visitCallExpression(CallExpression expr) {
+		CallExpression call = (CallExpression) super.visitCallExpression(expr);
+		if (!(call.getFunction() instanceof IdentifierExpression function) || !purity.isPure(function.getName())) {
+			return call;
+		}
+
+		// Only closed argument lists can be folded; remember results so repeated calls are cheap
+		List<Object> key = new ArrayList<>();
+		key.add(function.getName());
+		for (Expression arg : call.getArguments()) {
+			Object argValue = arg instanceof LiteralExpression literal ? literal.getValue() : evaluator.tryEvaluate(arg);
+			if (argValue == null) {
+				return call;
+			}
+			key.add(argValue);
+		}
+
+		Object value = results.computeIfAbsent(key, k -> {
+			Object result = evaluator.tryEvaluate(call);
+			return result != null ? result : NOT_CONSTANT;
+		});
+		if (value == NOT_CONSTANT) {
+			return call;
+		}
+
+		foldedCalls++;
+		return withType(new LiteralExpression(value, call.line(), call.column()), call);
+	}
+}
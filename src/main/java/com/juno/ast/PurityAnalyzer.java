@@ -0,0 +1,219 @@
+package com.juno.ast;
+
+import com.juno.types.PrimitiveType;
+import com.juno.types.SpecialTypes;
+import com.juno.types.Type;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the functions of a program that are pure enough to be evaluated at compile time.
+ * A function is pure when it only works on primitive values, never touches a global variable,
+ * never calls a runtime module (Io, File, ...), never takes an address or dereferences a pointer,
+ * and only calls other pure functions. Recursive functions are handled optimistically: the
+ * analysis starts with every candidate marked pure and removes functions until a fixpoint.
+ */
+public class PurityAnalyzer {
+
+	private final Map<String, FunctionDeclaration> functions = new LinkedHashMap<>();
+	private final Set<String> globals = new HashSet<>();
+	private final Set<String> pureFunctions = new HashSet<>();
+
+	public PurityAnalyzer(Program program) {
+		collectDeclarations(program.getStatements());
+		analyze();
+	}
+
+	public boolean isPure(String functionName) {
+		return pureFunctions.contains(functionName);
+	}
+
+	/**
+	 * Get the declarations of all pure functions, keyed by name.
+	 */
+	public Map<String, FunctionDeclaration> getPureFunctions() {
+		Map<String, FunctionDeclaration> result = new HashMap<>();
+		for (String name : pureFunctions) {
+			result.put(name, functions.get(name));
+		}
+		return result;
+	}
+
+	private void collectDeclarations(Iterable<Statement> statements) {
+		for (Statement stmt : statements) {
+			if (stmt instanceof FunctionDeclaration funcDecl) {
+				functions.put(funcDecl.name(), funcDecl);
+			}
+			else if (stmt instanceof VariableDeclaration varDecl) {
+				globals.add(varDecl.name());
+			}
+			else if (stmt instanceof ModuleDeclaration module) {
+				collectDeclarations(module.getStatements());
+			}
+		}
+	}
+
+	private void analyze() {
+		Map<String, Set<String>> callees = new HashMap<>();
+
+		for (FunctionDeclaration funcDecl : functions.values()) {
+			FunctionScan scan = new FunctionScan(funcDecl);
+			if (scan.pure) {
+				pureFunctions.add(funcDecl.name());
+				callees.put(funcDecl.name(), scan.callees);
+			}
+		}
+
+		// Drop functions that call something impure until nothing changes
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (String name : new HashSet<>(pureFunctions)) {
+				if (!pureFunctions.containsAll(callees.get(name))) {
+					pureFunctions.remove(name);
+					changed = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check whether a type holds a plain value the constant evaluator can represent.
+	 */
+	static boolean isValueType(Type type) {
+		if (type instanceof SpecialTypes.AutoType autoType) {
+			return isValueType(autoType.getInferredType());
+		}
+		return type instanceof PrimitiveType && !PrimitiveType.VOID.equals(type);
+	}
+
+	/**
+	 * Walks one function body with lexical scopes, so that names can be told apart from globals.
+	 */
+	private class FunctionScan extends ASTScanner {
+		private final Deque<Set<String>> scopes = new ArrayDeque<>();
+		private final Set<String> callees = new HashSet<>();
+		private boolean pure = true;
+
+		FunctionScan(FunctionDeclaration funcDecl) {
+			if (!isValueType(funcDecl.returnType()) || funcDecl.body() == null) {
+				pure = false;
+				return;
+			}
+
+			Set<String> parameters = new HashSet<>();
+			for (FunctionDeclaration.Parameter param : funcDecl.parameters()) {
+				if (!isValueType(param.type())) {
+					pure = false;
+					return;
+				}
+				parameters.add(param.name());
+			}
+			scopes.push(parameters);
+			scan(funcDecl.body());
+		}
+
+		private boolean isLocal(String name) {
+			for (Set<String> scope : scopes) {
+				if (scope.contains(name)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public Void visitBlockStatement(BlockStatement block) {
+			scopes.push(new HashSet<>());
+			super.visitBlockStatement(block);
+			scopes.pop();
+			return null;
+		}
+
+		@Override
+		public Void visitVariableDeclaration(VariableDeclaration varDecl) {
+			if (!isValueType(varDecl.getDeclaredType())) {
+				pure = false;
+			}
+			super.visitVariableDeclaration(varDecl);
+			scopes.peek().add(varDecl.name());
+			return null;
+		}
+
+		@Override
+		public Void visitIdentifierExpression(IdentifierExpression expr) {
+			if (!isLocal(expr.getName())) {
+				pure = false; // global read or write
+			}
+			return null;
+		}
+
+		@Override
+		public Void visitCallExpression(CallExpression expr) {
+			if (expr.getFunction() instanceof IdentifierExpression function && !isLocal(function.getName())) {
+				callees.add(function.getName());
+			}
+			else {
+				pure = false; // module call such as Io.println
+			}
+			scanAll(expr.getArguments());
+			return null;
+		}
+
+		@Override
+		public Void visitQualifiedIdentifier(QualifiedIdentifier expr) {
+			if (!"Math".equals(expr.getModuleName()) || MathFunctions.constant(expr.getIdentifier()) == null) {
+				pure = false;
+			}
+			return null;
+		}
+
+		@Override
+		public Void visitForInStatement(ForInStatement forStmt) {
+			pure = false;
+			return null;
+		}
+
+		@Override
+		public Void visitArrayLiteralExpression(ArrayLiteralExpression expr) {
+			pure = false;
+			return null;
+		}
+
+		@Override
+		public Void visitArrayIndexExpression(ArrayIndexExpression expr) {
+			pure = false;
+			return null;
+		}
+
+		@Override
+		public Void visitAddressOfExpression(AddressOfExpression expr) {
+			pure = false;
+			return null;
+		}
+
+		@Override
+		public Void visitDereferenceExpression(DereferenceExpression expr) {
+			pure = false;
+			return null;
+		}
+
+		@Override
+		public Void visitFieldAccessExpression(FieldAccessExpression expr) {
+			pure = false;
+			return null;
+		}
+
+		@Override
+		public Void visitFunctionDeclaration(FunctionDeclaration funcDecl) {
+			pure = false; // nested functions are not supported by the evaluator
+			return null;
+		}
+	}
+}
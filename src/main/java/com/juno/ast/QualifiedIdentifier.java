@@ -4,7 +4,7 @@ import com.juno.types.Type;
 
 /**
  * AST node representing a qualified identifier.
- * Examples: io.print, math.sin, string.length
+ * Examples: io.print, math.sin, string.length, and field accesses on struct variables (p.x)
  */
 public class QualifiedIdentifier implements Expression {
 	private final String moduleName;
@@ -12,6 +12,7 @@ public class QualifiedIdentifier implements Expression {
 	private final int line;
 	private final int column;
 	private Type type;
+	private Type qualifierType;
 
 	public QualifiedIdentifier(String moduleName, String identifier, int line, int column) {
 		this.moduleName = moduleName;
@@ -53,6 +54,24 @@ public class QualifiedIdentifier implements Expression {
 		return identifier;
 	}
 
+	/**
+	 * The type of the qualifier when it is a variable rather than a module, set by the type checker.
+	 */
+	public Type getQualifierType() {
+		return qualifierType;
+	}
+
+	public void setQualifierType(Type qualifierType) {
+		this.qualifierType = qualifierType;
+	}
+
+	/**
+	 * True if this names a field of a struct variable rather than a member of a module.
+	 */
+	public boolean isFieldAccess() {
+		return qualifierType != null;
+	}
+
 	public String getFullName() {
 		return moduleName + "." + identifier;
 	}
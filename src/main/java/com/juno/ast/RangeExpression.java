@@ -0,0 +1,96 @@
+package com.juno.ast;
+
+import com.juno.types.Type;
+
+/**
+ * Integer range iterated by a for-in loop: {@code start..end} excludes the end, {@code start..=end}
+ * includes it, and an optional {@code step} sets the increment (a negative step counts down).
+ * Ranges are never materialized; the loop keeps a bare counter.
+ */
+class RangeExpression implements Expression {
+	private final Expression start;
+	private final Expression end;
+	private final Expression step;
+	private final boolean inclusive;
+	private final int line, column;
+	private Type type;
+
+	public RangeExpression(Expression start, Expression end, Expression step, boolean inclusive, int line, int column) {
+		this.start = start;
+		this.end = end;
+		this.step = step;
+		this.inclusive = inclusive;
+		this.line = line;
+		this.column = column;
+	}
+
+	public Expression getStart() {
+		return start;
+	}
+
+	public Expression getEnd() {
+		return end;
+	}
+
+	/**
+	 * The increment, or null for a step of 1.
+	 */
+	public Expression getStep() {
+		return step;
+	}
+
+	public boolean isInclusive() {
+		return inclusive;
+	}
+
+	/**
+	 * The step if it is an integer literal, possibly negated, or null otherwise.
+	 */
+	public Long getConstantStep() {
+		if (step == null) {
+			return 1L;
+		}
+		if (step instanceof LiteralExpression literal && literal.getValue() instanceof Number number) {
+			return number.longValue();
+		}
+		if (step instanceof UnaryExpression unary && "-".equals(unary.getOperator())
+				&& unary.getOperand() instanceof LiteralExpression literal && literal.getValue() instanceof Number number) {
+			return -number.longValue();
+		}
+		return null;
+	}
+
+	/**
+	 * True if the step is a negative literal, so the range counts down towards its end. The
+	 * direction of a non-constant step is only known when the loop starts.
+	 */
+	public boolean isDescending() {
+		Long constantStep = getConstantStep();
+		return constantStep != null && constantStep < 0;
+	}
+
+	@Override
+	public Type getType() {
+		return type;
+	}
+
+	@Override
+	public void setType(Type type) {
+		this.type = type;
+	}
+
+	@Override
+	public <T> T accept(ASTVisitor<T> visitor) {
+		return visitor.visitRangeExpression(this);
+	}
+
+	@Override
+	public int line() {
+		return line;
+	}
+
+	@Override
+	public int column() {
+		return column;
+	}
+}
@@ -5,19 +5,26 @@ import com.juno.types.Type;
 import java.util.List;
 
 /**
- * Represents a struct declaration statement.
+ * Represents a struct declaration statement. A struct declared {@code soa struct} stores its arrays
+ * as a struct of arrays, with one array per field, instead of an array of struct references.
  */
 public class StructDeclaration implements Statement {
 	private final String name;
 	private final List<Field> fields;
 	private final boolean isPublic;
+	private final boolean structOfArrays;
 	private final int line;
 	private final int column;
 
 	public StructDeclaration(String name, List<Field> fields, boolean isPublic, int line, int column) {
+		this(name, fields, isPublic, false, line, column);
+	}
+
+	public StructDeclaration(String name, List<Field> fields, boolean isPublic, boolean structOfArrays, int line, int column) {
 		this.name = name;
 		this.fields = fields;
 		this.isPublic = isPublic;
+		this.structOfArrays = structOfArrays;
 		this.line = line;
 		this.column = column;
 	}
@@ -34,6 +41,10 @@ public class StructDeclaration implements Statement {
 		return isPublic;
 	}
 
+	public boolean isStructOfArrays() {
+		return structOfArrays;
+	}
+
 	@Override
 	public <T> T accept(ASTVisitor<T> visitor) {
 		return visitor.visitStructDeclaration(this);
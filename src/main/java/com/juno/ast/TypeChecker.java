@@ -13,6 +13,7 @@ public class TypeChecker implements ASTVisitor<Type> {
 
 	private final SymbolTable symbolTable;
 	private final ErrorCollector errorCollector;
+	private final Map<String, StructDeclaration> structs = new HashMap<>();
 	private Type currentFunctionReturnType; // Track return type for return statement checking
 
 	public TypeChecker(ErrorCollector errorCollector) {
@@ -44,6 +45,9 @@ public class TypeChecker implements ASTVisitor<Type> {
 	public Type visitProgram(Program program) {
 		symbolTable.enterScope("program");
 
+		// Structs can be used before their declaration
+		collectStructs(program.getStatements());
+
 		for (Statement stmt : program.getStatements()) {
 			stmt.accept(this);
 		}
@@ -52,6 +56,23 @@ public class TypeChecker implements ASTVisitor<Type> {
 		return PrimitiveType.VOID;
 	}
 
+	private void collectStructs(List<Statement> statements) {
+		for (Statement stmt : statements) {
+			if (stmt instanceof StructDeclaration structDecl) {
+				if (structs.putIfAbsent(structDecl.getName(), structDecl) != null) {
+					errorCollector.addError(new CompilerError(
+							"Struct '" + structDecl.getName() + "' is already declared",
+							ErrorCode.DUPLICATE_DECLARATION,
+							structDecl.line(), structDecl.column()
+					));
+				}
+			}
+			else if (stmt instanceof ModuleDeclaration module) {
+				collectStructs(module.getStatements());
+			}
+		}
+	}
+
 	@Override
 	public Type visitModuleDeclaration(ModuleDeclaration module) {
 		symbolTable.enterScope("module_" + module.getModuleName());
@@ -90,15 +111,95 @@ public class TypeChecker implements ASTVisitor<Type> {
 			));
 		}
 
-		// TODO: Add struct type to symbol table and validate field types
-		// For now, just validate that all field types are valid
+		Set<String> fieldNames = new HashSet<>();
 		for (StructDeclaration.Field field : structDecl.getFields()) {
-			// Field type validation would go here
+			if (!fieldNames.add(field.name)) {
+				errorCollector.addError(new CompilerError(
+						"Field '" + field.name + "' is already declared in struct '" + structName + "'",
+						ErrorCode.DUPLICATE_DECLARATION,
+						structDecl.line(), structDecl.column()
+				));
+			}
+			if (PrimitiveType.VOID.equals(field.type)) {
+				errorCollector.addError(new CompilerError(
+						"Field '" + field.name + "' cannot have type void",
+						ErrorCode.TYPE_ERROR,
+						structDecl.line(), structDecl.column()
+				));
+			}
+			else if (structDecl.isStructOfArrays() && !(field.type instanceof PrimitiveType)) {
+				errorCollector.addError(new CompilerError(
+						"Field '" + field.name + "' of soa struct '" + structName + "' must have a primitive type, got " + field.type,
+						ErrorCode.TYPE_ERROR,
+						structDecl.line(), structDecl.column()
+				));
+			}
 		}
 
 		return PrimitiveType.VOID;
 	}
 
+	/**
+	 * Whether arrays of this type are stored as a struct of arrays, one array per field.
+	 */
+	private boolean isStructOfArrays(Type elementType) {
+		return elementType instanceof StructType structType
+				&& structs.containsKey(structType.structName())
+				&& structs.get(structType.structName()).isStructOfArrays();
+	}
+
+	/**
+	 * Look up the type of a struct field, reporting an error if the struct has no such field.
+	 */
+	private Type getFieldType(StructType structType, String fieldName, Expression expr) {
+		StructDeclaration structDecl = structs.get(structType.structName());
+		if (structDecl != null) {
+			for (StructDeclaration.Field field : structDecl.getFields()) {
+				if (field.name.equals(fieldName)) {
+					return field.type;
+				}
+			}
+		}
+		errorCollector.addError(new CompilerError(
+				"Struct '" + structType + "' has no field '" + fieldName + "'",
+				ErrorCode.UNDEFINED_IDENTIFIER,
+				expr.line(), expr.column()
+		));
+		return PrimitiveType.INT; // Return a reasonable default
+	}
+
+	/**
+	 * Check a struct construction such as Point(1, 2): either no arguments, for a zeroed struct,
+	 * or one argument per field in declaration order.
+	 */
+	private Type checkStructConstruction(CallExpression expr, StructDeclaration structDecl) {
+		List<Expression> arguments = expr.getArguments();
+		List<StructDeclaration.Field> fields = structDecl.getFields();
+
+		if (!arguments.isEmpty() && arguments.size() != fields.size()) {
+			errorCollector.addError(new CompilerError(
+					"Struct '" + structDecl.getName() + "' has " + fields.size() + " fields, got " + arguments.size() + " arguments",
+					ErrorCode.BAD_ARITY,
+					expr.line(), expr.column()
+			));
+		}
+
+		for (int i = 0; i < arguments.size(); i++) {
+			Type argType = arguments.get(i).accept(this);
+			if (i < fields.size() && !isAssignmentCompatible(argType, fields.get(i).type)) {
+				errorCollector.addError(new CompilerError(
+						"Cannot assign " + argType + " to field '" + fields.get(i).name + "' of type " + fields.get(i).type,
+						ErrorCode.TYPE_MISMATCH,
+						arguments.get(i).line(), arguments.get(i).column()
+				));
+			}
+		}
+
+		Type structType = new StructType(structDecl.getName());
+		expr.setType(structType);
+		return structType;
+	}
+
 	// ===== VARIABLE AND FUNCTION DECLARATIONS =====
 
 	@Override
@@ -118,7 +219,9 @@ public class TypeChecker implements ASTVisitor<Type> {
 		}
 
 		Type finalType = declaredType;
-		boolean isInitialized = false;
+		// Struct variables and fixed-size arrays without an initializer hold zeroed values
+		boolean isInitialized = declaredType instanceof StructType
+				|| (declaredType instanceof ArrayType arrayType && arrayType.isFixedArray());
 
 		// Handle initializer if present
 		if (initializer != null) {
@@ -159,6 +262,10 @@ public class TypeChecker implements ASTVisitor<Type> {
 							varDecl.line(), varDecl.column()
 					));
 				}
+				else if (initializer instanceof ArrayLiteralExpression && declaredType instanceof ArrayType) {
+					// [1, 2, 3] builds the declared array type, so long[] ls = [1, 2, 3] holds longs
+					initializer.setType(declaredType);
+				}
 			}
 		}
 		else {
@@ -236,6 +343,7 @@ public class TypeChecker implements ASTVisitor<Type> {
 		// Type check function body
 		if (funcDecl.body() != null) {
 			funcDecl.body().accept(this);
+			checkAddressedPointers(funcDecl);
 		}
 
 		// Restore previous state
@@ -245,6 +353,21 @@ public class TypeChecker implements ASTVisitor<Type> {
 		return returnType;
 	}
 
+	/**
+	 * A pointer into an array is an array and an index in two locals, and a pointer into memory
+	 * is an address, so neither has an address of its own.
+	 */
+	private void checkAddressedPointers(FunctionDeclaration funcDecl) {
+		PointerEscapeAnalysis pointers = PointerEscapeAnalysis.analyze(funcDecl);
+		for (Expression address : pointers.findAddressedSplitPointers()) {
+			errorCollector.addError(new CompilerError(
+					"Cannot take the address of a pointer into an array or into memory",
+					ErrorCode.INVALID_EXPRESSION,
+					address.line(), address.column()
+			));
+		}
+	}
+
 	// ===== STATEMENTS =====
 
 	@Override
@@ -339,9 +462,55 @@ public class TypeChecker implements ASTVisitor<Type> {
 			));
 		}
 
-		// Type check iterable expression
+		// Type check iterable expression: arrays are iterated element by element, ranges value by
+		// value, and the lines of a file line by line
 		Type iterableType = forStmt.iterable().accept(this);
-		// TODO: Add proper iterable type checking when we have collections
+		if (iterableType instanceof LinesType) {
+			if (!PrimitiveType.STRING.equals(varType)) {
+				errorCollector.addError(new CompilerError(
+						"Lines of a file are iterated with a string loop variable, got " + varType,
+						ErrorCode.TYPE_MISMATCH,
+						forStmt.line(), forStmt.column()
+				));
+			}
+		}
+		else if (iterableType instanceof RangeType range) {
+			if (!(varType instanceof PrimitiveType primitive) || (primitive != PrimitiveType.INT && primitive != PrimitiveType.LONG)) {
+				errorCollector.addError(new CompilerError(
+						"Range loop variable must be int or long, got " + varType,
+						ErrorCode.TYPE_MISMATCH,
+						forStmt.line(), forStmt.column()
+				));
+			}
+			else if (range.elementType() == PrimitiveType.LONG && primitive == PrimitiveType.INT) {
+				errorCollector.addError(new CompilerError(
+						"Range of long cannot be iterated with an int loop variable",
+						ErrorCode.TYPE_MISMATCH,
+						forStmt.line(), forStmt.column()
+				));
+			}
+		}
+		else if (!(iterableType instanceof ArrayType array)) {
+			errorCollector.addError(new CompilerError(
+					"For-in loop requires an array, got " + iterableType,
+					ErrorCode.TYPE_MISMATCH,
+					forStmt.line(), forStmt.column()
+			));
+		}
+		else if (isStructOfArrays(array.elementType())) {
+			errorCollector.addError(new CompilerError(
+					"Cannot iterate over the elements of soa struct array " + array + "; index its fields in a range loop",
+					ErrorCode.TYPE_MISMATCH,
+					forStmt.line(), forStmt.column()
+			));
+		}
+		else if (!isCompatible(array.elementType(), varType)) {
+			errorCollector.addError(new CompilerError(
+					"Array element type " + array.elementType() + " is not compatible with loop variable type " + varType,
+					ErrorCode.TYPE_MISMATCH,
+					forStmt.line(), forStmt.column()
+			));
+		}
 
 		// Type check loop body
 		forStmt.body().accept(this);
@@ -498,6 +667,9 @@ public class TypeChecker implements ASTVisitor<Type> {
 
 		if (functionExpr instanceof IdentifierExpression) {
 			String functionName = ((IdentifierExpression) functionExpr).getName();
+			if (structs.containsKey(functionName)) {
+				return checkStructConstruction(expr, structs.get(functionName));
+			}
 			SymbolTable.Symbol symbol = symbolTable.lookup(functionName);
 
 			if (symbol == null) {
@@ -537,6 +709,22 @@ public class TypeChecker implements ASTVisitor<Type> {
 		for (Expression arg : expr.getArguments()) {
 			arg.accept(this); // Check argument types
 		}
+		if (functionExpr instanceof QualifiedIdentifier qualId && "Mem".equals(qualId.getModuleName())) {
+			checkMemArguments(expr, qualId.getIdentifier());
+		}
+		if (functionExpr instanceof QualifiedIdentifier qualId && "Math".equals(qualId.getModuleName())
+				&& MathFunctions.arity(qualId.getIdentifier()) >= 0) {
+			functionType = checkMathCall(expr, qualId.getIdentifier());
+		}
+		if (functionExpr instanceof QualifiedIdentifier qualId && "File".equals(qualId.getModuleName())
+				&& FileFunctions.returnType(qualId.getIdentifier()) != null) {
+			checkModuleArguments(expr, "File." + qualId.getIdentifier(), FileFunctions.parameterTypes(qualId.getIdentifier()));
+			// File.await(future) returns what the future holds
+			if ("await".equals(qualId.getIdentifier()) && expr.getArguments().size() == 1
+					&& expr.getArguments().get(0).getType() instanceof FutureType future && future.valueType() != null) {
+				functionType = future.valueType();
+			}
+		}
 
 		// TODO: Add parameter type checking when we have function signatures
 
@@ -549,10 +737,55 @@ public class TypeChecker implements ASTVisitor<Type> {
 		String moduleName = expr.getModuleName();
 		String identifier = expr.getIdentifier();
 
+		// A variable of struct type: this is a field access
+		SymbolTable.Symbol symbol = symbolTable.lookup(moduleName);
+		if (symbol != null && !symbol.isFunction() && symbol.getType() instanceof StructType structType) {
+			Type fieldType = getFieldType(structType, identifier, expr);
+			expr.setQualifierType(structType);
+			expr.setType(fieldType);
+			return fieldType;
+		}
+
 		// Handle runtime modules
 		if ("Io".equals(moduleName)) {
 			return resolveIoFunction(identifier);
 		}
+		if ("Mem".equals(moduleName)) {
+			Type returnType = MemFunctions.returnType(identifier);
+			if (returnType == null) {
+				errorCollector.addError(new CompilerError(
+						"Unknown Mem function: " + identifier,
+						ErrorCode.UNDEFINED_IDENTIFIER,
+						expr.line(), expr.column()
+				));
+				return PrimitiveType.VOID;
+			}
+			return returnType;
+		}
+		if ("Math".equals(moduleName)) {
+			if (MathFunctions.constant(identifier) == null && MathFunctions.arity(identifier) < 0) {
+				errorCollector.addError(new CompilerError(
+						"Unknown Math function or constant: " + identifier,
+						ErrorCode.UNDEFINED_IDENTIFIER,
+						expr.line(), expr.column()
+				));
+			}
+			// A function's result type depends on the overload its call resolves to
+			expr.setType(PrimitiveType.DOUBLE);
+			return PrimitiveType.DOUBLE;
+		}
+		if ("File".equals(moduleName)) {
+			Type returnType = FileFunctions.returnType(identifier);
+			if (returnType == null) {
+				errorCollector.addError(new CompilerError(
+						"Unknown File function: " + identifier,
+						ErrorCode.UNDEFINED_IDENTIFIER,
+						expr.line(), expr.column()
+				));
+				return PrimitiveType.VOID;
+			}
+			return returnType;
+		}
 
 		// TODO: Add other modules as needed
 		errorCollector.addError(new CompilerError(
@@ -563,12 +796,75 @@ public class TypeChecker implements ASTVisitor<Type> {
 		return PrimitiveType.VOID;
 	}
 
+	private void checkMemArguments(CallExpression expr, String function) {
+		if (MemFunctions.returnType(function) == null) {
+			return; // already reported
+		}
+		List<Expression> arguments = expr.getArguments();
+		if ("address".equals(function)) {
+			if (arguments.size() != 1 || !(arguments.get(0).getType() instanceof PointerType)) {
+				errorCollector.addError(new CompilerError(
+						"Mem.address takes one pointer",
+						ErrorCode.TYPE_MISMATCH,
+						expr.line(), expr.column()
+				));
+			}
+			return;
+		}
+		checkModuleArguments(expr, "Mem." + function, MemFunctions.parameterTypes(function));
+	}
+
+	private void checkModuleArguments(CallExpression expr, String function, List<? extends Type> parameters) {
+		List<Expression> arguments = expr.getArguments();
+		if (arguments.size() != parameters.size()) {
+			errorCollector.addError(new CompilerError(
+					function + " takes " + parameters.size() + " arguments, got " + arguments.size(),
+					ErrorCode.TYPE_MISMATCH,
+					expr.line(), expr.column()
+			));
+			return;
+		}
+		for (int i = 0; i < arguments.size(); i++) {
+			Type argumentType = arguments.get(i).getType();
+			if (argumentType != null && !isCompatible(argumentType, parameters.get(i))) {
+				errorCollector.addError(new CompilerError(
+						"Argument " + (i + 1) + " of " + function + " must be " + parameters.get(i) + ", got " + argumentType,
+						ErrorCode.TYPE_MISMATCH,
+						expr.line(), expr.column()
+				));
+			}
+		}
+	}
+
+	/**
+	 * Resolve the overload of a Math function a call takes and return its result type.
+	 */
+	private Type checkMathCall(CallExpression expr, String function) {
+		List<Expression> arguments = expr.getArguments();
+		if (arguments.size() != MathFunctions.arity(function)) {
+			errorCollector.addError(new CompilerError(
+					"Math." + function + " takes " + MathFunctions.arity(function) + " arguments, got " + arguments.size(),
+					ErrorCode.TYPE_MISMATCH,
+					expr.line(), expr.column()
+			));
+			return PrimitiveType.DOUBLE;
+		}
+		List<Type> argumentTypes = arguments.stream().map(Expression::getType).toList();
+		PrimitiveType overload = MathFunctions.overload(function, argumentTypes);
+		if (overload == null) {
+			errorCollector.addError(new CompilerError(
+					"No overload of Math." + function + " takes " + argumentTypes,
+					ErrorCode.TYPE_MISMATCH,
+					expr.line(), expr.column()
+			));
+			return PrimitiveType.DOUBLE;
+		}
+		return MathFunctions.returnType(function, overload);
+	}
+
 	private Type resolveIoFunction(String function) {
-		return switch (function) {
-			case "print", "println", "report" -> PrimitiveType.VOID;
-			case "scan" -> PrimitiveType.STRING;
-			default -> PrimitiveType.VOID;
-		};
+		Type returnType = IoFunctions.returnType(function);
+		return returnType != null ? returnType : PrimitiveType.VOID;
 	}
 
 	@Override
@@ -626,6 +922,14 @@ public class TypeChecker implements ASTVisitor<Type> {
 			}
 		}
 
+		if (isStructOfArrays(commonType)) {
+			errorCollector.addError(new CompilerError(
+					"Arrays of soa struct " + commonType + " cannot be written as literals; declare a fixed-size array",
+					ErrorCode.TYPE_MISMATCH,
+					expr.line(), expr.column()
+			));
+		}
+
 		Type arrayType = new ArrayType(commonType, elements.size()); // Fixed-size array from literal
 		expr.setType(arrayType);
 		return arrayType;
@@ -633,9 +937,32 @@ public class TypeChecker implements ASTVisitor<Type> {
 
 	@Override
 	public Type visitArrayIndexExpression(ArrayIndexExpression expr) {
+		Type elementType = checkArrayIndex(expr);
+		if (isStructOfArrays(elementType)) {
+			errorCollector.addError(new CompilerError(
+					"Elements of soa struct arrays have no struct of their own; access a field such as " +
+							"points[i].x instead",
+					ErrorCode.TYPE_MISMATCH,
+					expr.line(), expr.column()
+			));
+		}
+		return elementType;
+	}
+
+	/**
+	 * Type check an array index, which may be the struct-of-arrays element a field access reads.
+	 */
+	private Type checkArrayIndex(ArrayIndexExpression expr) {
 		Type arrayType = expr.getArray().accept(this);
 		Type indexType = expr.getIndex().accept(this);
 
+		// A mapped view is indexed like an array of its element type
+		if (arrayType instanceof MappedViewType view) {
+			checkArrayIndexType(expr, indexType);
+			expr.setType(view.elementType());
+			return view.elementType();
+		}
+
 		// Check that the array expression is actually an array type
 		if (!(arrayType instanceof ArrayType array)) {
 			errorCollector.addError(new CompilerError(
@@ -646,6 +973,14 @@ public class TypeChecker implements ASTVisitor<Type> {
 			return PrimitiveType.INT; // fallback
 		}
 
+		checkArrayIndexType(expr, indexType);
+
+		Type elementType = array.elementType();
+		expr.setType(elementType);
+		return elementType;
+	}
+
+	private void checkArrayIndexType(ArrayIndexExpression expr, Type indexType) {
 		// Check that index is integer type
 		if (!(indexType instanceof PrimitiveType) || !((PrimitiveType) indexType).isInteger()) {
 			errorCollector.addError(new CompilerError(
@@ -654,10 +989,6 @@ public class TypeChecker implements ASTVisitor<Type> {
 					expr.line(), expr.column()
 			));
 		}
-
-		Type elementType = array.elementType();
-		expr.setType(elementType);
-		return elementType;
 	}
 
 	@Override
@@ -676,6 +1007,14 @@ public class TypeChecker implements ASTVisitor<Type> {
 	public Type visitAddressOfExpression(AddressOfExpression expr) {
 		Type operandType = expr.getOperand().accept(this);
 
+		if (expr.getOperand() instanceof ArrayIndexExpression element && element.getArray().getType() instanceof MappedViewType) {
+			errorCollector.addError(new CompilerError(
+					"Cannot take the address of an element of a mapped view",
+					ErrorCode.TYPE_ERROR,
+					expr.line(), expr.column()
+			));
+		}
+
 		// Check that operand is an lvalue (can be addressed)
 		if (!isLValue(expr.getOperand())) {
 			errorCollector.addError(new CompilerError(
@@ -709,13 +1048,70 @@ public class TypeChecker implements ASTVisitor<Type> {
 		return pointedType;
 	}
 
+	@Override
+	public Type visitFieldAccessExpression(FieldAccessExpression expr) {
+		Type objectType = expr.getObject() instanceof ArrayIndexExpression element
+				? checkArrayIndex(element)
+				: expr.getObject().accept(this);
+
+		if (!(objectType instanceof StructType structType)) {
+			errorCollector.addError(new CompilerError(
+					"Cannot access field '" + expr.getFieldName() + "' of non-struct type " + objectType,
+					ErrorCode.TYPE_MISMATCH,
+					expr.line(), expr.column()
+			));
+			return PrimitiveType.INT; // fallback
+		}
+
+		Type fieldType = getFieldType(structType, expr.getFieldName(), expr);
+		expr.setType(fieldType);
+		return fieldType;
+	}
+
+	@Override
+	public Type visitRangeExpression(RangeExpression expr) {
+		// A range counts in long if any of its parts is long, otherwise in int
+		PrimitiveType elementType = PrimitiveType.INT;
+		for (Expression part : new Expression[] { expr.getStart(), expr.getEnd(), expr.getStep() }) {
+			if (part == null) {
+				continue;
+			}
+			Type partType = part.accept(this);
+			if (!(partType instanceof PrimitiveType primitive) || !primitive.isInteger()) {
+				errorCollector.addError(new CompilerError(
+						"Range bounds and step must be integers, got " + partType,
+						ErrorCode.TYPE_MISMATCH,
+						part.line(), part.column()
+				));
+			}
+			else if (primitive.size() > 4) {
+				elementType = PrimitiveType.LONG;
+			}
+		}
+
+		Long step = expr.getConstantStep();
+		if (step != null && step == 0) {
+			errorCollector.addError(new CompilerError(
+					"Range step cannot be zero",
+					ErrorCode.TYPE_ERROR,
+					expr.line(), expr.column()
+			));
+		}
+
+		RangeType rangeType = new RangeType(elementType);
+		expr.setType(rangeType);
+		return rangeType;
+	}
+
 	/**
 	 * Check if an expression is an lvalue (can be assigned to or addressed).
 	 */
 	private boolean isLValue(Expression expr) {
 		return expr instanceof IdentifierExpression ||
 				expr instanceof ArrayIndexExpression ||
-				expr instanceof DereferenceExpression;
+				expr instanceof DereferenceExpression ||
+				expr instanceof QualifiedIdentifier ||
+				expr instanceof FieldAccessExpression;
 	}
 
 	// ===== TYPE COMPATIBILITY AND UTILITY METHODS =====
@@ -781,6 +1177,9 @@ public class TypeChecker implements ASTVisitor<Type> {
 		if (leftType == null || rightType == null) {
 			return null;
 		}
+		if (leftType instanceof PointerType || rightType instanceof PointerType) {
+			return getPointerOperatorResultType(leftType, rightType, operator);
+		}
 
 		return switch (operator) {
 			// Arithmetic operators
@@ -821,6 +1220,25 @@ public class TypeChecker implements ASTVisitor<Type> {
 		};
 	}
 
+	/**
+	 * Pointers into arrays move by whole elements: p + n and p - n are pointers, and p - q is
+	 * the number of elements between two pointers. Pointers of the same type can be compared.
+	 */
+	private Type getPointerOperatorResultType(Type leftType, Type rightType, String operator) {
+		boolean leftOffset = leftType instanceof PrimitiveType left && left.isInteger();
+		boolean rightOffset = rightType instanceof PrimitiveType right && right.isInteger();
+		boolean samePointers = leftType instanceof PointerType && leftType.equals(rightType);
+
+		return switch (operator) {
+			case "+" -> leftType instanceof PointerType && rightOffset ? leftType
+					: rightType instanceof PointerType && leftOffset ? rightType : null;
+			case "-" -> leftType instanceof PointerType && rightOffset ? leftType
+					: samePointers ? PrimitiveType.INT : null;
+			case "<", "<=", ">", ">=", "==", "!=" -> samePointers ? PrimitiveType.BOOL : null;
+			default -> null;
+		};
+	}
+
 	/**
 	 * Get the result type of a unary operation.
 	 */
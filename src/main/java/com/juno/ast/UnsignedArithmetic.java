@@ -0,0 +1,69 @@
+package com.juno.ast;
+
+import com.juno.types.PrimitiveType;
+import com.juno.types.Type;
+
+/**
+ * Typing rules for operations on unsigned integers, shared by the code generator and the
+ * constant evaluator so that compiled and folded code agree.
+ * <p>
+ * ubyte and ushort values are kept zero-extended in a JVM int, so they compare and divide like
+ * ints and only need the results of +, - and * masked. uint and ulong use all the bits of a JVM
+ * int or long: +, - and * are the signed instructions, while division, remainder and ordering go
+ * through Integer and Long's divideUnsigned, remainderUnsigned and compareUnsigned, which HotSpot
+ * compiles to plain machine instructions.
+ */
+final class UnsignedArithmetic {
+
+	private UnsignedArithmetic() {
+	}
+
+	/**
+	 * The type an operation is carried out in when an operand is unsigned, or null when the
+	 * signed rules apply. Arithmetic operands have the same type (the type checker requires it).
+	 * Comparisons follow C: operands narrower than int compare as ints, floating point operands
+	 * compare as floating point, and otherwise the widest operand decides, unsigned if any operand
+	 * of that width is unsigned.
+	 */
+	static PrimitiveType operationType(Type leftType, Type rightType, String operator) {
+		if (!(leftType instanceof PrimitiveType left) || !(rightType instanceof PrimitiveType right)
+				|| !(left.isUnsigned() || right.isUnsigned()) || !left.isNumeric() || !right.isNumeric()) {
+			return null;
+		}
+		return switch (operator) {
+			case "+", "-", "*", "/", "%" -> left.equals(right) ? left : null;
+			case "<", "<=", ">", ">=", "==", "!=" -> comparisonType(left, right);
+			default -> null;
+		};
+	}
+
+	private static PrimitiveType comparisonType(PrimitiveType left, PrimitiveType right) {
+		if (left.isFloatingPoint() || right.isFloatingPoint()) {
+			return left.equals(PrimitiveType.DOUBLE) || right.equals(PrimitiveType.DOUBLE) ? PrimitiveType.DOUBLE : PrimitiveType.FLOAT;
+		}
+		int width = Math.max(left.size(), right.size());
+		if (width < 4) {
+			return PrimitiveType.INT;
+		}
+		boolean unsigned = (left.size() == width && left.isUnsigned()) || (right.size() == width && right.isUnsigned());
+		if (width == 4) {
+			return unsigned ? PrimitiveType.UINT : PrimitiveType.INT;
+		}
+		return unsigned ? PrimitiveType.ULONG : PrimitiveType.LONG;
+	}
+
+	/**
+	 * Whether values of the type are kept zero-extended in an int and must be masked after
+	 * arithmetic and after loads from byte and short storage.
+	 */
+	static boolean isNarrowUnsigned(Type type) {
+		return PrimitiveType.UBYTE.equals(type) || PrimitiveType.USHORT.equals(type);
+	}
+
+	/**
+	 * The mask that keeps a narrow unsigned value in range.
+	 */
+	static int mask(Type type) {
+		return PrimitiveType.UBYTE.equals(type) ? 0xFF : 0xFFFF;
+	}
+}
@@ -0,0 +1,679 @@
+package com.juno.codegen;
+
+import org.objectweb.asm.tree.*;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Peephole optimizer over the instruction list of a generated method.
+ * <p>
+ * The code generator emits straightforward stack code: assignments duplicate the value they store
+ * and expression statements pop it again, comparisons materialize 0/1 only to test it right away,
+ * and literals are pushed with whatever instruction was convenient. This pass cleans that up:
+ * <ul>
+ *   <li>constants use the shortest push form and absorb conversions and negation</li>
+ *   <li>redundant stack traffic (DUP/POP pairs, values pushed only to be popped) is removed</li>
+ *   <li>redundant loads and stores are removed, and stores to locals that are never read are dropped</li>
+ *   <li>identity conversions such as I2L followed by L2I are removed</li>
+ *   <li>jump chains are threaded, booleans that are tested right after being materialized become
+ *       direct jumps, and jumps to the next instruction disappear</li>
+ *   <li>unreachable instructions and unused labels are removed</li>
+ * </ul>
+ * Rules are applied until the method no longer changes. Max stack, max locals and stack map frames
+ * are left to the {@link org.objectweb.asm.ClassWriter}, which recomputes them.
+ */
+public class PeepholeOptimizer {
+
+	private static final int MAX_PASSES = 32;
+	private static final int MAX_JUMP_HOPS = 16;
+
+	private int instructionsBefore = 0;
+	private int instructionsAfter = 0;
+
+	// State of the method being optimized
+	private InsnList instructions;
+	private Set<AbstractInsnNode> removed;
+	private boolean changed;
+
+	/**
+	 * Optimize a method in place. Returns true if any instruction was changed.
+	 */
+	public boolean optimize(MethodNode method) {
+		instructions = method.instructions;
+		instructionsBefore += countInstructions();
+
+		boolean modified = false;
+		int passes = 0;
+		do {
+			changed = false;
+			removed = Collections.newSetFromMap(new IdentityHashMap<>());
+
+			simplifyConstants();
+			simplifyStackOperations();
+			if (method.localVariables == null || method.localVariables.isEmpty()) {
+				simplifyLocals();
+			}
+			simplifyBranches();
+			removeUnreachableCode(method);
+			removeUnusedLabels(method);
+
+			modified |= changed;
+		} while (changed && ++passes < MAX_PASSES);
+
+		instructionsAfter += countInstructions();
+		instructions = null;
+		removed = null;
+		return modified;
+	}
+
+	public int getInstructionsBefore() {
+		return instructionsBefore;
+	}
+
+	public int getInstructionsAfter() {
+		return instructionsAfter;
+	}
+
+	/**
+	 * One-line summary of the instructions removed so far, for verbose compiler output.
+	 */
+	public String summary() {
+		int saved = instructionsBefore - instructionsAfter;
+		return "Peephole removed " + saved + " of " + instructionsBefore + " instruction" +
+				(instructionsBefore == 1 ? "" : "s");
+	}
+
+	// ===== CONSTANTS =====
+
+	private void simplifyConstants() {
+		for (AbstractInsnNode node : instructions.toArray()) {
+			if (removed.contains(node)) {
+				continue;
+			}
+			AbstractInsnNode next = nextInsn(node);
+			int nextOpcode = next != null ? next.getOpcode() : -1;
+
+			Integer intValue = intConstant(node);
+			if (intValue != null) {
+				int value = intValue;
+				switch (nextOpcode) {
+					case I2L -> fold(node, next, pushLong(value));
+					case I2F -> fold(node, next, pushFloat(value));
+					case I2D -> fold(node, next, pushDouble(value));
+					case INEG -> fold(node, next, pushInt(-value));
+					case I2B -> fold(node, next, pushInt((byte) value));
+					case I2S -> fold(node, next, pushInt((short) value));
+					case I2C -> fold(node, next, pushInt((char) value));
+					default -> {
+						if (pushInt(value).getOpcode() != node.getOpcode()) {
+							replace(node, pushInt(value));
+						}
+					}
+				}
+				continue;
+			}
+
+			Object constant = constantValue(node);
+			if (constant instanceof Long value) {
+				switch (nextOpcode) {
+					case L2I -> fold(node, next, pushInt((int) (long) value));
+					case LNEG -> fold(node, next, pushLong(-value));
+					default -> replaceIfShorter(node, pushLong(value));
+				}
+			}
+			else if (constant instanceof Float value) {
+				switch (nextOpcode) {
+					case F2D -> fold(node, next, pushDouble(value));
+					case FNEG -> fold(node, next, pushFloat(-value));
+					default -> replaceIfShorter(node, pushFloat(value));
+				}
+			}
+			else if (constant instanceof Double value) {
+				switch (nextOpcode) {
+					case D2F -> fold(node, next, pushFloat((float) (double) value));
+					case DNEG -> fold(node, next, pushDouble(-value));
+					default -> replaceIfShorter(node, pushDouble(value));
+				}
+			}
+		}
+	}
+
+	private void fold(AbstractInsnNode constant, AbstractInsnNode operation, AbstractInsnNode result) {
+		replace(constant, result);
+		remove(operation);
+	}
+
+	private void replaceIfShorter(AbstractInsnNode node, AbstractInsnNode shortest) {
+		if (shortest.getOpcode() != node.getOpcode()) {
+			replace(node, shortest);
+		}
+	}
+
+	static AbstractInsnNode pushInt(int value) {
+		if (value >= -1 && value <= 5) {
+			return new InsnNode(ICONST_0 + value);
+		}
+		if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+			return new IntInsnNode(BIPUSH, value);
+		}
+		if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+			return new IntInsnNode(SIPUSH, value);
+		}
+		return new LdcInsnNode(value);
+	}
+
+	static AbstractInsnNode pushLong(long value) {
+		if (value == 0L || value == 1L) {
+			return new InsnNode(LCONST_0 + (int) value);
+		}
+		return new LdcInsnNode(value);
+	}
+
+	static AbstractInsnNode pushFloat(float value) {
+		// Compare bit patterns so that -0.0f keeps its sign
+		int bits = Float.floatToRawIntBits(value);
+		if (bits == Float.floatToRawIntBits(0f) || bits == Float.floatToRawIntBits(1f) ||
+				bits == Float.floatToRawIntBits(2f)) {
+			return new InsnNode(FCONST_0 + (int) value);
+		}
+		return new LdcInsnNode(value);
+	}
+
+	static AbstractInsnNode pushDouble(double value) {
+		long bits = Double.doubleToRawLongBits(value);
+		if (bits == Double.doubleToRawLongBits(0d) || bits == Double.doubleToRawLongBits(1d)) {
+			return new InsnNode(DCONST_0 + (int) value);
+		}
+		return new LdcInsnNode(value);
+	}
+
+	/**
+	 * Value of an instruction that pushes an int constant, or null.
+	 */
+	private static Integer intConstant(AbstractInsnNode node) {
+		int opcode = node.getOpcode();
+		if (opcode >= ICONST_M1 && opcode <= ICONST_5) {
+			return opcode - ICONST_0;
+		}
+		if (opcode == BIPUSH || opcode == SIPUSH) {
+			return ((IntInsnNode) node).operand;
+		}
+		if (node instanceof LdcInsnNode ldc && ldc.cst instanceof Integer value) {
+			return value;
+		}
+		return null;
+	}
+
+	/**
+	 * Value of an instruction that pushes a long, float, double or string constant, or null.
+	 */
+	private static Object constantValue(AbstractInsnNode node) {
+		int opcode = node.getOpcode();
+		if (opcode == LCONST_0 || opcode == LCONST_1) {
+			return (long) (opcode - LCONST_0);
+		}
+		if (opcode >= FCONST_0 && opcode <= FCONST_2) {
+			return (float) (opcode - FCONST_0);
+		}
+		if (opcode == DCONST_0 || opcode == DCONST_1) {
+			return (double) (opcode - DCONST_0);
+		}
+		if (node instanceof LdcInsnNode ldc) {
+			return ldc.cst;
+		}
+		return null;
+	}
+
+	// ===== STACK OPERATIONS =====
+
+	private void simplifyStackOperations() {
+		for (AbstractInsnNode node : instructions.toArray()) {
+			if (removed.contains(node)) {
+				continue;
+			}
+			AbstractInsnNode next = nextInsn(node);
+			if (next == null) {
+				continue;
+			}
+			int opcode = node.getOpcode();
+			int nextOpcode = next.getOpcode();
+
+			// Values pushed only to be popped again: DUP;POP, ILOAD;POP, LCONST_0;POP2, ...
+			int size = opcode == DUP ? 1 : opcode == DUP2 ? 2 : pushSize(node);
+			if (size > 0 && nextOpcode == (size == 1 ? POP : POP2)) {
+				remove(node);
+				remove(next);
+				continue;
+			}
+
+			// Assignment used as a statement: DUP;ISTORE n;POP -> ISTORE n
+			if (opcode == DUP || opcode == DUP2) {
+				AbstractInsnNode after = nextInsn(next);
+				if (after != null && consumedSize(next) == (opcode == DUP ? 1 : 2) &&
+						after.getOpcode() == (opcode == DUP ? POP : POP2)) {
+					remove(node);
+					remove(after);
+				}
+				continue;
+			}
+
+			// Conversions that are undone right away
+			if ((opcode == I2L && nextOpcode == L2I) || (opcode == I2D && nextOpcode == D2I) ||
+					(opcode == F2D && nextOpcode == D2F)) {
+				remove(node);
+				remove(next);
+				continue;
+			}
+
+			// Two pushes in the wrong order: ILOAD a;ILOAD b;SWAP -> ILOAD b;ILOAD a
+			AbstractInsnNode after = nextInsn(next);
+			if (after != null && after.getOpcode() == SWAP && pushSize(node) == 1 && pushSize(next) == 1) {
+				instructions.remove(node);
+				instructions.insert(next, node);
+				remove(after);
+				changed = true;
+				continue;
+			}
+
+			// String.valueOf(Object) applied to a string constant
+			if (isStringValueOf(next) && isStringConstant(node)) {
+				remove(next);
+			}
+		}
+	}
+
+	/**
+	 * Number of stack slots pushed by an instruction without side effects, or -1.
+	 */
+	private static int pushSize(AbstractInsnNode node) {
+		int opcode = node.getOpcode();
+		switch (opcode) {
+			case ACONST_NULL, ICONST_M1, ICONST_0, ICONST_1, ICONST_2, ICONST_3, ICONST_4, ICONST_5,
+					 FCONST_0, FCONST_1, FCONST_2, BIPUSH, SIPUSH, ILOAD, FLOAD, ALOAD:
+				return 1;
+			case LCONST_0, LCONST_1, DCONST_0, DCONST_1, LLOAD, DLOAD:
+				return 2;
+			case LDC:
+				Object cst = ((LdcInsnNode) node).cst;
+				if (cst instanceof Long || cst instanceof Double) {
+					return 2;
+				}
+				return cst instanceof Integer || cst instanceof Float || cst instanceof String ? 1 : -1;
+			default:
+				return -1;
+		}
+	}
+
+	/**
+	 * Number of stack slots consumed by a store, or -1 for other instructions.
+	 */
+	private static int consumedSize(AbstractInsnNode node) {
+		int opcode = node.getOpcode();
+		if (opcode >= ISTORE && opcode <= ASTORE) {
+			return opcode == LSTORE || opcode == DSTORE ? 2 : 1;
+		}
+		if (opcode == PUTSTATIC) {
+			String desc = ((FieldInsnNode) node).desc;
+			return desc.equals("J") || desc.equals("D") ? 2 : 1;
+		}
+		return -1;
+	}
+
+	private static boolean isStringValueOf(AbstractInsnNode node) {
+		return node instanceof MethodInsnNode call && call.getOpcode() == INVOKESTATIC &&
+				call.owner.equals("java/lang/String") && call.name.equals("valueOf") &&
+				call.desc.equals("(Ljava/lang/Object;)Ljava/lang/String;");
+	}
+
+	/**
+	 * Only a string constant is known not to be null. A call that returns a string may return
+	 * null, which String.valueOf turns into "null".
+	 */
+	private static boolean isStringConstant(AbstractInsnNode node) {
+		return node instanceof LdcInsnNode ldc && ldc.cst instanceof String;
+	}
+
+	// ===== LOCAL VARIABLES =====
+
+	private void simplifyLocals() {
+		Map<Integer, Integer> loads = new HashMap<>();
+		Map<Integer, Integer> increments = new HashMap<>();
+		for (AbstractInsnNode node : instructions) {
+			if (node instanceof VarInsnNode var && isLoad(var.getOpcode())) {
+				loads.merge(var.var, 1, Integer::sum);
+			}
+			else if (node instanceof IincInsnNode iinc) {
+				increments.merge(iinc.var, 1, Integer::sum);
+			}
+		}
+
+		for (AbstractInsnNode node : instructions.toArray()) {
+			if (removed.contains(node)) {
+				continue;
+			}
+			if (node instanceof IincInsnNode iinc) {
+				if (!loads.containsKey(iinc.var)) {
+					remove(node);
+				}
+				continue;
+			}
+			if (!(node instanceof VarInsnNode var)) {
+				continue;
+			}
+			int opcode = var.getOpcode();
+			AbstractInsnNode next = nextInsn(node);
+			boolean wide = opcode == LLOAD || opcode == DLOAD || opcode == LSTORE || opcode == DSTORE;
+
+			if (isLoad(opcode)) {
+				// ILOAD n;ISTORE n is a self-assignment; ILOAD n;ILOAD n reads the same value twice
+				if (next instanceof VarInsnNode nextVar && nextVar.var == var.var) {
+					if (nextVar.getOpcode() == opcode + (ISTORE - ILOAD)) {
+						remove(node);
+						remove(next);
+					}
+					else if (nextVar.getOpcode() == opcode) {
+						replace(next, new InsnNode(wide ? DUP2 : DUP));
+					}
+				}
+				continue;
+			}
+			if (opcode < ISTORE || opcode > ASTORE) {
+				continue;
+			}
+
+			int loadCount = loads.getOrDefault(var.var, 0);
+			if (loadCount == 0) {
+				// The stored value is never read
+				replace(node, new InsnNode(wide ? POP2 : POP));
+				continue;
+			}
+			if (next instanceof VarInsnNode nextVar && nextVar.var == var.var &&
+					nextVar.getOpcode() == opcode - (ISTORE - ILOAD)) {
+				if (loadCount == 1 && !increments.containsKey(var.var)) {
+					// The only read of the local follows its store, so the value can stay on the stack
+					remove(node);
+					remove(next);
+				}
+				else {
+					instructions.insertBefore(node, new InsnNode(wide ? DUP2 : DUP));
+					remove(next);
+				}
+			}
+		}
+	}
+
+	private static boolean isLoad(int opcode) {
+		return opcode >= ILOAD && opcode <= ALOAD;
+	}
+
+	// ===== BRANCHES =====
+
+	private void simplifyBranches() {
+		for (AbstractInsnNode node : instructions.toArray()) {
+			if (removed.contains(node)) {
+				continue;
+			}
+
+			// A boolean constant that flows straight into IFEQ/IFNE decides the branch statically
+			Integer constant = intConstant(node);
+			if (constant != null && (constant == 0 || constant == 1)) {
+				AbstractInsnNode test = followControl(node);
+				if (test != null && (test.getOpcode() == IFEQ || test.getOpcode() == IFNE)) {
+					boolean taken = (test.getOpcode() == IFEQ) == (constant == 0);
+					LabelNode target = taken ? ((JumpInsnNode) test).label : labelAfter(test);
+					replace(node, new JumpInsnNode(GOTO, target));
+				}
+				continue;
+			}
+
+			if (!(node instanceof JumpInsnNode jump)) {
+				continue;
+			}
+
+			// Thread jumps that land on another GOTO
+			LabelNode target = finalTarget(jump.label);
+			if (target != jump.label) {
+				jump.label = target;
+				changed = true;
+			}
+
+			AbstractInsnNode destination = firstInsnAfter(jump.label);
+			if (jump.getOpcode() == GOTO) {
+				if (destination != null && isExit(destination.getOpcode()) && destination instanceof InsnNode) {
+					// GOTO to a return: return directly
+					replace(node, new InsnNode(destination.getOpcode()));
+				}
+				else if (fallsThroughTo(node, jump.label)) {
+					remove(node);
+				}
+				continue;
+			}
+
+			if (fallsThroughTo(node, jump.label)) {
+				// Conditional jump to the next instruction: only the operands need to go
+				replace(node, new InsnNode(conditionOperands(jump.getOpcode()) == 1 ? POP : POP2));
+				continue;
+			}
+
+			// IFEQ L1;GOTO L2;L1: -> IFNE L2;L1:
+			AbstractInsnNode next = nextInsn(node);
+			if (next != null && next.getOpcode() == GOTO && fallsThroughTo(next, jump.label)) {
+				jump.setOpcode(invert(jump.getOpcode()));
+				jump.label = ((JumpInsnNode) next).label;
+				remove(next);
+			}
+		}
+	}
+
+	/**
+	 * The first instruction executed after {@code node}, skipping labels and following GOTOs.
+	 */
+	private AbstractInsnNode followControl(AbstractInsnNode node) {
+		AbstractInsnNode current = firstInsnFrom(node.getNext());
+		for (int hops = 0; current != null && current.getOpcode() == GOTO && hops < MAX_JUMP_HOPS; hops++) {
+			current = firstInsnAfter(((JumpInsnNode) current).label);
+		}
+		return current;
+	}
+
+	private LabelNode finalTarget(LabelNode label) {
+		LabelNode target = label;
+		for (int hops = 0; hops < MAX_JUMP_HOPS; hops++) {
+			AbstractInsnNode destination = firstInsnAfter(target);
+			if (destination == null || destination.getOpcode() != GOTO) {
+				break;
+			}
+			LabelNode next = ((JumpInsnNode) destination).label;
+			if (next == target) {
+				break;
+			}
+			target = next;
+		}
+		return target;
+	}
+
+	/**
+	 * Label placed directly after {@code node}, inserting one if necessary.
+	 */
+	private LabelNode labelAfter(AbstractInsnNode node) {
+		if (node.getNext() instanceof LabelNode label) {
+			return label;
+		}
+		LabelNode label = new LabelNode();
+		instructions.insert(node, label);
+		return label;
+	}
+
+	/**
+	 * True if {@code label} follows {@code node} with nothing but labels and debug nodes in between.
+	 */
+	private static boolean fallsThroughTo(AbstractInsnNode node, LabelNode label) {
+		for (AbstractInsnNode current = node.getNext(); current != null && current.getOpcode() < 0;
+				 current = current.getNext()) {
+			if (current == label) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int conditionOperands(int opcode) {
+		return opcode >= IF_ICMPEQ && opcode <= IF_ACMPNE ? 2 : 1;
+	}
+
+	private static int invert(int opcode) {
+		return switch (opcode) {
+			case IFNULL -> IFNONNULL;
+			case IFNONNULL -> IFNULL;
+			// IFEQ..IF_ACMPNE come in complementary pairs starting at an odd opcode
+			default -> (opcode - IFEQ) % 2 == 0 ? opcode + 1 : opcode - 1;
+		};
+	}
+
+	private static boolean isExit(int opcode) {
+		return (opcode >= IRETURN && opcode <= RETURN) || opcode == ATHROW;
+	}
+
+	// ===== UNREACHABLE CODE =====
+
+	private void removeUnreachableCode(MethodNode method) {
+		if (instructions.size() == 0) {
+			return;
+		}
+
+		Set<AbstractInsnNode> reachable = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<AbstractInsnNode> worklist = new ArrayDeque<>();
+		worklist.push(instructions.getFirst());
+		for (TryCatchBlockNode handler : method.tryCatchBlocks) {
+			worklist.push(handler.handler);
+		}
+
+		while (!worklist.isEmpty()) {
+			AbstractInsnNode current = worklist.pop();
+			while (current != null && reachable.add(current)) {
+				int opcode = current.getOpcode();
+				if (current instanceof JumpInsnNode jump) {
+					worklist.push(jump.label);
+				}
+				else if (current instanceof TableSwitchInsnNode table) {
+					worklist.push(table.dflt);
+					table.labels.forEach(worklist::push);
+				}
+				else if (current instanceof LookupSwitchInsnNode lookup) {
+					worklist.push(lookup.dflt);
+					lookup.labels.forEach(worklist::push);
+				}
+				if (opcode == GOTO || isExit(opcode) || current instanceof TableSwitchInsnNode ||
+						current instanceof LookupSwitchInsnNode) {
+					break;
+				}
+				current = current.getNext();
+			}
+		}
+
+		for (AbstractInsnNode node : instructions.toArray()) {
+			if (node.getOpcode() >= 0 && !reachable.contains(node)) {
+				remove(node);
+			}
+		}
+	}
+
+	private void removeUnusedLabels(MethodNode method) {
+		Set<LabelNode> used = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (AbstractInsnNode node : instructions) {
+			if (node instanceof JumpInsnNode jump) {
+				used.add(jump.label);
+			}
+			else if (node instanceof TableSwitchInsnNode table) {
+				used.add(table.dflt);
+				used.addAll(table.labels);
+			}
+			else if (node instanceof LookupSwitchInsnNode lookup) {
+				used.add(lookup.dflt);
+				used.addAll(lookup.labels);
+			}
+			else if (node instanceof LineNumberNode line) {
+				used.add(line.start);
+			}
+		}
+		for (TryCatchBlockNode block : method.tryCatchBlocks) {
+			used.add(block.start);
+			used.add(block.end);
+			used.add(block.handler);
+		}
+		if (method.localVariables != null) {
+			for (LocalVariableNode local : method.localVariables) {
+				used.add(local.start);
+				used.add(local.end);
+			}
+		}
+
+		// Fewer labels means longer straight-line runs for the other rules
+		for (AbstractInsnNode node : instructions.toArray()) {
+			if (node instanceof LabelNode label && !used.contains(label)) {
+				instructions.remove(label);
+				changed = true;
+			}
+		}
+	}
+
+	// ===== HELPERS =====
+
+	/**
+	 * The next instruction after {@code node}, or null if a label (a possible jump target) or the end
+	 * of the method comes first.
+	 */
+	private static AbstractInsnNode nextInsn(AbstractInsnNode node) {
+		for (AbstractInsnNode current = node.getNext(); current != null; current = current.getNext()) {
+			if (current instanceof LabelNode) {
+				return null;
+			}
+			if (current.getOpcode() >= 0) {
+				return current;
+			}
+		}
+		return null;
+	}
+
+	private static AbstractInsnNode firstInsnAfter(LabelNode label) {
+		return firstInsnFrom(label.getNext());
+	}
+
+	private static AbstractInsnNode firstInsnFrom(AbstractInsnNode node) {
+		AbstractInsnNode current = node;
+		while (current != null && current.getOpcode() < 0) {
+			current = current.getNext();
+		}
+		return current;
+	}
+
+	private void remove(AbstractInsnNode node) {
+		instructions.remove(node);
+		removed.add(node);
+		changed = true;
+	}
+
+	private void replace(AbstractInsnNode node, AbstractInsnNode replacement) {
+		instructions.set(node, replacement);
+		removed.add(node);
+		changed = true;
+	}
+
+	private int countInstructions() {
+		int count = 0;
+		for (AbstractInsnNode node : instructions) {
+			if (node.getOpcode() >= 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+}
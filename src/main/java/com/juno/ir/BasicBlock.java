@@ -0,0 +1,134 @@
+package com.juno.ir;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A straight-line sequence of instructions: phis first, then ordinary instructions, then one terminator.
+ */
+public class BasicBlock {
+
+	private final int id;
+	private final List<Phi> phis = new ArrayList<>();
+	private final List<Instruction> instructions = new ArrayList<>();
+	private final List<BasicBlock> predecessors = new ArrayList<>();
+	private Terminator terminator;
+
+	BasicBlock(int id) {
+		this.id = id;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public String getName() {
+		return "b" + id;
+	}
+
+	public List<Phi> getPhis() {
+		return phis;
+	}
+
+	public List<Instruction> getInstructions() {
+		return instructions;
+	}
+
+	public List<BasicBlock> getPredecessors() {
+		return Collections.unmodifiableList(predecessors);
+	}
+
+	public List<BasicBlock> getSuccessors() {
+		return terminator != null ? terminator.getSuccessors() : List.of();
+	}
+
+	public Terminator getTerminator() {
+		return terminator;
+	}
+
+	public boolean isTerminated() {
+		return terminator != null;
+	}
+
+	public void addPhi(Phi phi) {
+		phi.setBlock(this);
+		phis.add(phi);
+	}
+
+	public void append(Instruction instruction) {
+		if (instruction instanceof Phi || instruction instanceof Terminator) {
+			throw new IllegalArgumentException("Use addPhi/setTerminator for " + instruction.getClass().getSimpleName());
+		}
+		if (terminator != null) {
+			throw new IllegalStateException("Block " + getName() + " is already terminated");
+		}
+		instruction.setBlock(this);
+		instructions.add(instruction);
+	}
+
+	/**
+	 * Add an instruction at the end of a block that is already terminated.
+	 */
+	void insertBeforeTerminator(Instruction instruction) {
+		instruction.setBlock(this);
+		instructions.add(instruction);
+	}
+
+	/**
+	 * Add an instruction right after {@code anchor}, which must be an ordinary instruction of this block.
+	 */
+	void insertAfter(Instruction anchor, Instruction instruction) {
+		int index = instructions.indexOf(anchor);
+		if (index < 0) {
+			throw new IllegalArgumentException(anchor + " is not an instruction of " + getName());
+		}
+		instruction.setBlock(this);
+		instructions.add(index + 1, instruction);
+	}
+
+	/**
+	 * End the block and record it as a predecessor of its successors.
+	 */
+	public void setTerminator(Terminator terminator) {
+		if (this.terminator != null) {
+			throw new IllegalStateException("Block " + getName() + " is already terminated");
+		}
+		terminator.setBlock(this);
+		this.terminator = terminator;
+		for (BasicBlock successor : terminator.getSuccessors()) {
+			successor.predecessors.add(this);
+		}
+	}
+
+	/**
+	 * Remove an incoming edge together with the matching phi operands.
+	 */
+	void removePredecessor(BasicBlock predecessor) {
+		int index;
+		while ((index = predecessors.indexOf(predecessor)) >= 0) {
+			predecessors.remove(index);
+			for (Phi phi : phis) {
+				phi.removeOperandAt(index);
+			}
+		}
+	}
+
+	/**
+	 * Turn this empty block into the middle of the edge {@code predecessor -> successor}. The block takes
+	 * the predecessor's place in the successor's predecessor list, so phi operands stay aligned.
+	 */
+	void placeOnEdge(BasicBlock predecessor, BasicBlock successor) {
+		predecessor.terminator.replaceSuccessor(successor, this);
+		predecessors.add(predecessor);
+		JumpInstruction jump = new JumpInstruction(successor);
+		jump.setBlock(this);
+		terminator = jump;
+		successor.predecessors.replaceAll(block -> block == predecessor ? this : block);
+	}
+
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
@@ -0,0 +1,69 @@
+package com.juno.ir;
+
+import java.util.List;
+
+/**
+ * Arithmetic on two operands of the instruction's type.
+ */
+public final class BinaryInstruction extends Instruction {
+
+	public enum Operator {
+		ADD("add", true), SUB("sub", false), MUL("mul", true), DIV("div", false), REM("rem", false);
+
+		private final String mnemonic;
+		private final boolean commutative;
+
+		Operator(String mnemonic, boolean commutative) {
+			this.mnemonic = mnemonic;
+			this.commutative = commutative;
+		}
+
+		public String mnemonic() {
+			return mnemonic;
+		}
+	}
+
+	private final Operator operator;
+
+	public BinaryInstruction(Operator operator, Value left, Value right) {
+		super(left.getType(), left, right);
+		this.operator = operator;
+	}
+
+	public Operator getOperator() {
+		return operator;
+	}
+
+	public Value getLeft() {
+		return getOperand(0);
+	}
+
+	public Value getRight() {
+		return getOperand(1);
+	}
+
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+
+	@Override
+	public boolean canThrow() {
+		return (operator == Operator.DIV || operator == Operator.REM) && !getType().isFloatingPoint();
+	}
+
+	@Override
+	public boolean isCommutative() {
+		return operator.commutative;
+	}
+
+	@Override
+	public Object operationKey() {
+		return List.of(getClass(), getType(), operator);
+	}
+
+	@Override
+	public <T> T accept(InstructionVisitor<T> visitor) {
+		return visitor.visitBinary(this);
+	}
+}
@@ -0,0 +1,53 @@
+package com.juno.ir;
+
+import java.util.List;
+
+/**
+ * Two-way branch on a bool condition.
+ */
+public final class BranchInstruction extends Terminator {
+
+	private BasicBlock ifTrue;
+	private BasicBlock ifFalse;
+
+	public BranchInstruction(Value condition, BasicBlock ifTrue, BasicBlock ifFalse) {
+		super(condition);
+		if (ifTrue == ifFalse) {
+			throw new IllegalArgumentException("Branch targets must differ; use a jump");
+		}
+		this.ifTrue = ifTrue;
+		this.ifFalse = ifFalse;
+	}
+
+	public Value getCondition() {
+		return getOperand(0);
+	}
+
+	public BasicBlock getIfTrue() {
+		return ifTrue;
+	}
+
+	public BasicBlock getIfFalse() {
+		return ifFalse;
+	}
+
+	@Override
+	public List<BasicBlock> getSuccessors() {
+		return List.of(ifTrue, ifFalse);
+	}
+
+	@Override
+	void replaceSuccessor(BasicBlock oldTarget, BasicBlock newTarget) {
+		if (ifTrue == oldTarget) {
+			ifTrue = newTarget;
+		}
+		if (ifFalse == oldTarget) {
+			ifFalse = newTarget;
+		}
+	}
+
+	@Override
+	public <T> T accept(InstructionVisitor<T> visitor) {
+		return visitor.visitBranch(this);
+	}
+}
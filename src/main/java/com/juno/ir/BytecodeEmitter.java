@@ -0,0 +1,459 @@
+package com.juno.ir;
+
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Writes a function in SSA form as JVM bytecode.
+ * <p>
+ * Blocks are laid out in reverse postorder. A pure instruction whose only use is a later instruction
+ * of the same block is not stored but emitted in place when that use loads its operands, so
+ * expression trees go straight through the operand stack; every other value is stored in a local
+ * variable slot, shared with values whose lifetimes do not overlap (see {@link SlotAllocator}).
+ * Phis are resolved by copying their operands into the phi's slot at the end of each predecessor,
+ * which is why critical edges are split first. A branch on a comparison that is emitted in place
+ * becomes a single conditional jump.
+ */
+public class BytecodeEmitter implements InstructionVisitor<Void> {
+
+	private static final int[][] CONVERSIONS = {
+			// to:  INT  LONG  FLOAT DOUBLE       from:
+			{NOP, I2L, I2F, I2D},              // INT
+			{L2I, NOP, L2F, L2D},              // LONG
+			{F2I, F2L, NOP, F2D},              // FLOAT
+			{D2I, D2L, D2F, NOP},              // DOUBLE
+	};
+
+	private MethodVisitor mv;
+	private Map<Value, Integer> uses;
+	private final Map<Value, Integer> slots = new IdentityHashMap<>();
+	private final Set<Instruction> inPlace = Collections.newSetFromMap(new IdentityHashMap<>());
+	private final Map<BasicBlock, Label> labels = new HashMap<>();
+	private BasicBlock nextBlock;
+	private int maxLocals;
+
+	/**
+	 * Emit the body of {@code function}; the caller has already called {@code visitCode} and
+	 * calls {@code visitMaxs} afterwards.
+	 */
+	public void emit(Function function, MethodVisitor mv) {
+		this.mv = mv;
+		slots.clear();
+		inPlace.clear();
+		labels.clear();
+
+		function.splitCriticalEdges();
+		List<BasicBlock> order = function.reversePostorder();
+		uses = function.countUses();
+		findInPlaceValues(order);
+		SlotAllocator allocator = new SlotAllocator(function, order, inPlace, uses);
+		slots.putAll(allocator.allocate());
+		maxLocals = allocator.getMaxLocals();
+
+		for (int i = 0; i < order.size(); i++) {
+			BasicBlock block = order.get(i);
+			nextBlock = i + 1 < order.size() ? order.get(i + 1) : null;
+			mv.visitLabel(label(block));
+			for (Instruction instruction : block.getInstructions()) {
+				if (!inPlace.contains(instruction)) {
+					emitStatement(instruction);
+				}
+			}
+			block.getTerminator().accept(this);
+		}
+	}
+
+	/**
+	 * Local variable slots used by the emitted code, parameters included.
+	 */
+	public int getMaxLocals() {
+		return maxLocals;
+	}
+
+	// ===== SETUP =====
+
+	private void findInPlaceValues(List<BasicBlock> order) {
+		for (BasicBlock block : order) {
+			for (Instruction instruction : block.getInstructions()) {
+				markInPlaceOperands(instruction, block);
+			}
+			markInPlaceOperands(block.getTerminator(), block);
+		}
+	}
+
+	private void markInPlaceOperands(Instruction user, BasicBlock block) {
+		for (Value operand : user.getOperands()) {
+			if (operand instanceof Instruction instruction && !(instruction instanceof Phi)
+					&& instruction.getBlock() == block && instruction.isMovable()
+					&& uses.getOrDefault(instruction, 0) == 1) {
+				inPlace.add(instruction);
+			}
+		}
+	}
+
+	private Label label(BasicBlock block) {
+		return labels.computeIfAbsent(block, b -> new Label());
+	}
+
+	// ===== VALUES =====
+
+	/**
+	 * Emit an instruction that is not used in place: store its value, or drop it if nobody uses it.
+	 */
+	private void emitStatement(Instruction instruction) {
+		Integer slot = slots.get(instruction);
+		if (instruction.getType() == IRType.VOID) {
+			instruction.accept(this);
+		}
+		else if (slot != null) {
+			instruction.accept(this);
+			mv.visitVarInsn(instruction.getType().opcode(ISTORE), slot);
+		}
+		else if (!instruction.isMovable()) {
+			instruction.accept(this);
+			mv.visitInsn(instruction.getType().slotSize() == 2 ? POP2 : POP);
+		}
+	}
+
+	/**
+	 * Push a value onto the operand stack.
+	 */
+	private void load(Value value) {
+		if (value instanceof Constant constant) {
+			push(constant);
+		}
+		else if (value instanceof Instruction instruction && inPlace.contains(instruction)) {
+			instruction.accept(this);
+		}
+		else {
+			Integer slot = slots.get(value);
+			if (slot == null) {
+				throw new IllegalStateException("No slot for " + value);
+			}
+			mv.visitVarInsn(value.getType().opcode(ILOAD), slot);
+		}
+	}
+
+	private void push(Constant constant) {
+		Object value = constant.getValue();
+		switch (constant.getType()) {
+			case STRING:
+				if (value == null) {
+					mv.visitInsn(ACONST_NULL);
+				}
+				else {
+					mv.visitLdcInsn(value);
+				}
+				break;
+			case LONG:
+				long l = (Long) value;
+				if (l == 0L || l == 1L) {
+					mv.visitInsn(LCONST_0 + (int) l);
+				}
+				else {
+					mv.visitLdcInsn(l);
+				}
+				break;
+			case FLOAT:
+				float f = (Float) value;
+				if (Float.floatToIntBits(f) == 0 || f == 1.0f || f == 2.0f) {
+					mv.visitInsn(FCONST_0 + (int) f);
+				}
+				else {
+					mv.visitLdcInsn(f);
+				}
+				break;
+			case DOUBLE:
+				double d = (Double) value;
+				if (Double.doubleToLongBits(d) == 0L || d == 1.0) {
+					mv.visitInsn(DCONST_0 + (int) d);
+				}
+				else {
+					mv.visitLdcInsn(d);
+				}
+				break;
+			default:
+				int i = (Integer) value;
+				if (i >= -1 && i <= 5) {
+					mv.visitInsn(ICONST_0 + i);
+				}
+				else if (i >= Byte.MIN_VALUE && i <= Byte.MAX_VALUE) {
+					mv.visitIntInsn(BIPUSH, i);
+				}
+				else if (i >= Short.MIN_VALUE && i <= Short.MAX_VALUE) {
+					mv.visitIntInsn(SIPUSH, i);
+				}
+				else {
+					mv.visitLdcInsn(i);
+				}
+				break;
+		}
+	}
+
+	/**
+	 * Bring an int result back into the range of a byte, short or char.
+	 */
+	private void narrow(IRType type) {
+		switch (type) {
+			case BYTE -> mv.visitInsn(I2B);
+			case SHORT -> mv.visitInsn(I2S);
+			case CHAR -> mv.visitInsn(I2C);
+			default -> {
+			}
+		}
+	}
+
+	// ===== INSTRUCTIONS =====
+
+	@Override
+	public Void visitBinary(BinaryInstruction instruction) {
+		load(instruction.getLeft());
+		load(instruction.getRight());
+		int opcode = switch (instruction.getOperator()) {
+			case ADD -> IADD;
+			case SUB -> ISUB;
+			case MUL -> IMUL;
+			case DIV -> IDIV;
+			case REM -> IREM;
+		};
+		mv.visitInsn(instruction.getType().computational().opcode(opcode));
+		narrow(instruction.getType());
+		return null;
+	}
+
+	@Override
+	public Void visitUnary(UnaryInstruction instruction) {
+		load(instruction.getValue());
+		if (instruction.getOperator() == UnaryInstruction.Operator.NOT) {
+			mv.visitInsn(ICONST_1);
+			mv.visitInsn(IXOR);
+		}
+		else {
+			mv.visitInsn(instruction.getType().computational().opcode(INEG));
+			narrow(instruction.getType());
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitCompare(CompareInstruction instruction) {
+		Label isTrue = new Label();
+		Label end = new Label();
+		jumpIf(instruction, true, isTrue);
+		mv.visitInsn(ICONST_0);
+		mv.visitJumpInsn(GOTO, end);
+		mv.visitLabel(isTrue);
+		mv.visitInsn(ICONST_1);
+		mv.visitLabel(end);
+		return null;
+	}
+
+	/**
+	 * Jump to {@code target} if the comparison evaluates to {@code when}.
+	 */
+	private void jumpIf(CompareInstruction compare, boolean when, Label target) {
+		load(compare.getLeft());
+		load(compare.getRight());
+		CompareInstruction.Operator operator = when ? compare.getOperator() : compare.getOperator().negate();
+		IRType type = compare.getOperandType();
+
+		if (type == IRType.STRING) {
+			mv.visitMethodInsn(INVOKESTATIC, "java/util/Objects", "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z", false);
+			switch (operator) {
+				case EQ -> mv.visitJumpInsn(IFNE, target);
+				case NE -> mv.visitJumpInsn(IFEQ, target);
+				default -> throw new IllegalStateException("Strings can only be compared for equality");
+			}
+			return;
+		}
+		if (type.isIntLike()) {
+			mv.visitJumpInsn(IF_ICMPEQ - IFEQ + jumpOpcode(operator), target);
+			return;
+		}
+
+		// Pick the comparison that makes NaN fail the original operator, whichever way we jump
+		switch (type) {
+			case LONG -> mv.visitInsn(LCMP);
+			case FLOAT -> mv.visitInsn(isLessThan(compare.getOperator()) ? FCMPG : FCMPL);
+			case DOUBLE -> mv.visitInsn(isLessThan(compare.getOperator()) ? DCMPG : DCMPL);
+			default -> throw new IllegalStateException("Cannot compare values of type " + type);
+		}
+		mv.visitJumpInsn(jumpOpcode(operator), target);
+	}
+
+	/**
+	 * The IFxx instruction that jumps when a comparison result against zero satisfies {@code operator}.
+	 */
+	private static int jumpOpcode(CompareInstruction.Operator operator) {
+		return switch (operator) {
+			case EQ -> IFEQ;
+			case NE -> IFNE;
+			case LT -> IFLT;
+			case LE -> IFLE;
+			case GT -> IFGT;
+			case GE -> IFGE;
+		};
+	}
+
+	private static boolean isLessThan(CompareInstruction.Operator operator) {
+		return operator == CompareInstruction.Operator.LT || operator == CompareInstruction.Operator.LE;
+	}
+
+	@Override
+	public Void visitConvert(ConvertInstruction instruction) {
+		load(instruction.getValue());
+		IRType from = instruction.getSourceType();
+		IRType to = instruction.getType();
+		if (to == IRType.STRING) {
+			if (from != IRType.STRING) {
+				String argument = from == IRType.BOOL || from == IRType.CHAR ? from.descriptor()
+						: from.computational().descriptor();
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/String", "valueOf", "(" + argument + ")Ljava/lang/String;", false);
+			}
+			return null;
+		}
+		if (from == IRType.STRING || to == IRType.BOOL || to == IRType.VOID) {
+			throw new IllegalStateException("Cannot convert " + from + " to " + to);
+		}
+		int opcode = CONVERSIONS[column(from.computational())][column(to.computational())];
+		if (opcode != NOP) {
+			mv.visitInsn(opcode);
+		}
+		if (to != from) {
+			narrow(to);
+		}
+		return null;
+	}
+
+	private static int column(IRType computational) {
+		return switch (computational) {
+			case INT -> 0;
+			case LONG -> 1;
+			case FLOAT -> 2;
+			case DOUBLE -> 3;
+			default -> throw new IllegalStateException("Not a numeric type: " + computational);
+		};
+	}
+
+	@Override
+	public Void visitConcat(ConcatInstruction instruction) {
+		load(instruction.getOperand(0));
+		load(instruction.getOperand(1));
+		mv.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "concat", "(Ljava/lang/String;)Ljava/lang/String;", false);
+		return null;
+	}
+
+	@Override
+	public Void visitCall(CallInstruction instruction) {
+		instruction.getOperands().forEach(this::load);
+		mv.visitMethodInsn(INVOKESTATIC, instruction.getOwner(), instruction.getName(), instruction.getDescriptor(), false);
+		return null;
+	}
+
+	@Override
+	public Void visitLoadGlobal(LoadGlobalInstruction instruction) {
+		mv.visitFieldInsn(GETSTATIC, instruction.getOwner(), instruction.getName(), instruction.getType().descriptor());
+		return null;
+	}
+
+	@Override
+	public Void visitStoreGlobal(StoreGlobalInstruction instruction) {
+		load(instruction.getValue());
+		mv.visitFieldInsn(PUTSTATIC, instruction.getOwner(), instruction.getName(), instruction.getValue().getType().descriptor());
+		return null;
+	}
+
+	@Override
+	public Void visitPhi(Phi phi) {
+		throw new IllegalStateException("Phis are read from their slots");
+	}
+
+	// ===== TERMINATORS =====
+
+	@Override
+	public Void visitJump(JumpInstruction instruction) {
+		BasicBlock from = instruction.getBlock();
+		BasicBlock target = instruction.getTarget();
+		copyPhiOperands(from, target);
+		if (target != nextBlock) {
+			mv.visitJumpInsn(GOTO, label(target));
+		}
+		return null;
+	}
+
+	/**
+	 * Assign the phis of {@code target} their operands for the edge from {@code from}. All operands are
+	 * loaded before the first store, since a phi may be the operand of another phi of the same block.
+	 */
+	private void copyPhiOperands(BasicBlock from, BasicBlock target) {
+		int index = target.getPredecessors().indexOf(from);
+		List<Phi> copied = new ArrayList<>();
+		for (Phi phi : target.getPhis()) {
+			Value operand = phi.getOperand(index);
+			if (slots.containsKey(phi) && operand != phi) {
+				load(operand);
+				copied.add(phi);
+			}
+		}
+		for (int i = copied.size() - 1; i >= 0; i--) {
+			Phi phi = copied.get(i);
+			mv.visitVarInsn(phi.getType().opcode(ISTORE), slots.get(phi));
+		}
+	}
+
+	@Override
+	public Void visitBranch(BranchInstruction instruction) {
+		Value condition = instruction.getCondition();
+		Label ifTrue = label(instruction.getIfTrue());
+		Label ifFalse = label(instruction.getIfFalse());
+		boolean fallsIntoTrue = instruction.getIfTrue() == nextBlock;
+
+		if (condition instanceof Constant constant) {
+			BasicBlock target = (Integer) constant.getValue() != 0 ? instruction.getIfTrue() : instruction.getIfFalse();
+			if (target != nextBlock) {
+				mv.visitJumpInsn(GOTO, label(target));
+			}
+			return null;
+		}
+
+		if (condition instanceof CompareInstruction compare && inPlace.contains(compare)) {
+			if (fallsIntoTrue) {
+				jumpIf(compare, false, ifFalse);
+			}
+			else {
+				jumpIf(compare, true, ifTrue);
+			}
+		}
+		else {
+			load(condition);
+			mv.visitJumpInsn(fallsIntoTrue ? IFEQ : IFNE, fallsIntoTrue ? ifFalse : ifTrue);
+		}
+		if (!fallsIntoTrue && instruction.getIfFalse() != nextBlock) {
+			mv.visitJumpInsn(GOTO, ifFalse);
+		}
+		return null;
+	}
+
+	@Override
+	public Void visitReturn(ReturnInstruction instruction) {
+		Value value = instruction.getValue();
+		if (value == null) {
+			mv.visitInsn(RETURN);
+		}
+		else {
+			load(value);
+			mv.visitInsn(value.getType().opcode(IRETURN));
+		}
+		return null;
+	}
+}
@@ -0,0 +1,35 @@
+package com.juno.ir;
+
+/**
+ * Call of a static method: a Juno function or a runtime module function.
+ */
+public final class CallInstruction extends Instruction {
+
+	private final String owner;
+	private final String name;
+	private final String descriptor;
+
+	public CallInstruction(IRType returnType, String owner, String name, String descriptor, Value... arguments) {
+		super(returnType, arguments);
+		this.owner = owner;
+		this.name = name;
+		this.descriptor = descriptor;
+	}
+
+	public String getOwner() {
+		return owner;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDescriptor() {
+		return descriptor;
+	}
+
+	@Override
+	public <T> T accept(InstructionVisitor<T> visitor) {
+		return visitor.visitCall(this);
+	}
+}
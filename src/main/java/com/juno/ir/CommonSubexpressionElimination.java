@@ -0,0 +1,72 @@
+package com.juno.ir;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Block-local common subexpression elimination that also covers global variables: a repeated
+ * read of a global is replaced by the value read or stored last, until a call (which may write
+ * any global) intervenes. Repeated pure instructions in the block are merged as well.
+ */
+public class CommonSubexpressionElimination implements IRPass {
+
+	@Override
+	public String name() {
+		return "cse";
+	}
+
+	@Override
+	public int run(Function function) {
+		ExpressionKeys keys = new ExpressionKeys();
+		Map<Value, Value> replacements = new HashMap<>();
+
+		for (BasicBlock block : function.getBlocks()) {
+			Map<Object, Value> available = new HashMap<>();
+			Iterator<Instruction> instructions = block.getInstructions().iterator();
+			while (instructions.hasNext()) {
+				Instruction instruction = instructions.next();
+				GlobalValueNumbering.resolveOperands(instruction, replacements);
+
+				Object key;
+				if (instruction instanceof LoadGlobalInstruction load) {
+					key = globalKey(load.getOwner(), load.getName());
+				}
+				else if (instruction instanceof StoreGlobalInstruction store) {
+					available.put(globalKey(store.getOwner(), store.getName()), store.getValue());
+					continue;
+				}
+				else if (instruction instanceof CallInstruction) {
+					available.keySet().removeIf(k -> k instanceof GlobalKey);
+					continue;
+				}
+				else if (instruction.isPure()) {
+					key = keys.keyOf(instruction);
+				}
+				else {
+					continue;
+				}
+
+				Value previous = available.get(key);
+				if (previous != null) {
+					replacements.put(instruction, previous);
+					instructions.remove();
+				}
+				else {
+					available.put(key, instruction);
+				}
+			}
+		}
+
+		function.replaceUses(replacements);
+		return replacements.size();
+	}
+
+	private record GlobalKey(String owner, String name) {
+	}
+
+	private static Object globalKey(String owner, String name) {
+		return new GlobalKey(owner, name);
+	}
+}
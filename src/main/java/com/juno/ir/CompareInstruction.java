@@ -0,0 +1,84 @@
+package com.juno.ir;
+
+import java.util.List;
+
+/**
+ * Comparison of two operands of the same type, producing a bool. Floating-point comparisons
+ * are false when either operand is NaN, except for {@code NE}.
+ */
+public final class CompareInstruction extends Instruction {
+
+	public enum Operator {
+		EQ("eq"), NE("ne"), LT("lt"), LE("le"), GT("gt"), GE("ge");
+
+		private final String mnemonic;
+
+		Operator(String mnemonic) {
+			this.mnemonic = mnemonic;
+		}
+
+		public String mnemonic() {
+			return mnemonic;
+		}
+
+		/**
+		 * The operator that holds exactly when this one does not (ignoring NaN).
+		 */
+		public Operator negate() {
+			return switch (this) {
+				case EQ -> NE;
+				case NE -> EQ;
+				case LT -> GE;
+				case LE -> GT;
+				case GT -> LE;
+				case GE -> LT;
+			};
+		}
+	}
+
+	private final Operator operator;
+
+	public CompareInstruction(Operator operator, Value left, Value right) {
+		super(IRType.BOOL, left, right);
+		this.operator = operator;
+	}
+
+	public Operator getOperator() {
+		return operator;
+	}
+
+	public Value getLeft() {
+		return getOperand(0);
+	}
+
+	public Value getRight() {
+		return getOperand(1);
+	}
+
+	/**
+	 * The type both operands are compared in.
+	 */
+	public IRType getOperandType() {
+		return getLeft().getType();
+	}
+
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+
+	@Override
+	public boolean isCommutative() {
+		return operator == Operator.EQ || operator == Operator.NE;
+	}
+
+	@Override
+	public Object operationKey() {
+		return List.of(getClass(), getOperandType(), operator);
+	}
+
+	@Override
+	public <T> T accept(InstructionVisitor<T> visitor) {
+		return visitor.visitCompare(this);
+	}
+}
@@ -0,0 +1,29 @@
+package com.juno.ir;
+
+/**
+ * Concatenation of two strings.
+ */
+public final class ConcatInstruction extends Instruction {
+
+	public ConcatInstruction(Value left, Value right) {
+		super(IRType.STRING, left, right);
+	}
+
+	public Value getLeft() {
+		return getOperand(0);
+	}
+
+	public Value getRight() {
+		return getOperand(1);
+	}
+
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+
+	@Override
+	public <T> T accept(InstructionVisitor<T> visitor) {
+		return visitor.visitConcat(this);
+	}
+}
@@ -0,0 +1,87 @@
+package com.juno.ir;
+
+import java.util.Objects;
+
+/**
+ * A compile-time constant. Int-like constants (bool, byte, short, char, int) are stored as
+ * {@link Integer}, the other types as their boxed JVM value; the only null constant is the
+ * default value of {@code string}.
+ * Constants are compared by value, so equal constants are the same value for value numbering.
+ */
+public final class Constant extends Value {
+
+	private final Object value;
+
+	private Constant(IRType type, Object value) {
+		super(type);
+		this.value = value;
+	}
+
+	public static Constant of(IRType type, Object value) {
+		return new Constant(type, normalize(type, value));
+	}
+
+	public static Constant ofInt(int value) {
+		return new Constant(IRType.INT, value);
+	}
+
+	public static Constant ofBool(boolean value) {
+		return new Constant(IRType.BOOL, value ? 1 : 0);
+	}
+
+	/**
+	 * The value a variable of the given type holds before it is assigned.
+	 */
+	public static Constant zero(IRType type) {
+		return type == IRType.STRING ? new Constant(type, null) : of(type, 0);
+	}
+
+	public Object getValue() {
+		return value;
+	}
+
+	private static Object normalize(IRType type, Object value) {
+		if (type == IRType.STRING) {
+			return value == null ? null : value.toString();
+		}
+		Number number;
+		if (value instanceof Boolean bool) {
+			number = bool ? 1 : 0;
+		}
+		else if (value instanceof Character character) {
+			number = (int) character;
+		}
+		else if (value instanceof Number n) {
+			number = n;
+		}
+		else {
+			throw new IllegalArgumentException("Not a " + type + " constant: " + value);
+		}
+		return switch (type) {
+			case BOOL -> number.intValue() != 0 ? 1 : 0;
+			case BYTE -> (int) number.byteValue();
+			case SHORT -> (int) number.shortValue();
+			case CHAR -> (int) (char) number.intValue();
+			case INT -> number.intValue();
+			case LONG -> number.longValue();
+			case FLOAT -> number.floatValue();
+			case DOUBLE -> number.doubleValue();
+			default -> throw new IllegalArgumentException("No constants of type " + type);
+		};
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof Constant other && other.getType() == getType() && Objects.equals(value, other.value);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(getType(), value);
+	}
+
+	@Override
+	public String toString() {
+		return value instanceof String string ? '"' + string + '"' : String.valueOf(value);
+	}
+}
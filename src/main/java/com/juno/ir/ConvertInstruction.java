@@ -0,0 +1,29 @@
+package com.juno.ir;
+
+/**
+ * Conversion of a value to another type: numeric widening and narrowing, or formatting as a string.
+ */
+public final class ConvertInstruction extends Instruction {
+
+	public ConvertInstruction(Value value, IRType targetType) {
+		super(targetType, value);
+	}
+
+	public Value getValue() {
+		return getOperand(0);
+	}
+
+	public IRType getSourceType() {
+		return getValue().getType();
+	}
+
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+
+	@Override
+	public <T> T accept(InstructionVisitor<T> visitor) {
+		return visitor.visitConvert(this);
+	}
+}
@@ -0,0 +1,137 @@
+package com.juno.ir;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Replaces values that are copies of other values: phis whose operands are all the same value
+ * (ignoring the phi itself), and instructions that compute one of their operands, such as
+ * {@code x + 0}, {@code x * 1}, conversions to the same type and round trips through a wider type.
+ * Removing one copy can make a phi that used it trivial, so the pass runs to a fixpoint.
+ */
+public class CopyPropagation implements IRPass {
+
+	@Override
+	public String name() {
+		return "copy propagation";
+	}
+
+	@Override
+	public int run(Function function) {
+		Map<Value, Value> replacements = new HashMap<>();
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (BasicBlock block : function.getBlocks()) {
+				Iterator<Phi> phis = block.getPhis().iterator();
+				while (phis.hasNext()) {
+					Phi phi = phis.next();
+					Value copied = trivialPhiValue(phi, replacements);
+					if (copied != null) {
+						replacements.put(phi, copied);
+						phis.remove();
+						changed = true;
+					}
+				}
+
+				Iterator<Instruction> instructions = block.getInstructions().iterator();
+				while (instructions.hasNext()) {
+					Instruction instruction = instructions.next();
+					GlobalValueNumbering.resolveOperands(instruction, replacements);
+					Value copied = copiedOperand(instruction);
+					if (copied != null) {
+						replacements.put(instruction, copied);
+						instructions.remove();
+						changed = true;
+					}
+				}
+			}
+		}
+
+		function.replaceUses(replacements);
+		return replacements.size();
+	}
+
+	/**
+	 * The single value a phi merges, or null if it merges several.
+	 */
+	private static Value trivialPhiValue(Phi phi, Map<Value, Value> replacements) {
+		Value same = null;
+		for (Value operand : phi.getOperands()) {
+			Value resolved = Function.resolve(operand, replacements);
+			if (resolved == phi || resolved == same) {
+				continue;
+			}
+			if (same != null) {
+				return null;
+			}
+			same = resolved;
+		}
+		// A phi that only merges itself sits in a loop no definition reaches
+		return same != null ? same : Constant.zero(phi.getType());
+	}
+
+	private static Value copiedOperand(Instruction instruction) {
+		if (instruction instanceof BinaryInstruction binary && isInteger(binary.getType())) {
+			Value left = binary.getLeft();
+			Value right = binary.getRight();
+			switch (binary.getOperator()) {
+				case ADD:
+					if (isConstant(right, 0)) return left;
+					if (isConstant(left, 0)) return right;
+					break;
+				case SUB:
+					if (isConstant(right, 0)) return left;
+					break;
+				case MUL:
+					if (isConstant(right, 1)) return left;
+					if (isConstant(left, 1)) return right;
+					break;
+				case DIV:
+					if (isConstant(right, 1)) return left;
+					break;
+				default:
+					break;
+			}
+		}
+		else if (instruction instanceof ConvertInstruction convert) {
+			Value value = convert.getValue();
+			if (convert.getSourceType() == convert.getType()) {
+				return value;
+			}
+			if (value instanceof ConvertInstruction inner && inner.getSourceType() == convert.getType()
+					&& isLossless(inner.getSourceType(), inner.getType())) {
+				return inner.getValue();
+			}
+		}
+		else if (instruction instanceof UnaryInstruction unary && unary.getValue() instanceof UnaryInstruction inner
+				&& inner.getOperator() == unary.getOperator()) {
+			// -(-x) and !(!x)
+			return inner.getValue();
+		}
+		return null;
+	}
+
+	private static boolean isInteger(IRType type) {
+		return (type.isIntLike() && type != IRType.BOOL) || type == IRType.LONG;
+	}
+
+	private static boolean isConstant(Value value, long expected) {
+		return value instanceof Constant constant && constant.getValue() instanceof Number number
+				&& !(number instanceof Float || number instanceof Double) && number.longValue() == expected;
+	}
+
+	/**
+	 * True if every value of type {@code from} survives a conversion to {@code to} and back.
+	 */
+	private static boolean isLossless(IRType from, IRType to) {
+		boolean integral = from.isIntLike() && from != IRType.BOOL;
+		return switch (to) {
+			case INT -> from == IRType.BYTE || from == IRType.SHORT || from == IRType.CHAR;
+			case LONG -> integral;
+			case DOUBLE -> integral || from == IRType.FLOAT;
+			default -> false;
+		};
+	}
+}
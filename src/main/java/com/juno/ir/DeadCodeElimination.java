@@ -0,0 +1,56 @@
+package com.juno.ir;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Removes instructions and phis whose values are never used. Instructions with side effects,
+ * instructions that may throw and terminators are live; so is everything they use, transitively.
+ */
+public class DeadCodeElimination implements IRPass {
+
+	@Override
+	public String name() {
+		return "dce";
+	}
+
+	@Override
+	public int run(Function function) {
+		Set<Instruction> live = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<Instruction> worklist = new ArrayDeque<>();
+		for (BasicBlock block : function.getBlocks()) {
+			for (Instruction instruction : block.getInstructions()) {
+				if (!instruction.isPure() || instruction.canThrow()) {
+					worklist.add(instruction);
+				}
+			}
+			if (block.getTerminator() != null) {
+				worklist.add(block.getTerminator());
+			}
+		}
+
+		while (!worklist.isEmpty()) {
+			Instruction instruction = worklist.poll();
+			if (!live.add(instruction)) {
+				continue;
+			}
+			for (Value operand : instruction.getOperands()) {
+				if (operand instanceof Instruction used && !live.contains(used)) {
+					worklist.add(used);
+				}
+			}
+		}
+
+		int removed = 0;
+		for (BasicBlock block : function.getBlocks()) {
+			int before = block.getPhis().size() + block.getInstructions().size();
+			block.getPhis().removeIf(phi -> !live.contains(phi));
+			block.getInstructions().removeIf(instruction -> !live.contains(instruction));
+			removed += before - block.getPhis().size() - block.getInstructions().size();
+		}
+		return removed;
+	}
+}
@@ -0,0 +1,101 @@
+package com.juno.ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dominator tree of a function, computed with the iterative algorithm of Cooper, Harvey and Kennedy,
+ * "A Simple, Fast Dominance Algorithm". Only blocks reachable from the entry are part of the tree.
+ */
+public class DominatorTree {
+
+	private final List<BasicBlock> reversePostorder;
+	private final Map<BasicBlock, Integer> order = new HashMap<>();
+	private final Map<BasicBlock, BasicBlock> immediateDominators = new HashMap<>();
+	private final Map<BasicBlock, List<BasicBlock>> children = new HashMap<>();
+
+	public DominatorTree(Function function) {
+		reversePostorder = function.reversePostorder();
+		for (int i = 0; i < reversePostorder.size(); i++) {
+			order.put(reversePostorder.get(i), i);
+			children.put(reversePostorder.get(i), new ArrayList<>());
+		}
+
+		BasicBlock entry = function.getEntry();
+		immediateDominators.put(entry, entry);
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (BasicBlock block : reversePostorder) {
+				if (block == entry) {
+					continue;
+				}
+				BasicBlock dominator = null;
+				for (BasicBlock predecessor : block.getPredecessors()) {
+					if (!immediateDominators.containsKey(predecessor)) {
+						continue;  // Not processed yet, or unreachable
+					}
+					dominator = dominator == null ? predecessor : intersect(predecessor, dominator);
+				}
+				if (dominator != null && immediateDominators.get(block) != dominator) {
+					immediateDominators.put(block, dominator);
+					changed = true;
+				}
+			}
+		}
+
+		for (BasicBlock block : reversePostorder) {
+			if (block != entry) {
+				children.get(immediateDominators.get(block)).add(block);
+			}
+		}
+	}
+
+	private BasicBlock intersect(BasicBlock first, BasicBlock second) {
+		BasicBlock a = first;
+		BasicBlock b = second;
+		while (a != b) {
+			while (order.get(a) > order.get(b)) {
+				a = immediateDominators.get(a);
+			}
+			while (order.get(b) > order.get(a)) {
+				b = immediateDominators.get(b);
+			}
+		}
+		return a;
+	}
+
+	/**
+	 * The closest strict dominator of {@code block}; the entry is its own immediate dominator.
+	 */
+	public BasicBlock getImmediateDominator(BasicBlock block) {
+		return immediateDominators.get(block);
+	}
+
+	/**
+	 * Blocks immediately dominated by {@code block}, in reverse postorder.
+	 */
+	public List<BasicBlock> getChildren(BasicBlock block) {
+		return children.getOrDefault(block, List.of());
+	}
+
+	public boolean dominates(BasicBlock dominator, BasicBlock block) {
+		BasicBlock current = block;
+		while (true) {
+			if (current == dominator) {
+				return true;
+			}
+			BasicBlock next = immediateDominators.get(current);
+			if (next == null || next == current) {
+				return false;
+			}
+			current = next;
+		}
+	}
+
+	public List<BasicBlock> getReversePostorder() {
+		return reversePostorder;
+	}
+}
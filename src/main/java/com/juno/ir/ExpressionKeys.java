@@ -0,0 +1,31 @@
+package com.juno.ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash keys for pure instructions: two instructions with equal keys compute the same value.
+ * Operands of commutative operations are put in a canonical order, so {@code a + b} and
+ * {@code b + a} get the same key.
+ */
+final class ExpressionKeys {
+
+	private final Map<Value, Integer> ranks = new HashMap<>();
+
+	Object keyOf(Instruction instruction) {
+		List<Object> key = new ArrayList<>(instruction.getOperands().size() + 1);
+		key.add(instruction.operationKey());
+		List<Value> operands = new ArrayList<>(instruction.getOperands());
+		if (instruction.isCommutative() && rank(operands.get(0)) > rank(operands.get(1))) {
+			operands.add(operands.remove(0));
+		}
+		key.addAll(operands);
+		return key;
+	}
+
+	private int rank(Value value) {
+		return ranks.computeIfAbsent(value, v -> ranks.size());
+	}
+}
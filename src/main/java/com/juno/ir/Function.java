@@ -0,0 +1,214 @@
+package com.juno.ir;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A function in SSA form: a list of basic blocks whose first block is the entry.
+ */
+public class Function {
+
+	private final String name;
+	private final IRType returnType;
+	private final List<Parameter> parameters = new ArrayList<>();
+	private final List<BasicBlock> blocks = new ArrayList<>();
+	private int nextBlockId = 0;
+
+	public Function(String name, IRType returnType, List<IRType> parameterTypes) {
+		this.name = name;
+		this.returnType = returnType;
+		int slot = 0;
+		for (IRType type : parameterTypes) {
+			parameters.add(new Parameter(type, parameters.size(), slot));
+			slot += type.slotSize();
+		}
+		newBlock();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public IRType getReturnType() {
+		return returnType;
+	}
+
+	public List<Parameter> getParameters() {
+		return Collections.unmodifiableList(parameters);
+	}
+
+	public String getDescriptor() {
+		StringBuilder descriptor = new StringBuilder("(");
+		for (Parameter parameter : parameters) {
+			descriptor.append(parameter.getType().descriptor());
+		}
+		return descriptor.append(")").append(returnType.descriptor()).toString();
+	}
+
+	/**
+	 * Number of local variable slots taken by the parameters.
+	 */
+	public int getParameterSlots() {
+		int slots = 0;
+		for (Parameter parameter : parameters) {
+			slots += parameter.getType().slotSize();
+		}
+		return slots;
+	}
+
+	public BasicBlock getEntry() {
+		return blocks.get(0);
+	}
+
+	public List<BasicBlock> getBlocks() {
+		return Collections.unmodifiableList(blocks);
+	}
+
+	public BasicBlock newBlock() {
+		BasicBlock block = new BasicBlock(nextBlockId++);
+		blocks.add(block);
+		return block;
+	}
+
+	/**
+	 * Blocks in reverse postorder: every block comes before its successors, except along back edges.
+	 */
+	public List<BasicBlock> reversePostorder() {
+		List<BasicBlock> postorder = new ArrayList<>();
+		Set<BasicBlock> visited = new HashSet<>();
+		Deque<BasicBlock> blockStack = new ArrayDeque<>();
+		Deque<Integer> indexStack = new ArrayDeque<>();
+		blockStack.push(getEntry());
+		indexStack.push(0);
+		visited.add(getEntry());
+
+		while (!blockStack.isEmpty()) {
+			BasicBlock block = blockStack.peek();
+			int index = indexStack.pop();
+			List<BasicBlock> successors = block.getSuccessors();
+			if (index < successors.size()) {
+				indexStack.push(index + 1);
+				BasicBlock successor = successors.get(index);
+				if (visited.add(successor)) {
+					blockStack.push(successor);
+					indexStack.push(0);
+				}
+			}
+			else {
+				blockStack.pop();
+				postorder.add(block);
+			}
+		}
+		Collections.reverse(postorder);
+		return postorder;
+	}
+
+	/**
+	 * Drop blocks that cannot be reached from the entry, along with the phi operands they supply.
+	 */
+	public void removeUnreachableBlocks() {
+		Set<BasicBlock> reachable = new HashSet<>(reversePostorder());
+		for (BasicBlock block : blocks) {
+			if (!reachable.contains(block)) {
+				for (BasicBlock successor : block.getSuccessors()) {
+					successor.removePredecessor(block);
+				}
+			}
+		}
+		blocks.removeIf(block -> !reachable.contains(block));
+	}
+
+	/**
+	 * Put an empty block on every edge from a block with several successors to a block with phis,
+	 * so that every phi copy can be placed at the end of a predecessor that ends in a jump.
+	 */
+	public void splitCriticalEdges() {
+		for (BasicBlock block : new ArrayList<>(blocks)) {
+			if (block.getPhis().isEmpty()) {
+				continue;
+			}
+			for (BasicBlock predecessor : new ArrayList<>(block.getPredecessors())) {
+				if (predecessor.getSuccessors().size() < 2) {
+					continue;
+				}
+				newBlock().placeOnEdge(predecessor, block);
+			}
+		}
+	}
+
+	/**
+	 * Replace every use of a key of {@code replacements} by its value, following chains of replacements.
+	 */
+	public void replaceUses(Map<Value, Value> replacements) {
+		if (replacements.isEmpty()) {
+			return;
+		}
+		for (BasicBlock block : blocks) {
+			for (Phi phi : block.getPhis()) {
+				replaceOperands(phi, replacements);
+			}
+			for (Instruction instruction : block.getInstructions()) {
+				replaceOperands(instruction, replacements);
+			}
+			if (block.getTerminator() != null) {
+				replaceOperands(block.getTerminator(), replacements);
+			}
+		}
+	}
+
+	private static void replaceOperands(Instruction instruction, Map<Value, Value> replacements) {
+		for (int i = 0; i < instruction.getOperands().size(); i++) {
+			Value operand = instruction.getOperand(i);
+			Value resolved = resolve(operand, replacements);
+			if (resolved != operand) {
+				instruction.setOperand(i, resolved);
+			}
+		}
+	}
+
+	/**
+	 * Follow a chain of replacements to its end.
+	 */
+	public static Value resolve(Value value, Map<Value, Value> replacements) {
+		Value current = value;
+		for (int hops = 0; hops <= replacements.size(); hops++) {
+			Value next = replacements.get(current);
+			if (next == null || next == current) {
+				return current;
+			}
+			current = next;
+		}
+		throw new IllegalStateException("Cyclic value replacement");
+	}
+
+	/**
+	 * Number of uses of every value in the function, counting each operand position once.
+	 */
+	public Map<Value, Integer> countUses() {
+		Map<Value, Integer> uses = new IdentityHashMap<>();
+		for (BasicBlock block : blocks) {
+			for (Phi phi : block.getPhis()) {
+				phi.getOperands().forEach(operand -> uses.merge(operand, 1, Integer::sum));
+			}
+			for (Instruction instruction : block.getInstructions()) {
+				instruction.getOperands().forEach(operand -> uses.merge(operand, 1, Integer::sum));
+			}
+			if (block.getTerminator() != null) {
+				block.getTerminator().getOperands().forEach(operand -> uses.merge(operand, 1, Integer::sum));
+			}
+		}
+		return uses;
+	}
+
+	@Override
+	public String toString() {
+		return new IRPrinter().print(this);
+	}
+}
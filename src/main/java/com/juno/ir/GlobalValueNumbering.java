@@ -0,0 +1,96 @@
+package com.juno.ir;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dominator-based global value numbering. The dominator tree is walked in preorder with a scoped
+ * table of the pure instructions computed so far; an instruction whose operation and operands match
+ * an entry of a dominating block is redundant and is replaced by that entry. Phis of the same block
+ * with the same operands are merged the same way.
+ */
+public class GlobalValueNumbering implements IRPass {
+
+	@Override
+	public String name() {
+		return "gvn";
+	}
+
+	@Override
+	public int run(Function function) {
+		DominatorTree dominators = new DominatorTree(function);
+		ExpressionKeys keys = new ExpressionKeys();
+		Map<Object, Value> available = new HashMap<>();
+		Map<Value, Value> replacements = new HashMap<>();
+
+		// Iterative preorder walk; the scope of a block is dropped after its subtree
+		Deque<Visit> worklist = new ArrayDeque<>();
+		Deque<List<Object>> scopes = new ArrayDeque<>();
+		worklist.push(new Visit(function.getEntry(), false));
+		while (!worklist.isEmpty()) {
+			Visit visit = worklist.pop();
+			if (visit.leaving()) {
+				scopes.pop().forEach(available::remove);
+				continue;
+			}
+
+			BasicBlock block = visit.block();
+			List<Object> scope = new ArrayList<>();
+			number(block.getPhis().iterator(), keys, available, replacements, scope);
+			number(block.getInstructions().iterator(), keys, available, replacements, scope);
+			if (block.getTerminator() != null) {
+				resolveOperands(block.getTerminator(), replacements);
+			}
+
+			scopes.push(scope);
+			worklist.push(new Visit(block, true));
+			List<BasicBlock> children = dominators.getChildren(block);
+			for (int i = children.size() - 1; i >= 0; i--) {
+				worklist.push(new Visit(children.get(i), false));
+			}
+		}
+
+		// Operands along back edges were seen before their replacements were known
+		function.replaceUses(replacements);
+		return replacements.size();
+	}
+
+	private record Visit(BasicBlock block, boolean leaving) {
+	}
+
+	private static void number(Iterator<? extends Instruction> instructions, ExpressionKeys keys,
+														 Map<Object, Value> available, Map<Value, Value> replacements, List<Object> scope) {
+		while (instructions.hasNext()) {
+			Instruction instruction = instructions.next();
+			resolveOperands(instruction, replacements);
+			if (!instruction.isPure()) {
+				continue;
+			}
+			Object key = keys.keyOf(instruction);
+			Value leader = available.get(key);
+			if (leader != null) {
+				replacements.put(instruction, leader);
+				instructions.remove();
+			}
+			else {
+				available.put(key, instruction);
+				scope.add(key);
+			}
+		}
+	}
+
+	static void resolveOperands(Instruction instruction, Map<Value, Value> replacements) {
+		for (int i = 0; i < instruction.getOperands().size(); i++) {
+			Value operand = instruction.getOperand(i);
+			Value resolved = Function.resolve(operand, replacements);
+			if (resolved != operand) {
+				instruction.setOperand(i, resolved);
+			}
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package com.juno.ir;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds a function block by block and constructs SSA form on the fly, following Braun et al.,
+ * "Simple and Efficient Construction of Static Single Assignment Form" (CC 2013).
+ * <p>
+ * Source variables are identified by arbitrary key objects. Writing a variable records its current
+ * value in the current block; reading it looks the value up through the predecessors, creating
+ * phis where control flow merges. A block must be {@linkplain #sealBlock sealed} once all of its
+ * predecessors are known; reads in unsealed blocks (loop headers) get placeholder phis that are
+ * completed when the block is sealed. Phis that turn out to merge a single value are left for
+ * {@link CopyPropagation} to remove.
+ */
+public class IRBuilder {
+
+	private final Function function;
+	private BasicBlock currentBlock;
+
+	private final Map<Object, IRType> variableTypes = new HashMap<>();
+	private final Map<Object, Map<BasicBlock, Value>> definitions = new HashMap<>();
+	private final Set<BasicBlock> sealedBlocks = new HashSet<>();
+	private final Map<BasicBlock, Map<Object, Phi>> incompletePhis = new HashMap<>();
+
+	public IRBuilder(Function function) {
+		this.function = function;
+		this.currentBlock = function.getEntry();
+		sealedBlocks.add(currentBlock);
+	}
+
+	public Function getFunction() {
+		return function;
+	}
+
+	public BasicBlock newBlock() {
+		return function.newBlock();
+	}
+
+	public BasicBlock getCurrentBlock() {
+		return currentBlock;
+	}
+
+	public void setCurrentBlock(BasicBlock block) {
+		this.currentBlock = block;
+	}
+
+	/**
+	 * True if the current block already ends in a terminator, i.e. code added now is unreachable.
+	 */
+	public boolean isTerminated() {
+		return currentBlock.isTerminated();
+	}
+
+	// ===== INSTRUCTIONS =====
+
+	public <T extends Instruction> T append(T instruction) {
+		ensureOpenBlock();
+		currentBlock.append(instruction);
+		return instruction;
+	}
+
+	public void jump(BasicBlock target) {
+		terminate(new JumpInstruction(target));
+	}
+
+	public void branch(Value condition, BasicBlock ifTrue, BasicBlock ifFalse) {
+		terminate(ifTrue == ifFalse ? new JumpInstruction(ifTrue) : new BranchInstruction(condition, ifTrue, ifFalse));
+	}
+
+	public void ret(Value value) {
+		terminate(value != null ? new ReturnInstruction(value) : new ReturnInstruction());
+	}
+
+	private void terminate(Terminator terminator) {
+		ensureOpenBlock();
+		currentBlock.setTerminator(terminator);
+	}
+
+	/**
+	 * Code after a return, break or continue goes to a fresh block without predecessors,
+	 * which is removed with the other unreachable blocks.
+	 */
+	private void ensureOpenBlock() {
+		if (currentBlock.isTerminated()) {
+			currentBlock = newBlock();
+			sealBlock(currentBlock);
+		}
+	}
+
+	// ===== VARIABLES =====
+
+	public void declareVariable(Object variable, IRType type) {
+		variableTypes.put(variable, type);
+	}
+
+	public void writeVariable(Object variable, Value value) {
+		writeVariable(variable, currentBlock, value);
+	}
+
+	public Value readVariable(Object variable) {
+		ensureOpenBlock();
+		return readVariable(variable, currentBlock);
+	}
+
+	private void writeVariable(Object variable, BasicBlock block, Value value) {
+		definitions.computeIfAbsent(variable, v -> new HashMap<>()).put(block, value);
+	}
+
+	private Value readVariable(Object variable, BasicBlock block) {
+		Value value = definitions.getOrDefault(variable, Map.of()).get(block);
+		return value != null ? value : readVariableRecursive(variable, block);
+	}
+
+	private Value readVariableRecursive(Object variable, BasicBlock block) {
+		IRType type = typeOf(variable);
+		Value value;
+		if (!sealedBlocks.contains(block)) {
+			// Predecessors are not known yet: complete the phi when the block is sealed
+			Phi phi = new Phi(type);
+			block.addPhi(phi);
+			incompletePhis.computeIfAbsent(block, b -> new LinkedHashMap<>()).put(variable, phi);
+			value = phi;
+		}
+		else if (block.getPredecessors().isEmpty()) {
+			// Only reachable for unreachable code: the variable has no definition
+			value = Constant.zero(type);
+		}
+		else if (block.getPredecessors().size() == 1) {
+			value = readVariable(variable, block.getPredecessors().get(0));
+		}
+		else {
+			// Break cycles by recording the phi before looking at the predecessors
+			Phi phi = new Phi(type);
+			block.addPhi(phi);
+			writeVariable(variable, block, phi);
+			addPhiOperands(variable, phi);
+			value = phi;
+		}
+		writeVariable(variable, block, value);
+		return value;
+	}
+
+	private void addPhiOperands(Object variable, Phi phi) {
+		for (BasicBlock predecessor : phi.getBlock().getPredecessors()) {
+			phi.appendOperand(readVariable(variable, predecessor));
+		}
+	}
+
+	/**
+	 * Declare that all predecessors of {@code block} have been added.
+	 */
+	public void sealBlock(BasicBlock block) {
+		if (!sealedBlocks.add(block)) {
+			return;
+		}
+		Map<Object, Phi> pending = incompletePhis.remove(block);
+		if (pending != null) {
+			pending.forEach(this::addPhiOperands);
+		}
+	}
+
+	private IRType typeOf(Object variable) {
+		IRType type = variableTypes.get(variable);
+		if (type == null) {
+			throw new IllegalStateException("Undeclared variable " + variable);
+		}
+		return type;
+	}
+}
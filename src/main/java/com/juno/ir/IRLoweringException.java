@@ -0,0 +1,12 @@
+package com.juno.ir;
+
+/**
+ * Thrown when a function uses a construct the IR cannot represent yet. The caller compiles
+ * such functions without the IR.
+ */
+public class IRLoweringException extends RuntimeException {
+
+	public IRLoweringException(String message) {
+		super(message);
+	}
+}
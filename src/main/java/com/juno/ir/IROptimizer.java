@@ -0,0 +1,52 @@
+package com.juno.ir;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the IR passes over a function: copy propagation first so that the phis the builder leaves
+ * behind do not hide equal expressions, then local and global redundancy elimination, the loop passes
+ * (invariant code motion, then strength reduction of the products it leaves invariant), another round
+ * of copy propagation for the copies those expose, and finally dead code elimination.
+ */
+public class IROptimizer {
+
+	private final List<IRPass> passes = List.of(
+			new CopyPropagation(),
+			new CommonSubexpressionElimination(),
+			new GlobalValueNumbering(),
+			new LoopInvariantCodeMotion(),
+			new StrengthReduction(),
+			new CopyPropagation(),
+			new DeadCodeElimination());
+
+	private final Map<String, Integer> statistics = new LinkedHashMap<>();
+	private int functions = 0;
+
+	public void optimize(Function function) {
+		function.removeUnreachableBlocks();
+		for (IRPass pass : passes) {
+			statistics.merge(pass.name(), pass.run(function), Integer::sum);
+		}
+		functions++;
+	}
+
+	/**
+	 * Values removed or replaced by each pass, summed over all optimized functions.
+	 */
+	public Map<String, Integer> getStatistics() {
+		return statistics;
+	}
+
+	public int getFunctionCount() {
+		return functions;
+	}
+
+	public String summary() {
+		return "IR optimized " + functions + " function(s): " + statistics.entrySet().stream()
+				.map(entry -> entry.getKey() + " " + entry.getValue())
+				.collect(Collectors.joining(", "));
+	}
+}
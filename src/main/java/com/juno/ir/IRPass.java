@@ -0,0 +1,17 @@
+package com.juno.ir;
+
+/**
+ * An optimization pass over one function.
+ */
+public interface IRPass {
+
+	/**
+	 * Short name used in statistics.
+	 */
+	String name();
+
+	/**
+	 * Transform the function in place and return how many values were removed or replaced.
+	 */
+	int run(Function function);
+}
@@ -0,0 +1,147 @@
+package com.juno.ir;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Renders a function as text for debugging and tests. Parameters print as {@code %p0, %p1, ...};
+ * instructions are numbered {@code %0, %1, ...} in the order they are printed.
+ */
+public class IRPrinter implements InstructionVisitor<String> {
+
+	private final Map<Value, String> names = new IdentityHashMap<>();
+	private int nextNumber;
+
+	public String print(Function function) {
+		names.clear();
+		nextNumber = 0;
+		for (Parameter parameter : function.getParameters()) {
+			names.put(parameter, "%p" + parameter.getIndex());
+		}
+
+		StringBuilder out = new StringBuilder();
+		out.append(typeName(function.getReturnType())).append(' ').append(function.getName()).append('(')
+				.append(function.getParameters().stream()
+										.map(parameter -> typeName(parameter.getType()) + " " + name(parameter))
+										.collect(Collectors.joining(", ")))
+				.append(") {\n");
+
+		for (BasicBlock block : function.getBlocks()) {
+			out.append(block.getName()).append(':');
+			if (!block.getPredecessors().isEmpty()) {
+				out.append("  ; preds ").append(block.getPredecessors().stream()
+																					 .map(BasicBlock::getName)
+																					 .collect(Collectors.joining(", ")));
+			}
+			out.append('\n');
+			for (Phi phi : block.getPhis()) {
+				appendLine(out, phi);
+			}
+			for (Instruction instruction : block.getInstructions()) {
+				appendLine(out, instruction);
+			}
+			if (block.getTerminator() != null) {
+				appendLine(out, block.getTerminator());
+			}
+		}
+		return out.append("}\n").toString();
+	}
+
+	private void appendLine(StringBuilder out, Instruction instruction) {
+		out.append("  ");
+		if (instruction.getType() != IRType.VOID) {
+			out.append(name(instruction)).append(" = ");
+		}
+		out.append(instruction.accept(this)).append('\n');
+	}
+
+	private String name(Value value) {
+		if (value instanceof Constant constant) {
+			return constant.toString();
+		}
+		String name = names.get(value);
+		if (name == null) {
+			name = "%" + nextNumber++;
+			names.put(value, name);
+		}
+		return name;
+	}
+
+	private static String typeName(IRType type) {
+		return type.name().toLowerCase();
+	}
+
+	private String operands(Instruction instruction) {
+		return instruction.getOperands().stream().map(this::name).collect(Collectors.joining(", "));
+	}
+
+	@Override
+	public String visitBinary(BinaryInstruction instruction) {
+		return instruction.getOperator().mnemonic() + " " + typeName(instruction.getType()) + " " + operands(instruction);
+	}
+
+	@Override
+	public String visitUnary(UnaryInstruction instruction) {
+		return instruction.getOperator().mnemonic() + " " + typeName(instruction.getType()) + " " + operands(instruction);
+	}
+
+	@Override
+	public String visitCompare(CompareInstruction instruction) {
+		return instruction.getOperator().mnemonic() + " " + typeName(instruction.getOperandType()) + " " + operands(instruction);
+	}
+
+	@Override
+	public String visitConvert(ConvertInstruction instruction) {
+		return "convert " + typeName(instruction.getSourceType()) + " " + operands(instruction)
+				+ " to " + typeName(instruction.getType());
+	}
+
+	@Override
+	public String visitConcat(ConcatInstruction instruction) {
+		return "concat " + operands(instruction);
+	}
+
+	@Override
+	public String visitCall(CallInstruction instruction) {
+		return "call " + typeName(instruction.getType()) + " " + instruction.getOwner() + "." + instruction.getName()
+				+ "(" + operands(instruction) + ")";
+	}
+
+	@Override
+	public String visitLoadGlobal(LoadGlobalInstruction instruction) {
+		return "load " + typeName(instruction.getType()) + " @" + instruction.getName();
+	}
+
+	@Override
+	public String visitStoreGlobal(StoreGlobalInstruction instruction) {
+		return "store @" + instruction.getName() + ", " + operands(instruction);
+	}
+
+	@Override
+	public String visitPhi(Phi phi) {
+		StringBuilder text = new StringBuilder("phi ").append(typeName(phi.getType()));
+		for (int i = 0; i < phi.getOperands().size(); i++) {
+			text.append(i == 0 ? " " : ", ")
+					.append('[').append(phi.getBlock().getPredecessors().get(i).getName())
+					.append(": ").append(name(phi.getOperand(i))).append(']');
+		}
+		return text.toString();
+	}
+
+	@Override
+	public String visitJump(JumpInstruction instruction) {
+		return "jump " + instruction.getTarget().getName();
+	}
+
+	@Override
+	public String visitBranch(BranchInstruction instruction) {
+		return "br " + name(instruction.getCondition()) + ", " + instruction.getIfTrue().getName()
+				+ ", " + instruction.getIfFalse().getName();
+	}
+
+	@Override
+	public String visitReturn(ReturnInstruction instruction) {
+		return instruction.getValue() != null ? "ret " + name(instruction.getValue()) : "ret";
+	}
+}
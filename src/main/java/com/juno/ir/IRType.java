@@ -0,0 +1,93 @@
+package com.juno.ir;
+
+import org.objectweb.asm.Type;
+
+/**
+ * Types of IR values. Each type maps to one JVM representation: the small integer types are
+ * computed as JVM ints and narrowed when a result is produced, strings are references.
+ */
+public enum IRType {
+	VOID("V"),
+	BOOL("Z"),
+	BYTE("I"),
+	SHORT("I"),
+	CHAR("C"),
+	INT("I"),
+	LONG("J"),
+	FLOAT("F"),
+	DOUBLE("D"),
+	STRING("Ljava/lang/String;");
+
+	private final String descriptor;
+
+	IRType(String descriptor) {
+		this.descriptor = descriptor;
+	}
+
+	/**
+	 * JVM descriptor used for fields, parameters and return values of this type.
+	 */
+	public String descriptor() {
+		return descriptor;
+	}
+
+	public Type asmType() {
+		return Type.getType(descriptor);
+	}
+
+	/**
+	 * The typed variant of an int opcode such as ILOAD, ISTORE, IADD or IRETURN.
+	 */
+	public int opcode(int intOpcode) {
+		return asmType().getOpcode(intOpcode);
+	}
+
+	public int slotSize() {
+		return switch (this) {
+			case VOID -> 0;
+			case LONG, DOUBLE -> 2;
+			default -> 1;
+		};
+	}
+
+	/**
+	 * True for the types that live in a JVM int.
+	 */
+	public boolean isIntLike() {
+		return this == BOOL || this == BYTE || this == SHORT || this == CHAR || this == INT;
+	}
+
+	public boolean isNumeric() {
+		return this == BYTE || this == SHORT || this == INT || this == LONG || this == FLOAT || this == DOUBLE;
+	}
+
+	public boolean isFloatingPoint() {
+		return this == FLOAT || this == DOUBLE;
+	}
+
+	/**
+	 * The type arithmetic on this type is carried out in.
+	 */
+	public IRType computational() {
+		return isIntLike() ? INT : this;
+	}
+
+	/**
+	 * Binary numeric promotion: the type two operands are compared or combined in.
+	 */
+	public static IRType promote(IRType left, IRType right) {
+		if (left == right) {
+			return left.isIntLike() && left != BOOL ? INT : left;
+		}
+		if (left == DOUBLE || right == DOUBLE) {
+			return DOUBLE;
+		}
+		if (left == FLOAT || right == FLOAT) {
+			return FLOAT;
+		}
+		if (left == LONG || right == LONG) {
+			return LONG;
+		}
+		return INT;
+	}
+}
@@ -0,0 +1,86 @@
+package com.juno.ir;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An operation inside a basic block. The instruction itself is the value it produces;
+ * instructions of type {@link IRType#VOID} produce nothing.
+ */
+public abstract class Instruction extends Value {
+
+	private final List<Value> operands;
+	private BasicBlock block;
+
+	protected Instruction(IRType type, Value... operands) {
+		super(type);
+		this.operands = new ArrayList<>(Arrays.asList(operands));
+	}
+
+	public List<Value> getOperands() {
+		return Collections.unmodifiableList(operands);
+	}
+
+	public Value getOperand(int index) {
+		return operands.get(index);
+	}
+
+	public void setOperand(int index, Value value) {
+		operands.set(index, value);
+	}
+
+	protected void addOperand(Value value) {
+		operands.add(value);
+	}
+
+	protected void removeOperand(int index) {
+		operands.remove(index);
+	}
+
+	public BasicBlock getBlock() {
+		return block;
+	}
+
+	void setBlock(BasicBlock block) {
+		this.block = block;
+	}
+
+	/**
+	 * True if the result depends only on the operands and the instruction has no side effects,
+	 * so equal instructions compute equal values and an unused one can be dropped.
+	 */
+	public boolean isPure() {
+		return false;
+	}
+
+	/**
+	 * True if the instruction can throw, e.g. integer division by zero. Such instructions are
+	 * kept even when unused and are never moved.
+	 */
+	public boolean canThrow() {
+		return false;
+	}
+
+	/**
+	 * True if the instruction can be removed when unused and evaluated anywhere its operands are available.
+	 */
+	public boolean isMovable() {
+		return isPure() && !canThrow();
+	}
+
+	public boolean isCommutative() {
+		return false;
+	}
+
+	/**
+	 * Identifies the operation apart from its operands: two pure instructions with the same key and
+	 * the same operands compute the same value.
+	 */
+	public Object operationKey() {
+		return List.of(getClass(), getType());
+	}
+
+	public abstract <T> T accept(InstructionVisitor<T> visitor);
+}
@@ -0,0 +1,31 @@
+package com.juno.ir;
+
+/**
+ * Visitor over the IR instruction kinds.
+ */
+public interface InstructionVisitor<T> {
+
+	T visitBinary(BinaryInstruction instruction);
+
+	T visitUnary(UnaryInstruction instruction);
+
+	T visitCompare(CompareInstruction instruction);
+
+	T visitConvert(ConvertInstruction instruction);
+
+	T visitConcat(ConcatInstruction instruction);
+
+	T visitCall(CallInstruction instruction);
+
+	T visitLoadGlobal(LoadGlobalInstruction instruction);
+
+	T visitStoreGlobal(StoreGlobalInstruction instruction);
+
+	T visitPhi(Phi phi);
+
+	T visitJump(JumpInstruction instruction);
+
+	T visitBranch(BranchInstruction instruction);
+
+	T visitReturn(ReturnInstruction instruction);
+}
@@ -0,0 +1,36 @@
+package com.juno.ir;
+
+import java.util.List;
+
+/**
+ * Unconditional jump.
+ */
+public final class JumpInstruction extends Terminator {
+
+	private BasicBlock target;
+
+	public JumpInstruction(BasicBlock target) {
+		this.target = target;
+	}
+
+	public BasicBlock getTarget() {
+		return target;
+	}
+
+	@Override
+	public List<BasicBlock> getSuccessors() {
+		return List.of(target);
+	}
+
+	@Override
+	void replaceSuccessor(BasicBlock oldTarget, BasicBlock newTarget) {
+		if (target == oldTarget) {
+			target = newTarget;
+		}
+	}
+
+	@Override
+	public <T> T accept(InstructionVisitor<T> visitor) {
+		return visitor.visitJump(this);
+	}
+}
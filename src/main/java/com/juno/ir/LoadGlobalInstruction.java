@@ -0,0 +1,29 @@
+package com.juno.ir;
+
+/**
+ * Read of a global variable (a static field).
+ */
+public final class LoadGlobalInstruction extends Instruction {
+
+	private final String owner;
+	private final String name;
+
+	public LoadGlobalInstruction(IRType type, String owner, String name) {
+		super(type);
+		this.owner = owner;
+		this.name = name;
+	}
+
+	public String getOwner() {
+		return owner;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public <T> T accept(InstructionVisitor<T> visitor) {
+		return visitor.visitLoadGlobal(this);
+	}
+}
@@ -0,0 +1,119 @@
+package com.juno.ir;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A natural loop: a header that dominates every block of the loop, and the blocks that reach one of
+ * the header's back edges without passing through the header.
+ */
+final class Loop {
+
+	private final BasicBlock header;
+	private final List<BasicBlock> latches;
+	private final Set<BasicBlock> blocks;
+	private final BasicBlock preheader;
+
+	private Loop(BasicBlock header, List<BasicBlock> latches, Set<BasicBlock> blocks) {
+		this.header = header;
+		this.latches = latches;
+		this.blocks = blocks;
+		this.preheader = findPreheader();
+	}
+
+	/**
+	 * The loops of a function, inner loops before the loops that contain them.
+	 */
+	static List<Loop> find(Function function) {
+		DominatorTree dominators = new DominatorTree(function);
+		Map<BasicBlock, List<BasicBlock>> backEdges = new LinkedHashMap<>();
+		for (BasicBlock block : dominators.getReversePostorder()) {
+			for (BasicBlock successor : block.getSuccessors()) {
+				if (dominators.dominates(successor, block)) {
+					backEdges.computeIfAbsent(successor, header -> new ArrayList<>()).add(block);
+				}
+			}
+		}
+
+		List<Loop> loops = new ArrayList<>();
+		backEdges.forEach((header, latches) -> loops.add(new Loop(header, latches, body(header, latches))));
+		loops.sort(Comparator.comparingInt(loop -> loop.blocks.size()));
+		return loops;
+	}
+
+	private static Set<BasicBlock> body(BasicBlock header, List<BasicBlock> latches) {
+		Set<BasicBlock> body = new HashSet<>();
+		body.add(header);
+		Deque<BasicBlock> worklist = new ArrayDeque<>(latches);
+		while (!worklist.isEmpty()) {
+			BasicBlock block = worklist.pop();
+			if (body.add(block)) {
+				worklist.addAll(block.getPredecessors());
+			}
+		}
+		return body;
+	}
+
+	/**
+	 * The only block outside the loop that enters it, if it has no other successor.
+	 */
+	private BasicBlock findPreheader() {
+		BasicBlock entering = null;
+		for (BasicBlock predecessor : header.getPredecessors()) {
+			if (blocks.contains(predecessor)) {
+				continue;
+			}
+			if (entering != null && entering != predecessor) {
+				return null;
+			}
+			entering = predecessor;
+		}
+		return entering != null && entering.getSuccessors().size() == 1 ? entering : null;
+	}
+
+	BasicBlock getHeader() {
+		return header;
+	}
+
+	List<BasicBlock> getLatches() {
+		return latches;
+	}
+
+	/**
+	 * Block where code that runs once before the loop can be placed, or null if there is none.
+	 */
+	BasicBlock getPreheader() {
+		return preheader;
+	}
+
+	boolean contains(BasicBlock block) {
+		return blocks.contains(block);
+	}
+
+	/**
+	 * True if the value is the same on every iteration: a constant, a parameter or a value computed outside the loop.
+	 */
+	boolean isInvariant(Value value) {
+		return !(value instanceof Instruction instruction) || !blocks.contains(instruction.getBlock());
+	}
+
+	/**
+	 * The blocks of the loop in the given order of the function's blocks.
+	 */
+	List<BasicBlock> blocksIn(List<BasicBlock> order) {
+		List<BasicBlock> result = new ArrayList<>();
+		for (BasicBlock block : order) {
+			if (blocks.contains(block)) {
+				result.add(block);
+			}
+		}
+		return result;
+	}
+}
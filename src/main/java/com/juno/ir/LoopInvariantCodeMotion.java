@@ -0,0 +1,70 @@
+package com.juno.ir;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves computations whose operands do not change inside a loop into the loop's preheader, so they
+ * run once instead of on every iteration. Moved instructions are evaluated even when the loop body
+ * would not have reached them, so only instructions that cannot throw are moved: arithmetic other
+ * than integer division, comparisons and conversions. Reads of globals are moved too when the loop
+ * neither writes the global nor calls a function that could.
+ * <p>
+ * Inner loops are handled first; what they move into a preheader that lies in an outer loop can then
+ * move further out.
+ */
+public class LoopInvariantCodeMotion implements IRPass {
+
+	@Override
+	public String name() {
+		return "licm";
+	}
+
+	@Override
+	public int run(Function function) {
+		List<BasicBlock> order = function.reversePostorder();
+		int moved = 0;
+		for (Loop loop : Loop.find(function)) {
+			BasicBlock preheader = loop.getPreheader();
+			if (preheader == null) {
+				continue;
+			}
+			List<BasicBlock> blocks = loop.blocksIn(order);
+			Set<String> writtenGlobals = new HashSet<>();
+			boolean calls = false;
+			for (BasicBlock block : blocks) {
+				for (Instruction instruction : block.getInstructions()) {
+					if (instruction instanceof StoreGlobalInstruction store) {
+						writtenGlobals.add(store.getOwner() + "." + store.getName());
+					}
+					calls |= instruction instanceof CallInstruction;
+				}
+			}
+
+			// In reverse postorder the operands of an instruction are visited, and possibly moved, before it
+			for (BasicBlock block : blocks) {
+				Iterator<Instruction> instructions = block.getInstructions().iterator();
+				while (instructions.hasNext()) {
+					Instruction instruction = instructions.next();
+					if (canMove(instruction, calls, writtenGlobals)
+							&& instruction.getOperands().stream().allMatch(loop::isInvariant)) {
+						instructions.remove();
+						preheader.insertBeforeTerminator(instruction);
+						moved++;
+					}
+				}
+			}
+		}
+		return moved;
+	}
+
+	private static boolean canMove(Instruction instruction, boolean calls, Set<String> writtenGlobals) {
+		if (instruction instanceof LoadGlobalInstruction load) {
+			return !calls && !writtenGlobals.contains(load.getOwner() + "." + load.getName());
+		}
+		// String.concat throws on a null string, which the loop might never have reached
+		return instruction.isMovable() && !(instruction instanceof ConcatInstruction);
+	}
+}
@@ -0,0 +1,24 @@
+package com.juno.ir;
+
+/**
+ * A function parameter, living in its JVM local variable slot.
+ */
+public final class Parameter extends Value {
+
+	private final int index;
+	private final int slot;
+
+	public Parameter(IRType type, int index, int slot) {
+		super(type);
+		this.index = index;
+		this.slot = slot;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public int getSlot() {
+		return slot;
+	}
+}
@@ -0,0 +1,48 @@
+package com.juno.ir;
+
+/**
+ * Merge of values at the start of a block: the phi takes the operand that belongs to the
+ * predecessor control came from. Operands are kept in the order of {@link BasicBlock#getPredecessors()}.
+ */
+public final class Phi extends Instruction {
+
+	public Phi(IRType type) {
+		super(type);
+	}
+
+	public void appendOperand(Value value) {
+		addOperand(value);
+	}
+
+	void removeOperandAt(int index) {
+		removeOperand(index);
+	}
+
+	/**
+	 * The operand flowing in from the given predecessor.
+	 */
+	public Value getIncoming(BasicBlock predecessor) {
+		return getOperand(getBlock().getPredecessors().indexOf(predecessor));
+	}
+
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+
+	@Override
+	public boolean isMovable() {
+		return false;
+	}
+
+	@Override
+	public Object operationKey() {
+		// Phis are only equal to phis of the same block
+		return getBlock();
+	}
+
+	@Override
+	public <T> T accept(InstructionVisitor<T> visitor) {
+		return visitor.visitPhi(this);
+	}
+}
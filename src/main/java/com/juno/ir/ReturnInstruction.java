@@ -0,0 +1,38 @@
+package com.juno.ir;
+
+import java.util.List;
+
+/**
+ * Return from the function, with a value unless the function returns void.
+ */
+public final class ReturnInstruction extends Terminator {
+
+	public ReturnInstruction() {
+		super();
+	}
+
+	public ReturnInstruction(Value value) {
+		super(value);
+	}
+
+	/**
+	 * The returned value, or null for a void return.
+	 */
+	public Value getValue() {
+		return getOperands().isEmpty() ? null : getOperand(0);
+	}
+
+	@Override
+	public List<BasicBlock> getSuccessors() {
+		return List.of();
+	}
+
+	@Override
+	void replaceSuccessor(BasicBlock oldTarget, BasicBlock newTarget) {
+	}
+
+	@Override
+	public <T> T accept(InstructionVisitor<T> visitor) {
+		return visitor.visitReturn(this);
+	}
+}
@@ -0,0 +1,254 @@
+package com.juno.ir;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Assigns local variable slots to the values of a function with a linear scan over live intervals,
+ * so that values whose lifetimes do not overlap share a slot.
+ * <p>
+ * Positions are numbered along the block layout: each block has a start position (where its phis are
+ * defined), one position per emitted instruction, and an end position for its terminator and the phi
+ * copies that precede it. A value used in place by a later instruction is read at that instruction's
+ * position. Liveness is computed per block; the interval of a value is the hull of every position it is
+ * live at. Since a definition dominates its uses, it comes first in the layout and the hull runs from the
+ * definition to the last use or live-out position, which is conservative across loops but keeps
+ * allocation a single sorted pass. Parameters keep their fixed slots.
+ */
+final class SlotAllocator {
+
+	private final Function function;
+	private final List<BasicBlock> order;
+	private final Set<Instruction> inPlace;
+	private final Set<Value> allocated = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	private final Map<BasicBlock, Integer> blockStart = new HashMap<>();
+	private final Map<BasicBlock, Integer> blockEnd = new HashMap<>();
+	private final Map<Value, int[]> intervals = new IdentityHashMap<>();
+	private final List<Value> values = new ArrayList<>();
+
+	private int maxLocals;
+
+	/**
+	 * @param order   the block layout
+	 * @param inPlace instructions that are emitted at their use and need no slot
+	 * @param uses    number of uses of every value
+	 */
+	SlotAllocator(Function function, List<BasicBlock> order, Set<Instruction> inPlace, Map<Value, Integer> uses) {
+		this.function = function;
+		this.order = order;
+		this.inPlace = inPlace;
+		for (BasicBlock block : order) {
+			for (Phi phi : block.getPhis()) {
+				if (uses.getOrDefault(phi, 0) > 0) {
+					allocated.add(phi);
+					values.add(phi);
+				}
+			}
+			for (Instruction instruction : block.getInstructions()) {
+				if (instruction.getType() != IRType.VOID && !inPlace.contains(instruction)
+						&& uses.getOrDefault(instruction, 0) > 0) {
+					allocated.add(instruction);
+					values.add(instruction);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compute the slot of every parameter and stored value.
+	 */
+	Map<Value, Integer> allocate() {
+		numberPositions();
+		buildIntervals(computeLiveOut());
+
+		Map<Value, Integer> slots = new IdentityHashMap<>();
+		for (Parameter parameter : function.getParameters()) {
+			slots.put(parameter, parameter.getSlot());
+		}
+
+		List<Value> byStart = new ArrayList<>(values);
+		byStart.sort(Comparator.comparingInt(value -> intervals.get(value)[0]));
+		PriorityQueue<Value> active = new PriorityQueue<>(Comparator.comparingInt(value -> intervals.get(value)[1]));
+		Deque<Integer> freeSingle = new ArrayDeque<>();
+		Deque<Integer> freeDouble = new ArrayDeque<>();
+		int next = function.getParameterSlots();
+
+		for (Value value : byStart) {
+			int start = intervals.get(value)[0];
+			while (!active.isEmpty() && intervals.get(active.peek())[1] < start) {
+				Value expired = active.poll();
+				(expired.getType().slotSize() == 2 ? freeDouble : freeSingle).push(slots.get(expired));
+			}
+			int size = value.getType().slotSize();
+			Deque<Integer> free = size == 2 ? freeDouble : freeSingle;
+			int slot;
+			if (!free.isEmpty()) {
+				slot = free.pop();
+			}
+			else {
+				slot = next;
+				next += size;
+			}
+			slots.put(value, slot);
+			active.add(value);
+		}
+		maxLocals = next;
+		return slots;
+	}
+
+	int getMaxLocals() {
+		return maxLocals;
+	}
+
+	// ===== POSITIONS AND LIVENESS =====
+
+	private void numberPositions() {
+		int position = 0;
+		for (BasicBlock block : order) {
+			blockStart.put(block, position++);
+			for (Instruction instruction : block.getInstructions()) {
+				if (!inPlace.contains(instruction)) {
+					position++;
+				}
+			}
+			blockEnd.put(block, position++);
+		}
+	}
+
+	/**
+	 * Values used in a block before (or without) being defined there, plus those defined in it.
+	 */
+	private void scanBlock(BasicBlock block, Set<Value> used, Set<Value> defined) {
+		for (Phi phi : block.getPhis()) {
+			if (allocated.contains(phi)) {
+				defined.add(phi);
+			}
+		}
+		for (Instruction instruction : block.getInstructions()) {
+			if (!inPlace.contains(instruction)) {
+				forEachStoredOperand(instruction, used::add);
+				if (allocated.contains(instruction)) {
+					defined.add(instruction);
+				}
+			}
+		}
+		forEachStoredOperand(block.getTerminator(), used::add);
+		used.removeAll(defined);
+	}
+
+	private Map<BasicBlock, Set<Value>> computeLiveOut() {
+		Map<BasicBlock, Set<Value>> gen = new HashMap<>();
+		Map<BasicBlock, Set<Value>> kill = new HashMap<>();
+		Map<BasicBlock, Set<Value>> liveIn = new HashMap<>();
+		Map<BasicBlock, Set<Value>> liveOut = new HashMap<>();
+		for (BasicBlock block : order) {
+			Set<Value> used = identitySet();
+			Set<Value> defined = identitySet();
+			scanBlock(block, used, defined);
+			gen.put(block, used);
+			kill.put(block, defined);
+			liveIn.put(block, identitySet());
+			liveOut.put(block, identitySet());
+		}
+
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int i = order.size() - 1; i >= 0; i--) {
+				BasicBlock block = order.get(i);
+				Set<Value> out = liveOut.get(block);
+				for (BasicBlock successor : block.getSuccessors()) {
+					out.addAll(liveIn.get(successor));
+					int edge = successor.getPredecessors().indexOf(block);
+					for (Phi phi : successor.getPhis()) {
+						if (allocated.contains(phi) && allocated.contains(phi.getOperand(edge))) {
+							out.add(phi.getOperand(edge));
+						}
+					}
+				}
+				Set<Value> in = identitySet();
+				in.addAll(out);
+				in.removeAll(kill.get(block));
+				in.addAll(gen.get(block));
+				if (!in.equals(liveIn.get(block))) {
+					liveIn.put(block, in);
+					changed = true;
+				}
+			}
+		}
+		return liveOut;
+	}
+
+	private void buildIntervals(Map<BasicBlock, Set<Value>> liveOut) {
+		for (BasicBlock block : order) {
+			int start = blockStart.get(block);
+			int end = blockEnd.get(block);
+			for (Value value : liveOut.get(block)) {
+				extend(value, end);
+			}
+			for (Phi phi : block.getPhis()) {
+				if (allocated.contains(phi)) {
+					// Defined at the block start, but written by the copies at the end of each predecessor
+					extend(phi, start);
+					for (BasicBlock predecessor : block.getPredecessors()) {
+						extend(phi, blockEnd.get(predecessor));
+					}
+				}
+			}
+
+			int position = start;
+			for (Instruction instruction : block.getInstructions()) {
+				if (inPlace.contains(instruction)) {
+					continue;
+				}
+				position++;
+				int at = position;
+				forEachStoredOperand(instruction, value -> extend(value, at));
+				if (allocated.contains(instruction)) {
+					extend(instruction, at);
+				}
+			}
+			forEachStoredOperand(block.getTerminator(), value -> extend(value, end));
+		}
+	}
+
+	/**
+	 * Visit the stored values an instruction reads, looking through operands emitted in place.
+	 */
+	private void forEachStoredOperand(Instruction instruction, Consumer<Value> action) {
+		for (Value operand : instruction.getOperands()) {
+			if (operand instanceof Instruction operandInstruction && inPlace.contains(operandInstruction)) {
+				forEachStoredOperand(operandInstruction, action);
+			}
+			else if (allocated.contains(operand)) {
+				action.accept(operand);
+			}
+		}
+	}
+
+	private void extend(Value value, int position) {
+		int[] interval = intervals.get(value);
+		if (interval == null) {
+			intervals.put(value, new int[]{position, position});
+		}
+		else {
+			interval[0] = Math.min(interval[0], position);
+			interval[1] = Math.max(interval[1], position);
+		}
+	}
+
+	private static Set<Value> identitySet() {
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+}
@@ -0,0 +1,33 @@
+package com.juno.ir;
+
+/**
+ * Write of a global variable (a static field).
+ */
+public final class StoreGlobalInstruction extends Instruction {
+
+	private final String owner;
+	private final String name;
+
+	public StoreGlobalInstruction(String owner, String name, Value value) {
+		super(IRType.VOID, value);
+		this.owner = owner;
+		this.name = name;
+	}
+
+	public String getOwner() {
+		return owner;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Value getValue() {
+		return getOperand(0);
+	}
+
+	@Override
+	public <T> T accept(InstructionVisitor<T> visitor) {
+		return visitor.visitStoreGlobal(this);
+	}
+}
@@ -0,0 +1,128 @@
+package com.juno.ir;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces multiplications of a loop's induction variable by a loop-invariant factor with a second
+ * induction variable that is advanced by an addition. For a basic induction variable
+ * {@code i = phi [init, i + step]} and a product {@code i * k}, the pass adds
+ * {@code j = phi [init * k, j + step * k]} to the loop header and uses {@code j} in place of the product.
+ * Integer arithmetic wraps, so the two stay equal on every iteration even when they overflow; floating
+ * point products are left alone since they would not.
+ * <p>
+ * Only loops with a preheader and a single back edge are transformed. Run it after
+ * {@link LoopInvariantCodeMotion}, which makes the factors invariant.
+ */
+public class StrengthReduction implements IRPass {
+
+	@Override
+	public String name() {
+		return "strength reduction";
+	}
+
+	@Override
+	public int run(Function function) {
+		int reduced = 0;
+		for (Loop loop : Loop.find(function)) {
+			BasicBlock preheader = loop.getPreheader();
+			if (preheader == null || loop.getLatches().size() != 1 || loop.getHeader().getPredecessors().size() != 2) {
+				continue;
+			}
+			Map<Phi, BinaryInstruction> increments = new IdentityHashMap<>();
+			for (Phi phi : loop.getHeader().getPhis()) {
+				BinaryInstruction increment = increment(loop, phi);
+				if (increment != null) {
+					increments.put(phi, increment);
+				}
+			}
+			if (increments.isEmpty()) {
+				continue;
+			}
+
+			Map<Value, Value> replacements = new HashMap<>();
+			for (BasicBlock block : loop.blocksIn(function.getBlocks())) {
+				for (Instruction instruction : new ArrayList<>(block.getInstructions())) {
+					if (!(instruction instanceof BinaryInstruction multiply)
+							|| multiply.getOperator() != BinaryInstruction.Operator.MUL) {
+						continue;
+					}
+					Phi variable = null;
+					Value factor = null;
+					for (int i = 0; i < 2 && variable == null; i++) {
+						if (multiply.getOperand(i) instanceof Phi phi && increments.containsKey(phi)
+								&& loop.isInvariant(multiply.getOperand(1 - i))) {
+							variable = phi;
+							factor = multiply.getOperand(1 - i);
+						}
+					}
+					if (variable == null) {
+						continue;
+					}
+					replacements.put(multiply, reduce(loop, preheader, variable, increments.get(variable), factor));
+					block.getInstructions().remove(multiply);
+					reduced++;
+				}
+			}
+			function.replaceUses(replacements);
+		}
+		return reduced;
+	}
+
+	/**
+	 * The instruction that advances a basic induction variable, {@code phi + step} or {@code phi - step}
+	 * with an invariant step, or null if the phi is not one.
+	 */
+	private static BinaryInstruction increment(Loop loop, Phi phi) {
+		if (phi.getType() != IRType.INT && phi.getType() != IRType.LONG) {
+			return null;
+		}
+		Value next = phi.getIncoming(loop.getLatches().get(0));
+		if (!(next instanceof BinaryInstruction binary) || !loop.contains(binary.getBlock())) {
+			return null;
+		}
+		return switch (binary.getOperator()) {
+			case ADD -> (binary.getLeft() == phi && loop.isInvariant(binary.getRight()))
+					|| (binary.getRight() == phi && loop.isInvariant(binary.getLeft())) ? binary : null;
+			case SUB -> binary.getLeft() == phi && loop.isInvariant(binary.getRight()) ? binary : null;
+			default -> null;
+		};
+	}
+
+	/**
+	 * Create the induction variable that tracks {@code variable * factor} and return it.
+	 */
+	private static Phi reduce(Loop loop, BasicBlock preheader, Phi variable, BinaryInstruction increment, Value factor) {
+		Value step = increment.getLeft() == variable ? increment.getRight() : increment.getLeft();
+		Value initial = multiply(preheader, variable.getIncoming(preheader), factor);
+		Value scaledStep = multiply(preheader, step, factor);
+
+		Phi product = new Phi(variable.getType());
+		BasicBlock header = loop.getHeader();
+		header.addPhi(product);
+		BinaryInstruction next = new BinaryInstruction(increment.getOperator(), product, scaledStep);
+		increment.getBlock().insertAfter(increment, next);
+		for (BasicBlock predecessor : header.getPredecessors()) {
+			product.appendOperand(predecessor == preheader ? initial : next);
+		}
+		return product;
+	}
+
+	/**
+	 * The product of two invariant values, folded when both are constants.
+	 */
+	private static Value multiply(BasicBlock preheader, Value left, Value right) {
+		if (left instanceof Constant a && right instanceof Constant b) {
+			Object value = left.getType() == IRType.LONG
+					? (Object) (((Number) a.getValue()).longValue() * ((Number) b.getValue()).longValue())
+					: (Object) (((Number) a.getValue()).intValue() * ((Number) b.getValue()).intValue());
+			return Constant.of(left.getType(), value);
+		}
+		BinaryInstruction product = new BinaryInstruction(BinaryInstruction.Operator.MUL, left, right);
+		preheader.insertBeforeTerminator(product);
+		return product;
+	}
+}
@@ -0,0 +1,20 @@
+package com.juno.ir;
+
+import java.util.List;
+
+/**
+ * The last instruction of a basic block, which decides where control goes next.
+ */
+public abstract class Terminator extends Instruction {
+
+	protected Terminator(Value... operands) {
+		super(IRType.VOID, operands);
+	}
+
+	public abstract List<BasicBlock> getSuccessors();
+
+	/**
+	 * Redirect the edges to {@code oldTarget} to {@code newTarget}. Predecessor lists are not updated.
+	 */
+	abstract void replaceSuccessor(BasicBlock oldTarget, BasicBlock newTarget);
+}
@@ -0,0 +1,53 @@
+package com.juno.ir;
+
+import java.util.List;
+
+/**
+ * Negation of a number or of a bool.
+ */
+public final class UnaryInstruction extends Instruction {
+
+	public enum Operator {
+		NEG("neg"), NOT("not");
+
+		private final String mnemonic;
+
+		Operator(String mnemonic) {
+			this.mnemonic = mnemonic;
+		}
+
+		public String mnemonic() {
+			return mnemonic;
+		}
+	}
+
+	private final Operator operator;
+
+	public UnaryInstruction(Operator operator, Value operand) {
+		super(operand.getType(), operand);
+		this.operator = operator;
+	}
+
+	public Operator getOperator() {
+		return operator;
+	}
+
+	public Value getValue() {
+		return getOperand(0);
+	}
+
+	@Override
+	public boolean isPure() {
+		return true;
+	}
+
+	@Override
+	public Object operationKey() {
+		return List.of(getClass(), getType(), operator);
+	}
+
+	@Override
+	public <T> T accept(InstructionVisitor<T> visitor) {
+		return visitor.visitUnary(this);
+	}
+}
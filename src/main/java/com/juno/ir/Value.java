@@ -0,0 +1,18 @@
+package com.juno.ir;
+
+/**
+ * A typed value in the IR: a constant, a function parameter or the result of an instruction.
+ * Values are immutable once defined (SSA): every instruction result is assigned exactly once.
+ */
+public abstract class Value {
+
+	private final IRType type;
+
+	protected Value(IRType type) {
+		this.type = type;
+	}
+
+	public IRType getType() {
+		return type;
+	}
+}
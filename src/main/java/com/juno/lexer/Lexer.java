@@ -143,7 +143,12 @@ public class Lexer {
 				addToken(TokenType.COMMA);
 				break;
 			case '.':
-				addToken(TokenType.DOT);
+				if (match('.')) {
+					addToken(match('=') ? TokenType.RANGE_INCLUSIVE : TokenType.RANGE);
+				}
+				else {
+					addToken(TokenType.DOT);
+				}
 				break;
 			case '+':
 				addToken(TokenType.PLUS);
@@ -88,6 +88,8 @@ public enum TokenType {
 	COMMA,          // ,
 	DOT,            // .
 	ARROW,          // ->
+	RANGE,          // ..
+	RANGE_INCLUSIVE, // ..=
 
 	// Special
 	EOF,
@@ -0,0 +1,44 @@
+package com.juno.runtime;
+
+/**
+ * Heap cell for a double variable whose address escapes, see {@link IntCell}.
+ */
+public class DoubleCell {
+	public double value;
+
+	public DoubleCell(double value) {
+		this.value = value;
+	}
+
+	public double get() {
+		return value;
+	}
+
+	public void set(double value) {
+		this.value = value;
+	}
+
+	/**
+	 * A pointer to an element of a double array.
+	 */
+	public static final class DoubleElement extends DoubleCell {
+		private final double[] array;
+		private final int index;
+
+		public DoubleElement(double[] array, int index) {
+			super(0);
+			this.array = array;
+			this.index = index;
+		}
+
+		@Override
+		public double get() {
+			return array[index];
+		}
+
+		@Override
+		public void set(double value) {
+			array[index] = value;
+		}
+	}
+}
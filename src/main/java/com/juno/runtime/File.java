@@ -4,10 +4,17 @@ package com.juno.runtime;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * File module for file operations.
@@ -15,13 +22,90 @@ import java.nio.file.StandardOpenOption;
  */
 public class File {
 
+	private static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * When a buffered write handle writes its buffer to the file, besides when the buffer is full,
+	 * on flush(), on close() and when the program exits, which always write everything. Written means handed to the
+	 * operating system, not forced to the disk.
+	 */
+	public static final class FlushPolicy {
+		private static final FlushPolicy EXPLICIT = new FlushPolicy(0, 0);
+
+		private final long bytes;
+		private final long nanos;
+
+		private FlushPolicy(long bytes, long nanos) {
+			this.bytes = bytes;
+			this.nanos = nanos;
+		}
+
+		/**
+		 * Write only when the buffer is full, on flush() and on close().
+		 */
+		public static FlushPolicy explicit() {
+			return EXPLICIT;
+		}
+
+		/**
+		 * Also write as soon as the given number of bytes is buffered.
+		 */
+		public static FlushPolicy everyBytes(long bytes) {
+			if (bytes <= 0) {
+				throw new IllegalArgumentException("Flush threshold must be positive: " + bytes);
+			}
+			return new FlushPolicy(bytes, 0);
+		}
+
+		/**
+		 * Also write on the first write at least the given time after the last one. Nothing is
+		 * written in the background: a handle that is not written to keeps its buffer.
+		 */
+		public static FlushPolicy everyMillis(long millis) {
+			if (millis <= 0) {
+				throw new IllegalArgumentException("Flush interval must be positive: " + millis);
+			}
+			return new FlushPolicy(0, millis * 1_000_000);
+		}
+	}
+
+	/**
+	 * The write handles that are not closed yet. Their buffers are written out when the program
+	 * exits, as Io does for stdout, so a program that never closes a handle loses no output.
+	 */
+	private static final class OpenHandles {
+		private static final Set<Handle> HANDLES = ConcurrentHashMap.newKeySet();
+
+		static {
+			Runtime.getRuntime().addShutdownHook(new Thread(OpenHandles::flush, "juno-file-flush"));
+		}
+
+		private static void flush() {
+			for (Handle handle : HANDLES) {
+				try {
+					handle.writeBuffer();
+				}
+				catch (IOException e) {
+					// The program is exiting; there is nobody left to report to
+				}
+			}
+		}
+	}
+
 	/**
 	 * Smart file handle that automatically closes resources.
 	 * Tracks whether the file is open and prevents double-closing.
+	 * <p>
+	 * Write handles encode text as UTF-8 straight into a direct buffer and write it to a
+	 * FileChannel as the flush policy says, so writing a line costs no system call and no
+	 * intermediate string.
 	 */
 	public static class Handle {
 		private final BufferedReader reader;
-		private final PrintWriter writer;
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		private final FlushPolicy policy;
+		private long lastWrite;
 		private final String path;
 		private boolean isOpen;
 		private final boolean isReader;
@@ -29,17 +113,26 @@ public class File {
 		private Handle(String path, BufferedReader reader) {
 			this.path = path;
 			this.reader = reader;
-			this.writer = null;
+			this.channel = null;
+			this.buffer = null;
+			this.policy = null;
 			this.isOpen = true;
 			this.isReader = true;
 		}
 
-		private Handle(String path, PrintWriter writer) {
+		private Handle(String path, FileChannel channel, int bufferSize, FlushPolicy policy) {
+			if (bufferSize < 4) {
+				throw new IllegalArgumentException("Buffer too small: " + bufferSize);
+			}
 			this.path = path;
 			this.reader = null;
-			this.writer = writer;
+			this.channel = channel;
+			this.buffer = ByteBuffer.allocateDirect(bufferSize);
+			this.policy = policy;
+			this.lastWrite = System.nanoTime();
 			this.isOpen = true;
 			this.isReader = false;
+			OpenHandles.HANDLES.add(this);
 		}
 
 		/**
@@ -67,12 +160,13 @@ public class File {
 				throw new IOException("File is not open for reading: " + path);
 			}
 
+			// One pass over the rest of the file, keeping its line terminators as they are
+			assert reader != null;
 			StringBuilder content = new StringBuilder();
-			String line;
-			while (true) {
-				assert reader != null;
-				if ((line = reader.readLine()) == null) break;
-				content.append(line).append("\\n");
+			char[] chunk = new char[8192];
+			int count;
+			while ((count = reader.read(chunk)) >= 0) {
+				content.append(chunk, 0, count);
 			}
 			return content.toString();
 		}
@@ -81,22 +175,30 @@ public class File {
 		 * Write a string to the file.
 		 */
 		public void write(String content) throws IOException {
-			if (!isOpen) {
-				throw new IOException("File is closed: " + path);
-			}
-			if (isReader) {
-				throw new IOException("File is not open for writing: " + path);
-			}
-			assert writer != null;
-			writer.write(content);
-			writer.flush(); // Ensure content is written
+			checkWritable();
+			encode(content);
+			applyPolicy();
 		}
 
 		/**
 		 * Write a line to the file (adds newline).
 		 */
 		public void writeLine(String line) throws IOException {
-			write(line + "\\n");
+			checkWritable();
+			encode(line);
+			if (!buffer.hasRemaining()) {
+				writeBuffer();
+			}
+			buffer.put((byte) '\n');
+			applyPolicy();
+		}
+
+		/**
+		 * Write everything buffered to the file.
+		 */
+		public void flush() throws IOException {
+			checkWritable();
+			writeBuffer();
 		}
 
 		/**
@@ -104,16 +206,87 @@ public class File {
 		 */
 		public void close() throws IOException {
 			if (isOpen) {
+				isOpen = false;
 				if (reader != null) {
 					reader.close();
 				}
-				if (writer != null) {
-					writer.close();
+				if (channel != null) {
+					OpenHandles.HANDLES.remove(this);
+					try {
+						writeBuffer();
+					}
+					finally {
+						channel.close();
+					}
+				}
+			}
+		}
+
+		private void checkWritable() throws IOException {
+			if (!isOpen) {
+				throw new IOException("File is closed: " + path);
+			}
+			if (isReader) {
+				throw new IOException("File is not open for writing: " + path);
+			}
+		}
+
+		private void applyPolicy() throws IOException {
+			if (policy.bytes > 0 && buffer.position() >= policy.bytes
+					|| policy.nanos > 0 && System.nanoTime() - lastWrite >= policy.nanos) {
+				writeBuffer();
+			}
+		}
+
+		/**
+		 * Encode text as UTF-8 into the buffer, writing the buffer out whenever it fills up.
+		 * Unpaired surrogates become '?', as String.getBytes does.
+		 */
+		private void encode(String text) throws IOException {
+			int length = text.length();
+			for (int i = 0; i < length; i++) {
+				char c = text.charAt(i);
+				if (c < 0x80) {
+					if (!buffer.hasRemaining()) {
+						writeBuffer();
+					}
+					buffer.put((byte) c);
+					continue;
+				}
+				if (buffer.remaining() < 4) {
+					writeBuffer();
+				}
+				if (c < 0x800) {
+					buffer.put((byte) (0xC0 | c >> 6));
+					buffer.put((byte) (0x80 | c & 0x3F));
+				}
+				else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+					int codePoint = Character.toCodePoint(c, text.charAt(++i));
+					buffer.put((byte) (0xF0 | codePoint >> 18));
+					buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+					buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+					buffer.put((byte) (0x80 | codePoint & 0x3F));
+				}
+				else if (Character.isSurrogate(c)) {
+					buffer.put((byte) '?');
+				}
+				else {
+					buffer.put((byte) (0xE0 | c >> 12));
+					buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+					buffer.put((byte) (0x80 | c & 0x3F));
 				}
-				isOpen = false;
 			}
 		}
 
+		private void writeBuffer() throws IOException {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			buffer.clear();
+			lastWrite = System.nanoTime();
+		}
+
 		/**
 		 * Check if the file handle is open.
 		 */
@@ -140,36 +313,256 @@ public class File {
 
 	/**
 	 * Open a file for writing (creates/overwrites).
-	 * Similar to Python's open(path, 'w').
+	 * Similar to Python's open(path, 'w'). Output is buffered until flush(), close() or the
+	 * end of the program.
 	 */
 	public static Handle openWrite(String path) throws IOException {
-		PrintWriter writer = new PrintWriter(Files.newBufferedWriter(
-				Paths.get(path),
-				StandardOpenOption.CREATE,
-				StandardOpenOption.TRUNCATE_EXISTING
-		));
-		return new Handle(path, writer);
+		return openWrite(path, DEFAULT_BUFFER_SIZE, FlushPolicy.explicit());
+	}
+
+	/**
+	 * Open a file for writing with a buffer size and flush policy.
+	 */
+	public static Handle openWrite(String path, int bufferSize, FlushPolicy policy) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(path),
+				StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+		return new Handle(path, channel, bufferSize, policy);
 	}
 
 	/**
 	 * Open a file for appending.
-	 * Similar to Python's open(path, 'a').
+	 * Similar to Python's open(path, 'a'). Output is buffered until flush(), close() or the
+	 * end of the program.
 	 */
 	public static Handle openAppend(String path) throws IOException {
-		PrintWriter writer = new PrintWriter(Files.newBufferedWriter(
-				Paths.get(path),
-				StandardOpenOption.CREATE,
-				StandardOpenOption.APPEND
-		));
-		return new Handle(path, writer);
+		return openAppend(path, DEFAULT_BUFFER_SIZE, FlushPolicy.explicit());
+	}
+
+	/**
+	 * Open a file for appending with a buffer size and flush policy.
+	 */
+	public static Handle openAppend(String path, int bufferSize, FlushPolicy policy) throws IOException {
+		FileChannel channel = FileChannel.open(Paths.get(path),
+				StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		return new Handle(path, channel, bufferSize, policy);
 	}
 
 	/**
 	 * Read entire file content as string.
-	 * Convenience method for small files.
+	 * The file is mapped and copied out of the page cache with one bulk get, then decoded as UTF-8.
 	 */
 	public static String readAll(String path) throws IOException {
-		return Files.readString(Paths.get(path));
+		return mapRead(path).readAll();
+	}
+
+	/**
+	 * Iterate over the lines of a file, reading it as it goes.
+	 */
+	public static FileLines lines(String path) throws IOException {
+		return FileLines.open(path);
+	}
+
+	/**
+	 * Map a file for reading: byte access and line scanning straight from the page cache.
+	 */
+	public static MappedFile mapRead(String path) throws IOException {
+		return MappedFile.map(path);
+	}
+
+	// ===== ASYNCHRONOUS OPERATIONS =====
+
+	/**
+	 * Read a whole file as UTF-8 text in the background.
+	 */
+	public static FileFuture<String> readAsync(String path) {
+		return FileFuture.submit(() -> {
+			byte[] bytes = readBytes(path);
+			return new String(bytes, StandardCharsets.UTF_8);
+		});
+	}
+
+	/**
+	 * Read a whole file into a byte array in the background.
+	 */
+	public static FileFuture<byte[]> readBytesAsync(String path) {
+		return FileFuture.submit(() -> readBytes(path));
+	}
+
+	/**
+	 * Write string content to a file (creates/overwrites) in the background. The result is
+	 * the number of bytes written.
+	 */
+	public static FileFuture<Long> writeAsync(String path, String content) {
+		return FileFuture.submit(() -> {
+			byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+			writeBytes(path, bytes);
+			return (long) bytes.length;
+		});
+	}
+
+	/**
+	 * Copy a file in the background, like copy(from, to).
+	 */
+	public static FileFuture<Long> copyAsync(String from, String to) {
+		return FileFuture.submit(() -> copy(from, to));
+	}
+
+	/**
+	 * Wait for a background operation and return its result.
+	 */
+	public static <T> T await(FileFuture<T> future) {
+		return future.await();
+	}
+
+	/**
+	 * Whether a background operation has finished, so await returns at once.
+	 */
+	public static boolean isDone(FileFuture<?> future) {
+		return future.isDone();
+	}
+
+	// ===== MAPPED VIEWS =====
+
+	/**
+	 * Map a region of a file as a view of count bytes, starting offset bytes into the file.
+	 * A writable view maps the file read-write, growing it to cover the region if needed;
+	 * writes reach the page cache at once and the disk on force() or eventually.
+	 */
+	public static MappedByteBuffer mapBytes(String path, long offset, int count, boolean writable) throws IOException {
+		return mapRegion(path, offset, count, Byte.BYTES, writable);
+	}
+
+	/**
+	 * Map a region of a file as a view of count ints. See mapBytes.
+	 */
+	public static MappedByteBuffer mapInts(String path, long offset, int count, boolean writable) throws IOException {
+		return mapRegion(path, offset, count, Integer.BYTES, writable);
+	}
+
+	/**
+	 * Map a region of a file as a view of count longs. See mapBytes.
+	 */
+	public static MappedByteBuffer mapLongs(String path, long offset, int count, boolean writable) throws IOException {
+		return mapRegion(path, offset, count, Long.BYTES, writable);
+	}
+
+	/**
+	 * Map a region of a file as a view of count doubles. See mapBytes.
+	 */
+	public static MappedByteBuffer mapDoubles(String path, long offset, int count, boolean writable) throws IOException {
+		return mapRegion(path, offset, count, Double.BYTES, writable);
+	}
+
+	/**
+	 * Write the changes made through a writable view to the disk.
+	 */
+	public static void force(MappedByteBuffer view) {
+		view.force();
+	}
+
+	/**
+	 * Elements are little-endian, the byte order of the machines the JVM mostly runs on, so
+	 * reading one is a plain load. A region is at most 2 GiB, the most one buffer can map.
+	 */
+	private static MappedByteBuffer mapRegion(String path, long offset, int count, int elementSize, boolean writable)
+			throws IOException {
+		if (offset < 0 || count < 0) {
+			throw new IllegalArgumentException("Negative region of " + path + ": offset " + offset + ", count " + count);
+		}
+		long size = (long) count * elementSize;
+		if (size > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Region of " + size + " bytes of " + path + " is larger than 2 GiB");
+		}
+		try (FileChannel channel = writable
+				? FileChannel.open(Paths.get(path), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE)
+				: FileChannel.open(Paths.get(path))) {
+			if (!writable && offset + size > channel.size()) {
+				throw new IOException("Region " + offset + ".." + (offset + size) + " is past the end of " + path);
+			}
+			MappedByteBuffer view = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+					offset, size);
+			view.order(ByteOrder.LITTLE_ENDIAN);
+			return view;
+		}
+	}
+
+	// ===== BINARY FILES =====
+
+	/**
+	 * Read a whole file into a new byte array.
+	 */
+	public static byte[] readBytes(String path) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path))) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE - 8) {
+				throw new IOException("File is too large for an array: " + path);
+			}
+			byte[] bytes = new byte[(int) size];
+			int count = readFully(channel, ByteBuffer.wrap(bytes));
+			// A file that shrank while being read
+			return count < bytes.length ? Arrays.copyOf(bytes, count) : bytes;
+		}
+	}
+
+	/**
+	 * Read the start of a file into an array from an offset, as many bytes as fit, so one
+	 * buffer can be reused for many reads. Returns the number of bytes read.
+	 */
+	public static int readInto(String path, byte[] buffer, int offset) throws IOException {
+		if (offset < 0 || offset > buffer.length) {
+			throw new IndexOutOfBoundsException("Offset " + offset + " out of bounds for length " + buffer.length);
+		}
+		try (FileChannel channel = FileChannel.open(Paths.get(path))) {
+			return readFully(channel, ByteBuffer.wrap(buffer, offset, buffer.length - offset));
+		}
+	}
+
+	/**
+	 * Write a byte array to a file (creates/overwrites).
+	 */
+	public static void writeBytes(String path, byte[] bytes) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path),
+				StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Copy a file (creates/overwrites the target) and return the number of bytes copied.
+	 * The bytes are transferred by the operating system from channel to channel, so they are
+	 * never copied into the Java heap.
+	 */
+	public static long copy(String from, String to) throws IOException {
+		try (FileChannel source = FileChannel.open(Paths.get(from));
+				FileChannel target = FileChannel.open(Paths.get(to),
+						StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long size = source.size();
+			long position = 0;
+			while (position < size) {
+				long count = source.transferTo(position, size - position, target);
+				if (count <= 0) {
+					break; // the file shrank while being copied
+				}
+				position += count;
+			}
+			return position;
+		}
+	}
+
+	/**
+	 * Read from a channel until the buffer is full or the file ends; returns the bytes read.
+	 */
+	private static int readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+		int start = buffer.position();
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				break;
+			}
+		}
+		return buffer.position() - start;
 	}
 
 	/**
@@ -0,0 +1,102 @@
+package com.juno.runtime;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The result of a file operation running in the background, returned by File.readAsync(path)
+ * and its siblings. await() blocks until the result is there.
+ * <p>
+ * Operations run on a fixed pool of daemon threads, so any number of them can be issued at
+ * once while at most {@link #THREADS} block in the file system. The pool does not keep a
+ * program alive, but a shutdown hook lets the operations it has started finish before the
+ * program exits, so a write that is never awaited is still written in full.
+ */
+public final class FileFuture<T> {
+	/**
+	 * Number of operations that run at the same time. File reads block their thread, and
+	 * fast disks serve many reads at once, so there are more threads than processors.
+	 */
+	public static final int THREADS = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+	private final CompletableFuture<T> result;
+
+	private FileFuture(CompletableFuture<T> result) {
+		this.result = result;
+	}
+
+	interface Operation<T> {
+		T run() throws IOException;
+	}
+
+	private static final class Pool {
+		static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "juno-file-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		static {
+			Runtime.getRuntime().addShutdownHook(new Thread(Pool::drain, "juno-file-drain"));
+		}
+
+		private static void drain() {
+			EXECUTOR.shutdown();
+			try {
+				EXECUTOR.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Start an operation in the background.
+	 */
+	static <T> FileFuture<T> submit(Operation<T> operation) {
+		return new FileFuture<>(CompletableFuture.supplyAsync(() -> {
+			try {
+				return operation.run();
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, Pool.EXECUTOR));
+	}
+
+	/**
+	 * Wait for the operation and return its result. An operation that failed throws its
+	 * exception here, in the thread that awaits it.
+	 */
+	public T await() {
+		try {
+			return result.join();
+		}
+		catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Whether the operation has finished, so await() returns at once.
+	 */
+	public boolean isDone() {
+		return result.isDone();
+	}
+}
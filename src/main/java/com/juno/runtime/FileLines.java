@@ -0,0 +1,237 @@
+package com.juno.runtime;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Streaming iteration over the lines of a file, returned by File.lines(path). For-in loops
+ * over File.lines are compiled to calls of next() and line():
+ * <pre>
+ * FileLines lines = File.lines(path);
+ * while (lines.next()) { String line = lines.line(); ... }
+ * lines.close();
+ * </pre>
+ * The file is read in 64 KiB chunks and the bytes of each line are collected in a reused
+ * buffer, so line() allocates only the string it returns. Callers that only inspect lines can
+ * use view() instead, which decodes into a reused {@link LineView} and allocates nothing.
+ * <p>
+ * Lines are UTF-8, end at {@code '\n'}, and drop a {@code '\r'} before it. The file is closed
+ * when the last line has been read, or by close().
+ */
+public final class FileLines implements Closeable {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final String path;
+	private final FileChannel channel;
+	private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).limit(0);
+
+	// The bytes of the current line, and the same array wrapped for the decoder
+	private byte[] lineBytes = new byte[256];
+	private ByteBuffer lineBuffer = ByteBuffer.wrap(lineBytes);
+	private int lineLength = 0;
+
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPLACE)
+			.onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final LineView view = new LineView();
+	private boolean viewDecoded = false;
+	private boolean open = true;
+
+	private FileLines(String path, FileChannel channel) {
+		this.path = path;
+		this.channel = channel;
+	}
+
+	static FileLines open(String path) throws IOException {
+		return new FileLines(path, FileChannel.open(Paths.get(path)));
+	}
+
+	/**
+	 * Move to the next line. Returns false, and closes the file, when there is none.
+	 */
+	public boolean next() {
+		if (!open) {
+			return false;
+		}
+		lineLength = 0;
+		viewDecoded = false;
+		boolean any = false;
+		while (true) {
+			if (!buffer.hasRemaining() && !fill()) {
+				if (!any) {
+					close();
+					return false;
+				}
+				break;
+			}
+			any = true;
+			byte[] bytes = buffer.array();
+			int start = buffer.position();
+			int limit = buffer.limit();
+			int i = start;
+			while (i < limit && bytes[i] != '\n') {
+				i++;
+			}
+			append(bytes, start, i - start);
+			if (i < limit) {
+				buffer.position(i + 1);
+				break;
+			}
+			buffer.position(limit);
+		}
+		if (lineLength > 0 && lineBytes[lineLength - 1] == '\r') {
+			lineLength--;
+		}
+		return true;
+	}
+
+	/**
+	 * The current line as a new string.
+	 */
+	public String line() {
+		return new String(lineBytes, 0, lineLength, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * The current line as a view that is reused for every line: it is only valid until the
+	 * next call of next(), and must be copied with toString() to be kept.
+	 */
+	public LineView view() {
+		if (!viewDecoded) {
+			view.decode();
+			viewDecoded = true;
+		}
+		return view;
+	}
+
+	@Override
+	public void close() {
+		if (open) {
+			open = false;
+			try {
+				channel.close();
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	private void append(byte[] bytes, int offset, int length) {
+		if (lineLength + length > lineBytes.length) {
+			lineBytes = Arrays.copyOf(lineBytes, Math.max(lineBytes.length * 2, lineLength + length));
+			lineBuffer = ByteBuffer.wrap(lineBytes);
+		}
+		System.arraycopy(bytes, offset, lineBytes, lineLength, length);
+		lineLength += length;
+	}
+
+	private boolean fill() {
+		try {
+			buffer.clear();
+			int count;
+			do {
+				count = channel.read(buffer);
+			} while (count == 0);
+			buffer.flip();
+			return count > 0;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException("Cannot read " + path, e);
+		}
+	}
+
+	/**
+	 * The current line of a FileLines, decoded into a reused char buffer.
+	 */
+	public final class LineView implements CharSequence {
+		private CharBuffer chars = CharBuffer.allocate(256);
+
+		private LineView() {
+		}
+
+		private void decode() {
+			// UTF-8 never decodes to more chars than it has bytes
+			if (chars.capacity() < lineLength) {
+				chars = CharBuffer.allocate(Math.max(chars.capacity() * 2, lineLength));
+			}
+			chars.clear();
+			lineBuffer.limit(lineLength).position(0);
+			decoder.reset();
+			decoder.decode(lineBuffer, chars, true);
+			decoder.flush(chars);
+			chars.flip();
+		}
+
+		@Override
+		public int length() {
+			return chars.limit();
+		}
+
+		@Override
+		public char charAt(int index) {
+			return chars.get(index);
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return toString().substring(start, end);
+		}
+
+		/**
+		 * Whether the line starts with a prefix.
+		 */
+		public boolean startsWith(CharSequence prefix) {
+			return regionMatches(0, prefix);
+		}
+
+		/**
+		 * Whether the line is equal to a text.
+		 */
+		public boolean contentEquals(CharSequence text) {
+			return text.length() == length() && regionMatches(0, text);
+		}
+
+		/**
+		 * The index of the first occurrence of a character, or -1.
+		 */
+		public int indexOf(char c) {
+			for (int i = 0; i < chars.limit(); i++) {
+				if (chars.get(i) == c) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		private boolean regionMatches(int offset, CharSequence text) {
+			if (offset + text.length() > length()) {
+				return false;
+			}
+			for (int i = 0; i < text.length(); i++) {
+				if (chars.get(offset + i) != text.charAt(i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public String toString() {
+			return chars.toString();
+		}
+	}
+}
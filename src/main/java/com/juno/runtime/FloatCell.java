@@ -0,0 +1,44 @@
+package com.juno.runtime;
+
+/**
+ * Heap cell for a float variable whose address escapes, see {@link IntCell}.
+ */
+public class FloatCell {
+	public float value;
+
+	public FloatCell(float value) {
+		this.value = value;
+	}
+
+	public float get() {
+		return value;
+	}
+
+	public void set(float value) {
+		this.value = value;
+	}
+
+	/**
+	 * A pointer to an element of a float array.
+	 */
+	public static final class FloatElement extends FloatCell {
+		private final float[] array;
+		private final int index;
+
+		public FloatElement(float[] array, int index) {
+			super(0);
+			this.array = array;
+			this.index = index;
+		}
+
+		@Override
+		public float get() {
+			return array[index];
+		}
+
+		@Override
+		public void set(float value) {
+			array[index] = value;
+		}
+	}
+}
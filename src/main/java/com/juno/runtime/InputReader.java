@@ -0,0 +1,311 @@
+package com.juno.runtime;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+/**
+ * Byte-buffered reader of stdin behind Io.scan(), Io.scanInt(), etc.
+ * <p>
+ * Input is read in 64 KiB chunks and numbers are parsed straight from the buffer, so reading
+ * a number allocates nothing. Tokens are separated by whitespace (any byte up to {@code ' '}).
+ * Like {@code Scanner}, reading a token leaves the whitespace after it, so a scan() following
+ * a scanInt() returns the rest of the line. Text is decoded with the platform charset, the
+ * way {@code System.in} would be read. There is one reader, shared by everything that reads
+ * stdin, so no buffered input is lost between them.
+ * <p>
+ * A token that is not the number asked for is left unread, as Scanner leaves it: the next read
+ * starts with it again, so the program can read it as a string instead.
+ */
+public final class InputReader {
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	// Powers of ten that are exact doubles
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+
+	private final InputStream in;
+	private final Charset charset = Charset.defaultCharset();
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position = 0;
+	private int limit = 0;
+	// The bytes of the current line or token, for the values returned as strings
+	private byte[] text = new byte[128];
+	private int textLength = 0;
+	// Whether text holds a token a number was expected in, which is read again next
+	private boolean mismatched = false;
+
+	private InputReader(InputStream in) {
+		this.in = in;
+	}
+
+	private static final class Stdin {
+		static final InputReader READER = new InputReader(System.in);
+	}
+
+	/**
+	 * The reader of stdin, created on first use.
+	 */
+	public static InputReader stdin() {
+		return Stdin.READER;
+	}
+
+	// ===== LINES AND TOKENS =====
+
+	/**
+	 * Read the rest of the current line, without its line terminator, or null at the end of the input.
+	 */
+	public String readLine() {
+		// The line starts with a token a number was expected in
+		if (!mismatched) {
+			textLength = 0;
+		}
+		int c = read();
+		if (c < 0 && !mismatched) {
+			return null;
+		}
+		mismatched = false;
+		while (c >= 0 && c != '\n') {
+			append(c);
+			c = read();
+		}
+		if (textLength > 0 && text[textLength - 1] == '\r') {
+			textLength--;
+		}
+		return new String(text, 0, textLength, charset);
+	}
+
+	/**
+	 * Read the next whitespace-separated token.
+	 */
+	public String nextToken() {
+		readToken();
+		return new String(text, 0, textLength, charset);
+	}
+
+	/**
+	 * Read the next token as an int.
+	 */
+	public int nextInt() {
+		return (int) nextInteger(Integer.MIN_VALUE, Integer.MAX_VALUE, "an int");
+	}
+
+	/**
+	 * Read the next token as a long.
+	 */
+	public long nextLong() {
+		return nextInteger(Long.MIN_VALUE, Long.MAX_VALUE, "a long");
+	}
+
+	/**
+	 * Read the next token as a double, with the result Double.parseDouble would give.
+	 * Plain decimals of up to 15 significant digits are computed from their digits; anything
+	 * else (exponents, long mantissas, NaN, ...) is left to Double.parseDouble.
+	 */
+	public double nextDouble() {
+		readToken();
+		int i = 0;
+		boolean negative = text[0] == '-';
+		if (negative || text[0] == '+') {
+			i++;
+		}
+		long mantissa = 0;
+		int digits = 0;
+		int scale = 0;
+		boolean point = false;
+		for (; i < textLength; i++) {
+			int c = text[i];
+			if (c >= '0' && c <= '9' && digits < 15) {
+				mantissa = mantissa * 10 + (c - '0');
+				digits++;
+				if (point) {
+					scale++;
+				}
+			}
+			else if (c == '.' && !point) {
+				point = true;
+			}
+			else {
+				return parseDouble();
+			}
+		}
+		if (digits == 0) {
+			return parseDouble();
+		}
+		// Both operands are exact, so the division is rounded correctly
+		double value = mantissa / POWERS_OF_TEN[scale];
+		return negative ? -value : value;
+	}
+
+	private double parseDouble() {
+		String token = new String(text, 0, textLength, StandardCharsets.ISO_8859_1);
+		try {
+			return Double.parseDouble(token);
+		}
+		catch (NumberFormatException e) {
+			mismatched = true;
+			throw new InputMismatchException("Expected a double, found \"" + token + "\"");
+		}
+	}
+
+	/**
+	 * Parse an integer from the buffer, accumulating it negatively so the minimum value fits.
+	 */
+	private long nextInteger(long min, long max, String expected) {
+		if (mismatched) {
+			return parseMismatched(min, max, expected);
+		}
+		int c = skipWhitespace();
+		int sign = c;
+		boolean negative = c == '-';
+		if (negative || c == '+') {
+			position++;
+			c = peek();
+		}
+		long bound = negative ? min : -max;
+		long multiplyBound = bound / 10;
+		long result = 0;
+		int digits = 0;
+		while (c >= '0' && c <= '9') {
+			int digit = c - '0';
+			if (result < multiplyBound || result * 10 < bound + digit) {
+				unreadToken(sign, result, digits);
+				throw new InputMismatchException("Expected " + expected + ", found a number out of range");
+			}
+			result = result * 10 - digit;
+			digits++;
+			position++;
+			c = peek();
+		}
+		if (digits == 0 || c > ' ') {
+			unreadToken(sign, result, digits);
+			throw new InputMismatchException("Expected " + expected + ", found \"" + new String(text, 0, textLength, charset) + "\"");
+		}
+		return negative ? result : -result;
+	}
+
+	/**
+	 * Keep the token an integer was expected in for the next read: the sign and digits parsed so
+	 * far, which the buffer may no longer hold, and the rest of the token.
+	 */
+	private void unreadToken(int sign, long result, int digits) {
+		textLength = 0;
+		if (sign == '-' || sign == '+') {
+			append(sign);
+		}
+		if (digits > 0) {
+			// The digits are the magnitude of result, which is negative, with their leading zeros
+			String magnitude = Long.toString(result).substring(result < 0 ? 1 : 0);
+			for (int i = magnitude.length(); i < digits; i++) {
+				append('0');
+			}
+			for (int i = 0; i < magnitude.length(); i++) {
+				append(magnitude.charAt(i));
+			}
+		}
+		int c = peek();
+		while (c > ' ') {
+			append(c);
+			position++;
+			c = peek();
+		}
+		mismatched = true;
+	}
+
+	/**
+	 * Read the token kept by a failed read as an integer, keeping it again if it is none.
+	 */
+	private long parseMismatched(long min, long max, String expected) {
+		String token = new String(text, 0, textLength, StandardCharsets.ISO_8859_1);
+		try {
+			long value = Long.parseLong(token);
+			if (value >= min && value <= max) {
+				mismatched = false;
+				return value;
+			}
+		}
+		catch (NumberFormatException e) {
+			// Not an integer, or not a long
+		}
+		throw new InputMismatchException("Expected " + expected + ", found \"" + new String(text, 0, textLength, charset) + "\"");
+	}
+
+	private void readToken() {
+		if (mismatched) {
+			mismatched = false;
+			return;
+		}
+		int c = skipWhitespace();
+		textLength = 0;
+		while (c > ' ') {
+			append(c);
+			position++;
+			c = peek();
+		}
+	}
+
+	private void append(int c) {
+		if (textLength == text.length) {
+			text = Arrays.copyOf(text, textLength * 2);
+		}
+		text[textLength++] = (byte) c;
+	}
+
+	// ===== BUFFER =====
+
+	/**
+	 * Skip whitespace and return the first byte of the next token, which is left in the buffer.
+	 */
+	private int skipWhitespace() {
+		int c = peek();
+		while (c >= 0 && c <= ' ') {
+			position++;
+			c = peek();
+		}
+		if (c < 0) {
+			throw new NoSuchElementException("End of input");
+		}
+		return c;
+	}
+
+	/**
+	 * The next byte without consuming it, or -1 at the end of the input.
+	 */
+	private int peek() {
+		if (position == limit && !fill()) {
+			return -1;
+		}
+		return buffer[position] & 0xFF;
+	}
+
+	private int read() {
+		int c = peek();
+		if (c >= 0) {
+			position++;
+		}
+		return c;
+	}
+
+	private boolean fill() {
+		Io.flush(); // show prompts before waiting for input
+		try {
+			int count;
+			do {
+				count = in.read(buffer, 0, BUFFER_SIZE);
+			} while (count == 0);
+			position = 0;
+			limit = Math.max(count, 0);
+			return count > 0;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
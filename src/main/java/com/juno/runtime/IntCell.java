@@ -0,0 +1,146 @@
+package com.juno.runtime;
+
+/**
+ * Heap cell holding a local variable whose address escapes its function. Pointers to the
+ * variable are references to the cell, and the variable is read and written through it.
+ * The cell also holds bool, char, byte and short variables, which the JVM keeps as ints.
+ * <p>
+ * A pointer into an array that escapes is boxed into one of the element subclasses, so code
+ * that receives a pointer reads and writes it with {@link #get()} and {@link #set(int)}; the
+ * function that owns a cell accesses {@link #value} directly.
+ */
+public class IntCell {
+	public int value;
+
+	public IntCell(int value) {
+		this.value = value;
+	}
+
+	public int get() {
+		return value;
+	}
+
+	public void set(int value) {
+		this.value = value;
+	}
+
+	/**
+	 * A pointer to an element of an int or uint array.
+	 */
+	public static final class IntElement extends IntCell {
+		private final int[] array;
+		private final int index;
+
+		public IntElement(int[] array, int index) {
+			super(0);
+			this.array = array;
+			this.index = index;
+		}
+
+		@Override
+		public int get() {
+			return array[index];
+		}
+
+		@Override
+		public void set(int value) {
+			array[index] = value;
+		}
+	}
+
+	/**
+	 * A pointer to an element of a byte or ubyte array.
+	 */
+	public static final class ByteElement extends IntCell {
+		private final byte[] array;
+		private final int index;
+
+		public ByteElement(byte[] array, int index) {
+			super(0);
+			this.array = array;
+			this.index = index;
+		}
+
+		@Override
+		public int get() {
+			return array[index];
+		}
+
+		@Override
+		public void set(int value) {
+			array[index] = (byte) value;
+		}
+	}
+
+	/**
+	 * A pointer to an element of a short or ushort array.
+	 */
+	public static final class ShortElement extends IntCell {
+		private final short[] array;
+		private final int index;
+
+		public ShortElement(short[] array, int index) {
+			super(0);
+			this.array = array;
+			this.index = index;
+		}
+
+		@Override
+		public int get() {
+			return array[index];
+		}
+
+		@Override
+		public void set(int value) {
+			array[index] = (short) value;
+		}
+	}
+
+	/**
+	 * A pointer to an element of a char array.
+	 */
+	public static final class CharElement extends IntCell {
+		private final char[] array;
+		private final int index;
+
+		public CharElement(char[] array, int index) {
+			super(0);
+			this.array = array;
+			this.index = index;
+		}
+
+		@Override
+		public int get() {
+			return array[index];
+		}
+
+		@Override
+		public void set(int value) {
+			array[index] = (char) value;
+		}
+	}
+
+	/**
+	 * A pointer to an element of a bool array.
+	 */
+	public static final class BoolElement extends IntCell {
+		private final boolean[] array;
+		private final int index;
+
+		public BoolElement(boolean[] array, int index) {
+			super(0);
+			this.array = array;
+			this.index = index;
+		}
+
+		@Override
+		public int get() {
+			return array[index] ? 1 : 0;
+		}
+
+		@Override
+		public void set(int value) {
+			array[index] = value != 0;
+		}
+	}
+}
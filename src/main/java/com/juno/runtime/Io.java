@@ -1,14 +1,60 @@
 package com.juno.runtime;
 
 import java.io.*;
-import java.util.Scanner;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
 
 /**
  * Juno runtime I/O module providing print, scan, and file operations.
  * Accessible from Juno code as Io.print(), Io.scan(), etc.
+ * <p>
+ * Output to stdout is collected in a buffer and written to {@code System.out} in large chunks,
+ * when the buffer fills up, on {@code Io.flush()}, before waiting for stdin or writing to stderr,
+ * and when main returns (the generated JVM main calls flush). A shutdown hook flushes what is
+ * left when the program exits some other way, such as a main declared with the JVM signature
+ * {@code void main(string[] args)}, which is not wrapped. When stdout is a terminal, every
+ * completed line is flushed, so interactive programs behave as if nothing were buffered.
+ * The buffer is not synchronized: Juno programs print from one thread.
+ * <p>
+ * Stdin is read through {@link InputReader}.
  */
 public class Io {
-	private static final Scanner stdin = new Scanner(System.in);
+	private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+	private static final byte[] output = new byte[OUTPUT_BUFFER_SIZE];
+	private static int outputLength = 0;
+	private static final boolean lineBuffered = isStdoutTerminal();
+	// Non-ASCII text is encoded the way System.out would encode it
+	private static final Charset outputCharset = Charset.defaultCharset();
+	// Long.MIN_VALUE is the longest decimal: a sign and 19 digits
+	private static final int MAX_DECIMAL_LENGTH = 20;
+	// Reused to format floating-point numbers, which StringBuilder does without allocating
+	private static final StringBuilder number = new StringBuilder(32);
+	private static final char[] numberChars = new char[32];
+
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread(Io::flush, "juno-io-flush"));
+	}
+
+	/**
+	 * Whether stdout is a terminal. System.console() is only there when stdin is a terminal too,
+	 * so {@code prog < input.txt} would buffer its output to the screen; where the file stdout
+	 * is open on can be seen in /proc, that is checked instead.
+	 */
+	private static boolean isStdoutTerminal() {
+		if (System.console() != null) {
+			return true;
+		}
+		try {
+			String target = Files.readSymbolicLink(Paths.get("/proc/self/fd/1")).toString();
+			return target.startsWith("/dev/pts/") || target.startsWith("/dev/tty");
+		}
+		catch (IOException | UnsupportedOperationException | SecurityException e) {
+			// No /proc: assume stdout is not a terminal, the program still flushes at exit
+			return false;
+		}
+	}
 
 	// ===== BASIC I/O FUNCTIONS =====
 
@@ -16,14 +62,94 @@ public class Io {
 	 * Print a message to stdout without newline.
 	 */
 	public static void print(String message) {
-		System.out.print(message);
+		String text = String.valueOf(message);
+		write(text);
+		if (lineBuffered && text.indexOf('\n') >= 0) {
+			flush();
+		}
 	}
 
 	/**
 	 * Print a message to stdout with newline.
 	 */
 	public static void println(String message) {
-		System.out.println(message);
+		write(String.valueOf(message));
+		endLine();
+	}
+
+	// Numbers, booleans and characters are formatted straight into the output buffer,
+	// printing the same text as their string conversion without allocating the string
+
+	public static void print(int value) {
+		writeDecimal(value);
+	}
+
+	public static void println(int value) {
+		writeDecimal(value);
+		endLine();
+	}
+
+	public static void print(long value) {
+		writeDecimal(value);
+	}
+
+	public static void println(long value) {
+		writeDecimal(value);
+		endLine();
+	}
+
+	public static void print(float value) {
+		number.setLength(0);
+		writeAscii(number.append(value));
+	}
+
+	public static void println(float value) {
+		print(value);
+		endLine();
+	}
+
+	public static void print(double value) {
+		number.setLength(0);
+		writeAscii(number.append(value));
+	}
+
+	public static void println(double value) {
+		print(value);
+		endLine();
+	}
+
+	public static void print(boolean value) {
+		write(value ? "true" : "false");
+	}
+
+	public static void println(boolean value) {
+		print(value);
+		endLine();
+	}
+
+	public static void print(char value) {
+		if (value < 0x80) {
+			writeByte(value);
+		}
+		else {
+			write(String.valueOf(value));
+		}
+		if (lineBuffered && value == '\n') {
+			flush();
+		}
+	}
+
+	public static void println(char value) {
+		print(value);
+		endLine();
+	}
+
+	/**
+	 * Write everything printed so far to stdout.
+	 */
+	public static void flush() {
+		drain();
+		System.out.flush();
 	}
 
 	/**
@@ -31,16 +157,132 @@ public class Io {
 	 * Always returns a string - cast needed for other types.
 	 */
 	public static String scan() {
-		return stdin.nextLine();
+		String line = InputReader.stdin().readLine();
+		if (line == null) {
+			throw new NoSuchElementException("No line found");
+		}
+		return line;
+	}
+
+	/**
+	 * Read the next whitespace-separated token from stdin.
+	 */
+	public static String scanToken() {
+		return InputReader.stdin().nextToken();
+	}
+
+	/**
+	 * Read the next token from stdin as a number, parsed without creating a string.
+	 */
+	public static int scanInt() {
+		return InputReader.stdin().nextInt();
+	}
+
+	public static long scanLong() {
+		return InputReader.stdin().nextLong();
+	}
+
+	public static double scanDouble() {
+		return InputReader.stdin().nextDouble();
 	}
 
 	/**
 	 * Print a message to stderr (error reporting).
 	 */
 	public static void report(String message) {
+		flush(); // keep stdout and stderr in order
 		System.err.println(message);
 	}
 
+	// ===== OUTPUT BUFFER =====
+
+	private static void write(String text) {
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			char c = text.charAt(i);
+			if (c >= 0x80) {
+				// Everything before is ASCII, so the rest can be encoded on its own
+				writeBytes(text.substring(i).getBytes(outputCharset));
+				return;
+			}
+			writeByte(c);
+		}
+	}
+
+	private static void endLine() {
+		writeByte('\n');
+		if (lineBuffered) {
+			flush();
+		}
+	}
+
+	/**
+	 * Write the decimal digits of a value, from the last one, without a string in between.
+	 * The digits are computed from the negated value, which also covers Long.MIN_VALUE.
+	 */
+	private static void writeDecimal(long value) {
+		if (OUTPUT_BUFFER_SIZE - outputLength < MAX_DECIMAL_LENGTH) {
+			drain();
+		}
+		long negative = value;
+		if (value < 0) {
+			output[outputLength++] = '-';
+		}
+		else {
+			negative = -value;
+		}
+		int digits = 1;
+		for (long rest = negative; rest <= -10; rest /= 10) {
+			digits++;
+		}
+		int position = outputLength + digits;
+		outputLength = position;
+		do {
+			long quotient = negative / 10;
+			output[--position] = (byte) ('0' + (quotient * 10 - negative));
+			negative = quotient;
+		} while (negative != 0);
+	}
+
+	// Java formats floating-point numbers in at most 26 ASCII characters
+	private static void writeAscii(StringBuilder text) {
+		int length = text.length();
+		if (OUTPUT_BUFFER_SIZE - outputLength < length) {
+			drain();
+		}
+		text.getChars(0, length, numberChars, 0);
+		for (int i = 0; i < length; i++) {
+			output[outputLength + i] = (byte) numberChars[i];
+		}
+		outputLength += length;
+	}
+
+	private static void writeByte(int b) {
+		if (outputLength == OUTPUT_BUFFER_SIZE) {
+			drain();
+		}
+		output[outputLength++] = (byte) b;
+	}
+
+	private static void writeBytes(byte[] bytes) {
+		if (bytes.length > OUTPUT_BUFFER_SIZE - outputLength) {
+			drain();
+			if (bytes.length >= OUTPUT_BUFFER_SIZE) {
+				System.out.write(bytes, 0, bytes.length);
+				return;
+			}
+		}
+		System.arraycopy(bytes, 0, output, outputLength, bytes.length);
+		outputLength += bytes.length;
+	}
+
+	private static void drain() {
+		if (outputLength > 0) {
+			System.out.write(output, 0, outputLength);
+			outputLength = 0;
+		}
+	}
+
 
 	/**
 	 * Standard input stream handle.
@@ -50,9 +292,10 @@ public class Io {
 	}
 
 	/**
-	 * Standard output stream handle.
+	 * Standard output stream handle. Buffered output is flushed first, so it stays in order.
 	 */
 	public static PrintStream stdout() {
+		flush();
 		return System.out;
 	}
 
@@ -0,0 +1,44 @@
+package com.juno.runtime;
+
+/**
+ * Heap cell for a long or ulong variable whose address escapes, see {@link IntCell}.
+ */
+public class LongCell {
+	public long value;
+
+	public LongCell(long value) {
+		this.value = value;
+	}
+
+	public long get() {
+		return value;
+	}
+
+	public void set(long value) {
+		this.value = value;
+	}
+
+	/**
+	 * A pointer to an element of a long or ulong array.
+	 */
+	public static final class LongElement extends LongCell {
+		private final long[] array;
+		private final int index;
+
+		public LongElement(long[] array, int index) {
+			super(0);
+			this.array = array;
+			this.index = index;
+		}
+
+		@Override
+		public long get() {
+			return array[index];
+		}
+
+		@Override
+		public void set(long value) {
+			array[index] = value;
+		}
+	}
+}
@@ -0,0 +1,213 @@
+package com.juno.runtime;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * Read-only memory-mapped view of a file, returned by File.mapRead(path).
+ * <p>
+ * The file is mapped in 1 GiB chunks, so files of any size can be mapped, and bytes are read
+ * straight from the page cache without being copied into the heap first. Lines are scanned
+ * with a cursor: readLine() decodes the next line as UTF-8, and skipLine() and countLines()
+ * find line ends without decoding anything, comparing eight bytes at a time. A line ends at
+ * {@code '\n'}; a {@code '\r'} before it is dropped, like BufferedReader does for {@code "\r\n"}.
+ * <p>
+ * The file is closed once mapped. The mapping stays valid until the view is garbage collected;
+ * a file truncated while mapped makes the bytes past its new end unreadable.
+ */
+public final class MappedFile {
+	private static final int CHUNK_BITS = 30;
+	private static final long CHUNK_SIZE = 1L << CHUNK_BITS; // 1 GiB
+	private static final int CHUNK_MASK = (int) CHUNK_SIZE - 1;
+
+	// A byte repeated over a word, for searching eight bytes at a time
+	private static final long BYTES_01 = 0x0101010101010101L;
+	private static final long BYTES_7F = 0x7F7F7F7F7F7F7F7FL;
+
+	private final String path;
+	private final long size;
+	private final MappedByteBuffer[] chunks;
+	private long position = 0;
+
+	private MappedFile(String path, long size, MappedByteBuffer[] chunks) {
+		this.path = path;
+		this.size = size;
+		this.chunks = chunks;
+	}
+
+	/**
+	 * Map a whole file for reading.
+	 */
+	static MappedFile map(String path) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(path))) {
+			long size = channel.size();
+			MappedByteBuffer[] chunks = new MappedByteBuffer[(int) ((size + CHUNK_SIZE - 1) >>> CHUNK_BITS)];
+			for (int i = 0; i < chunks.length; i++) {
+				long start = (long) i << CHUNK_BITS;
+				chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, size - start));
+			}
+			return new MappedFile(path, size, chunks);
+		}
+	}
+
+	// ===== BYTE ACCESS =====
+
+	/**
+	 * Size of the file in bytes.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * The byte at an index, as an unsigned value from 0 to 255.
+	 */
+	public int get(long index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + path + " of size " + size);
+		}
+		return chunks[(int) (index >>> CHUNK_BITS)].get((int) index & CHUNK_MASK) & 0xFF;
+	}
+
+	/**
+	 * The index of the first occurrence of a byte at or after an index, or -1.
+	 */
+	public long indexOf(int value, long from) {
+		byte b = (byte) value;
+		long pattern = BYTES_01 * (b & 0xFF);
+		for (long start = Math.max(from, 0); start < size; start = (start | CHUNK_MASK) + 1) {
+			MappedByteBuffer chunk = chunks[(int) (start >>> CHUNK_BITS)];
+			int limit = chunk.limit();
+			int i = (int) start & CHUNK_MASK;
+			// Eight bytes at a time; the chunks are big-endian, so the first byte is the highest
+			for (; i <= limit - Long.BYTES; i += Long.BYTES) {
+				long matches = zeroBytes(chunk.getLong(i) ^ pattern);
+				if (matches != 0) {
+					return (start & ~(long) CHUNK_MASK) + i + (Long.numberOfLeadingZeros(matches) >>> 3);
+				}
+			}
+			for (; i < limit; i++) {
+				if (chunk.get(i) == b) {
+					return (start & ~(long) CHUNK_MASK) + i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The high bit of each byte of a word that is zero, and no other bit.
+	 */
+	private static long zeroBytes(long word) {
+		long low = (word & BYTES_7F) + BYTES_7F;
+		return ~(low | word | BYTES_7F);
+	}
+
+	/**
+	 * Decode the bytes from start (inclusive) to end (exclusive) as UTF-8.
+	 */
+	public String decode(long start, long end) {
+		if (start < 0 || end > size || start > end) {
+			throw new IndexOutOfBoundsException("Range " + start + ".." + end + " out of bounds for " + path + " of size " + size);
+		}
+		if (end - start > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Range " + start + ".." + end + " of " + path + " is too large for a string");
+		}
+		byte[] bytes = new byte[(int) (end - start)];
+		for (int done = 0; done < bytes.length; ) {
+			long at = start + done;
+			int offset = (int) at & CHUNK_MASK;
+			int length = Math.min(bytes.length - done, (int) (CHUNK_SIZE - offset));
+			chunks[(int) (at >>> CHUNK_BITS)].get(offset, bytes, done, length);
+			done += length;
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// ===== LINES =====
+
+	/**
+	 * The index of the next byte readLine() and skipLine() read.
+	 */
+	public long position() {
+		return position;
+	}
+
+	/**
+	 * Move the line cursor to an index.
+	 */
+	public void seek(long index) {
+		if (index < 0 || index > size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for " + path + " of size " + size);
+		}
+		position = index;
+	}
+
+	public boolean hasNextLine() {
+		return position < size;
+	}
+
+	/**
+	 * Read the next line, without its line terminator, or null at the end of the file.
+	 */
+	public String readLine() {
+		if (position >= size) {
+			return null;
+		}
+		long start = position;
+		long end = skipLine();
+		if (end > start && get(end - 1) == '\r') {
+			end--;
+		}
+		return decode(start, end);
+	}
+
+	/**
+	 * Move past the next line without decoding it, and return the index where its content ends.
+	 */
+	public long skipLine() {
+		long newline = indexOf('\n', position);
+		long end = newline < 0 ? size : newline;
+		position = newline < 0 ? size : newline + 1;
+		return end;
+	}
+
+	/**
+	 * Number of lines in the whole file, regardless of the cursor. A last line without a
+	 * terminator counts.
+	 */
+	public long countLines() {
+		long pattern = BYTES_01 * '\n';
+		long lines = 0;
+		for (MappedByteBuffer chunk : chunks) {
+			int limit = chunk.limit();
+			int i = 0;
+			for (; i <= limit - Long.BYTES; i += Long.BYTES) {
+				lines += Long.bitCount(zeroBytes(chunk.getLong(i) ^ pattern));
+			}
+			for (; i < limit; i++) {
+				if (chunk.get(i) == '\n') {
+					lines++;
+				}
+			}
+		}
+		if (size > 0 && get(size - 1) != '\n') {
+			lines++;
+		}
+		return lines;
+	}
+
+	/**
+	 * The whole file, decoded as UTF-8.
+	 */
+	public String readAll() {
+		return decode(0, size);
+	}
+
+	public String getPath() {
+		return path;
+	}
+}
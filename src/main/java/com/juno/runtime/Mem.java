@@ -0,0 +1,261 @@
+package com.juno.runtime;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Juno runtime memory module: an arena of off-heap memory for data with a manual layout.
+ * Accessible from Juno code as Mem.alloc(), Mem.getInt(), etc.
+ * <p>
+ * Memory is addressed by int byte addresses into one arena, backed by direct byte buffers
+ * that are allocated as the arena grows, so the data never moves and the garbage collector
+ * never scans it. Allocation bumps a pointer; memory is freed by releasing everything
+ * allocated after a mark. Address 0 is never allocated, so it can stand for null.
+ * <p>
+ * Values are stored in the platform's byte order. A value must not straddle two buffers,
+ * which holds for every value aligned to its width: allocations are aligned to 8 bytes.
+ */
+public final class Mem {
+	private static final int CHUNK_BITS = 24;
+	private static final int CHUNK_SIZE = 1 << CHUNK_BITS; // 16 MiB
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	private static final int ALIGNMENT = 8;
+
+	private static final ByteBuffer[] chunks = new ByteBuffer[1 << (Integer.SIZE - 1 - CHUNK_BITS)];
+
+	private static int top = ALIGNMENT;
+	// Memory at and above the high-water mark has never been allocated, so it is still zero
+	private static int highWater = ALIGNMENT;
+
+	private Mem() {
+	}
+
+	// ===== ALLOCATION =====
+
+	/**
+	 * Allocate zeroed memory and return its address.
+	 */
+	public static int alloc(int bytes) {
+		if (bytes < 0) {
+			throw new IllegalArgumentException("Negative allocation size: " + bytes);
+		}
+		int start = top;
+		long end = (long) start + bytes;
+		if (end > Integer.MAX_VALUE - ALIGNMENT) {
+			throw new OutOfMemoryError("Juno memory arena exhausted allocating " + bytes + " bytes");
+		}
+		for (int chunk = start >>> CHUNK_BITS; chunk <= (int) ((end - 1) >>> CHUNK_BITS); chunk++) {
+			if (chunks[chunk] == null) {
+				chunks[chunk] = ByteBuffer.allocateDirect(CHUNK_SIZE).order(ByteOrder.nativeOrder());
+			}
+		}
+		if (start < highWater) {
+			fill(start, (int) Math.min(end, highWater) - start, 0);
+		}
+		top = (int) ((end + ALIGNMENT - 1) & -ALIGNMENT);
+		highWater = Math.max(highWater, top);
+		return start;
+	}
+
+	/**
+	 * Allocate zeroed memory for count values of each type and return its address.
+	 */
+	public static int allocByte(int count) {
+		return alloc(count);
+	}
+
+	public static int allocShort(int count) {
+		return alloc(Math.multiplyExact(count, Short.BYTES));
+	}
+
+	public static int allocChar(int count) {
+		return alloc(Math.multiplyExact(count, Character.BYTES));
+	}
+
+	public static int allocInt(int count) {
+		return alloc(Math.multiplyExact(count, Integer.BYTES));
+	}
+
+	public static int allocLong(int count) {
+		return alloc(Math.multiplyExact(count, Long.BYTES));
+	}
+
+	public static int allocFloat(int count) {
+		return alloc(Math.multiplyExact(count, Float.BYTES));
+	}
+
+	public static int allocDouble(int count) {
+		return alloc(Math.multiplyExact(count, Double.BYTES));
+	}
+
+	public static int allocBool(int count) {
+		return alloc(count);
+	}
+
+	/**
+	 * The current end of the arena, to pass to release().
+	 */
+	public static int mark() {
+		return top;
+	}
+
+	/**
+	 * Free everything allocated since mark() returned the given mark.
+	 */
+	public static void release(int mark) {
+		if (mark < ALIGNMENT || mark > top || mark % ALIGNMENT != 0) {
+			throw new IllegalArgumentException("Not a mark of this arena: " + mark);
+		}
+		top = mark;
+	}
+
+	/**
+	 * Free all memory. The buffers are kept for the next allocations.
+	 */
+	public static void reset() {
+		top = ALIGNMENT;
+	}
+
+	/**
+	 * Number of bytes currently allocated, including alignment padding.
+	 */
+	public static int used() {
+		return top - ALIGNMENT;
+	}
+
+	// ===== TYPED ACCESS =====
+
+	private static ByteBuffer chunk(int address) {
+		return chunks[address >>> CHUNK_BITS];
+	}
+
+	public static byte getByte(int address) {
+		return chunk(address).get(address & CHUNK_MASK);
+	}
+
+	public static void putByte(int address, byte value) {
+		chunk(address).put(address & CHUNK_MASK, value);
+	}
+
+	public static short getShort(int address) {
+		return chunk(address).getShort(address & CHUNK_MASK);
+	}
+
+	public static void putShort(int address, short value) {
+		chunk(address).putShort(address & CHUNK_MASK, value);
+	}
+
+	public static char getChar(int address) {
+		return chunk(address).getChar(address & CHUNK_MASK);
+	}
+
+	public static void putChar(int address, char value) {
+		chunk(address).putChar(address & CHUNK_MASK, value);
+	}
+
+	public static int getInt(int address) {
+		return chunk(address).getInt(address & CHUNK_MASK);
+	}
+
+	public static void putInt(int address, int value) {
+		chunk(address).putInt(address & CHUNK_MASK, value);
+	}
+
+	public static long getLong(int address) {
+		return chunk(address).getLong(address & CHUNK_MASK);
+	}
+
+	public static void putLong(int address, long value) {
+		chunk(address).putLong(address & CHUNK_MASK, value);
+	}
+
+	public static float getFloat(int address) {
+		return chunk(address).getFloat(address & CHUNK_MASK);
+	}
+
+	public static void putFloat(int address, float value) {
+		chunk(address).putFloat(address & CHUNK_MASK, value);
+	}
+
+	public static double getDouble(int address) {
+		return chunk(address).getDouble(address & CHUNK_MASK);
+	}
+
+	public static void putDouble(int address, double value) {
+		chunk(address).putDouble(address & CHUNK_MASK, value);
+	}
+
+	public static boolean getBool(int address) {
+		return chunk(address).get(address & CHUNK_MASK) != 0;
+	}
+
+	public static void putBool(int address, boolean value) {
+		chunk(address).put(address & CHUNK_MASK, (byte) (value ? 1 : 0));
+	}
+
+	// ===== BULK OPERATIONS =====
+
+	/**
+	 * Copy bytes from one address to another. The ranges may overlap.
+	 */
+	public static void copy(int source, int target, int bytes) {
+		if (bytes <= 0 || source == target) {
+			return;
+		}
+		if (target > source && target < source + bytes) {
+			// Copying forward would overwrite the source before it is read
+			byte[] staging = new byte[Math.min(bytes, 8192)];
+			for (int remaining = bytes; remaining > 0; ) {
+				int length = Math.min(remaining, staging.length);
+				remaining -= length;
+				read(source + remaining, staging, length);
+				write(target + remaining, staging, length);
+			}
+			return;
+		}
+		for (int done = 0; done < bytes; ) {
+			int from = source + done;
+			int to = target + done;
+			int length = Math.min(bytes - done, Math.min(CHUNK_SIZE - (from & CHUNK_MASK), CHUNK_SIZE - (to & CHUNK_MASK)));
+			chunk(to).put(to & CHUNK_MASK, chunk(from), from & CHUNK_MASK, length);
+			done += length;
+		}
+	}
+
+	/**
+	 * Set bytes to the low 8 bits of a value.
+	 */
+	public static void fill(int address, int bytes, int value) {
+		if (bytes <= 0) {
+			return;
+		}
+		byte[] pattern = new byte[Math.min(bytes, 8192)];
+		if (value != 0) {
+			Arrays.fill(pattern, (byte) value);
+		}
+		for (int done = 0; done < bytes; ) {
+			int length = Math.min(bytes - done, pattern.length);
+			write(address + done, pattern, length);
+			done += length;
+		}
+	}
+
+	private static void read(int address, byte[] bytes, int length) {
+		for (int done = 0; done < length; ) {
+			int at = address + done;
+			int part = Math.min(length - done, CHUNK_SIZE - (at & CHUNK_MASK));
+			chunk(at).get(at & CHUNK_MASK, bytes, done, part);
+			done += part;
+		}
+	}
+
+	private static void write(int address, byte[] bytes, int length) {
+		for (int done = 0; done < length; ) {
+			int at = address + done;
+			int part = Math.min(length - done, CHUNK_SIZE - (at & CHUNK_MASK));
+			chunk(at).put(at & CHUNK_MASK, bytes, done, part);
+			done += part;
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package com.juno.runtime;
+
+/**
+ * Heap cell for a string, struct, array or pointer variable whose address escapes, see
+ * {@link IntCell}. Reads cast the value back to the variable's type.
+ */
+public class RefCell {
+	public Object value;
+
+	public RefCell(Object value) {
+		this.value = value;
+	}
+
+	public Object get() {
+		return value;
+	}
+
+	public void set(Object value) {
+		this.value = value;
+	}
+
+	/**
+	 * A pointer to an element of a string, struct, array or pointer array.
+	 */
+	public static final class RefElement extends RefCell {
+		private final Object[] array;
+		private final int index;
+
+		public RefElement(Object[] array, int index) {
+			super(null);
+			this.array = array;
+			this.index = index;
+		}
+
+		@Override
+		public Object get() {
+			return array[index];
+		}
+
+		@Override
+		public void set(Object value) {
+			array[index] = value;
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package com.juno.runtime;
+
+/**
+ * Conversions between ulong and floating point, which the JVM has no instructions for.
+ * The other unsigned operations map to Integer and Long methods (divideUnsigned,
+ * compareUnsigned, toUnsignedLong, ...).
+ */
+public final class Unsigned {
+	private static final double TWO_TO_THE_63 = 0x1p63;
+
+	private Unsigned() {
+	}
+
+	/**
+	 * The double nearest to a ulong value.
+	 */
+	public static double toDouble(long value) {
+		if (value >= 0) {
+			return value;
+		}
+		// Halve the value, keeping the low bit so the rounding stays correct, then double it back
+		return ((value >>> 1) | (value & 1)) * 2.0;
+	}
+
+	/**
+	 * The float nearest to a ulong value.
+	 */
+	public static float toFloat(long value) {
+		if (value >= 0) {
+			return value;
+		}
+		return ((value >>> 1) | (value & 1)) * 2.0f;
+	}
+
+	/**
+	 * Convert a double to ulong, truncating toward zero and saturating like the signed
+	 * conversion does: NaN and negative values give 0, values too large give the maximum.
+	 */
+	public static long toULong(double value) {
+		if (!(value > 0)) {
+			return 0;
+		}
+		if (value < TWO_TO_THE_63) {
+			return (long) value;
+		}
+		if (value >= 2 * TWO_TO_THE_63) {
+			return -1L;
+		}
+		return (long) (value - TWO_TO_THE_63) + Long.MIN_VALUE;
+	}
+}
@@ -83,12 +83,8 @@ public class IoModule {
      */
     public static String readLine() {
         try {
-            java.util.Scanner scanner = new java.util.Scanner(System.in);
-            if (scanner.hasNextLine()) {
-                return scanner.nextLine();
-            } else {
-                return null;
-            }
+            // One shared reader: a Scanner per call would drop the input it buffered ahead
+            return com.juno.runtime.InputReader.stdin().readLine();
         } catch (Exception e) {
             return null;
         }
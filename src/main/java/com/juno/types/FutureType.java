@@ -0,0 +1,38 @@
+package com.juno.types;
+
+/**
+ * Represents the type of a file operation running in the background, such as
+ * {@code File.readAsync(path)}, whose value {@code File.await(future)} waits for. It is a
+ * {@code com.juno.runtime.FileFuture} at run time.
+ * <p>
+ * A null value type stands for a future of any value type, which is what
+ * {@code File.await(future)} and {@code File.isDone(future)} take.
+ */
+public record FutureType(Type valueType) implements Type {
+
+	@Override
+	public String name() {
+		return "future " + (valueType != null ? valueType.name() : "any");
+	}
+
+	@Override
+	public boolean isCompatibleWith(Type other) {
+		return other instanceof FutureType future
+				&& (valueType == null || future.valueType == null || valueType.equals(future.valueType));
+	}
+
+	@Override
+	public int size() {
+		return 8; // reference size
+	}
+
+	@Override
+	public String getJVMDescriptor() {
+		return "Lcom/juno/runtime/FileFuture;";
+	}
+
+	@Override
+	public String toString() {
+		return name();
+	}
+}
@@ -0,0 +1,55 @@
+package com.juno.types;
+
+/**
+ * How a value of a Juno type is held on the JVM operand stack. The kind picks the instruction
+ * family that operates on the value: I*, L*, F*, D* or A*.
+ */
+public enum JvmKind {
+	INT, LONG, FLOAT, DOUBLE, REFERENCE, VOID;
+
+	/**
+	 * The kind of a checked type. bool, char and the integers narrower than long are ints.
+	 */
+	public static JvmKind of(Type type) {
+		if (type instanceof SpecialTypes.AutoType autoType && autoType.isInferred()) {
+			type = autoType.getInferredType();
+		}
+		if (type == null) {
+			throw new IllegalStateException("Expression has not been type checked");
+		}
+		if (!(type instanceof PrimitiveType primitive)) {
+			return REFERENCE;
+		}
+		return switch (primitive.getJVMDescriptor()) {
+			case "V" -> VOID;
+			case "J" -> LONG;
+			case "F" -> FLOAT;
+			case "D" -> DOUBLE;
+			case "Z", "C", "B", "S", "I" -> INT;
+			default -> REFERENCE;
+		};
+	}
+
+	/**
+	 * Number of stack slots a value of this kind takes.
+	 */
+	public int size() {
+		return switch (this) {
+			case LONG, DOUBLE -> 2;
+			case VOID -> 0;
+			default -> 1;
+		};
+	}
+
+	/**
+	 * The variant of an int instruction for this kind: IADD becomes LADD, FADD or DADD, INEG
+	 * becomes LNEG, ... The JVM lays out the arithmetic, negation, load, store and return
+	 * families in I, L, F, D order, and loads, stores and returns continue with A.
+	 */
+	public int opcode(int intOpcode) {
+		if (this == VOID) {
+			throw new IllegalStateException("No instruction operates on void");
+		}
+		return intOpcode + ordinal();
+	}
+}
@@ -0,0 +1,33 @@
+package com.juno.types;
+
+/**
+ * Represents the type of {@code File.lines(path)}, the lines of a file. It is iterated by for-in
+ * loops, which read the file line by line through a {@code com.juno.runtime.FileLines}.
+ */
+public record LinesType() implements Type {
+
+	@Override
+	public String name() {
+		return "lines";
+	}
+
+	@Override
+	public boolean isCompatibleWith(Type other) {
+		return other instanceof LinesType;
+	}
+
+	@Override
+	public int size() {
+		return 8; // reference size
+	}
+
+	@Override
+	public String getJVMDescriptor() {
+		return "Lcom/juno/runtime/FileLines;";
+	}
+
+	@Override
+	public String toString() {
+		return name();
+	}
+}
@@ -0,0 +1,46 @@
+package com.juno.types;
+
+/**
+ * Represents the type of a typed view over a memory-mapped file region, returned by
+ * {@code File.mapInts(...)} and its siblings. Indexing a view reads or writes the element at
+ * {@code index * elementSize} bytes into the region, straight through a
+ * {@code java.nio.MappedByteBuffer}.
+ * <p>
+ * A null element type stands for a view of any element type, which is what
+ * {@code File.force(view)} takes.
+ */
+public record MappedViewType(PrimitiveType elementType) implements Type {
+
+	@Override
+	public String name() {
+		return (elementType != null ? elementType.name() : "any") + " view";
+	}
+
+	@Override
+	public boolean isCompatibleWith(Type other) {
+		return other instanceof MappedViewType view
+				&& (elementType == null || view.elementType == null || elementType.equals(view.elementType));
+	}
+
+	@Override
+	public int size() {
+		return 8; // reference size
+	}
+
+	/**
+	 * Size of an element in bytes.
+	 */
+	public int elementSize() {
+		return elementType.size();
+	}
+
+	@Override
+	public String getJVMDescriptor() {
+		return "Ljava/nio/MappedByteBuffer;";
+	}
+
+	@Override
+	public String toString() {
+		return name();
+	}
+}
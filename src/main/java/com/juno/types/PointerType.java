@@ -2,8 +2,10 @@ package com.juno.types;
 
 /**
  * Represents a pointer type in the Juno language.
- * Since JVM doesn't have direct memory addresses, pointers are implemented
- * as references to JVM local variable slots or object field references.
+ * Since JVM doesn't have direct memory addresses, a pointer that leaves its function is a
+ * reference to a heap cell (com.juno.runtime.IntCell, LongCell, ...) that holds the variable,
+ * or to an element cell that holds an array and an index.
+ * Pointers that never leave their function are compiled to direct local variable accesses.
  */
 public record PointerType(Type pointedType) implements Type {
 
@@ -32,8 +34,69 @@ public record PointerType(Type pointedType) implements Type {
 
 	@Override
 	public String getJVMDescriptor() {
-		// Pointers are implemented as objects containing references
-		return "Lcom/juno/runtime/Pointer;";
+		return "L" + cellClass(pointedType) + ";";
+	}
+
+	/**
+	 * The internal name of the cell class that holds a variable of the given type.
+	 */
+	public static String cellClass(Type variableType) {
+		return switch (cellValueDescriptor(variableType)) {
+			case "I" -> "com/juno/runtime/IntCell";
+			case "J" -> "com/juno/runtime/LongCell";
+			case "F" -> "com/juno/runtime/FloatCell";
+			case "D" -> "com/juno/runtime/DoubleCell";
+			default -> "com/juno/runtime/RefCell";
+		};
+	}
+
+	/**
+	 * The internal name of the cell subclass that boxes a pointer into an array of the given
+	 * element type when the pointer escapes.
+	 */
+	public static String elementCellClass(Type elementType) {
+		return switch (elementArrayDescriptor(elementType)) {
+			case "[I" -> "com/juno/runtime/IntCell$IntElement";
+			case "[B" -> "com/juno/runtime/IntCell$ByteElement";
+			case "[S" -> "com/juno/runtime/IntCell$ShortElement";
+			case "[C" -> "com/juno/runtime/IntCell$CharElement";
+			case "[Z" -> "com/juno/runtime/IntCell$BoolElement";
+			case "[J" -> "com/juno/runtime/LongCell$LongElement";
+			case "[F" -> "com/juno/runtime/FloatCell$FloatElement";
+			case "[D" -> "com/juno/runtime/DoubleCell$DoubleElement";
+			default -> "com/juno/runtime/RefCell$RefElement";
+		};
+	}
+
+	/**
+	 * The descriptor of the array an element cell for the given element type points into.
+	 */
+	public static String elementArrayDescriptor(Type elementType) {
+		if (elementType instanceof PrimitiveType primitive && primitive.getJVMDescriptor().length() == 1) {
+			return "[" + primitive.getJVMDescriptor();
+		}
+		return "[Ljava/lang/Object;";
+	}
+
+	/**
+	 * The descriptor of the value field of the cell that holds a variable of the given type.
+	 */
+	public static String cellValueDescriptor(Type variableType) {
+		if (variableType instanceof PrimitiveType primitive) {
+			switch (primitive.name()) {
+				case "long", "ulong":
+					return "J";
+				case "float":
+					return "F";
+				case "double":
+					return "D";
+				case "string":
+					return "Ljava/lang/Object;";
+				default:
+					return "I";
+			}
+		}
+		return "Ljava/lang/Object;";
 	}
 
 	@Override
@@ -0,0 +1,33 @@
+package com.juno.types;
+
+/**
+ * Represents the type of an integer range such as {@code 0..n}. Ranges only appear as the
+ * iterable of a for-in loop and are compiled to a counter, so they have no runtime representation.
+ */
+public record RangeType(PrimitiveType elementType) implements Type {
+
+	@Override
+	public String name() {
+		return "range<" + elementType.name() + ">";
+	}
+
+	@Override
+	public boolean isCompatibleWith(Type other) {
+		return other instanceof RangeType range && elementType.isCompatibleWith(range.elementType);
+	}
+
+	@Override
+	public int size() {
+		return 0;
+	}
+
+	@Override
+	public String getJVMDescriptor() {
+		throw new UnsupportedOperationException("Ranges have no runtime representation");
+	}
+
+	@Override
+	public String toString() {
+		return name();
+	}
+}
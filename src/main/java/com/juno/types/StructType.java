@@ -0,0 +1,36 @@
+package com.juno.types;
+
+/**
+ * Represents a struct type, referred to by the name of its declaration.
+ * Structs are compiled to final JVM classes with one field per struct field; the fields
+ * themselves are looked up from the {@code StructDeclaration} of the same name.
+ */
+public record StructType(String structName) implements Type {
+
+	@Override
+	public String name() {
+		return structName;
+	}
+
+	@Override
+	public boolean isCompatibleWith(Type other) {
+		return equals(other);
+	}
+
+	@Override
+	public int size() {
+		// Struct values are object references on the JVM
+		return 8;
+	}
+
+	@Override
+	public String getJVMDescriptor() {
+		// The code generator qualifies struct class names with the program class
+		return "L" + structName + ";";
+	}
+
+	@Override
+	public String toString() {
+		return structName;
+	}
+}
@@ -269,6 +269,16 @@ public class ASTTest {
 			return null;
 		}
 
+		@Override
+		public Void visitRangeExpression(RangeExpression expr) {
+			return null;
+		}
+
+		@Override
+		public Void visitFieldAccessExpression(FieldAccessExpression expr) {
+			return null;
+		}
+
 		@Override
 		public Void visitStructDeclaration(StructDeclaration stmt) {
 			return null;
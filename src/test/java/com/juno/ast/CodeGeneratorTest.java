@@ -0,0 +1,1434 @@
+package com.juno.ast;
+
+import com.juno.error.CompilerError;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Tests for properties of the bytecode the code generator emits.
+ */
+public class CodeGeneratorTest {
+
+	@TempDir
+	Path tempDir;
+
+	private MethodNode compileMethod(String source, String methodName, boolean useIR) throws Exception {
+		CodeGenerator codeGenerator = new CodeGenerator();
+		codeGenerator.setOptimize(false);
+		codeGenerator.setUseIR(useIR);
+		codeGenerator.generate(TestCompiler.check(source), tempDir.resolve("Scopes").toString(), false);
+
+		ClassNode classNode = new ClassNode();
+		new ClassReader(Files.readAllBytes(tempDir.resolve("Scopes.class"))).accept(classNode, 0);
+		return classNode.methods.stream()
+														.filter(method -> method.name.equals(methodName))
+														.findFirst()
+														.orElseThrow();
+	}
+
+	private static final String SIBLING_SCOPES = """
+			int f(int n) {
+				if n > 0 {
+					int a = n * 2;
+					int b = a + n;
+					n = a + b;
+				} else {
+					int c = n * 3;
+					int d = c - n;
+					n = c + d;
+				}
+				while n > 100 {
+					int e = n / 2;
+					n = e + e / 10;
+				}
+				return n;
+			}
+			""";
+
+	@Test
+	@DisplayName("Should reuse the slots of variables whose block has ended")
+	public void testReusesBlockSlots() throws Exception {
+		MethodNode method = compileMethod(SIBLING_SCOPES, "f", false);
+
+		// n plus the two variables of the larger block
+		assertThat(method.maxLocals).isEqualTo(3);
+	}
+
+	private static String manyScopes(int count) {
+		StringBuilder source = new StringBuilder("int g(int n) {\n\tint acc = 0;\n");
+		for (int i = 0; i < count; i++) {
+			source.append("\tif n > ").append(i).append(" {\n")
+					.append("\t\tint t").append(i).append(" = n * ").append(i).append(";\n")
+					.append("\t\tacc = acc + t").append(i).append(" + t").append(i).append(";\n")
+					.append("\t}\n");
+		}
+		return source.append("\treturn acc;\n}\n").toString();
+	}
+
+	@Test
+	@DisplayName("Should not need more slots for longer functions with the same shape")
+	public void testSlotsDoNotGrowWithScopes() throws Exception {
+		assertThat(compileMethod(manyScopes(50), "g", false).maxLocals).isEqualTo(3);
+
+		int irSlots = compileMethod(manyScopes(5), "g", true).maxLocals;
+		assertThat(compileMethod(manyScopes(50), "g", true).maxLocals).isEqualTo(irSlots);
+	}
+
+	private static long count(MethodNode method, int opcode) {
+		int matches = 0;
+		for (AbstractInsnNode node : method.instructions) {
+			if (node.getOpcode() == opcode) {
+				matches++;
+			}
+		}
+		return matches;
+	}
+
+	@Test
+	@DisplayName("Should compile for-in over an array to a counted loop without calls")
+	public void testForInOverArray() throws Exception {
+		MethodNode method = compileMethod("""
+				int sum(int[] values) {
+					int total = 0;
+					for int value in values {
+						total = total + value;
+					}
+					return total;
+				}
+				""", "sum", false);
+
+		assertThat(count(method, ARRAYLENGTH)).isEqualTo(1);
+		assertThat(count(method, IALOAD)).isEqualTo(1);
+		assertThat(count(method, IINC)).isEqualTo(1);
+		assertThat(method.instructions.toArray()).noneMatch(node -> node instanceof MethodInsnNode);
+	}
+
+	@Test
+	@DisplayName("Should run for-in loops with break, continue and element conversions")
+	public void testForInResults() throws Exception {
+		String source = """
+				int sum(int[] xs) {
+					int total = 0;
+					for int x in xs {
+						if x % 2 == 0 {
+							continue;
+						}
+						if x > 6 {
+							break;
+						}
+						total = total + x;
+					}
+					return total;
+				}
+				int main() {
+					string[] names = ["a", "b"];
+					for string name in names {
+						Io.println(name);
+					}
+					int[] empty = [];
+					for int unused in empty {
+						Io.println("never");
+					}
+					int[] small = [7, 8];
+					for long wide in small {
+						Io.println(string<wide>);
+					}
+					int[] xs = [1, 2, 3, 4, 5, 6, 7, 9];
+					return sum(xs);
+				}
+				""";
+
+		Class<?> program = TestCompiler.compile(source, tempDir, "ForIn");
+
+		assertThat(TestCompiler.runCapturingOutput(program).lines()).containsExactly("a", "b", "7", "8", "9");
+	}
+
+	@Test
+	@DisplayName("Should compile range loops to a bare counter without allocating a range")
+	public void testRangeLoopsAreCounters() throws Exception {
+		String source = """
+				int sum(int n) {
+					int total = 0;
+					for int i in 0..n {
+						total = total + i;
+					}
+					for int j in n..=0 step -2 {
+						total = total + j;
+					}
+					return total;
+				}
+				int count(long n) {
+					int c = 0;
+					for long i in 0..n {
+						c = c + 1;
+					}
+					return c;
+				}
+				""";
+
+		MethodNode sum = compileMethod(source, "sum", false);
+		assertThat(count(sum, IINC)).isEqualTo(2);
+		assertThat(sum.instructions.toArray()).noneMatch(node -> node instanceof MethodInsnNode || node instanceof TypeInsnNode);
+
+		MethodNode longCount = compileMethod(source, "count", false);
+		assertThat(count(longCount, LADD)).isEqualTo(1);
+		assertThat(count(longCount, LCMP)).isEqualTo(1);
+		assertThat(longCount.instructions.toArray()).noneMatch(node -> node instanceof MethodInsnNode || node instanceof TypeInsnNode);
+	}
+
+	@Test
+	@DisplayName("Should run exclusive, inclusive, stepped and descending ranges on both backends")
+	public void testRangeResults() throws Exception {
+		String source = """
+				int main() {
+					int n = 3;
+					for int i in 0..n {
+						Io.println(string<i>);
+					}
+					for int i in 1..=n {
+						Io.println(string<i * 10>);
+					}
+					for int i in 10..0 step -4 {
+						Io.println(string<i>);
+					}
+					int s = 2;
+					for int i in 0..10 step s {
+						if i == 4 {
+							continue;
+						}
+						if i == 8 {
+							break;
+						}
+						Io.println(string<i>);
+					}
+					for int unused in 5..5 {
+						Io.println("never");
+					}
+					long from = long<4000000000>;
+					long to = long<4000000005>;
+					int count = 0;
+					for long i in from..to {
+						count = count + 1;
+					}
+					Io.println(string<count>);
+					return 0;
+				}
+				""";
+		Program program = TestCompiler.check(source);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "RangesIR" : "Ranges", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+					.containsExactly("0", "1", "2", "10", "20", "30", "10", "6", "2", "0", "2", "6", "5", "0");
+		}
+	}
+
+	@Test
+	@DisplayName("Should stop ranges that end at the limits of int and long without overflowing")
+	public void testRangeLimits() throws Exception {
+		String source = """
+				int count(int from, int to, int by) {
+					int c = 0;
+					for int k in from..=to step by {
+						c = c + 1;
+					}
+					return c;
+				}
+				int main() {
+					int m = 2147483647;
+					int lo = -2147483647 - 1;
+					int c = 0;
+					for int k in 2147483640..=m {
+						c = c + 1;
+					}
+					Io.println(string<c>);
+					c = 0;
+					for int k in 2147483640..=2147483647 {
+						c = c + 1;
+					}
+					Io.println(string<c>);
+					c = 0;
+					for int k in 2147483600..m step 50 {
+						c = c + 1;
+					}
+					Io.println(string<c>);
+					c = 0;
+					for int k in lo + 8..=lo step -1 {
+						c = c + 1;
+					}
+					Io.println(string<c>);
+					c = 0;
+					for int k in -2000000000..2000000000 step 1000000000 {
+						c = c + 1;
+					}
+					Io.println(string<c>);
+					Io.println(string<count(0, m, 1000000000)>);
+					Io.println(string<count(10, 0, -3)>);
+					Io.println(string<count(lo + 5, lo, -2)>);
+					long lm = long<9223372036854775807>;
+					c = 0;
+					for long k in lm - long<5>..=lm {
+						c = c + 1;
+					}
+					Io.println(string<c>);
+					c = 0;
+					for long k in lm - long<100>..lm step 60 {
+						c = c + 1;
+					}
+					Io.println(string<c>);
+					return 0;
+				}
+				""";
+		Program program = TestCompiler.check(source);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "RangeLimitsIR" : "RangeLimits", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+					.containsExactly("8", "8", "1", "9", "4", "3", "4", "3", "6", "2", "0");
+		}
+	}
+
+	@Test
+	@DisplayName("Should reject a range step of zero, at compile time when it is constant")
+	public void testZeroRangeStep() throws Exception {
+		assertThatThrownBy(() -> TestCompiler.check("""
+				int main() {
+					for int i in 0..10 step 0 {
+						Io.println("never");
+					}
+					return 0;
+				}
+				"""))
+				.hasMessageContaining("Range step cannot be zero");
+
+		Program program = TestCompiler.check("""
+				int count(int by) {
+					int c = 0;
+					for int i in 0..10 step by {
+						c = c + 1;
+					}
+					return c;
+				}
+				int main() {
+					return count(0);
+				}
+				""");
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "ZeroStepIR" : "ZeroStep", useIR);
+			assertThatThrownBy(() -> TestCompiler.runMain(compiled))
+					.isInstanceOf(IllegalArgumentException.class)
+					.hasMessage("Range step cannot be zero");
+		}
+	}
+
+	private static final String STRUCTS = """
+			struct Point {
+				int x;
+				int y;
+				double w;
+			}
+			struct Segment {
+				Point a;
+				Point b;
+			}
+			int norm(Point p) {
+				return p.x * p.x + p.y * p.y;
+			}
+			int main() {
+				Point p = Point(3, 4, 1.5);
+				Point q;
+				q.x = 3;
+				q.y = p.y;
+				q.w = 1.5;
+				Io.println(string<norm(p)>);
+				bool same = p == q;
+				Io.println(string<same>);
+				q.y = 5;
+				bool differ = p != q;
+				Io.println(string<differ>);
+				Segment s = Segment(p, Point());
+				s.b.x = 7;
+				Io.println(string<s.b.x + s.a.y>);
+				return p.x;
+			}
+			""";
+
+	@Test
+	@DisplayName("Should compile structs to final classes with primitive fields")
+	public void testStructClasses() throws Exception {
+		Class<?> program = TestCompiler.compile(STRUCTS, tempDir, "Structs");
+		Class<?> point = program.getClassLoader().loadClass("Structs$Point");
+
+		assertThat(Modifier.isFinal(point.getModifiers())).isTrue();
+		assertThat(point.getDeclaredFields()).extracting(Field::getName).containsExactly("x", "y", "w");
+		assertThat(point.getDeclaredField("x").getType()).isEqualTo(int.class);
+		assertThat(point.getDeclaredField("w").getType()).isEqualTo(double.class);
+
+		Object a = point.getConstructor(int.class, int.class, double.class).newInstance(1, 2, Double.NaN);
+		Object b = point.getConstructor(int.class, int.class, double.class).newInstance(1, 2, Double.NaN);
+		assertThat(a).isEqualTo(b).hasSameHashCodeAs(b);
+		assertThat(a).isNotEqualTo(point.getConstructor().newInstance());
+	}
+
+	@Test
+	@DisplayName("Should construct structs and read and write their fields on both backends")
+	public void testStructResults() throws Exception {
+		Program program = TestCompiler.check(STRUCTS);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "StructsIR" : "Structs", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines()).containsExactly("25", "true", "true", "11", "3");
+		}
+	}
+
+	@Test
+	@DisplayName("Should zero nested struct fields so they can be written through")
+	public void testNestedStructFields() throws Exception {
+		String source = """
+				struct Point {
+					int x;
+					int y;
+				}
+				struct Seg {
+					Point a;
+					Point b;
+				}
+				struct Node {
+					int v;
+					Node next;
+				}
+				int main() {
+					Seg s;
+					s.a.x = 4;
+					s.b.y = s.a.x + 1;
+					Seg[10] segs;
+					segs[3].b.y = 7;
+					Node n;
+					Io.println(string<s.a.x + s.b.y + s.a.y>);
+					Io.println(string<segs[3].b.y + segs[9].a.x>);
+					Io.println(string<n.v>);
+					return 0;
+				}
+				""";
+		Program program = TestCompiler.check(source);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "NestedIR" : "Nested", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines()).containsExactly("9", "7", "0", "0");
+		}
+	}
+
+	private static final String PARTICLES = """
+			soa struct Particle {
+				int x;
+				int v;
+				long id;
+			}
+			struct Point {
+				int x;
+				int y;
+			}
+			Particle[4] shared;
+			void step(Particle[] ps, int n) {
+				for int i in 0..n {
+					ps[i].x = ps[i].x + ps[i].v;
+				}
+			}
+			int main() {
+				Particle[4] ps;
+				Point[3] points;
+				for int i in 0..4 {
+					ps[i].v = i;
+					ps[i].id = long<i>;
+				}
+				step(ps, 4);
+				step(ps, 4);
+				points[1].y = 9;
+				shared[2].x = 5;
+				long id = ps[3].id;
+				Io.println(string<ps[3].x>);
+				Io.println(string<points[1].y + points[0].x + shared[2].x>);
+				Io.println(string<id>);
+				return 0;
+			}
+			""";
+
+	@Test
+	@DisplayName("Should store arrays of soa structs as one primitive array per field")
+	public void testStructOfArraysLayout() throws Exception {
+		MethodNode step = compileMethod(PARTICLES, "step", false);
+		assertThat(count(step, IALOAD)).isEqualTo(2);
+		assertThat(count(step, IASTORE)).isEqualTo(1);
+		assertThat(count(step, AALOAD)).isZero();
+
+		Class<?> program = TestCompiler.compile(PARTICLES, tempDir, "Particles");
+		Class<?> particles = program.getClassLoader().loadClass("Particles$Particle$Array");
+		assertThat(particles.getDeclaredField("x").getType()).isEqualTo(int[].class);
+		assertThat(particles.getDeclaredField("id").getType()).isEqualTo(long[].class);
+		assertThat(program.getMethod("step", particles, int.class)).isNotNull();
+	}
+
+	@Test
+	@DisplayName("Should run fixed-size arrays of soa and plain structs on both backends")
+	public void testStructOfArraysResults() throws Exception {
+		Program program = TestCompiler.check(PARTICLES);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "ParticlesIR" : "Particles", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines()).containsExactly("6", "14", "3", "0");
+		}
+	}
+
+	@Test
+	@DisplayName("Should only allow field access on the elements of soa struct arrays")
+	public void testStructOfArraysElements() {
+		String source = """
+				soa struct Particle {
+					int x;
+				}
+				int main() {
+					Particle[2] ps;
+					Particle p = ps[0];
+					return p.x;
+				}
+				""";
+
+		assertThatThrownBy(() -> TestCompiler.check(source)).hasMessageContaining("soa struct arrays");
+	}
+
+	private static final String POINTERS = """
+			void swap(int* a, int* b) {
+				int t = *a;
+				*a = *b;
+				*b = t;
+			}
+			void rename(string* s) {
+				*s = "changed";
+			}
+			int local(int x) {
+				int* p = &x;
+				*p = *p + 1;
+				int y = *&x;
+				return x + y;
+			}
+			int bump(int n) {
+				int* p = &n;
+				swap(p, p);
+				*p = *p + 1;
+				return n;
+			}
+			int main() {
+				int a = 1;
+				int b = 2;
+				swap(&a, &b);
+				Io.println(string<a> ^^ " " ^^ string<b>);
+				string s = "original";
+				rename(&s);
+				Io.println(s);
+				int d = 2;
+				int* q = &d;
+				{
+					int d = 100;
+					*q = *q + d;
+				}
+				Io.println(string<d> ^^ " " ^^ string<local(5)> ^^ " " ^^ string<bump(9)>);
+				return 0;
+			}
+			""";
+
+	@Test
+	@DisplayName("Should compile pointers that do not escape to direct local accesses")
+	public void testNonEscapingPointers() throws Exception {
+		MethodNode local = compileMethod(POINTERS, "local", false);
+
+		assertThat(local.instructions.toArray())
+				.noneMatch(node -> node instanceof TypeInsnNode || node instanceof FieldInsnNode || node instanceof MethodInsnNode);
+	}
+
+	@Test
+	@DisplayName("Should keep variables whose address escapes in typed cells")
+	public void testEscapingPointersUseCells() throws Exception {
+		MethodNode main = compileMethod(POINTERS, "main", false);
+		assertThat(main.instructions.toArray())
+				.filteredOn(node -> node.getOpcode() == NEW)
+				.extracting(node -> ((TypeInsnNode) node).desc)
+				.containsExactly("com/juno/runtime/IntCell", "com/juno/runtime/IntCell", "com/juno/runtime/RefCell");
+
+		// A pointer that is passed on makes its target a cell, here a parameter
+		MethodNode bump = compileMethod(POINTERS, "bump", false);
+		assertThat(count(bump, NEW)).isEqualTo(1);
+
+		MethodNode swap = compileMethod(POINTERS, "swap", false);
+		assertThat(swap.desc).isEqualTo("(Lcom/juno/runtime/IntCell;Lcom/juno/runtime/IntCell;)V");
+	}
+
+	@Test
+	@DisplayName("Should read and write through pointers on both backends")
+	public void testPointerResults() throws Exception {
+		Program program = TestCompiler.check(POINTERS);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "PointersIR" : "Pointers", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+					.containsExactly("2 1", "changed", "102 12 10", "0");
+		}
+	}
+
+	@Test
+	@DisplayName("Should keep pointer locals whose address is taken in cells")
+	public void testPointersToPointers() throws Exception {
+		String source = """
+				void set(int** q, int v) {
+					**q = v;
+				}
+				int main() {
+					int x = 1;
+					int* p = &x;
+					int** pp = &p;
+					**pp = 9;
+					Io.println(string<x>);
+					set(&p, 5);
+					Io.println(string<*p>);
+					return 0;
+				}
+				""";
+		Program program = TestCompiler.check(source);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "PointersToPointersIR" : "PointersToPointers", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines()).containsExactly("9", "5", "0");
+		}
+
+		String split = """
+				int main() {
+					int[] xs = [1, 2];
+					int* p = &xs[0];
+					int* m = Mem.allocInt(1);
+					int** pp = &p;
+					int** mm = &m;
+					return 0;
+				}
+				""";
+		assertThat(TestCompiler.errors(split))
+				.extracting(CompilerError::getMessage, CompilerError::getLine)
+				.containsExactly(
+						tuple("Cannot take the address of a pointer into an array or into memory", 5),
+						tuple("Cannot take the address of a pointer into an array or into memory", 6));
+	}
+
+	private static final String ARRAY_POINTERS = """
+			int sum(int[] data, int n) {
+				int* p = &data[0];
+				int* end = &data[n];
+				int total = 0;
+				while p < end {
+					total = total + *p;
+					p = p + 1;
+				}
+				return total;
+			}
+			void copyFirst(long[] data) {
+				long* p = &data[1];
+				long* q = p - 1;
+				*(p + 1) = *q;
+			}
+			int main() {
+				int[] xs = [1, 2, 3, 4];
+				long one = 1;
+				long two = 2;
+				long three = 3;
+				long[] ls = [one, two, three];
+				int* a = &xs[1];
+				int* b = &xs[3];
+				*a = 20;
+				copyFirst(ls);
+				Io.println(string<sum(xs, 4)> ^^ " " ^^ string<ls[2]>);
+				int distance = b - a;
+				bool same = a == b - 2;
+				bool different = a != b;
+				Io.println(string<distance> ^^ " " ^^ string<same> ^^ " " ^^ string<different>);
+				return 0;
+			}
+			""";
+
+	@Test
+	@DisplayName("Should keep pointers into arrays as an array and an index")
+	public void testArrayPointersDoNotAllocate() throws Exception {
+		MethodNode sum = compileMethod(ARRAY_POINTERS, "sum", false);
+
+		assertThat(sum.instructions.toArray())
+				.noneMatch(node -> node instanceof TypeInsnNode || node instanceof FieldInsnNode || node instanceof MethodInsnNode);
+		assertThat(count(sum, IALOAD)).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Should move, compare and dereference pointers into arrays on both backends")
+	public void testArrayPointerResults() throws Exception {
+		Program program = TestCompiler.check(ARRAY_POINTERS);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "ArrayPointersIR" : "ArrayPointers", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+					.containsExactly("28 1", "2 true true", "0");
+		}
+	}
+
+	@Test
+	@DisplayName("Should box pointers into arrays that leave their function into element cells")
+	public void testEscapingArrayPointers() throws Exception {
+		String source = """
+				int get(int* p) {
+					return *p;
+				}
+				void put(long* p, long v) {
+					*p = v;
+				}
+				int* second(int[] xs) {
+					int* p = &xs[0];
+					return p + 1;
+				}
+				int main() {
+					int[] xs = [1, 2];
+					int* q = &xs[0];
+					int ok = *(q + 1) + get(&xs[1]);
+					int* r = second(xs);
+					*r = 40;
+					long[] ls = [long<1>, long<2>];
+					put(&ls[1], long<7>);
+					Io.println(string<ok> ^^ " " ^^ string<xs[1]> ^^ " " ^^ string<ls[1]>);
+					r = &xs[0];
+					*r = 10;
+					return get(q);
+				}
+				""";
+		Program program = TestCompiler.check(source);
+
+		MethodNode main = compileMethod(source, "main", false);
+		assertThat(main.instructions.toArray())
+				.filteredOn(node -> node.getOpcode() == NEW)
+				.extracting(node -> ((TypeInsnNode) node).desc)
+				.containsExactly("com/juno/runtime/IntCell$IntElement", "com/juno/runtime/LongCell$LongElement",
+						"com/juno/runtime/IntCell$IntElement", "com/juno/runtime/IntCell$IntElement");
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "EscapingArrayPointersIR" : "EscapingArrayPointers", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines()).containsExactly("4 40 7", "10");
+		}
+	}
+
+	private static final String MEMORY = """
+			int sum(int n) {
+				int mark = Mem.mark();
+				int* p = Mem.allocInt(n);
+				int* end = p + n;
+				int i = 0;
+				while p < end {
+					*p = i;
+					p = p + 1;
+					i = i + 1;
+				}
+				int* q = end - n;
+				int total = 0;
+				while q != end {
+					total = total + *q;
+					q = q + 1;
+				}
+				Mem.release(mark);
+				return total;
+			}
+			int main() {
+				Io.println(string<sum(10)>);
+				double* d = Mem.allocDouble(4);
+				*(d + 3) = 2.5;
+				double* e = d + 3;
+				Io.println(string<*e> ^^ " " ^^ string<e - d>);
+				int raw = Mem.alloc(16);
+				Mem.putLong(raw + 8, 7);
+				Mem.putInt(raw, 42);
+				Mem.copy(raw, raw + 4, 4);
+				Io.println(string<Mem.getInt(raw + 4)> ^^ " " ^^ string<Mem.getLong(raw + 8)>);
+				Mem.fill(raw, 8, 1);
+				Io.println(string<Mem.getInt(raw)> ^^ " " ^^ string<Mem.address(e) - Mem.address(d)>);
+				return 0;
+			}
+			""";
+
+	@Test
+	@DisplayName("Should compile pointers into memory to address arithmetic")
+	public void testMemoryPointersAreAddresses() throws Exception {
+		MethodNode sum = compileMethod(MEMORY, "sum", false);
+
+		assertThat(count(sum, NEW)).isZero();
+		assertThat(sum.instructions.toArray())
+				.filteredOn(node -> node instanceof MethodInsnNode)
+				.extracting(node -> ((MethodInsnNode) node).name)
+				.containsExactly("mark", "allocInt", "putInt", "getInt", "release");
+	}
+
+	@Test
+	@DisplayName("Should allocate, access and copy memory in the Mem arena on both backends")
+	public void testMemoryResults() throws Exception {
+		Program program = TestCompiler.check(MEMORY);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "MemoryIR" : "Memory", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+					.containsExactly("45", "2.5 3", "42 7", "16843009 24", "0");
+		}
+	}
+
+	private static final String UNSIGNED = """
+			uint ratio(uint a, uint b) {
+				uint q = a / b;
+				bool larger = a > b;
+				if larger {
+					return q;
+				}
+				return a % b;
+			}
+			ubyte wrap(ubyte a, ubyte b) {
+				return a + b;
+			}
+			int main() {
+				uint big = uint<-2>;
+				uint seven = uint<7>;
+				Io.println(string<ratio(big, seven)> ^^ " " ^^ string<ratio(seven, big)>);
+				ubyte w = wrap(ubyte<250>, ubyte<10>);
+				ulong max = ulong<-1>;
+				ulong two = ulong<2>;
+				bool ordered = max > two;
+				Io.println(string<w> ^^ " " ^^ string<max / two> ^^ " " ^^ string<ordered>);
+				long widened = long<big>;
+				ushort top = ushort<65535>;
+				ushort one = ushort<1>;
+				ushort negated = -one;
+				Io.println(string<widened> ^^ " " ^^ string<top + one> ^^ " " ^^ string<negated>);
+				return 0;
+			}
+			""";
+
+	@Test
+	@DisplayName("Should divide and compare uint with the unsigned JDK intrinsics")
+	public void testUnsignedIntrinsics() throws Exception {
+		MethodNode ratio = compileMethod(UNSIGNED, "ratio", false);
+
+		assertThat(count(ratio, IDIV)).isZero();
+		assertThat(count(ratio, IREM)).isZero();
+		assertThat(ratio.instructions.toArray())
+				.filteredOn(node -> node instanceof MethodInsnNode)
+				.extracting(node -> ((MethodInsnNode) node).name)
+				.containsExactly("divideUnsigned", "compareUnsigned", "remainderUnsigned");
+	}
+
+	@Test
+	@DisplayName("Should compute unsigned results on both backends")
+	public void testUnsignedResults() throws Exception {
+		Program program = TestCompiler.check(UNSIGNED);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "UnsignedIR" : "Unsigned", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+					.containsExactly("613566756 7", "4 9223372036854775807 true", "4294967294 0 65535", "0");
+		}
+	}
+
+	private static final String CONDITIONS = """
+			bool touch() {
+				Io.print("t");
+				return true;
+			}
+
+			int classify(int narrow, int scaled) {
+				long x = narrow;
+				double y = scaled;
+				if x > 10 && y < 2.5 {
+					return 1;
+				}
+				if x < 0 || !(y >= 0.0) {
+					return 2;
+				}
+				return 3;
+			}
+
+			int main() {
+				bool a = false && touch();
+				bool b = true || touch();
+				bool c = true && touch();
+				bool d = touch() || touch();
+				Io.println(string<a> ^^ " " ^^ string<b> ^^ " " ^^ string<c> ^^ " " ^^ string<d>);
+				Io.println(string<classify(20, 1)> ^^ " " ^^ string<classify(20, 3)> ^^ " " ^^ string<classify(5, -1)> ^^ " " ^^ string<classify(-3, 3)>);
+				return 0;
+			}
+			""";
+
+	@Test
+	@DisplayName("Should compile conditions to compare-and-jump instructions")
+	public void testConditionsJumpDirectly() throws Exception {
+		MethodNode classify = compileMethod(CONDITIONS, "classify", false);
+
+		assertThat(count(classify, LCMP)).isEqualTo(2);
+		assertThat(count(classify, DCMPG)).isEqualTo(1);
+		assertThat(count(classify, DCMPL)).isEqualTo(1);
+		// No comparison result is pushed as 0 or 1 and tested again
+		assertThat(count(classify, IFEQ) + count(classify, IFNE)).isZero();
+	}
+
+	@Test
+	@DisplayName("Should short-circuit && and || on both backends")
+	public void testShortCircuitResults() throws Exception {
+		Program program = TestCompiler.check(CONDITIONS);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "ConditionsIR" : "Conditions", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+					.containsExactly("ttfalse true true true", "1 3 2 2", "0");
+		}
+	}
+
+	private static final String TYPED_ARITHMETIC = """
+			long scale(long x, double factor, float bias) {
+				double scaled = double<x> * factor;
+				float shifted = float<scaled> + bias;
+				return long<shifted> + x;
+			}
+
+			double mean(double[] values) {
+				double total = 0.0;
+				for double v in values {
+					total = total + v;
+				}
+				return total / double<3>;
+			}
+
+			int main() {
+				long big = 3000000000;
+				long step = 7;
+				long sum = big + step * step - step / step % step;
+				double d = 2.5;
+				double negated = -d;
+				float f = float<1.5>;
+				float g = f * f - f;
+				long[] ls = [1, 2, 3];
+				double[] ds = [1.0, 2.0, 4.5];
+				Io.println(string<sum> ^^ " " ^^ string<negated> ^^ " " ^^ string<g> ^^ " " ^^ string<ls[2] + big>);
+				Io.println(string<scale(big, 0.5, f)> ^^ " " ^^ string<mean(ds)>);
+				return 0;
+			}
+			""";
+
+	@Test
+	@DisplayName("Should pick arithmetic instructions from the checked types")
+	public void testArithmeticFollowsCheckedTypes() throws Exception {
+		MethodNode scale = compileMethod(TYPED_ARITHMETIC, "scale", false);
+
+		assertThat(count(scale, DMUL)).isEqualTo(1);
+		assertThat(count(scale, FADD)).isEqualTo(1);
+		assertThat(count(scale, LADD)).isEqualTo(1);
+		assertThat(count(scale, IADD) + count(scale, IMUL)).isZero();
+	}
+
+	@Test
+	@DisplayName("Should compute long, float and double arithmetic on both backends")
+	public void testTypedArithmeticResults() throws Exception {
+		Program program = TestCompiler.check(TYPED_ARITHMETIC);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "TypedArithmeticIR" : "TypedArithmetic", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+					.containsExactly("3000000048 -2.5 0.75 3000000003", "4500000000 2.5", "0");
+		}
+	}
+
+	private static final String TYPED_PRINT = """
+			void show(int i, long l, double d, bool b, char c) {
+				Io.print(i);
+				Io.print(c);
+				Io.println(l);
+				Io.println(d);
+				Io.println(b);
+				Io.println(string<i * 2>);
+			}
+
+			int main() {
+				show(-2147483648, 9000000000, 0.25, true, ' ');
+				show(0, -1, -3.0, false, ':');
+				return 0;
+			}
+			""";
+
+	@Test
+	@DisplayName("Should print primitives with Io's typed overloads instead of strings")
+	public void testTypedPrintOverloads() throws Exception {
+		for (boolean useIR : new boolean[] { false, true }) {
+			MethodNode show = compileMethod(TYPED_PRINT, "show", useIR);
+
+			assertThat(show.instructions.toArray())
+					.filteredOn(node -> node instanceof MethodInsnNode)
+					.extracting(node -> ((MethodInsnNode) node).owner + "." + ((MethodInsnNode) node).desc)
+					.containsExactly("com/juno/runtime/Io.(I)V", "com/juno/runtime/Io.(C)V", "com/juno/runtime/Io.(J)V",
+							"com/juno/runtime/Io.(D)V", "com/juno/runtime/Io.(Z)V", "com/juno/runtime/Io.(I)V");
+		}
+	}
+
+	@Test
+	@DisplayName("Should print primitives like their string conversion on both backends")
+	public void testTypedPrintResults() throws Exception {
+		Program program = TestCompiler.check(TYPED_PRINT);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "TypedPrintIR" : "TypedPrint", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+					.containsExactly("-2147483648 9000000000", "0.25", "true", "0",
+							"0:-1", "-3.0", "false", "0", "0");
+		}
+	}
+
+	private static final String MATH = """
+			double kernel(int i, long l, float f, double d) {
+				int a = Math.abs(i);
+				long m = Math.max(l, i);
+				float g = Math.fma(f, f, f);
+				int r = Math.floorMod(i, 3);
+				return Math.sqrt(d) + Math.min(d, Math.PI) + double<a> + double<m> + double<g> + double<r>;
+			}
+			int main() {
+				Io.println(kernel(-7, 9000000000, 1.5, 16.0));
+				Io.println(Math.floorMod(long<-9>, long<4>));
+				Io.println(Math.round(2.5));
+				return Math.max(3, -4);
+			}
+			""";
+
+	@Test
+	@DisplayName("Should call the java.lang.Math overload of each argument kind on both backends")
+	public void testMathOverloads() throws Exception {
+		Program program = TestCompiler.check(MATH);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			MethodNode kernel = compileMethod(MATH, "kernel", useIR);
+			assertThat(kernel.instructions.toArray())
+					.filteredOn(node -> node instanceof MethodInsnNode)
+					.extracting(node -> ((MethodInsnNode) node).owner + "." + ((MethodInsnNode) node).name + ((MethodInsnNode) node).desc)
+					.containsExactly("java/lang/Math.abs(I)I", "java/lang/Math.max(JJ)J", "java/lang/Math.fma(FFF)F",
+							"java/lang/Math.floorMod(II)I", "java/lang/Math.sqrt(D)D", "java/lang/Math.min(DD)D");
+
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "MathIR" : "Math", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+					.containsExactly(String.valueOf(4.0 + Math.PI + 7 + 9000000000L + 3.75f + 2), "3", "3", "3");
+		}
+	}
+
+	@Test
+	@DisplayName("Should compute round and fma of integers exactly, without calling Math")
+	public void testMathIntegerArguments() throws Exception {
+		String source = """
+				int rounded(int i) {
+					return Math.round(i);
+				}
+				long roundedLong(long l) {
+					return Math.round(l);
+				}
+				int fused(int a, int b, int c) {
+					return Math.fma(a, b, c);
+				}
+				long fusedLong(long a, long b, long c) {
+					return Math.fma(a, b, c);
+				}
+				int main() {
+					Io.println(string<rounded(16777217)> ^^ " " ^^ string<roundedLong(long<3000000000>)>);
+					Io.println(string<fused(16777217, 1, 0)> ^^ " " ^^ string<fusedLong(long<3000000000>, long<3>, long<-1>)>);
+					return 0;
+				}
+				""";
+		Program program = TestCompiler.check(source);
+
+		for (boolean useIR : new boolean[] { false, true }) {
+			for (String function : new String[] { "rounded", "roundedLong", "fused", "fusedLong" }) {
+				assertThat(compileMethod(source, function, useIR).instructions.toArray())
+						.noneMatch(node -> node instanceof MethodInsnNode);
+			}
+
+			Class<?> compiled = TestCompiler.generate(program, tempDir, useIR ? "MathIntsIR" : "MathInts", useIR);
+			assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+					.containsExactly("16777217 3000000000", "16777217 8999999999", "0");
+		}
+	}
+
+	@Test
+	@DisplayName("Should reject Math calls without an overload for their arguments")
+	public void testMathOverloadErrors() {
+		assertThatThrownBy(() -> TestCompiler.check("int main() { return Math.floorMod(1.5, 2); }"))
+				.hasMessageContaining("No overload of Math.floorMod");
+		assertThatThrownBy(() -> TestCompiler.check("double main() { return Math.tau; }"))
+				.hasMessageContaining("Unknown Math function or constant: tau");
+	}
+
+	private static final String SCAN = """
+			double readAll() {
+				int n = Io.scanInt();
+				long big = Io.scanLong();
+				string name = Io.scanToken();
+				string line = Io.scan();
+				return Io.scanDouble();
+			}
+
+			int main() {
+				return 0;
+			}
+			""";
+
+	@Test
+	@DisplayName("Should call Io's typed scan functions")
+	public void testTypedScanFunctions() throws Exception {
+		for (boolean useIR : new boolean[] { false, true }) {
+			MethodNode readAll = compileMethod(SCAN, "readAll", useIR);
+
+			assertThat(readAll.instructions.toArray())
+					.filteredOn(node -> node instanceof MethodInsnNode)
+					.extracting(node -> ((MethodInsnNode) node).name + ((MethodInsnNode) node).desc)
+					.containsExactly("scanInt()I", "scanLong()J", "scanToken()Ljava/lang/String;",
+							"scan()Ljava/lang/String;", "scanDouble()D");
+		}
+	}
+
+	/**
+	 * Reads tokens that are not the numbers asked for, see testMismatchedTokensAreNotConsumed.
+	 */
+	static class MismatchedTokens {
+		public static void main(String[] args) {
+			com.juno.runtime.InputReader in = com.juno.runtime.InputReader.stdin();
+			for (int i = 0; i < 4; i++) {
+				try {
+					System.out.println(in.nextInt());
+				}
+				catch (java.util.InputMismatchException e) {
+					System.out.println(e.getMessage() + ": " + in.nextToken());
+				}
+			}
+			try {
+				in.nextLong();
+			}
+			catch (java.util.InputMismatchException e) {
+				System.out.println(e.getMessage() + ": " + in.nextDouble() + "|" + in.readLine());
+			}
+		}
+	}
+
+	@Test
+	@DisplayName("Should leave a token that is not the number asked for unread")
+	public void testMismatchedTokensAreNotConsumed() throws Exception {
+		Process process = new ProcessBuilder(
+				Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+				"-cp", System.getProperty("java.class.path"),
+				MismatchedTokens.class.getName())
+				.redirectErrorStream(true)
+				.start();
+		try (var stdin = process.getOutputStream()) {
+			stdin.write("12abc -0042x 99999999999 7\n2.5 rest\n".getBytes());
+		}
+		String output = new String(process.getInputStream().readAllBytes());
+		assertThat(process.waitFor()).isZero();
+
+		assertThat(output.lines()).containsExactly(
+				"Expected an int, found \"12abc\": 12abc",
+				"Expected an int, found \"-0042x\": -0042x",
+				"Expected an int, found a number out of range: 99999999999",
+				"7",
+				"Expected a long, found \"2.5\": 2.5| rest");
+	}
+
+	@Test
+	@DisplayName("Should iterate the lines of a file with a streaming reader")
+	public void testFileLinesLoop() throws Exception {
+		Path input = tempDir.resolve("lines.txt");
+		Files.writeString(input, "alpha\nbeta\r\n\ngamma");
+		Program program = TestCompiler.check("""
+				int main() {
+					int count = 0;
+					for string line in File.lines("%s") {
+						Io.println("[" ^^ line ^^ "]");
+						count = count + 1;
+						if count == 2 {
+							break;
+						}
+					}
+					for string line in File.lines("%s") {
+						count = count + 1;
+					}
+					return count;
+				}
+				""".formatted(input, input));
+
+		Class<?> compiled = TestCompiler.generate(program, tempDir, "FileLines", false);
+		assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+				.containsExactly("[alpha]", "[beta]", "6");
+	}
+
+	/**
+	 * Whether this process has a file open, as far as /proc/self/fd tells.
+	 */
+	private static boolean isOpen(Path file) throws Exception {
+		try (var descriptors = Files.list(Path.of("/proc/self/fd"))) {
+			return descriptors.anyMatch(descriptor -> {
+				try {
+					return Files.readSymbolicLink(descriptor).equals(file.toAbsolutePath());
+				}
+				catch (Exception e) {
+					return false;
+				}
+			});
+		}
+	}
+
+	@Test
+	@DisplayName("Should close the file of File.lines when the loop returns or throws")
+	public void testFileLinesClosedOnExit() throws Exception {
+		assumeTrue(Files.isDirectory(Path.of("/proc/self/fd")));
+		Path input = tempDir.resolve("numbers.txt");
+		Files.writeString(input, "3\n0\n7\n");
+		Program program = TestCompiler.check("""
+				int nth(string path, int n) {
+					int i = 0;
+					for string line in File.lines(path) {
+						i = i + 1;
+						if i == n {
+							return i;
+						}
+					}
+					return 0;
+				}
+				int main() {
+					int found = 0;
+					for string line in File.lines("%s") {
+						found = found + nth("%s", 2);
+					}
+					return found;
+				}
+				int divide() {
+					int total = 100;
+					int i = 0;
+					for string line in File.lines("%s") {
+						i = i + 1;
+						total = total / (2 - i);
+					}
+					return total;
+				}
+				""".formatted(input, input, input));
+
+		Class<?> compiled = TestCompiler.generate(program, tempDir, "LinesClosed", false);
+		assertThat(TestCompiler.runMain(compiled)).isEqualTo(6);
+		assertThat(isOpen(input)).isFalse();
+
+		assertThatThrownBy(() -> compiled.getMethod("divide").invoke(null))
+				.hasRootCauseInstanceOf(ArithmeticException.class);
+		assertThat(isOpen(input)).isFalse();
+	}
+
+	@Test
+	@DisplayName("Should read, write and copy binary files as ubyte arrays")
+	public void testBinaryFiles() throws Exception {
+		Path input = tempDir.resolve("input.bin");
+		Path copy = tempDir.resolve("copy.bin");
+		Path output = tempDir.resolve("output.bin");
+		Files.write(input, new byte[] { 1, 2, (byte) 200, (byte) 255 });
+		Program program = TestCompiler.check("""
+				int main() {
+					ubyte[6] buffer;
+					int count = File.readInto("%s", buffer, 2);
+					Io.println(string<count> ^^ " " ^^ string<buffer[4]> ^^ " " ^^ string<buffer[5]>);
+					long copied = File.copy("%s", "%s");
+					ubyte[] bytes = File.readBytes("%s");
+					Io.println(string<copied> ^^ " " ^^ string<bytes[3]>);
+					File.writeBytes("%s", buffer);
+					return 0;
+				}
+				""".formatted(input, input, copy, copy, output));
+
+		Class<?> compiled = TestCompiler.generate(program, tempDir, "BinaryFiles", false);
+		assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+				.containsExactly("4 200 255", "4 255", "0");
+		assertThat(Files.readAllBytes(copy)).containsExactly(1, 2, 200, 255);
+		assertThat(Files.readAllBytes(output)).containsExactly(0, 0, 1, 2, 200, 255);
+	}
+
+	@Test
+	@DisplayName("Should index mapped views with ByteBuffer gets and puts at scaled offsets")
+	public void testMappedViews() throws Exception {
+		Path ints = tempDir.resolve("ints.bin");
+		Path mixed = tempDir.resolve("mixed.bin");
+		ByteBuffer data = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+		data.putInt(10).putInt(20).putInt(30).putInt(40);
+		Files.write(ints, data.array());
+		String source = """
+				int main() {
+					auto ints = File.mapInts("%s", 4, 3, true);
+					int sum = 0;
+					for int i in 0..3 {
+						sum = sum + ints[i];
+					}
+					ints[2] = sum;
+					auto longs = File.mapLongs("%s", 0, 2, true);
+					longs[1] = 123456789012;
+					auto doubles = File.mapDoubles("%s", 16, 1, true);
+					doubles[0] = 2.5;
+					File.force(longs);
+					auto bytes = File.mapBytes("%s", 8, 8, false);
+					Io.println(string<sum> ^^ " " ^^ string<bytes[0]> ^^ " " ^^ string<doubles[0] * 2.0>);
+					return 0;
+				}
+				""".formatted(ints, mixed, mixed, mixed);
+
+		assertThat(compileMethod(source, "main", false).instructions.toArray())
+				.filteredOn(node -> node instanceof MethodInsnNode call && call.owner.equals("java/nio/ByteBuffer"))
+				.extracting(node -> ((MethodInsnNode) node).name + ((MethodInsnNode) node).desc)
+				.containsExactly("getInt(I)I", "putInt(II)Ljava/nio/ByteBuffer;", "putLong(IJ)Ljava/nio/ByteBuffer;",
+						"putDouble(ID)Ljava/nio/ByteBuffer;", "get(I)B", "getDouble(I)D");
+
+		Class<?> compiled = TestCompiler.generate(TestCompiler.check(source), tempDir, "MappedViews", false);
+		assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+				.containsExactly("90 20 5.0", "0");
+		ByteBuffer written = ByteBuffer.wrap(Files.readAllBytes(ints)).order(ByteOrder.LITTLE_ENDIAN);
+		assertThat(written.getInt(12)).isEqualTo(90);
+		written = ByteBuffer.wrap(Files.readAllBytes(mixed)).order(ByteOrder.LITTLE_ENDIAN);
+		assertThat(written.getLong(8)).isEqualTo(123456789012L);
+		assertThat(written.getDouble(16)).isEqualTo(2.5);
+	}
+
+	@Test
+	@DisplayName("Should await the values of background file operations")
+	public void testAsyncFiles() throws Exception {
+		Path text = tempDir.resolve("text.txt");
+		Path bytes = tempDir.resolve("bytes.bin");
+		Path output = tempDir.resolve("output.txt");
+		Files.writeString(text, "hello");
+		Files.write(bytes, new byte[] { 7, (byte) 200 });
+		Program program = TestCompiler.check("""
+				int main() {
+					auto first = File.readAsync("%s");
+					auto second = File.readBytesAsync("%s");
+					auto written = File.writeAsync("%s", "async");
+					string content = File.await(first);
+					ubyte[] data = File.await(second);
+					long count = File.await(written);
+					Io.println(content ^^ " " ^^ string<data[1]> ^^ " " ^^ string<count> ^^ " " ^^ string<File.isDone(written)>);
+					return 0;
+				}
+				""".formatted(text, bytes, output));
+
+		Class<?> compiled = TestCompiler.generate(program, tempDir, "AsyncFiles", false);
+		assertThat(TestCompiler.runCapturingOutput(compiled).lines())
+				.containsExactly("hello 200 5 true", "0");
+		assertThat(Files.readString(output)).isEqualTo("async");
+	}
+
+	@Test
+	@DisplayName("Should finish writes that are never awaited before the program exits")
+	public void testAsyncWritesFinishAtExit() throws Exception {
+		Path large = tempDir.resolve("large.bin");
+		Path copy = tempDir.resolve("large-copy.bin");
+		Path outputs = Files.createDirectory(tempDir.resolve("unawaited"));
+		byte[] content = new byte[4 << 20];
+		new java.util.Random(1).nextBytes(content);
+		Files.write(large, content);
+		Program program = TestCompiler.check("""
+				int main() {
+					auto copied = File.copyAsync("%s", "%s");
+					for int i in 0..1000 {
+						auto written = File.writeAsync("%s/" ^^ string<i>, "written " ^^ string<i>);
+					}
+					return 0;
+				}
+				""".formatted(large, copy, outputs));
+		TestCompiler.generate(program, tempDir, "Unawaited", false);
+
+		// Shutdown hooks only run when a JVM exits, so the program gets one of its own
+		Process process = new ProcessBuilder(
+				Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+				"-cp", tempDir + java.io.File.pathSeparator + System.getProperty("java.class.path"),
+				"Unawaited")
+				.redirectErrorStream(true)
+				.start();
+		assertThat(process.waitFor()).isZero();
+
+		assertThat(Files.mismatch(large, copy)).isEqualTo(-1);
+		for (int i = 0; i < 1000; i++) {
+			assertThat(Files.readString(outputs.resolve(String.valueOf(i)))).isEqualTo("written " + i);
+		}
+	}
+
+	/**
+	 * Writes to handles it never closes, see testUnclosedHandlesFlushAtExit.
+	 */
+	static class UnclosedHandles {
+		public static void main(String[] args) throws Exception {
+			com.juno.runtime.File.Handle written = com.juno.runtime.File.openWrite(args[0]);
+			com.juno.runtime.File.Handle appended = com.juno.runtime.File.openAppend(args[1]);
+			for (int i = 0; i < 3; i++) {
+				written.writeLine("line " + i);
+			}
+			appended.write("appended");
+		}
+	}
+
+	@Test
+	@DisplayName("Should write the buffers of handles that are never closed before the program exits")
+	public void testUnclosedHandlesFlushAtExit() throws Exception {
+		Path written = tempDir.resolve("written.txt");
+		Path appended = tempDir.resolve("appended.txt");
+		Files.writeString(appended, "kept ");
+
+		Process process = new ProcessBuilder(
+				Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+				"-cp", System.getProperty("java.class.path"),
+				UnclosedHandles.class.getName(), written.toString(), appended.toString())
+				.redirectErrorStream(true)
+				.start();
+		assertThat(process.waitFor()).isZero();
+
+		assertThat(Files.readString(written)).isEqualTo("line 0\nline 1\nline 2\n");
+		assertThat(Files.readString(appended)).isEqualTo("kept appended");
+	}
+
+	@Test
+	@DisplayName("Should buffer Io output and flush it before main's result")
+	public void testBufferedOutput() throws Exception {
+		Program program = TestCompiler.check("""
+				int main() {
+					int i = 0;
+					while i < 20000 {
+						Io.println("line " ^^ string<i>);
+						i = i + 1;
+					}
+					Io.println("done");
+					Io.flush();
+					return 7;
+				}
+				""");
+
+		java.util.List<String> lines = TestCompiler.runCapturingOutput(
+				TestCompiler.generate(program, tempDir, "BufferedOutput", false)).lines().toList();
+		assertThat(lines).hasSize(20002);
+		assertThat(lines.get(0)).isEqualTo("line 0");
+		assertThat(lines.get(19999)).isEqualTo("line 19999");
+		assertThat(lines.subList(20000, 20002)).containsExactly("done", "7");
+	}
+}
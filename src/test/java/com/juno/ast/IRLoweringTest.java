@@ -0,0 +1,174 @@
+package com.juno.ast;
+
+import com.juno.ir.BasicBlock;
+import com.juno.ir.Function;
+import com.juno.ir.IRLoweringException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for lowering checked functions to the SSA IR and compiling them through it.
+ */
+public class IRLoweringTest {
+
+	@TempDir
+	Path tempDir;
+
+	private static Function lower(Program program, String functionName) {
+		Map<String, FunctionDeclaration> functions = new HashMap<>();
+		for (Statement stmt : program.getStatements()) {
+			if (stmt instanceof FunctionDeclaration funcDecl) {
+				functions.put(funcDecl.name(), funcDecl);
+			}
+		}
+		return new IRLowering("Test", functions, Map.of()).lower(functions.get(functionName));
+	}
+
+	@Test
+	@DisplayName("Should lower loops to phis and short-circuit conditions to branches")
+	public void testLowersControlFlow() {
+		Program program = TestCompiler.check("""
+				int count(int n) {
+					int i = 0;
+					int hits = 0;
+					while i < n {
+						if i > 2 && i != 5 {
+							hits = hits + 1;
+						}
+						i = i + 1;
+					}
+					return hits;
+				}
+				""");
+
+		Function function = lower(program, "count");
+
+		int phis = 0;
+		for (BasicBlock block : function.getBlocks()) {
+			phis += block.getPhis().size();
+		}
+		// i and hits at the loop header (n is a trivial phi), hits after the if
+		assertThat(phis).isGreaterThanOrEqualTo(3);
+		assertThat(function.toString()).doesNotContain("and").contains("gt int", "ne int", "br ");
+	}
+
+	@Test
+	@DisplayName("Should reject functions that may end without a return value")
+	public void testMissingReturn() {
+		Program program = TestCompiler.check("""
+				int f(int x) {
+					if x > 0 {
+						return 1;
+					}
+				}
+				""");
+
+		assertThatThrownBy(() -> lower(program, "f")).isInstanceOf(IRLoweringException.class);
+	}
+
+	@Test
+	@DisplayName("Should compute the same results as the AST code generator")
+	public void testMatchesAstBackend() throws Exception {
+		String source = """
+				int collatz(int n) {
+					int steps = 0;
+					while n != 1 {
+						if n % 2 == 0 {
+							n = n / 2;
+						} else {
+							n = 3 * n + 1;
+						}
+						steps = steps + 1;
+					}
+					return steps;
+				}
+				int gcd(int a, int b) {
+					while b != 0 {
+						int t = a % b;
+						a = b;
+						b = t;
+					}
+					return a;
+				}
+				int main() {
+					int total = 0;
+					int i = 1;
+					while i <= 30 {
+						if i == 25 { break; }
+						total = total + collatz(i) + gcd(i * 6, 48);
+						i = i + 1;
+					}
+					return total;
+				}
+				""";
+		Program program = TestCompiler.check(source);
+
+		Class<?> viaIR = TestCompiler.generate(program, tempDir, "ViaIR", true);
+		Class<?> viaAst = TestCompiler.generate(program, tempDir, "ViaAst", false);
+
+		assertThat(TestCompiler.runMain(viaIR)).isEqualTo(TestCompiler.runMain(viaAst));
+	}
+
+	@Test
+	@DisplayName("Should wrap byte and short arithmetic like the AST code generator")
+	public void testNarrowArithmetic() throws Exception {
+		String source = """
+				int main() {
+					byte b = 100;
+					Io.println(string<b * b>);
+					if b + b < byte<0> {
+						Io.println("wrapped");
+					}
+					short s = 30000;
+					byte m = -128;
+					Io.println(string<s + s> ^^ " " ^^ string<-m>);
+					return 0;
+				}
+				""";
+		Program program = TestCompiler.check(source);
+
+		Class<?> viaIR = TestCompiler.generate(program, tempDir, "NarrowViaIR", true);
+		Class<?> viaAst = TestCompiler.generate(program, tempDir, "NarrowViaAst", false);
+
+		assertThat(TestCompiler.runCapturingOutput(viaIR)).isEqualTo(TestCompiler.runCapturingOutput(viaAst));
+		assertThat(TestCompiler.runCapturingOutput(viaIR).lines()).containsExactly("16", "wrapped", "-5536 -128", "0");
+	}
+
+	@Test
+	@DisplayName("Should compile long, double and string code and assignments to globals")
+	public void testTypedValues() throws Exception {
+		String source = """
+				int calls = 0;
+				long power(long base, int exponent) {
+					long result = long<1>;
+					while exponent > 0 {
+						result = result * base;
+						exponent = exponent - 1;
+					}
+					calls = calls + 1;
+					return result;
+				}
+				bool outside(double v) {
+					return v < 0.5 || v > 1.5;
+				}
+				int main() {
+					Io.println(power(long<3>, 30));
+					Io.println("half: " ^^ 1.0 / 2.0 ^^ " " ^^ outside(1.0));
+					Io.println(calls);
+					return 0;
+				}
+				""";
+
+		Class<?> program = TestCompiler.generate(TestCompiler.check(source), tempDir, "Typed", true);
+
+		assertThat(TestCompiler.runCapturingOutput(program).lines())
+				.containsExactly("205891132094649", "half: 0.5 false", "1", "0");
+	}
+}
@@ -0,0 +1,158 @@
+package com.juno.ast;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * Tests for the AST-level optimization passes.
+ */
+public class OptimizerTest {
+
+	@TempDir
+	Path tempDir;
+
+	private static final String FIBONACCI = """
+			int fib(int n) {
+				if n <= 1 {
+					return n;
+				}
+				return fib(n - 1) + fib(n - 2);
+			}
+			""";
+
+	private static ReturnStatement lastReturn(Program program, String functionName) {
+		for (Statement stmt : program.getStatements()) {
+			if (stmt instanceof FunctionDeclaration funcDecl && funcDecl.name().equals(functionName)) {
+				var statements = funcDecl.body().statements();
+				return (ReturnStatement) statements.get(statements.size() - 1);
+			}
+		}
+		throw new AssertionError("No function " + functionName);
+	}
+
+	@Test
+	@DisplayName("Should fold calls to pure functions with constant arguments")
+	public void testFoldsPureCall() {
+		Program program = TestCompiler.check(FIBONACCI + "int main() { return fib(20); }");
+
+		Optimizer optimizer = new Optimizer();
+		Program optimized = optimizer.optimize(program);
+
+		Expression value = lastReturn(optimized, "main").value();
+		assertThat(value).isInstanceOf(LiteralExpression.class);
+		assertThat(((LiteralExpression) value).getValue()).isEqualTo(6765);
+		assertThat(optimizer.getFoldedCalls()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Should fold long results computed by loops")
+	public void testFoldsLongResult() {
+		String source = """
+				long factorial(long n) {
+					long result = 1;
+					while n > long<1> {
+						result = result * n;
+						n = n - long<1>;
+					}
+					return result;
+				}
+				long main() { return factorial(20); }
+				""";
+
+		Program optimized = new Optimizer().optimize(TestCompiler.check(source));
+
+		LiteralExpression value = (LiteralExpression) lastReturn(optimized, "main").value();
+		assertThat(value.getValue()).isEqualTo(2432902008176640000L);
+		assertThat(value.getType().name()).isEqualTo("long");
+	}
+
+	@Test
+	@DisplayName("Should produce the same result as the unfolded program")
+	public void testFoldedProgramRuns() throws Exception {
+		String source = FIBONACCI + """
+				int square(int x) { return x * x; }
+				int main() { return fib(20) + square(-3); }
+				""";
+
+		Class<?> folded = TestCompiler.compile(source, tempDir, "Folded");
+		Class<?> unfolded = TestCompiler.generate(TestCompiler.check(source), tempDir, "Unfolded");
+
+		assertThat(TestCompiler.runMain(folded)).isEqualTo(6774);
+		assertThat(TestCompiler.runMain(unfolded)).isEqualTo(6774);
+	}
+
+	@Test
+	@DisplayName("Should not fold calls that touch globals or the Io module")
+	public void testLeavesImpureCalls() {
+		String source = """
+				int counter = 0;
+				int next() { counter = counter + 1; return counter; }
+				int shout(int x) { Io.println("called"); return x; }
+				int main() { return next() + shout(1); }
+				""";
+		Program optimized = new Optimizer().optimize(TestCompiler.check(source));
+
+		BinaryExpression sum = (BinaryExpression) lastReturn(optimized, "main").value();
+		assertThat(sum.getLeft()).isInstanceOf(CallExpression.class);
+		assertThat(sum.getRight()).isInstanceOf(CallExpression.class);
+	}
+
+	@Test
+	@DisplayName("Should leave calls that exceed the step budget or fail at runtime")
+	public void testRespectsStepBudget() {
+		String source = FIBONACCI + """
+				int divide(int a, int b) { return a / b; }
+				int main() { return fib(25) + divide(1, 0); }
+				""";
+		Program program = TestCompiler.check(source);
+
+		Program optimized = new PureFunctionFolder(program, 1000).transform(program);
+
+		BinaryExpression sum = (BinaryExpression) lastReturn(optimized, "main").value();
+		assertThat(sum.getLeft()).isInstanceOf(CallExpression.class);
+		assertThat(sum.getRight()).isInstanceOf(CallExpression.class);
+	}
+
+	@Test
+	@DisplayName("Should fold calls of pure functions that read Math constants")
+	public void testFoldsMathConstants() {
+		Program program = TestCompiler.check("""
+				double area(double r) {
+					return Math.PI * r * r;
+				}
+				double main() { return area(2.0) + Math.E; }
+				""");
+
+		Program optimized = new Optimizer().optimize(program);
+
+		BinaryExpression value = (BinaryExpression) lastReturn(optimized, "main").value();
+		assertThat(value.getLeft()).isInstanceOf(LiteralExpression.class);
+		assertThat(((LiteralExpression) value.getLeft()).getValue()).isEqualTo(Math.PI * 2.0 * 2.0);
+	}
+
+	@Test
+	@DisplayName("Should print folded uint and ulong values as unsigned")
+	public void testFoldsUnsignedStrings() throws Exception {
+		String source = """
+				string f(uint x) { return string<x>; }
+				string g(ulong x) { return string<x>; }
+				string h(ulong x) { return "u" ^^ x; }
+				string main() { return f(uint<4000000000>) ^^ " " ^^ g(ulong<-1>) ^^ " " ^^ h(ulong<-2>); }
+				""";
+
+		Optimizer optimizer = new Optimizer();
+		Program optimized = optimizer.optimize(TestCompiler.check(source));
+		Class<?> folded = TestCompiler.generate(optimized, tempDir, "FoldedUnsigned");
+		Class<?> unfolded = TestCompiler.generate(TestCompiler.check(source), tempDir, "UnfoldedUnsigned");
+
+		String expected = "4000000000 18446744073709551615 u18446744073709551614";
+		assertThat(optimizer.getFoldedCalls()).isEqualTo(3);
+		assertThat(TestCompiler.runMain(folded)).isEqualTo(expected);
+		assertThat(TestCompiler.runMain(unfolded)).isEqualTo(expected);
+	}
+}
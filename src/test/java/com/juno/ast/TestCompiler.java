@@ -0,0 +1,108 @@
+package com.juno.ast;
+
+import com.juno.error.CompilerError;
+import com.juno.error.ErrorCollector;
+import com.juno.lexer.Lexer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Test helper that runs source code through the compiler pipeline and loads the result.
+ */
+final class TestCompiler {
+
+	private TestCompiler() {
+	}
+
+	/**
+	 * Lex, parse and type check a program, failing on any compiler error.
+	 */
+	static Program check(String source) {
+		ErrorCollector errors = new ErrorCollector();
+		Program program = check(source, errors);
+		if (errors.hasErrors()) {
+			throw new IllegalStateException(errors.getErrors().stream()
+																					.map(CompilerError::getMessage)
+																					.collect(Collectors.joining("\n")));
+		}
+		return program;
+	}
+
+	/**
+	 * The compiler errors of a program, in the order they were found.
+	 */
+	static List<CompilerError> errors(String source) {
+		ErrorCollector errors = new ErrorCollector();
+		check(source, errors);
+		return errors.getErrors();
+	}
+
+	private static Program check(String source, ErrorCollector errors) {
+		Lexer lexer = new Lexer(source, "test.juno", errors);
+		Parser parser = new Parser(lexer.tokenize(), "test.juno", source.split("\n"), errors);
+		Program program = parser.parseProgram();
+		if (!errors.hasErrors()) {
+			new TypeChecker(errors).check(program);
+		}
+		return program;
+	}
+
+	/**
+	 * Check, optimize and generate a class file, then load it.
+	 */
+	static Class<?> compile(String source, Path outputDir, String className) throws Exception {
+		return generate(new Optimizer().optimize(check(source)), outputDir, className);
+	}
+
+	static Class<?> generate(Program program, Path outputDir, String className) throws Exception {
+		return generate(program, outputDir, className, false);
+	}
+
+	/**
+	 * Generate a class file, optionally compiling functions through the SSA IR, then load it.
+	 */
+	static Class<?> generate(Program program, Path outputDir, String className, boolean useIR) throws Exception {
+		CodeGenerator codeGenerator = new CodeGenerator();
+		codeGenerator.setUseIR(useIR);
+		codeGenerator.generate(program, outputDir.resolve(className).toString(), false);
+		URLClassLoader loader = new URLClassLoader(new URL[]{outputDir.toUri().toURL()},
+																							 TestCompiler.class.getClassLoader());
+		return loader.loadClass(className);
+	}
+
+	/**
+	 * Invoke the Juno main function of a compiled program and return its result.
+	 */
+	static Object runMain(Class<?> program) throws Exception {
+		try {
+			return program.getMethod("main").invoke(null);
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof Exception cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Invoke the JVM entry point of a compiled program and capture what it prints.
+	 */
+	static String runCapturingOutput(Class<?> program) throws Exception {
+		PrintStream originalOut = System.out;
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		System.setOut(new PrintStream(captured, true));
+		try {
+			program.getMethod("main", String[].class).invoke(null, (Object) new String[0]);
+		} finally {
+			System.setOut(originalOut);
+		}
+		return captured.toString();
+	}
+}
@@ -0,0 +1,185 @@
+package com.juno.codegen;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.*;
+
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Tests for the bytecode peephole pass.
+ */
+public class PeepholeOptimizerTest {
+
+	private static MethodNode method(String descriptor, AbstractInsnNode... instructions) {
+		MethodNode method = new MethodNode(ASM9, ACC_PUBLIC | ACC_STATIC, "run", descriptor, null, null);
+		for (AbstractInsnNode instruction : instructions) {
+			method.instructions.add(instruction);
+		}
+		return method;
+	}
+
+	private static List<Integer> opcodes(MethodNode method) {
+		List<Integer> opcodes = new ArrayList<>();
+		for (AbstractInsnNode node : method.instructions) {
+			if (node.getOpcode() >= 0) {
+				opcodes.add(node.getOpcode());
+			}
+		}
+		return opcodes;
+	}
+
+	/**
+	 * Write the method into a class of its own, load it and call it, so the verifier checks the result.
+	 */
+	private static Object invoke(MethodNode method, Object... args) throws Exception {
+		String className = "com/juno/codegen/Peephole" + System.nanoTime();
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+		writer.visit(V1_8, ACC_PUBLIC, className, null, "java/lang/Object", null);
+		method.accept(writer);
+		writer.visitEnd();
+
+		Class<?> loaded = MethodHandles.lookup().defineClass(writer.toByteArray());
+		for (java.lang.reflect.Method candidate : loaded.getMethods()) {
+			if (candidate.getName().equals("run")) {
+				return candidate.invoke(null, args);
+			}
+		}
+		throw new AssertionError("run() not found");
+	}
+
+	@Test
+	@DisplayName("Should drop the DUP/POP around assignments used as statements")
+	public void testAssignmentStatement() throws Exception {
+		// x = x + 1; return x;
+		MethodNode method = method("(I)I",
+				new VarInsnNode(ILOAD, 0), new IntInsnNode(BIPUSH, 1), new InsnNode(IADD),
+				new InsnNode(DUP), new VarInsnNode(ISTORE, 0), new InsnNode(POP),
+				new VarInsnNode(ILOAD, 0), new InsnNode(IRETURN));
+
+		new PeepholeOptimizer().optimize(method);
+
+		assertThat(opcodes(method)).doesNotContain(POP, BIPUSH);
+		assertThat(invoke(method, 41)).isEqualTo(42);
+	}
+
+	@Test
+	@DisplayName("Should use the shortest constant forms and fold conversions")
+	public void testConstants() {
+		MethodNode method = method("()J",
+				new IntInsnNode(BIPUSH, 3), new InsnNode(POP),
+				new IntInsnNode(SIPUSH, 100), new InsnNode(POP),
+				new LdcInsnNode(7), new InsnNode(I2L),
+				new LdcInsnNode(-0.0f), new InsnNode(POP),
+				new InsnNode(LRETURN));
+
+		assertThat(PeepholeOptimizer.pushInt(3).getOpcode()).isEqualTo(ICONST_3);
+		assertThat(PeepholeOptimizer.pushInt(100).getOpcode()).isEqualTo(BIPUSH);
+		assertThat(PeepholeOptimizer.pushInt(1000).getOpcode()).isEqualTo(SIPUSH);
+		assertThat(PeepholeOptimizer.pushLong(1).getOpcode()).isEqualTo(LCONST_1);
+		assertThat(PeepholeOptimizer.pushFloat(-0.0f).getOpcode()).isEqualTo(LDC);
+		assertThat(PeepholeOptimizer.pushDouble(1.0).getOpcode()).isEqualTo(DCONST_1);
+
+		new PeepholeOptimizer().optimize(method);
+
+		// The unused pushes are gone and 7 is loaded as a long constant directly
+		assertThat(opcodes(method)).containsExactly(LDC, LRETURN);
+		assertThat(((LdcInsnNode) method.instructions.getFirst()).cst).isEqualTo(7L);
+	}
+
+	@Test
+	@DisplayName("Should turn a materialized boolean that is tested right away into one jump")
+	public void testMaterializedBoolean() throws Exception {
+		// return a < b ? 10 : 20, compiled the way the code generator compiles comparisons
+		LabelNode isTrue = new LabelNode();
+		LabelNode end = new LabelNode();
+		LabelNode otherwise = new LabelNode();
+		MethodNode method = method("(II)I",
+				new VarInsnNode(ILOAD, 0), new VarInsnNode(ILOAD, 1),
+				new JumpInsnNode(IF_ICMPLT, isTrue),
+				new InsnNode(ICONST_0), new JumpInsnNode(GOTO, end),
+				isTrue, new InsnNode(ICONST_1),
+				end, new JumpInsnNode(IFEQ, otherwise),
+				new IntInsnNode(BIPUSH, 10), new InsnNode(IRETURN),
+				otherwise, new IntInsnNode(BIPUSH, 20), new InsnNode(IRETURN));
+
+		new PeepholeOptimizer().optimize(method);
+
+		assertThat(opcodes(method)).containsExactly(ILOAD, ILOAD, IF_ICMPGE, BIPUSH, IRETURN, BIPUSH, IRETURN);
+		assertThat(invoke(method, 1, 2)).isEqualTo(10);
+		assertThat(invoke(method, 2, 1)).isEqualTo(20);
+	}
+
+	@Test
+	@DisplayName("Should thread jump chains and remove unreachable code")
+	public void testJumpChains() throws Exception {
+		LabelNode first = new LabelNode();
+		LabelNode second = new LabelNode();
+		MethodNode method = method("(I)I",
+				new VarInsnNode(ILOAD, 0), new JumpInsnNode(IFNE, first),
+				new InsnNode(ICONST_0), new InsnNode(IRETURN),
+				new InsnNode(ICONST_2), new InsnNode(IRETURN),
+				first, new JumpInsnNode(GOTO, second),
+				second, new InsnNode(ICONST_1), new InsnNode(IRETURN));
+
+		new PeepholeOptimizer().optimize(method);
+
+		assertThat(opcodes(method)).containsExactly(ILOAD, IFNE, ICONST_0, IRETURN, ICONST_1, IRETURN);
+		assertThat(invoke(method, 0)).isEqualTo(0);
+		assertThat(invoke(method, 5)).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Should remove stores to locals that are never read and identity conversions")
+	public void testDeadStoresAndConversions() throws Exception {
+		MethodNode method = method("(I)I",
+				new VarInsnNode(ILOAD, 0), new VarInsnNode(ISTORE, 1),
+				new VarInsnNode(ILOAD, 0), new InsnNode(I2L), new InsnNode(L2I),
+				new InsnNode(IRETURN));
+
+		PeepholeOptimizer optimizer = new PeepholeOptimizer();
+		optimizer.optimize(method);
+
+		assertThat(opcodes(method)).containsExactly(ILOAD, IRETURN);
+		assertThat(optimizer.getInstructionsBefore()).isEqualTo(6);
+		assertThat(optimizer.getInstructionsAfter()).isEqualTo(2);
+		assertThat(invoke(method, 9)).isEqualTo(9);
+	}
+
+	@Test
+	@DisplayName("Should not call String.valueOf on values that already are strings")
+	public void testRedundantValueOf() throws Exception {
+		MethodNode method = method("()Ljava/lang/String;",
+				new LdcInsnNode("a"),
+				new MethodInsnNode(INVOKESTATIC, "java/lang/String", "valueOf", "(Ljava/lang/Object;)Ljava/lang/String;", false),
+				new InsnNode(ARETURN));
+
+		new PeepholeOptimizer().optimize(method);
+
+		assertThat(opcodes(method)).containsExactly(LDC, ARETURN);
+		assertThat(invoke(method)).isEqualTo("a");
+	}
+
+	@Test
+	@DisplayName("Should keep String.valueOf on calls that may return null")
+	public void testValueOfNullableCall() throws Exception {
+		// String.valueOf(Objects.toString(s, null))
+		MethodNode method = method("(Ljava/lang/String;)Ljava/lang/String;",
+				new VarInsnNode(ALOAD, 0),
+				new InsnNode(ACONST_NULL),
+				new MethodInsnNode(INVOKESTATIC, "java/util/Objects", "toString", "(Ljava/lang/Object;Ljava/lang/String;)Ljava/lang/String;", false),
+				new MethodInsnNode(INVOKESTATIC, "java/lang/String", "valueOf", "(Ljava/lang/Object;)Ljava/lang/String;", false),
+				new InsnNode(ARETURN));
+
+		new PeepholeOptimizer().optimize(method);
+
+		assertThat(opcodes(method)).containsExactly(ALOAD, ACONST_NULL, INVOKESTATIC, INVOKESTATIC, ARETURN);
+		assertThat(invoke(method, (Object) null)).isEqualTo("null");
+	}
+}
@@ -0,0 +1,363 @@
+package com.juno.ir;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.objectweb.asm.Opcodes.*;
+
+/**
+ * Tests for SSA construction, the IR passes and bytecode emission.
+ */
+public class IROptimizerTest {
+
+	/**
+	 * Emit the function into a class of its own, load it and call it, so the verifier checks the result.
+	 */
+	private static Object invoke(Function function, Object... args) throws Exception {
+		String className = "com/juno/ir/Emitted" + System.nanoTime();
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+		writer.visit(V1_8, ACC_PUBLIC, className, null, "java/lang/Object", null);
+		MethodVisitor mv = writer.visitMethod(ACC_PUBLIC | ACC_STATIC, function.getName(), function.getDescriptor(), null, null);
+		mv.visitCode();
+		new BytecodeEmitter().emit(function, mv);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+		writer.visitEnd();
+
+		Class<?> loaded = MethodHandles.lookup().defineClass(writer.toByteArray());
+		for (java.lang.reflect.Method candidate : loaded.getMethods()) {
+			if (candidate.getName().equals(function.getName())) {
+				return candidate.invoke(null, args);
+			}
+		}
+		throw new AssertionError(function.getName() + "() not found");
+	}
+
+	private static int countInstructions(Function function) {
+		int count = 0;
+		for (BasicBlock block : function.getBlocks()) {
+			count += block.getPhis().size() + block.getInstructions().size();
+		}
+		return count;
+	}
+
+	/**
+	 * int sum(int n) { int total = 0; int i = 0; while i < n { total = total + i; i = i + 1; } return total; }
+	 */
+	private static Function sumLoop() {
+		Function function = new Function("sum", IRType.INT, List.of(IRType.INT));
+		IRBuilder builder = new IRBuilder(function);
+		Object n = "n", total = "total", i = "i";
+		builder.declareVariable(n, IRType.INT);
+		builder.declareVariable(total, IRType.INT);
+		builder.declareVariable(i, IRType.INT);
+		builder.writeVariable(n, function.getParameters().get(0));
+		builder.writeVariable(total, Constant.ofInt(0));
+		builder.writeVariable(i, Constant.ofInt(0));
+
+		BasicBlock header = builder.newBlock();
+		BasicBlock body = builder.newBlock();
+		BasicBlock exit = builder.newBlock();
+		builder.jump(header);
+		builder.setCurrentBlock(header);
+		Value condition = builder.append(new CompareInstruction(CompareInstruction.Operator.LT,
+																														builder.readVariable(i), builder.readVariable(n)));
+		builder.branch(condition, body, exit);
+
+		builder.sealBlock(body);
+		builder.setCurrentBlock(body);
+		builder.writeVariable(total, builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD,
+																																				builder.readVariable(total), builder.readVariable(i))));
+		builder.writeVariable(i, builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD,
+																																		builder.readVariable(i), Constant.ofInt(1))));
+		builder.jump(header);
+		builder.sealBlock(header);
+
+		builder.sealBlock(exit);
+		builder.setCurrentBlock(exit);
+		builder.ret(builder.readVariable(total));
+		return function;
+	}
+
+	/**
+	 * int scaled(int n, int k) { int total = 0; int i = 0; while i < n { int f = k * 3; total = total + i * f; i = i + 1; } return total; }
+	 */
+	private static Function scaledLoop() {
+		Function function = new Function("scaled", IRType.INT, List.of(IRType.INT, IRType.INT));
+		IRBuilder builder = new IRBuilder(function);
+		Object total = "total", i = "i";
+		builder.declareVariable(total, IRType.INT);
+		builder.declareVariable(i, IRType.INT);
+		builder.writeVariable(total, Constant.ofInt(0));
+		builder.writeVariable(i, Constant.ofInt(0));
+
+		BasicBlock header = builder.newBlock();
+		BasicBlock body = builder.newBlock();
+		BasicBlock exit = builder.newBlock();
+		builder.jump(header);
+		builder.setCurrentBlock(header);
+		builder.branch(builder.append(new CompareInstruction(CompareInstruction.Operator.LT,
+																												 builder.readVariable(i), function.getParameters().get(0))), body, exit);
+
+		builder.sealBlock(body);
+		builder.setCurrentBlock(body);
+		Value factor = builder.append(new BinaryInstruction(BinaryInstruction.Operator.MUL,
+																												function.getParameters().get(1), Constant.ofInt(3)));
+		Value product = builder.append(new BinaryInstruction(BinaryInstruction.Operator.MUL, builder.readVariable(i), factor));
+		builder.writeVariable(total, builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD,
+																																				builder.readVariable(total), product)));
+		builder.writeVariable(i, builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD,
+																																		builder.readVariable(i), Constant.ofInt(1))));
+		builder.jump(header);
+		builder.sealBlock(header);
+
+		builder.sealBlock(exit);
+		builder.setCurrentBlock(exit);
+		builder.ret(builder.readVariable(total));
+		return function;
+	}
+
+	@Test
+	@DisplayName("Should build SSA form with phis at the loop header")
+	public void testBuildsLoopPhis() throws Exception {
+		Function function = sumLoop();
+
+		BasicBlock header = function.getBlocks().get(1);
+		// n is loop-invariant, so its phi is trivial; total and i need real phis
+		assertThat(header.getPhis()).hasSize(3);
+
+		new CopyPropagation().run(function);
+		assertThat(header.getPhis()).hasSize(2);
+		assertThat(function.toString()).contains("phi int [b0: 0], [b2: ");
+
+		assertThat(invoke(function, 5)).isEqualTo(10);
+		assertThat(invoke(function, 0)).isEqualTo(0);
+	}
+
+	@Test
+	@DisplayName("Should replace an expression computed in a dominating block")
+	public void testGlobalValueNumbering() throws Exception {
+		// int f(int a, int b) { int x = a * b; if a > 0 { return b * a + x; } return x; }
+		Function function = new Function("f", IRType.INT, List.of(IRType.INT, IRType.INT));
+		Parameter a = function.getParameters().get(0);
+		Parameter b = function.getParameters().get(1);
+		IRBuilder builder = new IRBuilder(function);
+		Value x = builder.append(new BinaryInstruction(BinaryInstruction.Operator.MUL, a, b));
+		BasicBlock then = builder.newBlock();
+		BasicBlock rest = builder.newBlock();
+		builder.branch(builder.append(new CompareInstruction(CompareInstruction.Operator.GT, a, Constant.ofInt(0))), then, rest);
+		builder.setCurrentBlock(then);
+		Value again = builder.append(new BinaryInstruction(BinaryInstruction.Operator.MUL, b, a));
+		builder.ret(builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD, again, x)));
+		builder.setCurrentBlock(rest);
+		builder.ret(x);
+
+		int replaced = new GlobalValueNumbering().run(function);
+
+		assertThat(replaced).isEqualTo(1);
+		assertThat(then.getInstructions()).hasSize(1);
+		assertThat(then.getInstructions().get(0).getOperands()).containsExactly(x, x);
+		assertThat(invoke(function, 3, 4)).isEqualTo(24);
+		assertThat(invoke(function, -3, 4)).isEqualTo(-12);
+	}
+
+	@Test
+	@DisplayName("Should reuse global loads until a call may change the global")
+	public void testCommonSubexpressionElimination() {
+		Function function = new Function("g", IRType.INT, List.of());
+		IRBuilder builder = new IRBuilder(function);
+		Value first = builder.append(new LoadGlobalInstruction(IRType.INT, "Owner", "count"));
+		Value second = builder.append(new LoadGlobalInstruction(IRType.INT, "Owner", "count"));
+		Value sum = builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD, first, second));
+		builder.append(new StoreGlobalInstruction("Owner", "count", sum));
+		Value stored = builder.append(new LoadGlobalInstruction(IRType.INT, "Owner", "count"));
+		builder.append(new CallInstruction(IRType.VOID, "Owner", "touch", "()V"));
+		Value reloaded = builder.append(new LoadGlobalInstruction(IRType.INT, "Owner", "count"));
+		builder.ret(builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD, stored, reloaded)));
+
+		int replaced = new CommonSubexpressionElimination().run(function);
+
+		assertThat(replaced).isEqualTo(2);
+		List<Instruction> instructions = function.getEntry().getInstructions();
+		assertThat(instructions.get(1).getOperands()).containsExactly(first, first);
+		assertThat(instructions.get(instructions.size() - 1).getOperands()).containsExactly(sum, reloaded);
+	}
+
+	@Test
+	@DisplayName("Should propagate copies and remove the code they leave dead")
+	public void testCopyPropagationAndDeadCode() throws Exception {
+		Function function = new Function("h", IRType.LONG, List.of(IRType.INT));
+		Parameter p = function.getParameters().get(0);
+		IRBuilder builder = new IRBuilder(function);
+		Value plusZero = builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD, p, Constant.ofInt(0)));
+		Value wide = builder.append(new ConvertInstruction(plusZero, IRType.LONG));
+		Value narrow = builder.append(new ConvertInstruction(wide, IRType.INT));
+		builder.append(new BinaryInstruction(BinaryInstruction.Operator.MUL, narrow, Constant.ofInt(7)));
+		Value timesOne = builder.append(new BinaryInstruction(BinaryInstruction.Operator.MUL, wide, Constant.of(IRType.LONG, 1)));
+		builder.ret(timesOne);
+
+		assertThat(new CopyPropagation().run(function)).isEqualTo(3);
+		assertThat(new DeadCodeElimination().run(function)).isEqualTo(1);
+
+		// Only the widening conversion is left
+		assertThat(function.getEntry().getInstructions()).containsExactly((Instruction) wide);
+		assertThat(invoke(function, 42)).isEqualTo(42L);
+	}
+
+	@Test
+	@DisplayName("Should keep instructions that can throw even when their result is unused")
+	public void testKeepsDivision() {
+		Function function = new Function("d", IRType.VOID, List.of(IRType.INT));
+		IRBuilder builder = new IRBuilder(function);
+		builder.append(new BinaryInstruction(BinaryInstruction.Operator.DIV, Constant.ofInt(1), function.getParameters().get(0)));
+		builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD, Constant.ofInt(1), function.getParameters().get(0)));
+		builder.ret(null);
+
+		assertThat(new DeadCodeElimination().run(function)).isEqualTo(1);
+		assertThat(function.getEntry().getInstructions()).hasSize(1);
+	}
+
+	@Test
+	@DisplayName("Should emit floating-point comparisons that are false for NaN")
+	public void testFloatingPointBranches() throws Exception {
+		for (CompareInstruction.Operator operator : CompareInstruction.Operator.values()) {
+			Function function = new Function("cmp", IRType.INT, List.of(IRType.DOUBLE, IRType.DOUBLE));
+			IRBuilder builder = new IRBuilder(function);
+			BasicBlock yes = builder.newBlock();
+			BasicBlock no = builder.newBlock();
+			builder.branch(builder.append(new CompareInstruction(operator, function.getParameters().get(0),
+																													 function.getParameters().get(1))), yes, no);
+			builder.setCurrentBlock(yes);
+			builder.ret(Constant.ofInt(1));
+			builder.setCurrentBlock(no);
+			builder.ret(Constant.ofInt(0));
+
+			int expected = operator == CompareInstruction.Operator.NE ? 1 : 0;
+			assertThat(invoke(function, Double.NaN, 1.0)).as(operator.name()).isEqualTo(expected);
+			assertThat(invoke(function, 1.0, Double.NaN)).as(operator.name()).isEqualTo(expected);
+		}
+	}
+
+	@Test
+	@DisplayName("Should move loop-invariant computations into the preheader")
+	public void testLoopInvariantCodeMotion() throws Exception {
+		Function function = scaledLoop();
+		new CopyPropagation().run(function);
+		BasicBlock body = function.getBlocks().get(2);
+		Instruction factor = body.getInstructions().get(0);
+
+		assertThat(new LoopInvariantCodeMotion().run(function)).isEqualTo(1);
+		assertThat(factor.getBlock()).isSameAs(function.getEntry());
+		assertThat(body.getInstructions()).doesNotContain(factor);
+		assertThat(invoke(function, 5, 2)).isEqualTo(60);
+		assertThat(invoke(function, 0, 2)).isEqualTo(0);
+	}
+
+	@Test
+	@DisplayName("Should only move global loads out of loops that cannot change the global")
+	public void testLoopInvariantLoads() {
+		// while i < n { a = load @a; b = load @b; store @b, a + b; i = i + 1 }
+		Function function = new Function("loads", IRType.VOID, List.of(IRType.INT));
+		IRBuilder builder = new IRBuilder(function);
+		Object i = "i";
+		builder.declareVariable(i, IRType.INT);
+		builder.writeVariable(i, Constant.ofInt(0));
+		BasicBlock header = builder.newBlock();
+		BasicBlock body = builder.newBlock();
+		BasicBlock exit = builder.newBlock();
+		builder.jump(header);
+		builder.setCurrentBlock(header);
+		builder.branch(builder.append(new CompareInstruction(CompareInstruction.Operator.LT,
+																												 builder.readVariable(i), function.getParameters().get(0))), body, exit);
+		builder.sealBlock(body);
+		builder.setCurrentBlock(body);
+		Instruction a = builder.append(new LoadGlobalInstruction(IRType.INT, "Owner", "a"));
+		Instruction b = builder.append(new LoadGlobalInstruction(IRType.INT, "Owner", "b"));
+		builder.append(new StoreGlobalInstruction("Owner", "b", builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD, a, b))));
+		builder.writeVariable(i, builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD,
+																																		builder.readVariable(i), Constant.ofInt(1))));
+		builder.jump(header);
+		builder.sealBlock(header);
+		builder.sealBlock(exit);
+		builder.setCurrentBlock(exit);
+		builder.ret(null);
+
+		assertThat(new LoopInvariantCodeMotion().run(function)).isEqualTo(1);
+		assertThat(a.getBlock()).isSameAs(function.getEntry());
+		assertThat(b.getBlock()).isSameAs(body);
+	}
+
+	@Test
+	@DisplayName("Should replace products of the induction variable with an added induction variable")
+	public void testStrengthReduction() throws Exception {
+		Function function = scaledLoop();
+		new CopyPropagation().run(function);
+		new LoopInvariantCodeMotion().run(function);
+
+		assertThat(new StrengthReduction().run(function)).isEqualTo(1);
+		BasicBlock header = function.getBlocks().get(1);
+		BasicBlock body = function.getBlocks().get(2);
+		assertThat(header.getPhis()).hasSize(3);
+		assertThat(body.getInstructions()).noneMatch(instruction -> instruction instanceof BinaryInstruction binary
+				&& binary.getOperator() == BinaryInstruction.Operator.MUL);
+		assertThat(invoke(function, 5, 2)).isEqualTo(60);
+		assertThat(invoke(function, 1, 7)).isEqualTo(0);
+		// The two induction variables overflow alike
+		assertThat(invoke(function, 100000, 7)).isEqualTo((int) (100000L * 99999 / 2 * 21));
+	}
+
+	@Test
+	@DisplayName("Should count what the pipeline removes")
+	public void testOptimizerStatistics() throws Exception {
+		Function function = sumLoop();
+		int before = countInstructions(function);
+
+		IROptimizer optimizer = new IROptimizer();
+		optimizer.optimize(function);
+
+		assertThat(countInstructions(function)).isLessThan(before);
+		assertThat(optimizer.getStatistics()).containsKeys("copy propagation", "cse", "gvn", "licm", "strength reduction", "dce");
+		assertThat(optimizer.summary()).startsWith("IR optimized 1 function(s)");
+		assertThat(invoke(function, 100)).isEqualTo(4950);
+	}
+
+	@Test
+	@DisplayName("Should share slots between values whose lifetimes do not overlap")
+	public void testSlotReuse() throws Exception {
+		// a = p + 1; b = a * a; c = b * b; return c + c: a is dead once b is computed
+		Function function = new Function("squares", IRType.INT, List.of(IRType.INT));
+		IRBuilder builder = new IRBuilder(function);
+		Value a = builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD, function.getParameters().get(0), Constant.ofInt(1)));
+		Value b = builder.append(new BinaryInstruction(BinaryInstruction.Operator.MUL, a, a));
+		Value c = builder.append(new BinaryInstruction(BinaryInstruction.Operator.MUL, b, b));
+		builder.ret(builder.append(new BinaryInstruction(BinaryInstruction.Operator.ADD, c, c)));
+
+		BytecodeEmitter emitter = new BytecodeEmitter();
+		emitter.emit(function, new MethodNode(ASM9, ACC_STATIC, "squares", function.getDescriptor(), null, null));
+
+		// The parameter plus two slots that a, b and c take turns in
+		assertThat(emitter.getMaxLocals()).isEqualTo(3);
+		assertThat(invoke(function, 1)).isEqualTo(32);
+	}
+
+	@Test
+	@DisplayName("Should keep loop-carried values apart from values defined inside the loop")
+	public void testLoopSlots() throws Exception {
+		Function function = sumLoop();
+		new CopyPropagation().run(function);
+
+		BytecodeEmitter emitter = new BytecodeEmitter();
+		emitter.emit(function, new MethodNode(ASM9, ACC_STATIC, "sum", function.getDescriptor(), null, null));
+
+		// n, the phis for total and i, and their new values, which are all live when the copies are made
+		assertThat(emitter.getMaxLocals()).isEqualTo(5);
+		assertThat(invoke(function, 10)).isEqualTo(45);
+	}
+}
@@ -97,6 +97,19 @@ public class LexerTest {
 		assertThat(tokens.get(9).getType()).isEqualTo(TokenType.ARROW);
 	}
 
+	@Test
+	@DisplayName("Should tokenize range operators without reading them as decimal points")
+	public void testRanges() {
+		String source = "0..n 1..=10 x.y";
+		Lexer lexer = new Lexer(source, "test.juno", new com.juno.error.ErrorCollector());
+		List<Token> tokens = lexer.tokenize();
+
+		assertThat(tokens.subList(0, tokens.size() - 1)).extracting(Token::getType).containsExactly(
+				TokenType.INTEGER_LITERAL, TokenType.RANGE, TokenType.IDENTIFIER,
+				TokenType.INTEGER_LITERAL, TokenType.RANGE_INCLUSIVE, TokenType.INTEGER_LITERAL,
+				TokenType.IDENTIFIER, TokenType.DOT, TokenType.IDENTIFIER);
+	}
+
 	@Test
 	@DisplayName("Should tokenize identifiers correctly")
 	public void testIdentifiers() {